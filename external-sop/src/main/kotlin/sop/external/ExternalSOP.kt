@@ -11,7 +11,12 @@ import javax.annotation.Nonnull
 import sop.Ready
 import sop.SOP
 import sop.exception.SOPGPException.*
+import sop.external.jfr.ProcessExitEvent
+import sop.external.jfr.ProcessSpawnEvent
+import sop.external.jfr.TempFileEvent
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.external.operation.*
+import sop.instrumentation.tracing.TraceContext
 import sop.operation.*
 
 /**
@@ -22,11 +27,17 @@ import sop.operation.*
  *
  * @param binaryName name / path of the SOP binary
  * @param tempDirProvider custom tempDirProvider
+ * @param concurrencyLimiter limits the number of concurrently running processes of this instance.
+ *   If the limit is reached, starting a process blocks until another process terminated. Processes
+ *   are only started once the result of an operation is written, so results which are never written
+ *   do not count against the limit. Share a limiter between instances to limit them together. Null
+ *   means no limit (default).
  */
 class ExternalSOP(
     private val binaryName: String,
     private val properties: Properties = Properties(),
-    private val tempDirProvider: TempDirProvider = defaultTempDirProvider()
+    private val tempDirProvider: TempDirProvider = defaultTempDirProvider(),
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
 ) : SOP {
 
     constructor(
@@ -34,47 +45,65 @@ class ExternalSOP(
         properties: Properties
     ) : this(binaryName, properties, defaultTempDirProvider())
 
-    override fun version(): Version = VersionExternal(binaryName, properties)
+    constructor(
+        binaryName: String,
+        properties: Properties,
+        tempDirProvider: TempDirProvider
+    ) : this(binaryName, properties, tempDirProvider, null)
 
-    override fun generateKey(): GenerateKey = GenerateKeyExternal(binaryName, properties)
+    override fun version(): Version = VersionExternal(binaryName, properties, concurrencyLimiter)
 
-    override fun extractCert(): ExtractCert = ExtractCertExternal(binaryName, properties)
+    override fun generateKey(): GenerateKey =
+        GenerateKeyExternal(binaryName, properties, concurrencyLimiter)
+
+    override fun extractCert(): ExtractCert =
+        ExtractCertExternal(binaryName, properties, concurrencyLimiter)
 
     override fun detachedSign(): DetachedSign =
-        DetachedSignExternal(binaryName, properties, tempDirProvider)
+        DetachedSignExternal(binaryName, properties, tempDirProvider, concurrencyLimiter)
 
-    override fun inlineSign(): InlineSign = InlineSignExternal(binaryName, properties)
+    override fun inlineSign(): InlineSign =
+        InlineSignExternal(binaryName, properties, concurrencyLimiter)
 
-    override fun detachedVerify(): DetachedVerify = DetachedVerifyExternal(binaryName, properties)
+    override fun detachedVerify(): DetachedVerify =
+        DetachedVerifyExternal(binaryName, properties, concurrencyLimiter)
 
     override fun inlineVerify(): InlineVerify =
-        InlineVerifyExternal(binaryName, properties, tempDirProvider)
+        InlineVerifyExternal(binaryName, properties, tempDirProvider, concurrencyLimiter)
 
     override fun inlineDetach(): InlineDetach =
-        InlineDetachExternal(binaryName, properties, tempDirProvider)
+        InlineDetachExternal(binaryName, properties, tempDirProvider, concurrencyLimiter)
 
-    override fun encrypt(): Encrypt = EncryptExternal(binaryName, properties, tempDirProvider)
+    override fun encrypt(): Encrypt =
+        EncryptExternal(binaryName, properties, tempDirProvider, concurrencyLimiter)
 
-    override fun decrypt(): Decrypt = DecryptExternal(binaryName, properties, tempDirProvider)
+    override fun decrypt(): Decrypt =
+        DecryptExternal(binaryName, properties, tempDirProvider, concurrencyLimiter)
 
-    override fun armor(): Armor = ArmorExternal(binaryName, properties)
+    override fun armor(): Armor = ArmorExternal(binaryName, properties, concurrencyLimiter)
 
-    override fun dearmor(): Dearmor = DearmorExternal(binaryName, properties)
+    override fun dearmor(): Dearmor = DearmorExternal(binaryName, properties, concurrencyLimiter)
 
-    override fun listProfiles(): ListProfiles = ListProfilesExternal(binaryName, properties)
+    override fun listProfiles(): ListProfiles =
+        ListProfilesExternal(binaryName, properties, concurrencyLimiter)
 
-    override fun revokeKey(): RevokeKey = RevokeKeyExternal(binaryName, properties)
+    override fun revokeKey(): RevokeKey =
+        RevokeKeyExternal(binaryName, properties, concurrencyLimiter)
 
     override fun changeKeyPassword(): ChangeKeyPassword =
-        ChangeKeyPasswordExternal(binaryName, properties)
+        ChangeKeyPasswordExternal(binaryName, properties, concurrencyLimiter)
 
-    override fun updateKey(): UpdateKey = UpdateKeyExternal(binaryName, properties)
+    override fun updateKey(): UpdateKey =
+        UpdateKeyExternal(binaryName, properties, concurrencyLimiter)
 
-    override fun mergeCerts(): MergeCerts = MergeCertsExternal(binaryName, properties)
+    override fun mergeCerts(): MergeCerts =
+        MergeCertsExternal(binaryName, properties, concurrencyLimiter)
 
-    override fun certifyUserId(): CertifyUserId = CertifyUserIdExternal(binaryName, properties)
+    override fun certifyUserId(): CertifyUserId =
+        CertifyUserIdExternal(binaryName, properties, concurrencyLimiter)
 
-    override fun validateUserId(): ValidateUserId = ValidateUserIdExternal(binaryName, properties)
+    override fun validateUserId(): ValidateUserId =
+        ValidateUserIdExternal(binaryName, properties, concurrencyLimiter)
 
     /**
      * This interface can be used to provide a directory in which external SOP binaries can
@@ -107,7 +136,15 @@ class ExternalSOP(
         @Throws(InterruptedException::class, IOException::class)
         private fun mapExitCodeOrException(process: Process) {
             // wait for process termination
+            val event = ProcessExitEvent()
+            event.begin()
             val exitCode = process.waitFor()
+            event.end()
+            if (event.shouldCommit()) {
+                event.pid = process.pid()
+                event.exitCode = exitCode
+                event.commit()
+            }
 
             if (exitCode == 0) {
                 // we're good, bye
@@ -204,7 +241,8 @@ class ExternalSOP(
 
         /**
          * Return all key-value pairs from the given [Properties] object as a list with items of the
-         * form `key=value`.
+         * form `key=value`. The W3C `traceparent` of the current [TraceContext] is added to the
+         * environment later on by [runProcess], once the span of the operation is known.
          *
          * @param properties properties
          * @return list of key=value strings
@@ -232,6 +270,145 @@ class ExternalSOP(
             return bOut.toString()
         }
 
+        /**
+         * Spawn a SOP process for the given command using the given environment variables and pass
+         * it to the given block, which feeds the process, reads its output and calls [finish]. All
+         * processes are started through this method, which emits a [ProcessSpawnEvent].
+         *
+         * If a [TraceContext] is current on the calling thread, it is passed to the process via the
+         * [TraceContext.TRACEPARENT_ENV] environment variable. If a [limiter] is given, this method
+         * blocks until the process may be started and holds the slot until the block returns. If
+         * the block fails, the process is destroyed.
+         *
+         * Operations returning a [Ready] call this method from [Ready.writeTo], so that a result
+         * which is never consumed neither starts a process nor occupies a slot.
+         *
+         * @param runtime runtime
+         * @param commandList command, starting with the binary name followed by the subcommand
+         * @param envList environment variables
+         * @param limiter concurrency limiter or null
+         * @param block block interacting with the process
+         * @return result of the block
+         * @throws IOException if the process cannot be started or the block fails
+         */
+        @JvmStatic
+        @Throws(IOException::class)
+        fun <T> runProcess(
+            runtime: Runtime,
+            commandList: List<String>,
+            envList: List<String>,
+            limiter: AdaptiveConcurrencyLimiter?,
+            block: (Process) -> T
+        ): T {
+            val token = limiter?.let { acquire(it) }
+            val process =
+                try {
+                    spawn(runtime, commandList, envList)
+                } catch (e: IOException) {
+                    token?.drop()
+                    throw e
+                }
+            val result =
+                try {
+                    block(process)
+                } catch (t: Throwable) {
+                    process.destroyForcibly()
+                    token?.cancel()
+                    throw t
+                }
+            token?.release()
+            return result
+        }
+
+        private fun spawn(
+            runtime: Runtime,
+            commandList: List<String>,
+            envList: List<String>
+        ): Process {
+            val event = ProcessSpawnEvent()
+            event.begin()
+            val process = runtime.exec(commandList.toTypedArray(), withTraceparent(envList))
+            event.end()
+            if (event.shouldCommit()) {
+                event.subcommand = commandList.getOrNull(1)
+                event.pid = process.pid()
+                event.commit()
+            }
+            return process
+        }
+
+        @Throws(InterruptedIOException::class)
+        private fun acquire(limiter: AdaptiveConcurrencyLimiter): AdaptiveConcurrencyLimiter.Token =
+            try {
+                limiter.acquire()
+            } catch (e: InterruptedException) {
+                Thread.currentThread().interrupt()
+                throw InterruptedIOException("Interrupted while waiting to start SOP process.")
+            }
+
+        private fun withTraceparent(envList: List<String>): Array<String> {
+            val context = TraceContext.current() ?: return envList.toTypedArray()
+            val prefix = "${TraceContext.TRACEPARENT_ENV}="
+            return envList
+                .filterNot { it.startsWith(prefix) }
+                .plus("$prefix${context.toTraceparent()}")
+                .toTypedArray()
+        }
+
+        /**
+         * Return a [File] with the given name inside the given temporary directory, to which a SOP
+         * binary can write additional results. Any stale file with that name is removed. A
+         * [TempFileEvent] is emitted once the path is allocated. Callers MUST pass the file to
+         * [deleteTempFile] once they are done with it, even if the binary failed.
+         *
+         * @param tempDir temporary directory
+         * @param name file name
+         * @return file
+         */
+        @JvmStatic
+        fun tempFile(tempDir: File, name: String): File {
+            val file = File(tempDir, name).also { it.delete() }
+            val event = TempFileEvent()
+            if (event.shouldCommit()) {
+                event.action = TempFileEvent.CREATE
+                event.path = file.absolutePath
+                event.commit()
+            }
+            return file
+        }
+
+        /**
+         * Open a temporary file obtained via [tempFile] after the SOP binary wrote its result to
+         * it.
+         *
+         * @param file file
+         * @return input stream reading the file
+         * @throws IOException if the file cannot be opened, e.g. because the binary did not create
+         *   it
+         */
+        @JvmStatic
+        @Throws(IOException::class)
+        fun openTempFile(file: File): InputStream = FileInputStream(file)
+
+        /**
+         * Delete a temporary file obtained via [tempFile].
+         *
+         * @param file file
+         */
+        @JvmStatic
+        fun deleteTempFile(file: File) {
+            val event = TempFileEvent()
+            if (!event.shouldCommit()) {
+                file.delete()
+                return
+            }
+            event.action = TempFileEvent.DELETE
+            event.path = file.absolutePath
+            event.size = file.length()
+            file.delete()
+            event.commit()
+        }
+
         /**
          * Execute the given command on the given [Runtime] with the given list of environment
          * variables. This command does not transform any input data, and instead is purely a
@@ -240,21 +417,22 @@ class ExternalSOP(
          * @param runtime runtime
          * @param commandList command
          * @param envList environment variables
+         * @param limiter concurrency limiter or null
          * @return ready to read the result from
          */
         @JvmStatic
+        @JvmOverloads
         fun executeProducingOperation(
             runtime: Runtime,
             commandList: List<String>,
-            envList: List<String>
+            envList: List<String>,
+            limiter: AdaptiveConcurrencyLimiter? = null
         ): Ready {
-            try {
-                val process = runtime.exec(commandList.toTypedArray(), envList.toTypedArray())
-                val stdIn = process.inputStream
-
-                return object : Ready() {
-                    @Throws(IOException::class)
-                    override fun writeTo(@Nonnull outputStream: OutputStream) {
+            return object : Ready() {
+                @Throws(IOException::class)
+                override fun writeTo(@Nonnull outputStream: OutputStream) {
+                    runProcess(runtime, commandList, envList, limiter) { process ->
+                        val stdIn = process.inputStream
                         val buf = ByteArray(4096)
                         var r: Int
                         while (stdIn.read(buf).also { r = it } >= 0) {
@@ -265,8 +443,6 @@ class ExternalSOP(
                         finish(process)
                     }
                 }
-            } catch (e: IOException) {
-                throw RuntimeException(e)
             }
         }
 
@@ -279,22 +455,23 @@ class ExternalSOP(
          * @param commandList command
          * @param envList environment variables
          * @param standardIn stream of input data for the process
+         * @param limiter concurrency limiter or null
          * @return ready to read the result from
          */
         @JvmStatic
+        @JvmOverloads
         fun executeTransformingOperation(
             runtime: Runtime,
             commandList: List<String>,
             envList: List<String>,
-            standardIn: InputStream
+            standardIn: InputStream,
+            limiter: AdaptiveConcurrencyLimiter? = null
         ): Ready {
-            try {
-                val process = runtime.exec(commandList.toTypedArray(), envList.toTypedArray())
-                val processOut = process.outputStream
-                val processIn = process.inputStream
-
-                return object : Ready() {
-                    override fun writeTo(outputStream: OutputStream) {
+            return object : Ready() {
+                override fun writeTo(outputStream: OutputStream) {
+                    runProcess(runtime, commandList, envList, limiter) { process ->
+                        val processOut = process.outputStream
+                        val processIn = process.inputStream
                         val buf = ByteArray(4096)
                         var r: Int
                         while (standardIn.read(buf).also { r = it } > 0) {
@@ -324,8 +501,6 @@ class ExternalSOP(
                         finish(process)
                     }
                 }
-            } catch (e: IOException) {
-                throw RuntimeException(e)
             }
         }
 
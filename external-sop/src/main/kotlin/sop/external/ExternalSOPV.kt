@@ -8,6 +8,7 @@ import java.nio.file.Files
 import java.util.*
 import sop.SOPV
 import sop.external.ExternalSOP.TempDirProvider
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.external.operation.DetachedVerifyExternal
 import sop.external.operation.InlineVerifyExternal
 import sop.external.operation.ValidateUserIdExternal
@@ -25,21 +26,31 @@ import sop.operation.Version
  *
  * @param binaryName name / path of the sopv binary
  * @param tempDirProvider custom tempDirProvider
+ * @param concurrencyLimiter limits the number of concurrently running processes, or null (default)
  */
 class ExternalSOPV(
     private val binaryName: String,
     private val properties: Properties = Properties(),
-    private val tempDirProvider: TempDirProvider = defaultTempDirProvider()
+    private val tempDirProvider: TempDirProvider = defaultTempDirProvider(),
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
 ) : SOPV {
 
-    override fun version(): Version = VersionExternal(binaryName, properties)
+    constructor(
+        binaryName: String,
+        properties: Properties,
+        tempDirProvider: TempDirProvider
+    ) : this(binaryName, properties, tempDirProvider, null)
 
-    override fun detachedVerify(): DetachedVerify = DetachedVerifyExternal(binaryName, properties)
+    override fun version(): Version = VersionExternal(binaryName, properties, concurrencyLimiter)
+
+    override fun detachedVerify(): DetachedVerify =
+        DetachedVerifyExternal(binaryName, properties, concurrencyLimiter)
 
     override fun inlineVerify(): InlineVerify =
-        InlineVerifyExternal(binaryName, properties, tempDirProvider)
+        InlineVerifyExternal(binaryName, properties, tempDirProvider, concurrencyLimiter)
 
-    override fun validateUserId(): ValidateUserId = ValidateUserIdExternal(binaryName, properties)
+    override fun validateUserId(): ValidateUserId =
+        ValidateUserIdExternal(binaryName, properties, concurrencyLimiter)
 
     companion object {
 
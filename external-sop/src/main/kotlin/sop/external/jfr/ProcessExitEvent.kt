@@ -0,0 +1,28 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.external.jfr
+
+import jdk.jfr.Category
+import jdk.jfr.Description
+import jdk.jfr.Event
+import jdk.jfr.Label
+import jdk.jfr.Name
+import jdk.jfr.StackTrace
+
+/**
+ * JFR event spanning the time spent waiting for an external SOP process to terminate. The event
+ * duration is the wait time.
+ */
+@Name("sop.external.ProcessExit")
+@Label("External SOP Process Exit")
+@Category("SOP", "External")
+@Description("Waiting for an external SOP binary to terminate")
+@StackTrace(false)
+class ProcessExitEvent : Event() {
+
+    @Label("Process ID") @JvmField var pid: Long = -1
+
+    @Label("Exit Code") @JvmField var exitCode: Int = -1
+}
@@ -0,0 +1,25 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.external.jfr
+
+import jdk.jfr.Category
+import jdk.jfr.Description
+import jdk.jfr.Event
+import jdk.jfr.Label
+import jdk.jfr.Name
+import jdk.jfr.StackTrace
+
+/** JFR event spanning the creation of an external SOP process. */
+@Name("sop.external.ProcessSpawn")
+@Label("External SOP Process Spawn")
+@Category("SOP", "External")
+@Description("Spawning of an external SOP binary")
+@StackTrace(false)
+class ProcessSpawnEvent : Event() {
+
+    @Label("Subcommand") @JvmField var subcommand: String? = null
+
+    @Label("Process ID") @JvmField var pid: Long = -1
+}
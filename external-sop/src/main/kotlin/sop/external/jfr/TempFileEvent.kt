@@ -0,0 +1,39 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.external.jfr
+
+import jdk.jfr.Category
+import jdk.jfr.DataAmount
+import jdk.jfr.Description
+import jdk.jfr.Event
+import jdk.jfr.Label
+import jdk.jfr.Name
+import jdk.jfr.StackTrace
+
+/**
+ * JFR event emitted when a temporary file used to exchange results with a SOP binary is created or
+ * deleted.
+ */
+@Name("sop.external.TempFile")
+@Label("External SOP Temp File")
+@Category("SOP", "External")
+@Description("Creation or deletion of a temporary file used to exchange results with a SOP binary")
+@StackTrace(false)
+class TempFileEvent : Event() {
+
+    @Label("Action")
+    @Description("Either 'create' or 'delete'")
+    @JvmField
+    var action: String? = null
+
+    @Label("Path") @JvmField var path: String? = null
+
+    @Label("Size") @DataAmount @JvmField var size: Long = 0
+
+    companion object {
+        const val CREATE = "create"
+        const val DELETE = "delete"
+    }
+}
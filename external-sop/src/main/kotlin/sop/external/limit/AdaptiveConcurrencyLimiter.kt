@@ -0,0 +1,171 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.external.limit
+
+import java.util.concurrent.locks.ReentrantLock
+import java.util.function.LongSupplier
+import kotlin.concurrent.withLock
+import kotlin.math.ceil
+import kotlin.math.log10
+import kotlin.math.max
+import sop.instrumentation.metrics.MetricsRegistry
+
+/**
+ * Limits the number of concurrently running external SOP processes. The limit adapts to the
+ * observed latency of the processes using a TCP Vegas style algorithm: The lowest latency seen so
+ * far serves as estimate for the latency without load. From the ratio between this baseline and the
+ * latency of a finished process, the limiter estimates how many processes are queued up for CPU
+ * time. As long as the queue is short, the limit grows; if the queue grows too long, the limit
+ * shrinks. This way, the limit settles at the concurrency that maximizes throughput on the given
+ * host.
+ *
+ * Since the latency of an operation depends on the size of its input, the baseline is re-probed
+ * every [probeInterval] samples.
+ *
+ * @param initialLimit initial limit
+ * @param minLimit lower bound for the limit
+ * @param maxLimit upper bound for the limit
+ * @param probeInterval number of samples after which the baseline latency is reset
+ * @param registry if not null, the current limit and number of running processes are reported as
+ *   gauges [LIMIT] and [IN_FLIGHT]
+ * @param nanoTime clock used to measure latency
+ */
+class AdaptiveConcurrencyLimiter
+@JvmOverloads
+constructor(
+    initialLimit: Int = Runtime.getRuntime().availableProcessors(),
+    val minLimit: Int = 1,
+    val maxLimit: Int = 4 * Runtime.getRuntime().availableProcessors(),
+    private val probeInterval: Int = 1000,
+    registry: MetricsRegistry? = null,
+    private val nanoTime: LongSupplier = LongSupplier { System.nanoTime() }
+) {
+
+    init {
+        require(minLimit in 1..maxLimit) { "Limits MUST satisfy 1 <= minLimit <= maxLimit." }
+        require(probeInterval > 0) { "probeInterval MUST be positive." }
+    }
+
+    private val lock = ReentrantLock()
+    private val belowLimit = lock.newCondition()
+    private val limitGauge = registry?.gauge(LIMIT, emptyMap())
+    private val inFlightGauge = registry?.gauge(IN_FLIGHT, emptyMap())
+
+    private var baselineNanos = 0L
+    private var samples = 0L
+
+    /** Current limit of concurrent processes. */
+    @Volatile
+    var limit: Int = initialLimit.coerceIn(minLimit, maxLimit)
+        private set
+
+    /** Number of processes currently running. */
+    @Volatile
+    var inFlight: Int = 0
+        private set
+
+    init {
+        limitGauge?.set(limit.toLong())
+    }
+
+    /**
+     * Wait until the number of running processes is below the limit and reserve a slot.
+     *
+     * @return token which MUST be released once the process terminated
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    @Throws(InterruptedException::class)
+    fun acquire(): Token {
+        lock.withLock {
+            while (inFlight >= limit) {
+                belowLimit.await()
+            }
+            inFlight += 1
+            inFlightGauge?.increment()
+            return Token(nanoTime.asLong, inFlight)
+        }
+    }
+
+    /**
+     * Reserved slot for a single process.
+     *
+     * @param startNanos time at which the slot was reserved
+     * @param inFlightAtStart number of running processes including this one at reservation time
+     */
+    inner class Token
+    internal constructor(private val startNanos: Long, private val inFlightAtStart: Int) {
+        private var released = false
+
+        /**
+         * Release the slot after the process terminated and use its latency to adjust the limit.
+         */
+        fun release() = release { vegas(it) }
+
+        /**
+         * Release the slot without a latency sample, because the process could not be started. This
+         * reduces the limit.
+         */
+        fun drop() = release { max(minLimit, (limit * 0.9).toInt()) }
+
+        /**
+         * Release the slot without a latency sample and without changing the limit, because the
+         * operation was aborted and its latency says nothing about the load on the host.
+         */
+        fun cancel() = release { limit }
+
+        private fun release(newLimit: (Long) -> Int) {
+            val rtt = nanoTime.asLong - startNanos
+            lock.withLock {
+                if (released) {
+                    return
+                }
+                released = true
+                inFlight -= 1
+                inFlightGauge?.decrement()
+                updateLimit(newLimit(rtt))
+                belowLimit.signalAll()
+            }
+        }
+
+        private fun vegas(rtt: Long): Int {
+            if (rtt <= 0) {
+                return limit
+            }
+            samples += 1
+            if (baselineNanos == 0L || rtt < baselineNanos || samples % probeInterval == 0L) {
+                baselineNanos = rtt
+            }
+
+            val current = limit
+            val queue = ceil(current * (1.0 - baselineNanos.toDouble() / rtt)).toInt()
+            val log = max(1, log10(current.toDouble()).toInt())
+            // For small limits, thresholds are scaled down so that the limit can still shrink
+            val alpha = minOf(3 * log, max(1, current / 4))
+            val beta = minOf(6 * log, max(1, current / 2))
+            // Only grow if the limit was actually put to use
+            val saturated = inFlightAtStart * 2 >= current
+            return when {
+                queue <= log && saturated -> current + beta
+                queue < alpha && saturated -> current + log
+                queue > beta -> current - log
+                else -> current
+            }
+        }
+    }
+
+    private fun updateLimit(newLimit: Int) {
+        val coerced = newLimit.coerceIn(minLimit, maxLimit)
+        limit = coerced
+        limitGauge?.set(coerced.toLong())
+    }
+
+    companion object {
+        /** Name of the gauge reporting the current limit. */
+        const val LIMIT = "sop.external.concurrency.limit"
+
+        /** Name of the gauge reporting the number of running processes. */
+        const val IN_FLIGHT = "sop.external.concurrency.in_flight"
+    }
+}
@@ -9,15 +9,23 @@ import java.util.Properties
 import sop.Ready
 import sop.exception.SOPGPException
 import sop.external.ExternalSOP
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.Armor
 
 /** Implementation of the [Armor] operation using an external SOP binary. */
-class ArmorExternal(binary: String, environment: Properties) : Armor {
+class ArmorExternal
+@JvmOverloads
+constructor(
+    binary: String,
+    environment: Properties,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
+) : Armor {
 
     private val commandList: MutableList<String> = mutableListOf(binary, "armor")
     private val envList: List<String> = ExternalSOP.propertiesToEnv(environment)
 
     @Throws(SOPGPException.BadData::class)
     override fun data(data: InputStream): Ready =
-        ExternalSOP.executeTransformingOperation(Runtime.getRuntime(), commandList, envList, data)
+        ExternalSOP.executeTransformingOperation(
+            Runtime.getRuntime(), commandList, envList, data, concurrencyLimiter)
 }
@@ -8,9 +8,16 @@ import java.io.InputStream
 import java.util.*
 import sop.Ready
 import sop.external.ExternalSOP
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.CertifyUserId
 
-class CertifyUserIdExternal(binary: String, environment: Properties) : CertifyUserId {
+class CertifyUserIdExternal
+@JvmOverloads
+constructor(
+    binary: String,
+    environment: Properties,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
+) : CertifyUserId {
 
     private val commandList = mutableListOf(binary, "certify-userid")
     private val envList = ExternalSOP.propertiesToEnv(environment).toMutableList()
@@ -44,5 +51,9 @@ class CertifyUserIdExternal(binary: String, environment: Properties) : CertifyUs
 
     override fun certs(certs: InputStream): Ready =
         ExternalSOP.executeTransformingOperation(
-            Runtime.getRuntime(), commandList.plus("--").plus(keys), envList, certs)
+            Runtime.getRuntime(),
+            commandList.plus("--").plus(keys),
+            envList,
+            certs,
+            concurrencyLimiter)
 }
@@ -8,10 +8,17 @@ import java.io.InputStream
 import java.util.Properties
 import sop.Ready
 import sop.external.ExternalSOP
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.ChangeKeyPassword
 
 /** Implementation of the [ChangeKeyPassword] operation using an external SOP binary. */
-class ChangeKeyPasswordExternal(binary: String, environment: Properties) : ChangeKeyPassword {
+class ChangeKeyPasswordExternal
+@JvmOverloads
+constructor(
+    binary: String,
+    environment: Properties,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
+) : ChangeKeyPassword {
 
     private val commandList: MutableList<String> = mutableListOf(binary, "change-key-password")
     private val envList = ExternalSOP.propertiesToEnv(environment).toMutableList()
@@ -33,5 +40,6 @@ class ChangeKeyPasswordExternal(binary: String, environment: Properties) : Chang
     }
 
     override fun keys(keys: InputStream): Ready =
-        ExternalSOP.executeTransformingOperation(Runtime.getRuntime(), commandList, envList, keys)
+        ExternalSOP.executeTransformingOperation(
+            Runtime.getRuntime(), commandList, envList, keys, concurrencyLimiter)
 }
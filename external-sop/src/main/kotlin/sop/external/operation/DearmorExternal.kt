@@ -8,13 +8,21 @@ import java.io.InputStream
 import java.util.Properties
 import sop.Ready
 import sop.external.ExternalSOP
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.Dearmor
 
 /** Implementation of the [Dearmor] operation using an external SOP binary. */
-class DearmorExternal(binary: String, environment: Properties) : Dearmor {
+class DearmorExternal
+@JvmOverloads
+constructor(
+    binary: String,
+    environment: Properties,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
+) : Dearmor {
     private val commandList = listOf(binary, "dearmor")
     private val envList = ExternalSOP.propertiesToEnv(environment)
 
     override fun data(data: InputStream): Ready =
-        ExternalSOP.executeTransformingOperation(Runtime.getRuntime(), commandList, envList, data)
+        ExternalSOP.executeTransformingOperation(
+            Runtime.getRuntime(), commandList, envList, data, concurrencyLimiter)
 }
@@ -10,17 +10,22 @@ import sop.DecryptionResult
 import sop.ReadyWithResult
 import sop.SessionKey
 import sop.Verification
+import sop.VerificationParser
 import sop.external.ExternalSOP
 import sop.external.ExternalSOP.Companion.finish
 import sop.external.ExternalSOP.Companion.readString
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.Decrypt
 import sop.util.UTCUtil
 
 /** Implementation of the [Decrypt] operation using an external SOP binary. */
-class DecryptExternal(
+class DecryptExternal
+@JvmOverloads
+constructor(
     binary: String,
     environment: Properties,
-    private val tempDirProvider: ExternalSOP.TempDirProvider
+    private val tempDirProvider: ExternalSOP.TempDirProvider,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
 ) : Decrypt {
 
     private val commandList = mutableListOf(binary, "decrypt")
@@ -69,65 +74,59 @@ class DecryptExternal(
     }
 
     override fun ciphertext(ciphertext: InputStream): ReadyWithResult<DecryptionResult> {
-        val tempDir = tempDirProvider.provideTempDirectory()
-
-        val sessionKeyOut = File(tempDir, "session-key-out")
-        sessionKeyOut.delete()
-        commandList.add("--session-key-out=${sessionKeyOut.absolutePath}")
-
-        val verifyOut = File(tempDir, "verifications-out")
-        verifyOut.delete()
-        if (requireVerification) {
-            commandList.add("--verifications-out=${verifyOut.absolutePath}")
-        }
-
-        try {
-            val process =
-                Runtime.getRuntime().exec(commandList.toTypedArray(), envList.toTypedArray())
-            val processOut = process.outputStream
-            val processIn = process.inputStream
-
-            return object : ReadyWithResult<DecryptionResult>() {
-                override fun writeTo(outputStream: OutputStream): DecryptionResult {
-                    val buf = ByteArray(4096)
-                    var r: Int
-                    while (ciphertext.read(buf).also { r = it } > 0) {
-                        processOut.write(buf, 0, r)
-                    }
-
-                    ciphertext.close()
-                    processOut.close()
-
-                    while (processIn.read(buf).also { r = it } > 0) {
-                        outputStream.write(buf, 0, r)
-                    }
-
-                    processIn.close()
-                    outputStream.close()
-
-                    finish(process)
-
-                    val sessionKeyOutIn = FileInputStream(sessionKeyOut)
-                    var line: String? = readString(sessionKeyOutIn)
-                    val sessionKey = line?.let { l -> SessionKey.fromString(l.trim { it <= ' ' }) }
-                    sessionKeyOutIn.close()
-                    sessionKeyOut.delete()
-
-                    val verifications: MutableList<Verification> = ArrayList()
-                    if (requireVerification) {
-                        val verifyOutIn = FileInputStream(verifyOut)
-                        val reader = BufferedReader(InputStreamReader(verifyOutIn))
-                        while (reader.readLine().also { line = it } != null) {
-                            line?.let { verifications.add(Verification.fromString(it.trim())) }
+        return object : ReadyWithResult<DecryptionResult>() {
+            override fun writeTo(outputStream: OutputStream): DecryptionResult {
+                val tempDir = tempDirProvider.provideTempDirectory()
+                val sessionKeyOut = ExternalSOP.tempFile(tempDir, "session-key-out")
+                commandList.add("--session-key-out=${sessionKeyOut.absolutePath}")
+                val verifyOut =
+                    if (requireVerification) ExternalSOP.tempFile(tempDir, "verifications-out")
+                    else null
+                verifyOut?.let { commandList.add("--verifications-out=${it.absolutePath}") }
+                try {
+                    return ExternalSOP.runProcess(
+                        Runtime.getRuntime(), commandList, envList, concurrencyLimiter) { process ->
+                            val processOut = process.outputStream
+                            val processIn = process.inputStream
+                            val buf = ByteArray(4096)
+                            var r: Int
+                            while (ciphertext.read(buf).also { r = it } > 0) {
+                                processOut.write(buf, 0, r)
+                            }
+
+                            ciphertext.close()
+                            processOut.close()
+
+                            while (processIn.read(buf).also { r = it } > 0) {
+                                outputStream.write(buf, 0, r)
+                            }
+
+                            processIn.close()
+                            outputStream.close()
+
+                            finish(process)
+
+                            val sessionKeyOutIn = ExternalSOP.openTempFile(sessionKeyOut)
+                            var line: String? = readString(sessionKeyOutIn)
+                            val sessionKey =
+                                line?.let { l -> SessionKey.fromString(l.trim { it <= ' ' }) }
+                            sessionKeyOutIn.close()
+
+                            val verifications: List<Verification> =
+                                verifyOut?.let { file ->
+                                    ExternalSOP.openTempFile(file).use {
+                                        VerificationParser().parseAll(it)
+                                    }
+                                }
+                                    ?: listOf()
+
+                            DecryptionResult(sessionKey, verifications)
                         }
-                        reader.close()
-                    }
-
-                    return DecryptionResult(sessionKey, verifications)
+                } finally {
+                    ExternalSOP.deleteTempFile(sessionKeyOut)
+                    verifyOut?.let { ExternalSOP.deleteTempFile(it) }
                 }
             }
-        } catch (e: IOException) {
-            throw RuntimeException(e)
         }
     }
 }
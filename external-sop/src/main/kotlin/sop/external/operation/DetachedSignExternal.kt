@@ -13,13 +13,17 @@ import sop.SigningResult.Companion.builder
 import sop.enums.SignAs
 import sop.external.ExternalSOP
 import sop.external.ExternalSOP.Companion.finish
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.DetachedSign
 
 /** Implementation of the [DetachedSign] operation using an external SOP binary. */
-class DetachedSignExternal(
+class DetachedSignExternal
+@JvmOverloads
+constructor(
     binary: String,
     environment: Properties,
-    private val tempDirProvider: ExternalSOP.TempDirProvider
+    private val tempDirProvider: ExternalSOP.TempDirProvider,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
 ) : DetachedSign {
 
     private val commandList = mutableListOf(binary, "sign")
@@ -30,61 +34,61 @@ class DetachedSignExternal(
     override fun mode(mode: SignAs): DetachedSign = apply { commandList.add("--as=$mode") }
 
     override fun data(data: InputStream): ReadyWithResult<SigningResult> {
-        val tempDir = tempDirProvider.provideTempDirectory()
-        val micAlgOut = File(tempDir, "micAlgOut")
-        micAlgOut.delete()
-        commandList.add("--micalg-out=${micAlgOut.absolutePath}")
-
-        try {
-            val process =
-                Runtime.getRuntime().exec(commandList.toTypedArray(), envList.toTypedArray())
-            val processOut = process.outputStream
-            val processIn = process.inputStream
-
-            return object : ReadyWithResult<SigningResult>() {
-                override fun writeTo(outputStream: OutputStream): SigningResult {
-                    val buf = ByteArray(4096)
-                    var r: Int
-                    while (data.read(buf).also { r = it } > 0) {
-                        processOut.write(buf, 0, r)
-                    }
-
-                    data.close()
-                    try {
-                        processOut.close()
-                    } catch (e: IOException) {
-                        // Ignore Stream closed
-                        if ("Stream closed" != e.message) {
-                            throw e
-                        }
-                    }
-
-                    while (processIn.read(buf).also { r = it } > 0) {
-                        outputStream.write(buf, 0, r)
-                    }
-
-                    processIn.close()
-                    outputStream.close()
 
-                    finish(process)
-
-                    val builder = builder()
-                    if (micAlgOut.exists()) {
-                        val reader = BufferedReader(InputStreamReader(FileInputStream(micAlgOut)))
-                        val line = reader.readLine()
-                        if (line != null && line.isNotBlank()) {
-                            val micAlg = MicAlg(line.trim())
-                            builder.setMicAlg(micAlg)
+        return object : ReadyWithResult<SigningResult>() {
+            override fun writeTo(outputStream: OutputStream): SigningResult {
+                val tempDir = tempDirProvider.provideTempDirectory()
+                val micAlgOut = ExternalSOP.tempFile(tempDir, "micAlgOut")
+                commandList.add("--micalg-out=${micAlgOut.absolutePath}")
+                try {
+                    return ExternalSOP.runProcess(
+                        Runtime.getRuntime(), commandList, envList, concurrencyLimiter) { process ->
+                            val processOut = process.outputStream
+                            val processIn = process.inputStream
+                            val buf = ByteArray(4096)
+                            var r: Int
+                            while (data.read(buf).also { r = it } > 0) {
+                                processOut.write(buf, 0, r)
+                            }
+
+                            data.close()
+                            try {
+                                processOut.close()
+                            } catch (e: IOException) {
+                                // Ignore Stream closed
+                                if ("Stream closed" != e.message) {
+                                    throw e
+                                }
+                            }
+
+                            while (processIn.read(buf).also { r = it } > 0) {
+                                outputStream.write(buf, 0, r)
+                            }
+
+                            processIn.close()
+                            outputStream.close()
+
+                            finish(process)
+
+                            val builder = builder()
+                            if (micAlgOut.exists()) {
+                                val reader =
+                                    BufferedReader(
+                                        InputStreamReader(ExternalSOP.openTempFile(micAlgOut)))
+                                val line = reader.readLine()
+                                if (line != null && line.isNotBlank()) {
+                                    val micAlg = MicAlg(line.trim())
+                                    builder.setMicAlg(micAlg)
+                                }
+                                reader.close()
+                            }
+
+                            builder.build()
                         }
-                        reader.close()
-                        micAlgOut.delete()
-                    }
-
-                    return builder.build()
+                } finally {
+                    ExternalSOP.deleteTempFile(micAlgOut)
                 }
             }
-        } catch (e: IOException) {
-            throw RuntimeException(e)
         }
     }
 
@@ -4,22 +4,27 @@
 
 package sop.external.operation
 
-import java.io.BufferedReader
 import java.io.IOException
 import java.io.InputStream
-import java.io.InputStreamReader
 import java.util.*
 import sop.Verification
-import sop.Verification.Companion.fromString
+import sop.VerificationParser
 import sop.exception.SOPGPException
 import sop.external.ExternalSOP
 import sop.external.ExternalSOP.Companion.finish
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.DetachedVerify
 import sop.operation.VerifySignatures
 import sop.util.UTCUtil
 
 /** Implementation of the [DetachedVerify] operation using an external SOP binary. */
-class DetachedVerifyExternal(binary: String, environment: Properties) : DetachedVerify {
+class DetachedVerifyExternal
+@JvmOverloads
+constructor(
+    binary: String,
+    environment: Properties,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
+) : DetachedVerify {
 
     private val commandList = mutableListOf(binary, "verify")
     private val envList = ExternalSOP.propertiesToEnv(environment).toMutableList()
@@ -58,31 +63,26 @@ class DetachedVerifyExternal(binary: String, environment: Properties) : Detached
         }
 
         try {
-            val process =
-                Runtime.getRuntime().exec(commandList.toTypedArray(), envList.toTypedArray())
-            val processOut = process.outputStream
-            val processIn = process.inputStream
+            return ExternalSOP.runProcess(
+                Runtime.getRuntime(), commandList, envList, concurrencyLimiter) { process ->
+                    val processOut = process.outputStream
+                    val processIn = process.inputStream
 
-            val buf = ByteArray(4096)
-            var r: Int
-            while (data.read(buf).also { r = it } > 0) {
-                processOut.write(buf, 0, r)
-            }
+                    val buf = ByteArray(4096)
+                    var r: Int
+                    while (data.read(buf).also { r = it } > 0) {
+                        processOut.write(buf, 0, r)
+                    }
 
-            data.close()
-            processOut.close()
+                    data.close()
+                    processOut.close()
 
-            val bufferedReader = BufferedReader(InputStreamReader(processIn))
-            val verifications: MutableList<Verification> = ArrayList()
+                    val verifications = VerificationParser().parseAll(processIn)
 
-            var line: String?
-            while (bufferedReader.readLine().also { line = it } != null) {
-                verifications.add(fromString(line!!))
-            }
+                    finish(process)
 
-            finish(process)
-
-            return verifications
+                    verifications
+                }
         } catch (e: IOException) {
             throw RuntimeException(e)
         }
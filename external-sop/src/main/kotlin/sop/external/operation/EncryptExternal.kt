@@ -4,9 +4,6 @@
 
 package sop.external.operation
 
-import java.io.File
-import java.io.FileInputStream
-import java.io.IOException
 import java.io.InputStream
 import java.io.OutputStream
 import java.util.*
@@ -18,13 +15,17 @@ import sop.enums.EncryptFor
 import sop.external.ExternalSOP
 import sop.external.ExternalSOP.Companion.finish
 import sop.external.ExternalSOP.Companion.readString
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.Encrypt
 
 /** Implementation of the [Encrypt] operation using an external SOP binary. */
-class EncryptExternal(
+class EncryptExternal
+@JvmOverloads
+constructor(
     binary: String,
     environment: Properties,
-    private val tempDirProvider: ExternalSOP.TempDirProvider
+    private val tempDirProvider: ExternalSOP.TempDirProvider,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
 ) : Encrypt {
 
     private val commandList = mutableListOf(binary, "encrypt")
@@ -69,48 +70,45 @@ class EncryptExternal(
     }
 
     override fun plaintext(plaintext: InputStream): ReadyWithResult<EncryptionResult> {
-        val tempDir = tempDirProvider.provideTempDirectory()
-
-        val sessionKeyOut = File(tempDir, "session-key-out")
-        sessionKeyOut.delete()
-        commandList.add("--session-key-out=${sessionKeyOut.absolutePath}")
-        try {
-            val process =
-                Runtime.getRuntime().exec(commandList.toTypedArray(), envList.toTypedArray())
-            val processOut = process.outputStream
-            val processIn = process.inputStream
-
-            return object : ReadyWithResult<EncryptionResult>() {
-                override fun writeTo(outputStream: OutputStream): EncryptionResult {
-                    val buf = ByteArray(4096)
-                    var r: Int
-                    while (plaintext.read(buf).also { r = it } > 0) {
-                        processOut.write(buf, 0, r)
-                    }
-
-                    plaintext.close()
-                    processOut.close()
-
-                    while (processIn.read(buf).also { r = it } > 0) {
-                        outputStream.write(buf, 0, r)
-                    }
-
-                    processIn.close()
-                    outputStream.close()
-
-                    finish(process)
-
-                    val sessionKeyOutIn = FileInputStream(sessionKeyOut)
-                    val line = readString(sessionKeyOutIn)
-                    val sessionKey = fromString(line.trim())
-                    sessionKeyOutIn.close()
-                    sessionKeyOut.delete()
-
-                    return EncryptionResult(sessionKey)
+        return object : ReadyWithResult<EncryptionResult>() {
+            override fun writeTo(outputStream: OutputStream): EncryptionResult {
+                val tempDir = tempDirProvider.provideTempDirectory()
+                val sessionKeyOut = ExternalSOP.tempFile(tempDir, "session-key-out")
+                commandList.add("--session-key-out=${sessionKeyOut.absolutePath}")
+                try {
+                    return ExternalSOP.runProcess(
+                        Runtime.getRuntime(), commandList, envList, concurrencyLimiter) { process ->
+                            val processOut = process.outputStream
+                            val processIn = process.inputStream
+                            val buf = ByteArray(4096)
+                            var r: Int
+                            while (plaintext.read(buf).also { r = it } > 0) {
+                                processOut.write(buf, 0, r)
+                            }
+
+                            plaintext.close()
+                            processOut.close()
+
+                            while (processIn.read(buf).also { r = it } > 0) {
+                                outputStream.write(buf, 0, r)
+                            }
+
+                            processIn.close()
+                            outputStream.close()
+
+                            finish(process)
+
+                            val sessionKeyOutIn = ExternalSOP.openTempFile(sessionKeyOut)
+                            val line = readString(sessionKeyOutIn)
+                            val sessionKey = fromString(line.trim())
+                            sessionKeyOutIn.close()
+
+                            EncryptionResult(sessionKey)
+                        }
+                } finally {
+                    ExternalSOP.deleteTempFile(sessionKeyOut)
                 }
             }
-        } catch (e: IOException) {
-            throw RuntimeException(e)
         }
     }
 }
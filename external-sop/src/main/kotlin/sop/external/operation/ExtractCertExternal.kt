@@ -8,10 +8,17 @@ import java.io.InputStream
 import java.util.Properties
 import sop.Ready
 import sop.external.ExternalSOP
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.ExtractCert
 
 /** Implementation of the [ExtractCert] operation using an external SOP binary. */
-class ExtractCertExternal(binary: String, environment: Properties) : ExtractCert {
+class ExtractCertExternal
+@JvmOverloads
+constructor(
+    binary: String,
+    environment: Properties,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
+) : ExtractCert {
 
     private val commandList = mutableListOf(binary, "extract-cert")
     private val envList = ExternalSOP.propertiesToEnv(environment)
@@ -20,5 +27,5 @@ class ExtractCertExternal(binary: String, environment: Properties) : ExtractCert
 
     override fun key(keyInputStream: InputStream): Ready =
         ExternalSOP.executeTransformingOperation(
-            Runtime.getRuntime(), commandList, envList, keyInputStream)
+            Runtime.getRuntime(), commandList, envList, keyInputStream, concurrencyLimiter)
 }
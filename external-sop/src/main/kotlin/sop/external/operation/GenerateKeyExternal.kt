@@ -7,10 +7,17 @@ package sop.external.operation
 import java.util.Properties
 import sop.Ready
 import sop.external.ExternalSOP
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.GenerateKey
 
 /** Implementation of the [GenerateKey] operation using an external SOP binary. */
-class GenerateKeyExternal(binary: String, environment: Properties) : GenerateKey {
+class GenerateKeyExternal
+@JvmOverloads
+constructor(
+    binary: String,
+    environment: Properties,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
+) : GenerateKey {
 
     private val commandList = mutableListOf(binary, "generate-key")
     private val envList = ExternalSOP.propertiesToEnv(environment).toMutableList()
@@ -34,5 +41,6 @@ class GenerateKeyExternal(binary: String, environment: Properties) : GenerateKey
     override fun signingOnly(): GenerateKey = apply { commandList.add("--signing-only") }
 
     override fun generate(): Ready =
-        ExternalSOP.executeProducingOperation(Runtime.getRuntime(), commandList, envList)
+        ExternalSOP.executeProducingOperation(
+            Runtime.getRuntime(), commandList, envList, concurrencyLimiter)
 }
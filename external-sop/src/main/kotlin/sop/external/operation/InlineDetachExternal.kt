@@ -10,13 +10,17 @@ import sop.ReadyWithResult
 import sop.Signatures
 import sop.external.ExternalSOP
 import sop.external.ExternalSOP.Companion.finish
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.InlineDetach
 
 /** Implementation of the [InlineDetach] operation using an external SOP binary. */
-class InlineDetachExternal(
+class InlineDetachExternal
+@JvmOverloads
+constructor(
     binary: String,
     environment: Properties,
-    private val tempDirProvider: ExternalSOP.TempDirProvider
+    private val tempDirProvider: ExternalSOP.TempDirProvider,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
 ) : InlineDetach {
 
     private val commandList = mutableListOf(binary, "inline-detach")
@@ -25,58 +29,54 @@ class InlineDetachExternal(
     override fun noArmor(): InlineDetach = apply { commandList.add("--no-armor") }
 
     override fun message(messageInputStream: InputStream): ReadyWithResult<Signatures> {
-        val tempDir = tempDirProvider.provideTempDirectory()
-
-        val signaturesOut = File(tempDir, "signatures")
-        signaturesOut.delete()
-        commandList.add("--signatures-out=${signaturesOut.absolutePath}")
-
-        try {
-            val process =
-                Runtime.getRuntime().exec(commandList.toTypedArray(), envList.toTypedArray())
-            val processOut = process.outputStream
-            val processIn = process.inputStream
-
-            return object : ReadyWithResult<Signatures>() {
-                override fun writeTo(outputStream: OutputStream): Signatures {
-                    val buf = ByteArray(4096)
-                    var r: Int
-                    while (messageInputStream.read(buf).also { r = it } > 0) {
-                        processOut.write(buf, 0, r)
-                    }
-
-                    messageInputStream.close()
-                    processOut.close()
-
-                    while (processIn.read(buf).also { r = it } > 0) {
-                        outputStream.write(buf, 0, r)
-                    }
-
-                    processIn.close()
-                    outputStream.close()
-
-                    finish(process)
-
-                    val signaturesOutIn = FileInputStream(signaturesOut)
-                    val signaturesBuffer = ByteArrayOutputStream()
-                    while (signaturesOutIn.read(buf).also { r = it } > 0) {
-                        signaturesBuffer.write(buf, 0, r)
-                    }
-                    signaturesOutIn.close()
-                    signaturesOut.delete()
-
-                    val sigBytes = signaturesBuffer.toByteArray()
-
-                    return object : Signatures() {
-                        @Throws(IOException::class)
-                        override fun writeTo(outputStream: OutputStream) {
-                            outputStream.write(sigBytes)
+        return object : ReadyWithResult<Signatures>() {
+            override fun writeTo(outputStream: OutputStream): Signatures {
+                val tempDir = tempDirProvider.provideTempDirectory()
+                val signaturesOut = ExternalSOP.tempFile(tempDir, "signatures")
+                commandList.add("--signatures-out=${signaturesOut.absolutePath}")
+                try {
+                    return ExternalSOP.runProcess(
+                        Runtime.getRuntime(), commandList, envList, concurrencyLimiter) { process ->
+                            val processOut = process.outputStream
+                            val processIn = process.inputStream
+                            val buf = ByteArray(4096)
+                            var r: Int
+                            while (messageInputStream.read(buf).also { r = it } > 0) {
+                                processOut.write(buf, 0, r)
+                            }
+
+                            messageInputStream.close()
+                            processOut.close()
+
+                            while (processIn.read(buf).also { r = it } > 0) {
+                                outputStream.write(buf, 0, r)
+                            }
+
+                            processIn.close()
+                            outputStream.close()
+
+                            finish(process)
+
+                            val signaturesOutIn = ExternalSOP.openTempFile(signaturesOut)
+                            val signaturesBuffer = ByteArrayOutputStream()
+                            while (signaturesOutIn.read(buf).also { r = it } > 0) {
+                                signaturesBuffer.write(buf, 0, r)
+                            }
+                            signaturesOutIn.close()
+
+                            val sigBytes = signaturesBuffer.toByteArray()
+
+                            object : Signatures() {
+                                @Throws(IOException::class)
+                                override fun writeTo(outputStream: OutputStream) {
+                                    outputStream.write(sigBytes)
+                                }
+                            }
                         }
-                    }
+                } finally {
+                    ExternalSOP.deleteTempFile(signaturesOut)
                 }
             }
-        } catch (e: IOException) {
-            throw RuntimeException(e)
         }
     }
 }
@@ -9,10 +9,17 @@ import java.util.Properties
 import sop.Ready
 import sop.enums.InlineSignAs
 import sop.external.ExternalSOP
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.InlineSign
 
 /** Implementation of the [InlineSign] operation using an external SOP binary. */
-class InlineSignExternal(binary: String, environment: Properties) : InlineSign {
+class InlineSignExternal
+@JvmOverloads
+constructor(
+    binary: String,
+    environment: Properties,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
+) : InlineSign {
 
     private val commandList = mutableListOf(binary, "inline-sign")
     private val envList = ExternalSOP.propertiesToEnv(environment).toMutableList()
@@ -22,7 +29,8 @@ class InlineSignExternal(binary: String, environment: Properties) : InlineSign {
     override fun mode(mode: InlineSignAs): InlineSign = apply { commandList.add("--as=$mode") }
 
     override fun data(data: InputStream): Ready =
-        ExternalSOP.executeTransformingOperation(Runtime.getRuntime(), commandList, envList, data)
+        ExternalSOP.executeTransformingOperation(
+            Runtime.getRuntime(), commandList, envList, data, concurrencyLimiter)
 
     override fun noArmor(): InlineSign = apply { commandList.add("--no-armor") }
 
@@ -8,17 +8,21 @@ import java.io.*
 import java.util.*
 import sop.ReadyWithResult
 import sop.Verification
-import sop.Verification.Companion.fromString
+import sop.VerificationParser
 import sop.external.ExternalSOP
 import sop.external.ExternalSOP.Companion.finish
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.InlineVerify
 import sop.util.UTCUtil
 
 /** Implementation of the [InlineVerify] operation using an external SOP binary. */
-class InlineVerifyExternal(
+class InlineVerifyExternal
+@JvmOverloads
+constructor(
     binary: String,
     environment: Properties,
-    private val tempDirProvider: ExternalSOP.TempDirProvider
+    private val tempDirProvider: ExternalSOP.TempDirProvider,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
 ) : InlineVerify {
 
     private val commandList = mutableListOf(binary, "inline-verify")
@@ -27,51 +31,42 @@ class InlineVerifyExternal(
     private var argCounter = 0
 
     override fun data(data: InputStream): ReadyWithResult<List<Verification>> {
-        val tempDir = tempDirProvider.provideTempDirectory()
-
-        val verificationsOut = File(tempDir, "verifications-out")
-        verificationsOut.delete()
-        commandList.add("--verifications-out=${verificationsOut.absolutePath}")
-
-        try {
-            val process =
-                Runtime.getRuntime().exec(commandList.toTypedArray(), envList.toTypedArray())
-            val processOut = process.outputStream
-            val processIn = process.inputStream
-
-            return object : ReadyWithResult<List<Verification>>() {
-                override fun writeTo(outputStream: OutputStream): List<Verification> {
-                    val buf = ByteArray(4096)
-                    var r: Int
-                    while (data.read(buf).also { r = it } > 0) {
-                        processOut.write(buf, 0, r)
-                    }
-
-                    data.close()
-                    processOut.close()
-
-                    while (processIn.read(buf).also { r = it } > 0) {
-                        outputStream.write(buf, 0, r)
-                    }
-
-                    processIn.close()
-                    outputStream.close()
-
-                    finish(process)
-
-                    val verificationsOutIn = FileInputStream(verificationsOut)
-                    val reader = BufferedReader(InputStreamReader(verificationsOutIn))
-                    val verificationList: MutableList<Verification> = mutableListOf()
-                    var line: String?
-                    while (reader.readLine().also { line = it } != null) {
-                        verificationList.add(fromString(line!!.trim()))
-                    }
-
-                    return verificationList
+        return object : ReadyWithResult<List<Verification>>() {
+            override fun writeTo(outputStream: OutputStream): List<Verification> {
+                val tempDir = tempDirProvider.provideTempDirectory()
+                val verificationsOut = ExternalSOP.tempFile(tempDir, "verifications-out")
+                commandList.add("--verifications-out=${verificationsOut.absolutePath}")
+                try {
+                    return ExternalSOP.runProcess(
+                        Runtime.getRuntime(), commandList, envList, concurrencyLimiter) { process ->
+                            val processOut = process.outputStream
+                            val processIn = process.inputStream
+                            val buf = ByteArray(4096)
+                            var r: Int
+                            while (data.read(buf).also { r = it } > 0) {
+                                processOut.write(buf, 0, r)
+                            }
+
+                            data.close()
+                            processOut.close()
+
+                            while (processIn.read(buf).also { r = it } > 0) {
+                                outputStream.write(buf, 0, r)
+                            }
+
+                            processIn.close()
+                            outputStream.close()
+
+                            finish(process)
+
+                            ExternalSOP.openTempFile(verificationsOut).use {
+                                VerificationParser().parseAll(it)
+                            }
+                        }
+                } finally {
+                    ExternalSOP.deleteTempFile(verificationsOut)
                 }
             }
-        } catch (e: IOException) {
-            throw RuntimeException(e)
         }
     }
 
@@ -8,10 +8,17 @@ import java.io.IOException
 import java.util.Properties
 import sop.Profile
 import sop.external.ExternalSOP
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.ListProfiles
 
 /** Implementation of the [ListProfiles] operation using an external SOP binary. */
-class ListProfilesExternal(binary: String, environment: Properties) : ListProfiles {
+class ListProfilesExternal
+@JvmOverloads
+constructor(
+    binary: String,
+    environment: Properties,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
+) : ListProfiles {
 
     private val commandList = mutableListOf(binary, "list-profiles")
     private val envList = ExternalSOP.propertiesToEnv(environment)
@@ -20,7 +27,10 @@ class ListProfilesExternal(binary: String, environment: Properties) : ListProfil
         return try {
             String(
                     ExternalSOP.executeProducingOperation(
-                            Runtime.getRuntime(), commandList.plus(command), envList)
+                            Runtime.getRuntime(),
+                            commandList.plus(command),
+                            envList,
+                            concurrencyLimiter)
                         .bytes)
                 .let { toProfiles(it) }
         } catch (e: IOException) {
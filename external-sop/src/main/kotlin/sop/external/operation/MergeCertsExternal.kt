@@ -8,9 +8,16 @@ import java.io.InputStream
 import java.util.*
 import sop.Ready
 import sop.external.ExternalSOP
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.MergeCerts
 
-class MergeCertsExternal(binary: String, environment: Properties) : MergeCerts {
+class MergeCertsExternal
+@JvmOverloads
+constructor(
+    binary: String,
+    environment: Properties,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
+) : MergeCerts {
 
     private val commandList = mutableListOf(binary, "merge-certs")
     private val envList = ExternalSOP.propertiesToEnv(environment).toMutableList()
@@ -26,5 +33,6 @@ class MergeCertsExternal(binary: String, environment: Properties) : MergeCerts {
     }
 
     override fun baseCertificates(certs: InputStream): Ready =
-        ExternalSOP.executeTransformingOperation(Runtime.getRuntime(), commandList, envList, certs)
+        ExternalSOP.executeTransformingOperation(
+            Runtime.getRuntime(), commandList, envList, certs, concurrencyLimiter)
 }
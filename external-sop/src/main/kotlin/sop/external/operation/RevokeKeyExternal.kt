@@ -8,10 +8,17 @@ import java.io.InputStream
 import java.util.Properties
 import sop.Ready
 import sop.external.ExternalSOP
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.RevokeKey
 
 /** Implementation of the [RevokeKey] operation using an external SOP binary. */
-class RevokeKeyExternal(binary: String, environment: Properties) : RevokeKey {
+class RevokeKeyExternal
+@JvmOverloads
+constructor(
+    binary: String,
+    environment: Properties,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
+) : RevokeKey {
 
     private val commandList = mutableListOf(binary, "revoke-key")
     private val envList = ExternalSOP.propertiesToEnv(environment).toMutableList()
@@ -27,5 +34,6 @@ class RevokeKeyExternal(binary: String, environment: Properties) : RevokeKey {
     }
 
     override fun keys(keys: InputStream): Ready =
-        ExternalSOP.executeTransformingOperation(Runtime.getRuntime(), commandList, envList, keys)
+        ExternalSOP.executeTransformingOperation(
+            Runtime.getRuntime(), commandList, envList, keys, concurrencyLimiter)
 }
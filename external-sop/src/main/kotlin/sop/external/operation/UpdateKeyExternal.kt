@@ -8,9 +8,16 @@ import java.io.InputStream
 import java.util.*
 import sop.Ready
 import sop.external.ExternalSOP
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.UpdateKey
 
-class UpdateKeyExternal(binary: String, environment: Properties) : UpdateKey {
+class UpdateKeyExternal
+@JvmOverloads
+constructor(
+    binary: String,
+    environment: Properties,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
+) : UpdateKey {
 
     private val commandList = mutableListOf(binary, "update-key")
     private val envList = ExternalSOP.propertiesToEnv(environment).toMutableList()
@@ -43,5 +50,6 @@ class UpdateKeyExternal(binary: String, environment: Properties) : UpdateKey {
     }
 
     override fun key(key: InputStream): Ready =
-        ExternalSOP.executeTransformingOperation(Runtime.getRuntime(), commandList, envList, key)
+        ExternalSOP.executeTransformingOperation(
+            Runtime.getRuntime(), commandList, envList, key, concurrencyLimiter)
 }
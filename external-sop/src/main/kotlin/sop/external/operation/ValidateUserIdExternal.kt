@@ -7,10 +7,17 @@ package sop.external.operation
 import java.io.InputStream
 import java.util.*
 import sop.external.ExternalSOP
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.ValidateUserId
 import sop.util.UTCUtil
 
-class ValidateUserIdExternal(binary: String, environment: Properties) : ValidateUserId {
+class ValidateUserIdExternal
+@JvmOverloads
+constructor(
+    binary: String,
+    environment: Properties,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
+) : ValidateUserId {
 
     private val commandList = mutableListOf(binary, "validate-userid")
     private val envList = ExternalSOP.propertiesToEnv(environment).toMutableList()
@@ -32,7 +39,11 @@ class ValidateUserIdExternal(binary: String, environment: Properties) : Validate
 
     override fun subjects(certs: InputStream): Boolean {
         ExternalSOP.executeTransformingOperation(
-                Runtime.getRuntime(), commandList.plus(userId!!).plus(authorities), envList, certs)
+                Runtime.getRuntime(),
+                commandList.plus(userId!!).plus(authorities),
+                envList,
+                certs,
+                concurrencyLimiter)
             .bytes
         return true
     }
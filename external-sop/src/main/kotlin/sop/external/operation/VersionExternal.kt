@@ -7,10 +7,17 @@ package sop.external.operation
 import java.io.IOException
 import java.util.Properties
 import sop.external.ExternalSOP
+import sop.external.limit.AdaptiveConcurrencyLimiter
 import sop.operation.Version
 
 /** Implementation of the [Version] operation using an external SOP binary. */
-class VersionExternal(binary: String, environment: Properties) : Version {
+class VersionExternal
+@JvmOverloads
+constructor(
+    binary: String,
+    environment: Properties,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter? = null
+) : Version {
 
     private val commandList = listOf(binary, "version")
     private val envList = ExternalSOP.propertiesToEnv(environment)
@@ -70,11 +77,12 @@ class VersionExternal(binary: String, environment: Properties) : Version {
 
     private fun executeForLine(commandList: List<String>): String {
         return try {
-            val process =
-                Runtime.getRuntime().exec(commandList.toTypedArray(), envList.toTypedArray())
-            val result = process.inputStream.bufferedReader().readLine()
-            ExternalSOP.finish(process)
-            result.trim()
+            ExternalSOP.runProcess(
+                Runtime.getRuntime(), commandList, envList, concurrencyLimiter) { process ->
+                    val result = process.inputStream.bufferedReader().readLine()
+                    ExternalSOP.finish(process)
+                    result.trim()
+                }
         } catch (e: IOException) {
             throw RuntimeException(e)
         }
@@ -82,11 +90,12 @@ class VersionExternal(binary: String, environment: Properties) : Version {
 
     private fun executeForLines(commandList: List<String>): String {
         return try {
-            val process =
-                Runtime.getRuntime().exec(commandList.toTypedArray(), envList.toTypedArray())
-            val result = process.inputStream.bufferedReader().readLines().joinToString("\n")
-            ExternalSOP.finish(process)
-            result.trim()
+            ExternalSOP.runProcess(
+                Runtime.getRuntime(), commandList, envList, concurrencyLimiter) { process ->
+                    val result = process.inputStream.bufferedReader().readLines().joinToString("\n")
+                    ExternalSOP.finish(process)
+                    result.trim()
+                }
         } catch (e: IOException) {
             throw RuntimeException(e)
         }
@@ -0,0 +1,75 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.external;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import sop.Ready;
+import sop.external.limit.AdaptiveConcurrencyLimiter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisabledOnOs(OS.WINDOWS)
+public class ExternalSOPConcurrencyLimitTest {
+
+    private static final byte[] DATA = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1);
+    private ExternalSOP sop;
+
+    @BeforeEach
+    public void setup(@TempDir Path tempDir) throws IOException {
+        // Stand-in for a SOP binary, which copies its input to its output
+        File binary = tempDir.resolve("sop").toFile();
+        Files.write(binary.toPath(), "#!/bin/sh\ncat\n".getBytes(StandardCharsets.UTF_8));
+        binary.setExecutable(true);
+        sop = new ExternalSOP(binary.getAbsolutePath(), new Properties(),
+                ExternalSOP.defaultTempDirProvider(), limiter);
+    }
+
+    @Test
+    public void unconsumedResultsDoNotHoldSlots() throws IOException {
+        List<Ready> pending = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            pending.add(sop.armor().data(DATA));
+        }
+        assertEquals(0, limiter.getInFlight());
+
+        // With a limit of 1, this would block forever if the pending results held the slot
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pending.get(2).writeTo(out);
+        assertArrayEquals(DATA, out.toByteArray());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void failedWriteReleasesSlot() {
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("broken");
+            }
+        };
+        assertThrows(IOException.class, () -> sop.armor().data(DATA).writeTo(broken));
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(1, limiter.getLimit());
+    }
+}
@@ -0,0 +1,83 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.external;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import sop.ByteArrayAndResult;
+import sop.Verification;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisabledOnOs(OS.WINDOWS)
+public class ExternalSOPTempFileTest {
+
+    private static final byte[] DATA = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+    private static final String VERIFICATION = "2022-11-07T15:01:26Z " +
+            "F9E6F53F7201C60A87064EAB0B27F2B0760A1209 4E2C78519512C2AE9A8BFE7EB3298EB2FBE5F51B mode:binary";
+
+    private File results;
+    private ExternalSOP sop;
+    private ExternalSOP failingSop;
+
+    @BeforeEach
+    public void setup(@TempDir Path tempDir) throws IOException {
+        results = tempDir.resolve("results").toFile();
+        results.mkdirs();
+        // Stand-ins for a SOP binary, which write a verification to --verifications-out and copy
+        // their input to their output
+        String script = "#!/bin/sh\n" +
+                "for arg in \"$@\"; do\n" +
+                "  case \"$arg\" in\n" +
+                "    --verifications-out=*) echo \"" + VERIFICATION + "\" > \"${arg#--verifications-out=}\";;\n" +
+                "  esac\n" +
+                "done\n" +
+                "cat\n";
+        sop = new ExternalSOP(binary(tempDir, "sop", script), new Properties(), () -> results);
+        failingSop = new ExternalSOP(binary(tempDir, "sop-fail", script + "exit 1\n"), new Properties(), () -> results);
+    }
+
+    private static String binary(Path dir, String name, String script) throws IOException {
+        File binary = dir.resolve(name).toFile();
+        Files.write(binary.toPath(), script.getBytes(StandardCharsets.UTF_8));
+        binary.setExecutable(true);
+        return binary.getAbsolutePath();
+    }
+
+    @Test
+    public void resultFileIsDeletedAfterReading() throws IOException {
+        ByteArrayAndResult<List<Verification>> result = sop.inlineVerify().data(DATA).toByteArrayAndResult();
+
+        assertArrayEquals(DATA, result.getBytes());
+        assertEquals(1, result.getResult().size());
+        assertEquals(0, results.list().length);
+    }
+
+    @Test
+    public void resultFileIsDeletedIfBinaryFails() {
+        assertThrows(Exception.class, () -> failingSop.inlineVerify().data(DATA).toByteArrayAndResult());
+        assertEquals(0, results.list().length);
+    }
+
+    @Test
+    public void unwrittenResultAllocatesNoFile() throws IOException {
+        sop.inlineVerify().data(DATA);
+        sop.inlineDetach().message(DATA);
+        assertEquals(0, results.list().length);
+    }
+}
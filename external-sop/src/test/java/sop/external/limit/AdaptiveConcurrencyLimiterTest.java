@@ -0,0 +1,129 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.external.limit;
+
+import org.junit.jupiter.api.Test;
+import sop.instrumentation.metrics.SimpleMetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * Saturate the limiter, let all operations take the given latency and return the new limit.
+     */
+    private static int runRound(AdaptiveConcurrencyLimiter limiter, AtomicLong clock, long latency)
+            throws InterruptedException {
+        List<AdaptiveConcurrencyLimiter.Token> tokens = new ArrayList<>();
+        int limit = limiter.getLimit();
+        for (int i = 0; i < limit; i++) {
+            tokens.add(limiter.acquire());
+        }
+        clock.addAndGet(latency);
+        for (AdaptiveConcurrencyLimiter.Token token : tokens) {
+            token.release();
+        }
+        return limiter.getLimit();
+    }
+
+    @Test
+    public void limitGrowsWhileLatencyIsStable() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 64, 1000, null, clock::get);
+        int before = limiter.getLimit();
+        int after = runRound(limiter, clock, 10 * MILLIS);
+        assertTrue(after > before, "limit did not grow: " + after);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void limitShrinksWhenLatencyIncreases() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(32, 1, 64, 1000, null, clock::get);
+        // establish baseline
+        AdaptiveConcurrencyLimiter.Token single = limiter.acquire();
+        clock.addAndGet(10 * MILLIS);
+        single.release();
+        int baseline = limiter.getLimit();
+
+        int after = runRound(limiter, clock, 40 * MILLIS);
+        assertTrue(after < baseline, "limit did not shrink: " + after);
+        assertTrue(after >= limiter.getMinLimit());
+    }
+
+    @Test
+    public void limitStaysWithinBounds() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 2, 8, 1000, null, clock::get);
+        for (int i = 0; i < 10; i++) {
+            runRound(limiter, clock, MILLIS);
+        }
+        assertEquals(8, limiter.getLimit());
+        for (int i = 0; i < 10; i++) {
+            runRound(limiter, clock, 100 * MILLIS * (i + 2));
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void acquireBlocksAtLimit() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 1000, null, clock::get);
+        AdaptiveConcurrencyLimiter.Token first = limiter.acquire();
+
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        Thread second = new Thread(() -> {
+            try {
+                limiter.acquire().release();
+                events.add("acquired");
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        second.start();
+        second.join(100);
+        assertFalse(events.contains("acquired"));
+
+        first.release();
+        second.join();
+        assertEquals(Collections.singletonList("acquired"), events);
+    }
+
+    @Test
+    public void droppedProcessReducesLimit() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 1, 64, 1000, null, clock::get);
+        limiter.acquire().drop();
+        assertEquals(18, limiter.getLimit());
+    }
+
+    @Test
+    public void cancelledProcessKeepsLimit() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 1, 64, 1000, null, clock::get);
+        AdaptiveConcurrencyLimiter.Token token = limiter.acquire();
+        clock.addAndGet(1000 * MILLIS);
+        token.cancel();
+        assertEquals(20, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void limitIsExportedAsGauge() throws InterruptedException {
+        SimpleMetricsRegistry registry = new SimpleMetricsRegistry();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 64, 1000, registry, clock::get);
+        assertEquals(4, registry.gauge(AdaptiveConcurrencyLimiter.LIMIT, Collections.emptyMap()).getValue());
+
+        runRound(limiter, clock, 10 * MILLIS);
+        assertEquals(limiter.getLimit(),
+                registry.gauge(AdaptiveConcurrencyLimiter.LIMIT, Collections.emptyMap()).getValue());
+        assertEquals(0, registry.gauge(AdaptiveConcurrencyLimiter.IN_FLIGHT, Collections.emptyMap()).getValue());
+    }
+}
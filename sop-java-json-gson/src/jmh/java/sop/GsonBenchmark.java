@@ -0,0 +1,107 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link GsonParser} and {@link GsonSerializer}, which use {@link VerificationJsonAdapter},
+ * with the reflective {@link Gson#fromJson} and {@link Gson#toJson} calls they replaced, which are
+ * reproduced as {@code legacy*} methods.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GsonBenchmark {
+
+    private static final int BATCH = 1000;
+
+    private final Gson gson = new Gson();
+    private final GsonParser parser = new GsonParser(gson);
+    private final GsonSerializer serializer = new GsonSerializer(gson);
+
+    /** plain: signers and comment, ext: additionally an extension object */
+    @Param({"plain", "ext"})
+    public String content;
+
+    private Verification.JSON json;
+    private String string;
+    private String lines;
+
+    @Setup
+    public void setup() {
+        Object ext = content.equals("ext")
+                ? Map.of("key", "value", "list", Arrays.asList(1, 2, 3))
+                : null;
+        json = new Verification.JSON(Arrays.asList("alice.pgp", "bob.pgp"), "Signed by Alice", ext);
+        string = gson.toJson(json);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < BATCH; i++) {
+            sb.append(string).append('\n');
+        }
+        lines = sb.toString();
+    }
+
+    @Benchmark
+    public Verification.JSON parse() throws ParseException {
+        return parser.parse(string);
+    }
+
+    @Benchmark
+    public Verification.JSON legacyParse() {
+        return gson.fromJson(string, new TypeToken<Verification.JSON>() {}.getType());
+    }
+
+    @Benchmark
+    public String serialize() {
+        return serializer.serialize(json);
+    }
+
+    @Benchmark
+    public String legacySerialize() {
+        return gson.toJson(json);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Verification.JSON> parseAll() throws ParseException, IOException {
+        return parser.parseAll(new StringReader(lines));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Verification.JSON> legacyParseLines() {
+        List<Verification.JSON> result = new ArrayList<>(BATCH);
+        for (String line : lines.split("\n")) {
+            result.add(gson.fromJson(line, new TypeToken<Verification.JSON>() {}.getType()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sop.json.JSONCodec;
+
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the built-in {@link JSONCodec} of sop-java with {@link GsonParser} and
+ * {@link GsonSerializer}, which were needed to handle {@link Verification.JSON} before. The
+ * benchmark lives in this module, since sop-java does not depend on Gson.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JSONCodecBenchmark {
+
+    private final GsonParser gsonParser = new GsonParser();
+    private final GsonSerializer gsonSerializer = new GsonSerializer();
+
+    /** plain: signers and comment, ext: additionally an extension object */
+    @Param({"plain", "ext"})
+    public String content;
+
+    private Verification.JSON json;
+    private String string;
+
+    @Setup
+    public void setup() {
+        Object ext = content.equals("ext")
+                ? Map.of("key", "value", "list", Arrays.asList(1L, 2L, 3L))
+                : null;
+        json = new Verification.JSON(Arrays.asList("alice.pgp", "bob.pgp"), "Signed by Alice", ext);
+        string = JSONCodec.INSTANCE.serialize(json);
+    }
+
+    @Benchmark
+    public Verification.JSON codecParse() throws ParseException {
+        return JSONCodec.INSTANCE.parse(string);
+    }
+
+    @Benchmark
+    public Verification.JSON gsonParse() throws ParseException {
+        return gsonParser.parse(string);
+    }
+
+    @Benchmark
+    public String codecSerialize() {
+        return JSONCodec.INSTANCE.serialize(json);
+    }
+
+    @Benchmark
+    public String gsonSerialize() {
+        return gsonSerializer.serialize(json);
+    }
+}
@@ -5,17 +5,98 @@
 package sop
 
 import com.google.gson.Gson
-import com.google.gson.JsonSyntaxException
-import com.google.gson.reflect.TypeToken
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import com.google.gson.stream.MalformedJsonException
+import java.io.EOFException
+import java.io.IOException
+import java.io.Reader
+import java.io.StringReader
 import java.text.ParseException
+import java.util.function.Consumer
 
+/**
+ * [Verification.JSONParser] implementation based on Gson's streaming API and the
+ * [VerificationJsonAdapter].
+ *
+ * @param gson Gson instance, whose settings and adapters are used for the `ext` value
+ */
 class GsonParser(private val gson: Gson = Gson()) : Verification.JSONParser {
 
+    private val adapter = VerificationJsonAdapter(gson)
+
     override fun parse(string: String): Verification.JSON {
+        val reader = newReader(StringReader(string))
+        return try {
+            val json = read(reader)
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw ParseException("JSON document was not fully consumed.", 0)
+            }
+            json
+        } catch (e: IOException) {
+            throw ParseException(e.message, 0)
+        } catch (e: IllegalStateException) {
+            throw ParseException(e.message, 0)
+        } catch (e: NumberFormatException) {
+            throw ParseException(e.message, 0)
+        }
+    }
+
+    /**
+     * Parse a batch of [Verification.JSON] objects from a single [reader]. The input is either a
+     * JSON array of objects, or a sequence of objects, e.g. one per line. Objects are handed to
+     * [consumer] as soon as they are read, so the batch does not need to fit into memory.
+     *
+     * @param reader reader
+     * @param consumer consumer receiving the parsed objects
+     * @throws ParseException if the input is not valid JSON or contains unexpected values
+     * @throws IOException in case of an IO error
+     */
+    @Throws(ParseException::class, IOException::class)
+    fun parseAll(reader: Reader, consumer: Consumer<Verification.JSON>) {
+        val jsonReader = newReader(reader)
         try {
-            return gson.fromJson(string, object : TypeToken<Verification.JSON>() {}.type)
-        } catch (e: JsonSyntaxException) {
+            if (jsonReader.peek() == JsonToken.BEGIN_ARRAY) {
+                jsonReader.beginArray()
+                while (jsonReader.hasNext()) {
+                    consumer.accept(read(jsonReader))
+                }
+                jsonReader.endArray()
+            }
+            while (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+                consumer.accept(read(jsonReader))
+            }
+        } catch (e: MalformedJsonException) {
+            throw ParseException(e.message, 0)
+        } catch (e: EOFException) {
+            throw ParseException(e.message, 0)
+        } catch (e: IllegalStateException) {
+            throw ParseException(e.message, 0)
+        } catch (e: NumberFormatException) {
             throw ParseException(e.message, 0)
         }
     }
+
+    /**
+     * Parse a batch of [Verification.JSON] objects from a single [reader].
+     *
+     * @param reader reader
+     * @return parsed objects
+     * @throws ParseException if the input is not valid JSON or contains unexpected values
+     * @throws IOException in case of an IO error
+     * @see parseAll
+     */
+    @Throws(ParseException::class, IOException::class)
+    fun parseAll(reader: Reader): List<Verification.JSON> =
+        mutableListOf<Verification.JSON>().also { result -> parseAll(reader) { result.add(it) } }
+
+    private fun newReader(reader: Reader): JsonReader =
+        gson.newJsonReader(reader).apply {
+            // Gson.fromJson() has always been lenient
+            @Suppress("DEPRECATION")
+            isLenient = true
+        }
+
+    private fun read(reader: JsonReader): Verification.JSON =
+        adapter.read(reader) ?: throw ParseException("Expected JSON object, but got null.", 0)
 }
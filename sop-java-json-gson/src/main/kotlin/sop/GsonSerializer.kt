@@ -5,10 +5,28 @@
 package sop
 
 import com.google.gson.Gson
+import java.io.StringWriter
 
+/**
+ * [Verification.JSONSerializer] implementation based on Gson's streaming API and the
+ * [VerificationJsonAdapter].
+ *
+ * @param gson Gson instance, whose settings and adapters are used for the `ext` value
+ */
 class GsonSerializer(private val gson: Gson = Gson()) : Verification.JSONSerializer {
 
+    private val adapter = VerificationJsonAdapter(gson)
+
     override fun serialize(json: Verification.JSON): String {
-        return gson.toJson(json)
+        val out = StringWriter()
+        val writer =
+            gson.newJsonWriter(out).apply {
+                // Gson.toJson() has always been lenient
+                @Suppress("DEPRECATION")
+                isLenient = true
+            }
+        adapter.write(writer, json)
+        writer.flush()
+        return out.toString()
     }
 }
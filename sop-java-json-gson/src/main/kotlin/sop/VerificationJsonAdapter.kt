@@ -0,0 +1,98 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop
+
+import com.google.gson.Gson
+import com.google.gson.TypeAdapter
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import com.google.gson.stream.JsonWriter
+
+/**
+ * Hand-written Gson [TypeAdapter] for [Verification.JSON], which reads and writes the `signers`,
+ * `comment` and `ext` fields on the streaming API instead of binding them reflectively. Unknown
+ * fields are skipped, a missing `signers` field results in an empty list.
+ *
+ * The free-form `ext` value is delegated to the adapters of the given [gson] instance. The adapter
+ * can also be registered with a custom [Gson] instance using
+ * [com.google.gson.GsonBuilder.registerTypeAdapter].
+ *
+ * @param gson Gson instance used to read and write the `ext` value
+ */
+class VerificationJsonAdapter(private val gson: Gson = Gson()) : TypeAdapter<Verification.JSON>() {
+
+    private val extAdapter: TypeAdapter<Any> = gson.getAdapter(Any::class.java)
+
+    override fun write(writer: JsonWriter, value: Verification.JSON?) {
+        if (value == null) {
+            writer.nullValue()
+            return
+        }
+        writer.beginObject()
+        writer.name(SIGNERS).beginArray()
+        for (signer in value.signers) {
+            writer.value(signer)
+        }
+        writer.endArray()
+        // Null values are dropped by the writer, unless it is configured to serialize nulls
+        writer.name(COMMENT).value(value.comment)
+        val ext = value.ext
+        if (ext == null) {
+            writer.name(EXT).nullValue()
+        } else {
+            writer.name(EXT)
+            gson.toJson(ext, ext.javaClass, writer)
+        }
+        writer.endObject()
+    }
+
+    override fun read(reader: JsonReader): Verification.JSON? {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull()
+            return null
+        }
+        var signers: List<String> = listOf()
+        var comment: String? = null
+        var ext: Any? = null
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                SIGNERS -> signers = readSigners(reader)
+                COMMENT -> comment = readString(reader)
+                EXT -> ext = extAdapter.read(reader)
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+        return Verification.JSON(signers, comment, ext)
+    }
+
+    private fun readSigners(reader: JsonReader): List<String> {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull()
+            return listOf()
+        }
+        val signers = mutableListOf<String>()
+        reader.beginArray()
+        while (reader.hasNext()) {
+            readString(reader)?.let { signers.add(it) }
+        }
+        reader.endArray()
+        return signers
+    }
+
+    private fun readString(reader: JsonReader): String? =
+        when (reader.peek()) {
+            JsonToken.NULL -> null.also { reader.nextNull() }
+            JsonToken.BOOLEAN -> reader.nextBoolean().toString()
+            else -> reader.nextString()
+        }
+
+    companion object {
+        private const val SIGNERS = "signers"
+        private const val COMMENT = "comment"
+        private const val EXT = "ext"
+    }
+}
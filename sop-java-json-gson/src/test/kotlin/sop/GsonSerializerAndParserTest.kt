@@ -4,6 +4,8 @@
 
 package sop
 
+import com.google.gson.GsonBuilder
+import java.io.StringReader
 import java.text.ParseException
 import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.Test
@@ -91,4 +93,58 @@ class GsonSerializerAndParserTest {
         // Missing '}'
         assertThrows<ParseException> { parser.parse("{\"signers\":[\"Alice\"]") }
     }
+
+    @Test
+    fun unknownFieldsAreSkipped() {
+        val json =
+            "{\"version\":2,\"signers\":[\"/tmp/alice.pgp\"],\"extra\":{\"a\":[1,2]},\"comment\":null}"
+        assertEquals(Verification.JSON("/tmp/alice.pgp"), parser.parse(json))
+    }
+
+    @Test
+    fun missingSignersResultInEmptyList() {
+        assertEquals(
+            Verification.JSON(listOf(), "Comment", null), parser.parse("{\"comment\":\"Comment\"}"))
+    }
+
+    @Test
+    fun parseTrailingData() {
+        assertThrows<ParseException> { parser.parse("{\"signers\":[]} {\"signers\":[]}") }
+        assertThrows<ParseException> { parser.parse("null") }
+    }
+
+    @Test
+    fun parseAllFromArray() {
+        val input = "[{\"signers\":[\"/tmp/alice.pgp\"]}, {\"signers\":[\"/tmp/bob.asc\"]}]"
+        assertEquals(
+            listOf(Verification.JSON("/tmp/alice.pgp"), Verification.JSON("/tmp/bob.asc")),
+            parser.parseAll(StringReader(input)))
+    }
+
+    @Test
+    fun parseAllFromLines() {
+        val before =
+            listOf(
+                Verification.JSON("/tmp/alice.pgp"),
+                Verification.JSON(listOf("/tmp/bob.asc"), "Comment", listOf(1.0, 2.0)))
+        val input = before.joinToString("\n") { serializer.serialize(it) }
+
+        val after = mutableListOf<Verification.JSON>()
+        parser.parseAll(StringReader(input)) { after.add(it) }
+        assertEquals(before, after)
+
+        assertThrows<ParseException> { parser.parseAll(StringReader("$input\n{\"signers\":")) }
+    }
+
+    @Test
+    fun adapterCanBeRegistered() {
+        val gson =
+            GsonBuilder()
+                .registerTypeAdapter(Verification.JSON::class.java, VerificationJsonAdapter())
+                .create()
+        val before = Verification.JSON(listOf("/tmp/alice.pgp"), "This is a comment.", null)
+        val json = gson.toJson(before)
+        assertEquals(serializer.serialize(before), json)
+        assertEquals(before, gson.fromJson(json, Verification.JSON::class.java))
+    }
 }
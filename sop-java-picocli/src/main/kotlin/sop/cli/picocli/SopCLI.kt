@@ -12,6 +12,10 @@ import picocli.CommandLine.*
 import sop.SOP
 import sop.cli.picocli.commands.*
 import sop.exception.SOPGPException
+import sop.instrumentation.InstrumentedSOP
+import sop.instrumentation.tracing.TraceContext
+import sop.instrumentation.tracing.Tracer
+import sop.instrumentation.tracing.TracingOperationListener
 
 @Command(
     name = "sop",
@@ -39,6 +43,7 @@ import sop.exception.SOPGPException
             InlineDetachCmd::class,
             InlineSignCmd::class,
             InlineVerifyCmd::class,
+            InspectCmd::class,
             // Transport
             ArmorCmd::class,
             DearmorCmd::class,
@@ -55,15 +60,33 @@ class SopCLI {
 
         @JvmStatic private var sopInstance: SOP? = null
 
+        @JvmStatic private var tracer: Tracer? = null
+
         @JvmStatic
-        fun getSop(): SOP =
-            checkNotNull(sopInstance) { cliMsg.getString("sop.error.runtime.no_backend_set") }
+        fun getSop(): SOP {
+            val sop =
+                checkNotNull(sopInstance) { cliMsg.getString("sop.error.runtime.no_backend_set") }
+            return tracer?.let { InstrumentedSOP(sop, TracingOperationListener(it)) } ?: sop
+        }
 
         @JvmStatic
         fun setSopInstance(sop: SOP?) {
             sopInstance = sop
         }
 
+        /**
+         * Set a [Tracer] which records a span for each executed subcommand. If the CLI is invoked
+         * as a backend by a process that passes its trace context via the
+         * [TraceContext.TRACEPARENT_ENV] environment variable, spans become children of the
+         * caller's span.
+         *
+         * @param tracer tracer or null
+         */
+        @JvmStatic
+        fun setTracer(tracer: Tracer?) {
+            this.tracer = tracer
+        }
+
         @JvmField var cliMsg: ResourceBundle = ResourceBundle.getBundle("msg_sop")
 
         @JvmField var EXECUTABLE_NAME = "sop"
@@ -80,24 +103,42 @@ class SopCLI {
             }
         }
 
+        /**
+         * Subcommands which can be executed without building the model of all other subcommands, by
+         * name. They are taken from the [Command.subcommands] of [SopCLI]. Help and completion
+         * commands need the full model and are therefore not included.
+         */
+        private val SUBCOMMANDS: Map<String, Class<out AbstractSopCmd>> by lazy {
+            SopCLI::class
+                .java
+                .getAnnotation(Command::class.java)
+                .subcommands
+                .map { it.java }
+                .filter { AbstractSopCmd::class.java.isAssignableFrom(it) }
+                .associate {
+                    it.getAnnotation(Command::class.java).name to
+                        it.asSubclass(AbstractSopCmd::class.java)
+                }
+        }
+
         @JvmStatic
         fun execute(vararg args: String): Int {
             // Set locale
-            CommandLine(InitLocale()).setUnmatchedArgumentsAllowed(true).parseArgs(*args)
+            if (args.any { it.startsWith("-l") || it.startsWith(OPT_LOCALE) }) {
+                CommandLine(InitLocale()).setUnmatchedArgumentsAllowed(true).parseArgs(*args)
+            }
 
             // Re-set bundle with updated locale
             cliMsg = ResourceBundle.getBundle("msg_sop")
 
-            return CommandLine(SopCLI::class.java)
+            // Continue the trace of the calling process, if any
+            val parent = TraceContext.fromEnvironment() ?: TraceContext.current()
+            return TraceContext.makeCurrent(parent).use { executeCommandLine(*args) }
+        }
+
+        private fun executeCommandLine(vararg args: String): Int =
+            (subcommandCommandLine(args) ?: fullCommandLine())
                 .apply {
-                    // Hide generate-completion command
-                    subcommands["generate-completion"]?.commandSpec?.usageMessage()?.hidden(true)
-                    // render Input/Output sections in help command
-                    subcommands.values
-                        .filter {
-                            (it.getCommand() as Any) is AbstractSopCmd
-                        } // Only for AbstractSopCmd objects
-                        .forEach { (it.getCommand() as AbstractSopCmd).installIORenderer(it) }
                     // overwrite executable name
                     commandName = EXECUTABLE_NAME
                     // setup exception handling
@@ -106,6 +147,70 @@ class SopCLI {
                     isCaseInsensitiveEnumValuesAllowed = true
                 }
                 .execute(*args)
+
+        /**
+         * Build the model of the `sop` command with only the invoked subcommand attached, or return
+         * null, if the invoked subcommand cannot be determined up front.
+         */
+        private fun subcommandCommandLine(args: Array<out String>): CommandLine? {
+            val name = subcommandName(args) ?: return null
+            val command = SUBCOMMANDS[name]?.getDeclaredConstructor()?.newInstance() ?: return null
+            return CommandLine(SingleSubcommand()).apply {
+                addSubcommand(command)
+                subcommands[name]?.let { command.installIORenderer(it) }
+            }
+        }
+
+        /** Build the model of the `sop` command including all subcommands. */
+        private fun fullCommandLine(): CommandLine =
+            CommandLine(SopCLI::class.java).apply {
+                // Hide generate-completion command
+                subcommands["generate-completion"]?.commandSpec?.usageMessage()?.hidden(true)
+                // render Input/Output sections in help command
+                subcommands.values
+                    .filter {
+                        (it.getCommand() as Any) is AbstractSopCmd
+                    } // Only for AbstractSopCmd objects
+                    .forEach { (it.getCommand() as AbstractSopCmd).installIORenderer(it) }
+            }
+
+        /**
+         * Return the first argument that is not one of the global options, or null if an unknown
+         * option precedes it.
+         */
+        private fun subcommandName(args: Array<out String>): String? {
+            var i = 0
+            while (i < args.size) {
+                val arg = args[i]
+                when {
+                    arg == "-l" || arg == OPT_LOCALE -> i += 2
+                    arg.startsWith("-l") || arg.startsWith("$OPT_LOCALE=") -> i++
+                    arg == "--stacktrace" || arg == OPT_DEBUG -> i++
+                    arg.startsWith("-") -> return null
+                    else -> return arg
+                }
+            }
+            return null
+        }
+    }
+
+    /**
+     * Root of the command hierarchy if only a single subcommand is executed. It mirrors the options
+     * of [SopCLI], but does not declare any subcommands, so that picocli does not need to build
+     * their models and load their resource bundles.
+     */
+    @Command(
+        name = "sop",
+        resourceBundle = "msg_sop",
+        exitCodeOnInvalidInput = SOPGPException.UnsupportedSubcommand.EXIT_CODE)
+    class SingleSubcommand {
+
+        @Option(names = ["-l", OPT_LOCALE], descriptionKey = "sop.locale")
+        lateinit var ignored: String
+
+        @Option(names = ["--stacktrace", OPT_DEBUG], scope = ScopeType.INHERIT)
+        fun setStacktrace(stacktrace: Boolean) {
+            SopCLI.stacktrace = stacktrace
         }
     }
 
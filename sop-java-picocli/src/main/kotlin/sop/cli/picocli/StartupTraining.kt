@@ -0,0 +1,69 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.cli.picocli
+
+import java.io.ByteArrayInputStream
+import java.io.OutputStream
+import java.io.PrintStream
+import java.util.*
+import picocli.CommandLine
+
+/**
+ * Training run for the class data sharing archive and the native-image metadata of
+ * `sop-java-picocli`. Every subcommand of [SopCLI] and [SopVCLI] is executed once per supported
+ * locale, together with its help page, the completion script and the handling of invalid input, so
+ * that all classes, resource bundles and reflectively accessed members are loaded.
+ *
+ * Standard input is empty and all output is discarded. Without a SOP backend, subcommands fail with
+ * an error after their arguments were parsed. Applications bundling a backend can install it and
+ * call [run] from their own training entry point in order to cover the backend as well.
+ */
+object StartupTraining {
+
+    private val LOCALES = listOf("en", "de")
+
+    @JvmStatic
+    fun main(vararg args: String) {
+        run()
+    }
+
+    @JvmStatic
+    fun run() {
+        val stdin = System.`in`
+        val stdout = System.out
+        val stderr = System.err
+        val locale = Locale.getDefault()
+        val sink = PrintStream(OutputStream.nullOutputStream())
+        System.setOut(sink)
+        System.setErr(sink)
+        try {
+            for (language in LOCALES) {
+                train(language, SopCLI::class.java) { SopCLI.execute(*it) }
+                train(language, SopVCLI::class.java) { SopVCLI.execute(*it) }
+            }
+        } finally {
+            System.setIn(stdin)
+            System.setOut(stdout)
+            System.setErr(stderr)
+            Locale.setDefault(locale)
+        }
+    }
+
+    private fun train(language: String, command: Class<*>, execute: (Array<String>) -> Int) {
+        val locale = arrayOf(SopCLI.OPT_LOCALE, language)
+        for (name in CommandLine(command).subcommands.keys) {
+            execute.withEmptyInput(locale + name)
+            execute.withEmptyInput(locale + arrayOf("help", name))
+        }
+        execute.withEmptyInput(locale + "help")
+        execute.withEmptyInput(locale + arrayOf(SopCLI.OPT_DEBUG, "no-such-subcommand"))
+        execute.withEmptyInput(locale + arrayOf("version", "--no-such-option"))
+    }
+
+    private fun ((Array<String>) -> Int).withEmptyInput(args: Array<String>) {
+        System.setIn(ByteArrayInputStream(ByteArray(0)))
+        this(args)
+    }
+}
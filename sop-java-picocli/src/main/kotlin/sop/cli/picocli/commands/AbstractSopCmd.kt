@@ -19,7 +19,8 @@ import sop.util.UTF8Util.Companion.decodeUTF8
 /** Abstract super class of SOP subcommands. */
 abstract class AbstractSopCmd(locale: Locale = Locale.getDefault()) : Runnable {
 
-    private val messages: ResourceBundle = ResourceBundle.getBundle("msg_sop", locale)
+    // Most invocations never print a message, so the bundle is only loaded when it is needed
+    private val messages: ResourceBundle by lazy { ResourceBundle.getBundle("msg_sop", locale) }
     var environmentVariableResolver = EnvironmentVariableResolver { name: String ->
         System.getenv(name)
     }
@@ -265,36 +266,30 @@ abstract class AbstractSopCmd(locale: Locale = Locale.getDefault()) : Runnable {
         private fun width(help: Help) = help.commandSpec().usageMessage().width()
     }
 
+    /**
+     * Add the standard input and output sections to the usage help of [cmd]. The resource bundle is
+     * only consulted once the help is actually rendered, sections without resources render empty.
+     */
     fun installIORenderer(cmd: CommandLine) {
-        val inputName = getResString(cmd, "standardInput")
-        if (inputName != null) {
-            cmd.helpSectionMap[SECTION_KEY_STANDARD_INPUT_HEADING] = IHelpSectionRenderer {
-                getResString(cmd, "standardInputHeading")
-            }
-            cmd.helpSectionMap[SECTION_KEY_STANDARD_INPUT_DETAILS] =
-                InputOutputHelpSectionRenderer(
-                    inputName to getResString(cmd, "standardInputDescription"))
-            cmd.helpSectionKeys =
-                insertKey(
-                    cmd.helpSectionKeys,
-                    SECTION_KEY_STANDARD_INPUT_HEADING,
-                    SECTION_KEY_STANDARD_INPUT_DETAILS)
-        }
+        installIOSection(
+            cmd, SECTION_KEY_STANDARD_INPUT_HEADING, SECTION_KEY_STANDARD_INPUT_DETAILS)
+        installIOSection(
+            cmd, SECTION_KEY_STANDARD_OUTPUT_HEADING, SECTION_KEY_STANDARD_OUTPUT_DETAILS)
+    }
 
-        val outputName = getResString(cmd, "standardOutput")
-        if (outputName != null) {
-            cmd.helpSectionMap[SECTION_KEY_STANDARD_OUTPUT_HEADING] = IHelpSectionRenderer {
-                getResString(cmd, "standardOutputHeading")
-            }
-            cmd.helpSectionMap[SECTION_KEY_STANDARD_OUTPUT_DETAILS] =
+    private fun installIOSection(cmd: CommandLine, headingKey: String, detailsKey: String) {
+        cmd.helpSectionMap[headingKey] = IHelpSectionRenderer {
+            getResString(cmd, detailsKey)?.let { getResString(cmd, headingKey) } ?: ""
+        }
+        cmd.helpSectionMap[detailsKey] = IHelpSectionRenderer { help ->
+            getResString(cmd, detailsKey)?.let { name ->
                 InputOutputHelpSectionRenderer(
-                    outputName to getResString(cmd, "standardOutputDescription"))
-            cmd.helpSectionKeys =
-                insertKey(
-                    cmd.helpSectionKeys,
-                    SECTION_KEY_STANDARD_OUTPUT_HEADING,
-                    SECTION_KEY_STANDARD_OUTPUT_DETAILS)
+                        name to getResString(cmd, "${detailsKey}Description"))
+                    .render(help)
+            }
+                ?: ""
         }
+        cmd.helpSectionKeys = insertKey(cmd.helpSectionKeys, headingKey, detailsKey)
     }
 
     private fun insertKey(keys: List<String>, header: String, details: String): List<String> {
@@ -342,14 +337,8 @@ abstract class AbstractSopCmd(locale: Locale = Locale.getDefault()) : Runnable {
         @JvmStatic
         fun stringFromInputStream(inputStream: InputStream): String {
             return inputStream.use { input ->
-                val byteOut = ByteArrayOutputStream()
-                val buf = ByteArray(4096)
-                var read: Int
-                while (input.read(buf).also { read = it } != -1) {
-                    byteOut.write(buf, 0, read)
-                }
                 // TODO: For decrypt operations we MUST accept non-UTF8 passwords
-                decodeUTF8(byteOut.toByteArray())
+                decodeUTF8(input)
             }
         }
     }
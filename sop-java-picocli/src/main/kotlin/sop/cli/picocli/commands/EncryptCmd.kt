@@ -11,6 +11,7 @@ import sop.cli.picocli.SopCLI
 import sop.enums.EncryptAs
 import sop.enums.EncryptFor
 import sop.exception.SOPGPException.*
+import sop.util.UTF8Util
 
 @Command(
     name = "encrypt",
@@ -130,7 +131,9 @@ class EncryptCmd : AbstractSopCmd() {
         }
 
         try {
-            val ready = encrypt.plaintext(System.`in`)
+            val input =
+                if (type == EncryptAs.text) UTF8Util.requireText(System.`in`) else System.`in`
+            val ready = encrypt.plaintext(input)
             val result = ready.writeTo(System.out)
 
             if (sessionKeyOut == null) {
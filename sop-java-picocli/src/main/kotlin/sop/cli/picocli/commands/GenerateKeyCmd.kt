@@ -4,11 +4,14 @@
 
 package sop.cli.picocli.commands
 
+import java.io.File
 import java.io.IOException
 import picocli.CommandLine.*
 import sop.cli.picocli.SopCLI
 import sop.exception.SOPGPException.UnsupportedOption
 import sop.exception.SOPGPException.UnsupportedProfile
+import sop.pool.BulkKeyGenerator
+import sop.pool.KeyTemplate
 
 @Command(
     name = "generate-key",
@@ -27,6 +30,13 @@ class GenerateKeyCmd : AbstractSopCmd() {
 
     @Option(names = [OPT_SIGNING_ONLY]) var signingOnly: Boolean = false
 
+    @Option(names = [OPT_COUNT], paramLabel = "N") var count: Int = 1
+
+    @Option(names = [OPT_PARALLEL], paramLabel = "P")
+    var parallel: Int = Runtime.getRuntime().availableProcessors()
+
+    @Option(names = [OPT_OUTPUT_DIR], paramLabel = "DIR") var outputDir: String? = null
+
     override fun run() {
         val generateKey =
             throwIfUnsupportedSubcommand(SopCLI.getSop().generateKey(), "generate-key")
@@ -52,17 +62,24 @@ class GenerateKeyCmd : AbstractSopCmd() {
             throwIfUnsupportedOption(OPT_NO_ARMOR) { generateKey.noArmor() }
         }
 
+        var password: String? = null
         withKeyPassword?.let {
             try {
                 throwIfUnsupportedOption(OPT_WITH_KEY_PASSWORD) {
-                    val password = stringFromInputStream(getInput(it))
-                    generateKey.withKeyPassword(password)
+                    password = stringFromInputStream(getInput(it))
+                    generateKey.withKeyPassword(password!!)
                 }
             } catch (e: IOException) {
                 throw RuntimeException(e)
             }
         }
 
+        if (count != 1 || outputDir != null) {
+            // The options were validated on the single generateKey instance above
+            generateBulk(password)
+            return
+        }
+
         try {
             val ready = generateKey.generate()
             ready.writeTo(System.out)
@@ -71,10 +88,44 @@ class GenerateKeyCmd : AbstractSopCmd() {
         }
     }
 
+    private fun generateBulk(password: String?) {
+        if (count < 1) {
+            throw UnsupportedOption(
+                getMsg("sop.error.usage.option_requires_positive_number", OPT_COUNT))
+        }
+        if (parallel < 1) {
+            throw UnsupportedOption(
+                getMsg("sop.error.usage.option_requires_positive_number", OPT_PARALLEL))
+        }
+
+        val generator = BulkKeyGenerator(SopCLI.getSop(), parallel)
+        val template = KeyTemplate(profile, signingOnly, userId)
+        try {
+            val dir = outputDir?.let { File(it) }
+            if (dir == null) {
+                generator.keyring(template, count, password, armor).writeTo(System.out)
+                return
+            }
+
+            dir.mkdirs()
+            val digits = count.toString().length
+            val extension = if (armor) "asc" else "pgp"
+            generator.generate(template, count, password, armor) { index, key ->
+                val name = String.format("key-%0${digits}d.%s", index + 1, extension)
+                getOutput(File(dir, name).path).use { it.write(key) }
+            }
+        } catch (e: IOException) {
+            throw RuntimeException(e)
+        }
+    }
+
     companion object {
         const val OPT_NO_ARMOR = "--no-armor"
         const val OPT_WITH_KEY_PASSWORD = "--with-key-password"
         const val OPT_PROFILE = "--profile"
         const val OPT_SIGNING_ONLY = "--signing-only"
+        const val OPT_COUNT = "--count"
+        const val OPT_PARALLEL = "--parallel"
+        const val OPT_OUTPUT_DIR = "--output-dir"
     }
 }
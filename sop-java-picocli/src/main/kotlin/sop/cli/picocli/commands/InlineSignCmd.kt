@@ -9,6 +9,7 @@ import picocli.CommandLine.*
 import sop.cli.picocli.SopCLI
 import sop.enums.InlineSignAs
 import sop.exception.SOPGPException.*
+import sop.util.UTF8Util
 
 @Command(
     name = "inline-sign",
@@ -71,7 +72,11 @@ class InlineSignCmd : AbstractSopCmd() {
         }
 
         try {
-            val ready = inlineSign.data(System.`in`)
+            val input =
+                if (type == InlineSignAs.text || type == InlineSignAs.clearsigned) {
+                    UTF8Util.requireText(System.`in`)
+                } else System.`in`
+            val ready = inlineSign.data(input)
             ready.writeTo(System.out)
         } catch (e: IOException) {
             throw RuntimeException(e)
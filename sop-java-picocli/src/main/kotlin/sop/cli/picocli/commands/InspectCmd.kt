@@ -0,0 +1,37 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.cli.picocli.commands
+
+import picocli.CommandLine.Command
+import sop.cli.picocli.SopCLI
+import sop.exception.SOPGPException
+import sop.exception.SOPGPException.BadData
+
+@Command(
+    name = "inspect",
+    resourceBundle = "msg_inspect",
+    exitCodeOnInvalidInput = SOPGPException.UnsupportedOption.EXIT_CODE)
+class InspectCmd : AbstractSopCmd() {
+
+    override fun run() {
+        val inspect = throwIfUnsupportedSubcommand(SopCLI.getSop().inspect(), "inspect")
+
+        val result =
+            try {
+                inspect.data(System.`in`)
+            } catch (badData: BadData) {
+                val errorMsg = getMsg("sop.error.input.stdin_not_openpgp_data")
+                throw BadData(errorMsg, badData)
+            }
+
+        println(result.armorType?.let { "armor $it" } ?: "binary")
+        result.packets.forEach { println("packet $it") }
+        result.recipients.forEach { println("recipient $it") }
+        if (result.hasSkesk) {
+            println("skesk")
+        }
+        result.issuers.forEach { println("issuer $it") }
+    }
+}
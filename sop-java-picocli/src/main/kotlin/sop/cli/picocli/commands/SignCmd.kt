@@ -11,6 +11,7 @@ import sop.enums.SignAs
 import sop.exception.SOPGPException
 import sop.exception.SOPGPException.BadData
 import sop.exception.SOPGPException.KeyIsProtected
+import sop.util.UTF8Util
 
 @Command(
     name = "sign",
@@ -67,7 +68,8 @@ class SignCmd : AbstractSopCmd() {
         }
 
         try {
-            val ready = detachedSign.data(System.`in`)
+            val input = if (type == SignAs.text) UTF8Util.requireText(System.`in`) else System.`in`
+            val ready = detachedSign.data(input)
             val result = ready.writeTo(System.out)
 
             if (micAlgOut != null) {
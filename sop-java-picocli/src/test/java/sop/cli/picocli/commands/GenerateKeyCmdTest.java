@@ -4,6 +4,7 @@
 
 package sop.cli.picocli.commands;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -12,11 +13,15 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static sop.testsuite.assertions.SopExecutionAssertions.assertGenericError;
 import static sop.testsuite.assertions.SopExecutionAssertions.assertMissingArg;
+import static sop.testsuite.assertions.SopExecutionAssertions.assertOutputExists;
 import static sop.testsuite.assertions.SopExecutionAssertions.assertSuccess;
 import static sop.testsuite.assertions.SopExecutionAssertions.assertUnsupportedAsymmetricAlgo;
+import static sop.testsuite.assertions.SopExecutionAssertions.assertUnsupportedOption;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.file.Files;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -103,4 +108,36 @@ public class GenerateKeyCmdTest {
         assertGenericError(() ->
                 SopCLI.execute("generate-key", "Alice"));
     }
+
+    @Test
+    public void count_generatesKeyring() throws IOException {
+        assertSuccess(() ->
+                SopCLI.execute("generate-key", "--no-armor", "--count", "3", "--parallel", "2", "Alice"));
+        verify(generateKey, times(3)).generate();
+    }
+
+    @Test
+    public void outputDir_writesOneFilePerKey() throws IOException {
+        File dir = Files.createTempDirectory("sop-generate-key").toFile();
+        assertSuccess(() ->
+                SopCLI.execute("generate-key", "--count", "2", "--output-dir", dir.getAbsolutePath(), "Alice"));
+        verify(generateKey, times(2)).generate();
+        assertTrue(new File(dir, "key-1.asc").exists());
+        assertTrue(new File(dir, "key-2.asc").exists());
+
+        // Existing files are not overwritten
+        assertOutputExists(() ->
+                SopCLI.execute("generate-key", "--count", "2", "--output-dir", dir.getAbsolutePath(), "Alice"));
+
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void nonPositiveCountIsRejected() {
+        assertUnsupportedOption(() ->
+                SopCLI.execute("generate-key", "--count", "0", "Alice"));
+    }
 }
@@ -0,0 +1,64 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.cli.picocli.commands;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static sop.testsuite.assertions.SopExecutionAssertions.assertBadData;
+import static sop.testsuite.assertions.SopExecutionAssertions.assertSuccess;
+import static sop.testsuite.assertions.SopExecutionAssertions.assertUnsupportedSubcommand;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sop.InspectionResult;
+import sop.SOP;
+import sop.cli.picocli.SopCLI;
+import sop.exception.SOPGPException;
+import sop.operation.Inspect;
+
+public class InspectCmdTest {
+
+    private SOP sop;
+    private Inspect inspect;
+
+    @BeforeEach
+    public void mockComponents() throws IOException {
+        sop = mock(SOP.class);
+        inspect = mock(Inspect.class);
+        InspectionResult result = new InspectionResult("MESSAGE",
+                Collections.singletonList(new InspectionResult.Packet(1, "PKESK", 13, false)),
+                Collections.singletonList(new InspectionResult.Recipient(3, 1, "0123456789ABCDEF", null)),
+                Collections.emptyList());
+        when(inspect.data((InputStream) any())).thenReturn(result);
+        when(sop.inspect()).thenReturn(inspect);
+
+        SopCLI.setSopInstance(sop);
+    }
+
+    @Test
+    public void assertDataIsCalled() throws IOException {
+        assertSuccess(() -> SopCLI.execute("inspect"));
+        verify(inspect, times(1)).data((InputStream) any());
+    }
+
+    @Test
+    public void assertBadDataCausesExit41() throws IOException {
+        when(inspect.data((InputStream) any())).thenThrow(new SOPGPException.BadData("Not OpenPGP."));
+        assertBadData(() -> SopCLI.execute("inspect"));
+    }
+
+    @Test
+    public void assertUnsupportedSubcommandCausesExit69() {
+        when(sop.inspect()).thenReturn(null);
+        assertUnsupportedSubcommand(() -> SopCLI.execute("inspect"));
+    }
+}
@@ -10,6 +10,8 @@ import sop.SOP;
 import sop.cli.picocli.SopCLI;
 import sop.operation.Version;
 
+import java.util.Locale;
+
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -75,4 +77,29 @@ public class VersionCmdTest {
         assertUnsupportedOption(() ->
                 SopCLI.execute("version", "--invalid"));
     }
+
+    @Test
+    public void assertGlobalOptionsBeforeSubcommandWork() {
+        Locale locale = Locale.getDefault();
+        try {
+            assertSuccess(() ->
+                    SopCLI.execute("--debug", "version"));
+            assertSuccess(() ->
+                    SopCLI.execute("--locale", "de", "version", "--backend"));
+            assertSuccess(() ->
+                    SopCLI.execute("--locale=en", "--stacktrace", "version"));
+        } finally {
+            Locale.setDefault(locale);
+        }
+        verify(version, times(2)).getVersion();
+        verify(version, times(1)).getBackendVersion();
+    }
+
+    @Test
+    public void assertHelpCommandWorks() {
+        assertSuccess(() ->
+                SopCLI.execute("help", "version"));
+        assertUnsupportedOption(() ->
+                SopCLI.execute("--debug", "version", "--invalid"));
+    }
 }
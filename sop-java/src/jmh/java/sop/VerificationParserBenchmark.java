@@ -0,0 +1,113 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sop.enums.SignatureMode;
+import sop.util.UTCUtil;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link VerificationParser} with the split based parsing behind a {@link BufferedReader}
+ * it replaced, which is reproduced as {@code legacy*} methods. The legacy code uses the current
+ * {@link UTCUtil}, so that only the line parsing is compared. The input consists of 1000 lines,
+ * half of which carry a JSON description.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VerificationParserBenchmark {
+
+    private static final int LINES = 1000;
+
+    private final VerificationParser parser = new VerificationParser();
+    private final byte[] output;
+
+    public VerificationParserBenchmark() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            // A handful of signers, as in the output of a typical verify operation
+            String signer = String.format("%040X", i % 8);
+            sb.append("2019-10-29T12:11:04Z ").append(signer).append(' ').append(signer)
+                    .append(" mode:binary");
+            if (i % 2 == 0) {
+                sb.append(" {\"signers\": [\"alice.pgp\"], \"comment\": \"Signed by Alice\"}");
+            }
+            sb.append('\n');
+        }
+        output = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<Verification> parseAll() throws IOException {
+        return parser.parseAll(new ByteArrayInputStream(output));
+    }
+
+    @Benchmark
+    public void visitSigners(Blackhole blackhole) throws IOException {
+        parser.parse(new ByteArrayInputStream(output), line -> blackhole.consume(line.getSigningCert()));
+    }
+
+    @Benchmark
+    public List<Verification> legacyParseAll() throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(output), StandardCharsets.UTF_8));
+        List<Verification> verifications = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            verifications.add(legacyFromString(line.trim()));
+        }
+        return verifications;
+    }
+
+    private static Verification legacyFromString(String string) {
+        String[] split = string.trim().split(" ");
+        if (split.length < 3) {
+            throw new IllegalArgumentException();
+        }
+        if (split.length == 3) {
+            return new Verification(legacyParseUTCDate(split[0]), split[1], split[2]);
+        }
+        int index = 3;
+        SignatureMode mode = null;
+        if (split[3].startsWith("mode:")) {
+            index++;
+            mode = SignatureMode.valueOf(split[3].substring("mode:".length()));
+        }
+        String description = String.join(" ", Arrays.asList(split).subList(index, split.length));
+        return new Verification(legacyParseUTCDate(split[0]), split[1], split[2], mode,
+                description.isBlank() ? null : description);
+    }
+
+    private static java.util.Date legacyParseUTCDate(String string) {
+        try {
+            return UTCUtil.parseUTCDate(string);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Malformed UTC timestamp.", e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sop.SessionKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares {@link HexUtil} and {@link SessionKey#fromString(String)} with the implementations they
+ * replaced, which are reproduced as {@code legacy*} methods.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HexBenchmark {
+
+    private static final Pattern LEGACY_SESSION_KEY = Pattern.compile("^(\\d):([0-9A-F]+)$");
+
+    private final byte[] fingerprint = HexUtil.hexToBytes("7F9116FEA90A5983936C7CFAA027DB2F3E1E118A");
+    private final String fingerprintHex = "7F9116FEA90A5983936C7CFAA027DB2F3E1E118A";
+    private final String sessionKey = "9:FCA4BEAF687F48059CACC14FB019125CD57392BAB7037C707835925CBF9F7BCD";
+
+    @Benchmark
+    public String bytesToHex() {
+        return HexUtil.bytesToHex(fingerprint);
+    }
+
+    @Benchmark
+    public String legacyBytesToHex() {
+        // bytes.joinToString(separator = "") { "%02X".format(it) }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : fingerprint) {
+            sb.append(String.format("%02X", b));
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public byte[] hexToBytes() {
+        return HexUtil.hexToBytes(fingerprintHex);
+    }
+
+    @Benchmark
+    public byte[] legacyHexToBytes() {
+        return legacyDecode(fingerprintHex);
+    }
+
+    @Benchmark
+    public SessionKey sessionKeyFromString() {
+        return SessionKey.fromString(sessionKey);
+    }
+
+    @Benchmark
+    public SessionKey legacySessionKeyFromString() {
+        Matcher matcher = LEGACY_SESSION_KEY.matcher(sessionKey.trim().toUpperCase().replace("\n", ""));
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException();
+        }
+        return new SessionKey(Byte.parseByte(matcher.group(1)), legacyDecode(matcher.group(2)));
+    }
+
+    // chunked(2).map { it.toInt(16).toByte() }.toByteArray()
+    private static byte[] legacyDecode(String s) {
+        List<String> chunks = new ArrayList<>();
+        for (int i = 0; i < s.length(); i += 2) {
+            chunks.add(s.substring(i, i + 2));
+        }
+        List<Byte> bytes = new ArrayList<>();
+        for (String chunk : chunks) {
+            bytes.add((byte) Integer.parseInt(chunk, 16));
+        }
+        byte[] result = new byte[bytes.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bytes.get(i);
+        }
+        return result;
+    }
+}
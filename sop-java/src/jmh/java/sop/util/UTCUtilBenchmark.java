@@ -0,0 +1,104 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link UTCUtil} with the implementation it replaced, which tried a list of
+ * {@link SimpleDateFormat} layouts in turn and is reproduced as {@code legacy*} methods.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UTCUtilBenchmark {
+
+    private static final String TIMESTAMP = "2019-10-29T12:11:04Z";
+    // Accepted by the third layout, after the first two failed
+    private static final String COMPACT_TIMESTAMP = "20191029T121104Z";
+
+    private final SimpleDateFormat[] legacyParsers = new SimpleDateFormat[] {
+            new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'"),
+            new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssX"),
+            new SimpleDateFormat("yyyyMMdd'T'HHmmss'Z'"),
+            new SimpleDateFormat("yyyy-MM-dd'T'HH:mm'Z'")
+    };
+
+    private final Date date = new Date(1572351064000L);
+    private long seconds = 1572351064L;
+
+    public UTCUtilBenchmark() {
+        for (SimpleDateFormat parser : legacyParsers) {
+            parser.setTimeZone(TimeZone.getTimeZone("UTC"));
+        }
+    }
+
+    @Benchmark
+    public Date parse() throws ParseException {
+        return UTCUtil.parseUTCDate(TIMESTAMP);
+    }
+
+    @Benchmark
+    public Date legacyParse() throws ParseException {
+        return legacyParse(TIMESTAMP);
+    }
+
+    @Benchmark
+    public Date parseCompact() throws ParseException {
+        return UTCUtil.parseUTCDate(COMPACT_TIMESTAMP);
+    }
+
+    @Benchmark
+    public Date legacyParseCompact() throws ParseException {
+        return legacyParse(COMPACT_TIMESTAMP);
+    }
+
+    @Benchmark
+    public String formatCached() {
+        return UTCUtil.formatUTCDate(date);
+    }
+
+    @Benchmark
+    public String formatUncached() {
+        // A different second on each call misses the cache of recently formatted timestamps
+        return UTCUtil.formatUTCDate(new Date(++seconds * 1000));
+    }
+
+    @Benchmark
+    public String legacyFormat() {
+        return legacyParsers[0].format(new Date(++seconds * 1000));
+    }
+
+    private Date legacyParse(String dateString) throws ParseException {
+        ParseException exception = null;
+        for (SimpleDateFormat parser : legacyParsers) {
+            try {
+                return parser.parse(dateString);
+            } catch (ParseException e) {
+                if (exception == null) {
+                    exception = e;
+                }
+            }
+        }
+        throw exception;
+    }
+}
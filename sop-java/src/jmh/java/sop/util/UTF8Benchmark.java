@@ -0,0 +1,87 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link UTF8Util} and {@link UTF8Validator} with the shared {@link CharsetDecoder} they
+ * replaced, which is reproduced as {@code legacy*} methods.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UTF8Benchmark {
+
+    private final CharsetDecoder legacyDecoder = StandardCharsets.UTF_8.newDecoder()
+            .onUnmappableCharacter(CodingErrorAction.REPORT)
+            .onMalformedInput(CodingErrorAction.REPORT);
+
+    @Param({"1024", "65536"})
+    public int size;
+
+    /** ascii: plain ASCII text, mixed: German text with umlauts and a sprinkling of emoji */
+    @Param({"ascii", "mixed"})
+    public String text;
+
+    private byte[] data;
+
+    @Setup
+    public void setup() {
+        String line = text.equals("ascii")
+                ? "The quick brown fox jumps over the lazy dog.\n"
+                : "Zwölf Boxkämpfer jagen Viktor quer über den großen Sylter Deich 🥊\n";
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < size) {
+            sb.append(line);
+        }
+        data = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String decodeUTF8() throws CharacterCodingException {
+        return UTF8Util.decodeUTF8(data);
+    }
+
+    @Benchmark
+    public String legacyDecodeUTF8() throws CharacterCodingException {
+        return legacyDecoder.decode(ByteBuffer.wrap(data)).toString();
+    }
+
+    @Benchmark
+    public boolean isValidUTF8() {
+        return UTF8Util.isValidUTF8(data);
+    }
+
+    @Benchmark
+    public boolean legacyIsValidUTF8() {
+        try {
+            legacyDecoder.decode(ByteBuffer.wrap(data));
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop
+
+import java.lang.ref.ReferenceQueue
+import java.lang.ref.WeakReference
+import java.util.concurrent.ConcurrentHashMap
+import sop.util.HexUtil
+
+/**
+ * OpenPGP fingerprint, backed by its binary representation (20 bytes for v4, 32 bytes for v6 keys).
+ *
+ * Instances are immutable and interned: [of] and [parse] return the same instance for the same
+ * fingerprint as long as it is referenced somewhere, so that large numbers of results issued by the
+ * same keys share a single fingerprint object. The hash code is computed up front, the hex
+ * representation only when it is first requested.
+ */
+class Fingerprint private constructor(private val bytes: ByteArray) {
+
+    private val hash = bytes.contentHashCode()
+
+    @Volatile private var hex: String? = null
+
+    /** Length of the fingerprint in bytes. */
+    val length: Int
+        get() = bytes.size
+
+    /** Return a copy of the binary fingerprint. */
+    fun toByteArray(): ByteArray = bytes.copyOf()
+
+    /** Return the fingerprint in uppercase hex. */
+    fun toHex(): String = hex ?: HexUtil.bytesToHex(bytes).also { hex = it }
+
+    override fun equals(other: Any?): Boolean {
+        if (this === other) return true
+        if (other !is Fingerprint) return false
+        return hash == other.hash && bytes.contentEquals(other.bytes)
+    }
+
+    override fun hashCode(): Int = hash
+
+    override fun toString(): String = toHex()
+
+    /** Return true if the first [length] bytes of [other] are this fingerprint. */
+    internal fun matches(other: ByteArray, length: Int): Boolean {
+        if (length != bytes.size) return false
+        for (i in 0 until length) {
+            if (bytes[i] != other[i]) return false
+        }
+        return true
+    }
+
+    companion object {
+
+        private const val MAX_LENGTH = 64
+
+        // Keyed by the binary fingerprint, so that the map does not keep interned instances alive
+        private val interned = ConcurrentHashMap<Key, Ref>()
+        private val collected = ReferenceQueue<Fingerprint>()
+
+        /**
+         * Return the fingerprint with the given binary representation.
+         *
+         * @param bytes binary fingerprint
+         * @return fingerprint
+         * @throws IllegalArgumentException if the fingerprint is empty or too long
+         */
+        @JvmStatic
+        fun of(bytes: ByteArray): Fingerprint {
+            require(bytes.size in 1..MAX_LENGTH) { "Invalid fingerprint length ${bytes.size}." }
+            return intern(Fingerprint(bytes.copyOf()))
+        }
+
+        /**
+         * Parse a fingerprint from its hex representation. Upper- and lowercase digits are
+         * accepted.
+         *
+         * @param hex hex encoded fingerprint
+         * @return fingerprint
+         * @throws IllegalArgumentException if the string is not a hex encoded fingerprint
+         */
+        @JvmStatic
+        fun parse(hex: String): Fingerprint {
+            require(hex.length % 2 == 0 && hex.length / 2 in 1..MAX_LENGTH) {
+                "Malformed fingerprint '$hex'."
+            }
+            val bytes = ByteArray(hex.length / 2)
+            try {
+                HexUtil.decode(hex, 0, hex.length, bytes, 0)
+            } catch (e: NumberFormatException) {
+                throw IllegalArgumentException("Malformed fingerprint '$hex'.", e)
+            }
+            return intern(Fingerprint(bytes))
+        }
+
+        /** Return the fingerprint made up of the first [length] bytes of [bytes]. */
+        internal fun of(bytes: ByteArray, length: Int): Fingerprint {
+            require(length in 1..MAX_LENGTH) { "Invalid fingerprint length $length." }
+            return intern(Fingerprint(bytes.copyOf(length)))
+        }
+
+        private fun intern(fingerprint: Fingerprint): Fingerprint {
+            expunge()
+            val key = Key(fingerprint.bytes, fingerprint.hash)
+            while (true) {
+                val ref = interned[key]
+                if (ref == null) {
+                    if (interned.putIfAbsent(key, Ref(fingerprint, key)) == null) {
+                        return fingerprint
+                    }
+                } else {
+                    ref.get()?.let {
+                        return it
+                    }
+                    if (interned.replace(key, ref, Ref(fingerprint, key))) {
+                        return fingerprint
+                    }
+                }
+            }
+        }
+
+        /** Remove the entries of fingerprints that were garbage collected. */
+        private fun expunge() {
+            while (true) {
+                val ref = collected.poll() as Ref? ?: return
+                interned.remove(ref.key, ref)
+            }
+        }
+    }
+
+    private class Key(val bytes: ByteArray, val hash: Int) {
+        override fun equals(other: Any?): Boolean =
+            other is Key && hash == other.hash && bytes.contentEquals(other.bytes)
+
+        override fun hashCode(): Int = hash
+    }
+
+    private class Ref(fingerprint: Fingerprint, val key: Key) :
+        WeakReference<Fingerprint>(fingerprint, collected)
+}
@@ -0,0 +1,89 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop
+
+/**
+ * Result of inspecting the leading packets of OpenPGP data without decrypting or verifying it.
+ *
+ * @param armorType armor type (e.g. `MESSAGE` or `SIGNATURE`) if the input was ASCII armored,
+ *   `null` if it was binary
+ * @param packets inspected packets in input order. Inspection stops at the first packet containing
+ *   message data, which is included as the last packet.
+ * @param recipients recipients named by the PKESK packets
+ * @param issuers issuers named by signature and one-pass-signature packets
+ */
+data class InspectionResult(
+    val armorType: String?,
+    val packets: List<Packet>,
+    val recipients: List<Recipient>,
+    val issuers: List<Issuer>
+) {
+
+    /** Whether the input was ASCII armored. */
+    val isArmored: Boolean
+        get() = armorType != null
+
+    /** Whether the message can be decrypted using a password. */
+    val hasSkesk: Boolean
+        get() = packets.any { it.tag == SKESK_TAG }
+
+    /**
+     * Packet header.
+     *
+     * @param tag packet type ID
+     * @param name short name of the packet type, e.g. `PKESK`
+     * @param length body length, the length of the first chunk if [partial] is `true`, or `-1` if
+     *   the packet extends to the end of the input
+     * @param partial whether the packet uses partial body lengths
+     */
+    data class Packet(val tag: Int, val name: String, val length: Long, val partial: Boolean) {
+        override fun toString(): String =
+            when {
+                partial -> "$name partial"
+                length < 0 -> "$name indeterminate"
+                else -> "$name $length"
+            }
+    }
+
+    /**
+     * Recipient of an encrypted message.
+     *
+     * @param version version of the PKESK packet
+     * @param algorithm public key algorithm ID
+     * @param keyId key ID of the recipient (sub-)key in uppercase hex, `null` if not known
+     * @param fingerprint fingerprint of the recipient (sub-)key in uppercase hex, `null` if not
+     *   known
+     */
+    data class Recipient(
+        val version: Int,
+        val algorithm: Int,
+        val keyId: String?,
+        val fingerprint: String?
+    ) {
+
+        /** Whether the recipient was hidden ("wildcard" or anonymous recipient). */
+        val isWildcard: Boolean
+            get() = fingerprint == null && (keyId == null || keyId == WILDCARD_KEY_ID)
+
+        override fun toString(): String = if (isWildcard) "*" else (fingerprint ?: keyId!!)
+    }
+
+    /**
+     * Issuer of a signature.
+     *
+     * @param keyId key ID of the issuer (sub-)key in uppercase hex, `null` if not known
+     * @param fingerprint fingerprint of the issuer (sub-)key in uppercase hex, `null` if not known
+     */
+    data class Issuer(val keyId: String?, val fingerprint: String?) {
+        override fun toString(): String = fingerprint ?: keyId ?: "*"
+    }
+
+    companion object {
+        /** Key ID denoting a hidden recipient. */
+        const val WILDCARD_KEY_ID = "0000000000000000"
+
+        private const val SKESK_TAG = 3
+    }
+}
@@ -4,7 +4,11 @@
 
 package sop
 
+import java.io.InputStream
+import sop.exception.SOPGPException
 import sop.operation.*
+import sop.packet.PacketInspector
+import sop.util.UTF8Util
 
 /**
  * Stateless OpenPGP Interface. This class provides a stateless interface to various OpenPGP related
@@ -126,4 +130,78 @@ interface SOP : SOPV {
      * @throws sop.exception.SOPGPException.UnsupportedSubcommand if the command is not implemented.
      */
     fun certifyUserId(): CertifyUserId
+
+    /**
+     * Change the recipients of an encrypted message without re-encrypting its payload.
+     *
+     * This operation is not part of the stateless OpenPGP protocol specification, so the default
+     * implementation throws [sop.exception.SOPGPException.UnsupportedSubcommand]. Backends can
+     * extend [sop.rewrap.SplicingRewrap] to implement it.
+     *
+     * @throws sop.exception.SOPGPException.UnsupportedSubcommand if the command is not implemented.
+     */
+    fun rewrap(): Rewrap =
+        throw SOPGPException.UnsupportedSubcommand("Command 'rewrap' is not supported.")
+
+    /**
+     * Inspect the leading packets of OpenPGP data, e.g. to find out the recipients of an encrypted
+     * message without attempting to decrypt it.
+     *
+     * This operation is not part of the stateless OpenPGP protocol specification. The default
+     * implementation only looks at the packet framing and therefore works with any backend.
+     */
+    fun inspect(): Inspect = PacketInspector()
+
+    /**
+     * Remove the password protection of a secret key once and return a handle, which can be used
+     * for many signing and decryption operations without having to derive the key from the password
+     * each time.
+     *
+     * The default implementation removes the protection using [changeKeyPassword]. Backends can
+     * override this method to keep the unlocked key in a native representation.
+     *
+     * @param key input stream containing the protected secret key(s)
+     * @param password password of the key
+     * @param lifetimeMillis lifetime of the returned handle in milliseconds
+     * @return handle to the unlocked key, which MUST be closed after use
+     * @throws sop.exception.SOPGPException.KeyIsProtected if the key cannot be unlocked using the
+     *   password
+     * @throws sop.exception.SOPGPException.UnsupportedSubcommand if [changeKeyPassword] is not
+     *   implemented.
+     */
+    fun unlock(key: InputStream, password: ByteArray, lifetimeMillis: Long): UnlockedKey =
+        UnlockedKey.WipingOutputStream().use { buffer ->
+            changeKeyPassword().noArmor().oldKeyPassphrase(password).keys(key).writeTo(buffer)
+            UnlockedKey(buffer.toByteArray(), lifetimeMillis)
+        }
+
+    /**
+     * Remove the password protection of a secret key once and return a handle with the default
+     * lifetime of [UnlockedKey.DEFAULT_LIFETIME_MILLIS].
+     *
+     * @param key protected secret key(s)
+     * @param password password of the key
+     * @return handle to the unlocked key, which MUST be closed after use
+     * @see unlock
+     */
+    fun unlock(key: ByteArray, password: ByteArray): UnlockedKey =
+        unlock(key.inputStream(), password, UnlockedKey.DEFAULT_LIFETIME_MILLIS)
+
+    /**
+     * Remove the password protection of a secret key once and return a handle with the default
+     * lifetime of [UnlockedKey.DEFAULT_LIFETIME_MILLIS].
+     *
+     * @param key protected secret key(s)
+     * @param password password of the key
+     * @return handle to the unlocked key, which MUST be closed after use
+     * @see unlock
+     */
+    fun unlock(key: ByteArray, password: String): UnlockedKey {
+        val passwordBytes = password.toByteArray(UTF8Util.UTF8)
+        try {
+            return unlock(key, passwordBytes)
+        } finally {
+            passwordBytes.fill(0)
+        }
+    }
 }
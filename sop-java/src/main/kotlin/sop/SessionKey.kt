@@ -32,17 +32,62 @@ data class SessionKey(val algorithm: Byte, val key: ByteArray) {
         return hashCode
     }
 
-    override fun toString(): String = "$algorithm:${HexUtil.bytesToHex(key)}"
+    override fun toString(): String {
+        val hex = CharArray(key.size * 2).also { HexUtil.encode(key, 0, key.size, it, 0) }
+        return StringBuilder(hex.size + 5)
+            .append(algorithm.toInt())
+            .append(':')
+            .append(hex)
+            .toString()
+    }
 
     companion object {
 
-        @JvmStatic private val PATTERN = "^(\\d):([0-9A-F]+)$".toPattern()
+        private const val FORMAT_ERROR = "Provided session key does not match expected format."
 
+        /**
+         * Parse a session key from its string representation `<algorithm digit>:<hex key>`.
+         * Surrounding whitespace and line breaks are ignored.
+         *
+         * @param string session key string
+         * @return session key
+         * @throws IllegalArgumentException if the string is malformed
+         * @throws IllegalStateException if the key has an odd number of hex digits
+         */
         @JvmStatic
         fun fromString(string: String): SessionKey {
-            val matcher = PATTERN.matcher(string.trim().uppercase().replace("\n", ""))
-            require(matcher.matches()) { "Provided session key does not match expected format." }
-            return SessionKey(matcher.group(1).toByte(), HexUtil.hexToBytes(matcher.group(2)))
+            var start = 0
+            var end = string.length
+            while (start < end && string[start].isWhitespace()) start++
+            while (end > start && string[end - 1].isWhitespace()) end--
+
+            var algorithm = -1
+            var colon = false
+            val key = ByteArray(((end - start - 2) / 2).coerceAtLeast(0))
+            var length = 0
+            var high = -1
+            for (i in start until end) {
+                val c = string[i]
+                when {
+                    c == '\n' -> continue
+                    algorithm == -1 -> algorithm = if (c in '0'..'9') c - '0' else break
+                    !colon -> colon = if (c == ':') true else break
+                    else -> {
+                        val digit = HexUtil.digit(c)
+                        require(digit >= 0) { FORMAT_ERROR }
+                        if (high == -1) {
+                            high = digit
+                        } else {
+                            key[length++] = ((high shl 4) or digit).toByte()
+                            high = -1
+                        }
+                    }
+                }
+            }
+            require(colon && length > 0) { FORMAT_ERROR }
+            check(high == -1) { "Hex encoding must have even number of digits." }
+            return SessionKey(
+                algorithm.toByte(), if (length == key.size) key else key.copyOf(length))
         }
     }
 }
@@ -0,0 +1,133 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop
+
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.InputStream
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.ScheduledThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+
+/**
+ * Handle to a secret key whose password protection has been removed by [SOP.unlock]. The handle can
+ * be passed to [sop.operation.AbstractSign.key], [sop.operation.Encrypt.signWith] and
+ * [sop.operation.Decrypt.withKey] for any number of operations, so that the backend does not have
+ * to run the (potentially expensive) S2K derivation for each of them.
+ *
+ * The handle has a bounded lifetime. Once it expired or was closed, the unprotected key material is
+ * overwritten with zeros and the handle can no longer be used. Expired handles are wiped by a
+ * background timer, even if they are never accessed again.
+ *
+ * @param keyMaterial unprotected key material. The handle takes ownership of the array.
+ * @param lifetimeMillis lifetime of the handle in milliseconds
+ */
+class UnlockedKey(private val keyMaterial: ByteArray, lifetimeMillis: Long) : AutoCloseable {
+
+    init {
+        require(lifetimeMillis > 0) { "Lifetime MUST be positive." }
+    }
+
+    private val expiresAtNanos: Long = System.nanoTime() + lifetimeMillis * 1_000_000
+    @Volatile private var closed = false
+    private val expiry: ScheduledFuture<*> =
+        WIPER.schedule({ wipe() }, lifetimeMillis, TimeUnit.MILLISECONDS)
+
+    /** Whether the handle can still be used, i.e. is neither closed nor expired. */
+    val isUsable: Boolean
+        get() {
+            if (!closed && System.nanoTime() - expiresAtNanos >= 0) {
+                wipe()
+            }
+            return !closed
+        }
+
+    /**
+     * Return an [InputStream] over a copy of the unprotected key material. Closing the handle does
+     * not affect streams that were already handed out, so a backend may still be reading while the
+     * handle expires. The copy is overwritten with zeros once the stream is closed.
+     *
+     * @return input stream
+     * @throws IllegalStateException if the handle was closed or expired
+     */
+    val inputStream: InputStream
+        get() {
+            synchronized(this) {
+                check(isUsable) { "Unlocked key was closed or expired." }
+                return WipingInputStream(keyMaterial.copyOf())
+            }
+        }
+
+    /** Overwrite the unprotected key material with zeros. */
+    override fun close() {
+        wipe()
+        expiry.cancel(false)
+    }
+
+    private fun wipe() {
+        synchronized(this) {
+            closed = true
+            keyMaterial.fill(0)
+        }
+    }
+
+    override fun toString(): String = "UnlockedKey[${if (closed) "closed" else "usable"}]"
+
+    /** Stream over a copy of the key material, which is overwritten with zeros on close. */
+    private class WipingInputStream(copy: ByteArray) : ByteArrayInputStream(copy) {
+        override fun close() {
+            synchronized(this) {
+                buf.fill(0)
+                pos = 0
+                count = 0
+            }
+        }
+    }
+
+    /**
+     * Buffer for unprotected key material. Unlike [ByteArrayOutputStream], it overwrites its
+     * internal array with zeros when growing and once it is closed.
+     */
+    internal class WipingOutputStream : ByteArrayOutputStream() {
+
+        override fun write(b: Int) {
+            ensureCapacity(count + 1)
+            super.write(b)
+        }
+
+        override fun write(b: ByteArray, off: Int, len: Int) {
+            ensureCapacity(count + len)
+            super.write(b, off, len)
+        }
+
+        override fun close() {
+            synchronized(this) {
+                buf.fill(0)
+                count = 0
+            }
+        }
+
+        private fun ensureCapacity(capacity: Int) {
+            synchronized(this) {
+                if (capacity > buf.size) {
+                    val old = buf
+                    buf = old.copyOf(maxOf(capacity, old.size * 2))
+                    old.fill(0)
+                }
+            }
+        }
+    }
+
+    companion object {
+        /** Default lifetime of [UnlockedKey] handles created by [SOP.unlock]: 5 minutes. */
+        const val DEFAULT_LIFETIME_MILLIS = 5 * 60 * 1000L
+
+        private val WIPER =
+            ScheduledThreadPoolExecutor(1) { runnable ->
+                    Thread(runnable, "sop-unlocked-key-wiper").apply { isDaemon = true }
+                }
+                .apply { removeOnCancelPolicy = true }
+    }
+}
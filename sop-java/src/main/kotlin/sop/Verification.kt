@@ -7,6 +7,7 @@ package sop
 import java.text.ParseException
 import java.util.Date
 import sop.enums.SignatureMode
+import sop.json.JSONCodec
 import sop.util.Optional
 import sop.util.UTCUtil
 
@@ -27,6 +28,36 @@ data class Verification(
     val jsonOrDescription: Optional<String>
 ) {
 
+    /**
+     * Create a [Verification] from binary fingerprints. The hex strings are those cached by the
+     * interned [Fingerprint]s, so verifications issued by the same key share them.
+     */
+    constructor(
+        creationTime: Date,
+        signingKey: Fingerprint,
+        signingCert: Fingerprint,
+        signatureMode: Optional<SignatureMode>,
+        jsonOrDescription: Optional<String>
+    ) : this(
+        creationTime, signingKey.toHex(), signingCert.toHex(), signatureMode, jsonOrDescription) {
+        parsedSigningKey = signingKey
+        parsedSigningCert = signingCert
+    }
+
+    @JvmOverloads
+    constructor(
+        creationTime: Date,
+        signingKey: Fingerprint,
+        signingCert: Fingerprint,
+        signatureMode: SignatureMode? = null,
+        description: String? = null
+    ) : this(
+        creationTime,
+        signingKey,
+        signingCert,
+        Optional.ofNullable(signatureMode),
+        Optional.ofNullable(description?.trim()))
+
     @JvmOverloads
     constructor(
         creationTime: Date,
@@ -41,6 +72,10 @@ data class Verification(
         Optional.ofNullable(signatureMode),
         Optional.ofNullable(description?.trim()))
 
+    /**
+     * Create a [Verification] carrying a [JSON] object. The object is kept, so that [getJson]
+     * returns it without parsing the serialized form again.
+     */
     @JvmOverloads
     constructor(
         creationTime: Date,
@@ -54,73 +89,135 @@ data class Verification(
         signingKeyFingerprint,
         signingCertFingerprint,
         Optional.ofNullable(signatureMode),
-        Optional.of(jsonSerializer.serialize(json)))
+        Optional.of(jsonSerializer.serialize(json))) {
+        parsedJson = ParsedJson(null, json)
+    }
+
+    /**
+     * Create a [Verification] carrying a [JSON] object, which is serialized using the built-in
+     * [JSONCodec].
+     */
+    constructor(
+        creationTime: Date,
+        signingKeyFingerprint: String,
+        signingCertFingerprint: String,
+        signatureMode: SignatureMode?,
+        json: JSON
+    ) : this(
+        creationTime, signingKeyFingerprint, signingCertFingerprint, signatureMode, json, JSONCodec)
+
+    // All caches are immutable snapshots, so racy initialization is harmless
+    private var jsonState: Byte = JSON_UNKNOWN
+    private var parsedJson: ParsedJson? = null
+    private var parsedSigningKey: Fingerprint? = null
+    private var parsedSigningCert: Fingerprint? = null
+
+    /**
+     * Fingerprint of the (sub-)key that issued the signature. It is parsed from
+     * [signingKeyFingerprint] on first access.
+     *
+     * @throws IllegalArgumentException if [signingKeyFingerprint] is not hex encoded
+     */
+    val signingKey: Fingerprint
+        get() =
+            parsedSigningKey
+                ?: Fingerprint.parse(signingKeyFingerprint).also { parsedSigningKey = it }
+
+    /**
+     * Fingerprint of the certificate that contains the signing key. It is parsed from
+     * [signingCertFingerprint] on first access.
+     *
+     * @throws IllegalArgumentException if [signingCertFingerprint] is not hex encoded
+     */
+    val signingCert: Fingerprint
+        get() =
+            parsedSigningCert
+                ?: Fingerprint.parse(signingCertFingerprint).also { parsedSigningCert = it }
 
     @Deprecated("Replaced by jsonOrDescription", replaceWith = ReplaceWith("jsonOrDescription"))
-    val description = jsonOrDescription
+    val description: Optional<String>
+        get() = jsonOrDescription
 
-    /** This value is `true` if the [Verification] contains extension JSON. */
-    val containsJson: Boolean =
-        jsonOrDescription.get()?.trim()?.let { it.startsWith("{") && it.endsWith("}") } ?: false
+    /**
+     * This value is `true` if the [Verification] contains extension JSON. It is determined on first
+     * access.
+     */
+    val containsJson: Boolean
+        get() {
+            if (jsonState == JSON_UNKNOWN) {
+                jsonState =
+                    if (looksLikeJson(jsonOrDescription.get())) JSON_PRESENT else JSON_ABSENT
+            }
+            return jsonState == JSON_PRESENT
+        }
 
     /**
      * Attempt to parse the [jsonOrDescription] field using the provided [JSONParser] and return the
-     * result. This method returns `null` if parsing fails.
+     * result. This method returns `null` if parsing fails. The result is cached, so that repeated
+     * calls with the same parser do not parse the string again.
      *
      * @param parser [JSONParser] implementation
      * @return successfully parsed [JSON] POJO or `null`.
      */
     fun getJson(parser: JSONParser): JSON? {
-        return jsonOrDescription.get()?.let {
+        val description = jsonOrDescription.get() ?: return null
+        parsedJson
+            ?.takeIf { it.parser == null || it.parser === parser }
+            ?.let {
+                return it.json
+            }
+        val json =
             try {
-                parser.parse(it)
+                parser.parse(description)
             } catch (e: ParseException) {
                 null
             }
-        }
+        parsedJson = ParsedJson(parser, json)
+        return json
     }
 
+    /**
+     * Attempt to parse the [jsonOrDescription] field using the built-in [JSONCodec] and return the
+     * result. This method returns `null` if parsing fails.
+     *
+     * @return successfully parsed [JSON] POJO or `null`.
+     */
+    fun getJson(): JSON? = getJson(JSONCodec)
+
     override fun toString(): String =
         "${UTCUtil.formatUTCDate(creationTime)} $signingKeyFingerprint $signingCertFingerprint" +
             (if (signatureMode.isPresent) " mode:${signatureMode.get()}" else "") +
             (if (jsonOrDescription.isPresent) " ${jsonOrDescription.get()}" else "")
 
+    /** Result of parsing the description with [parser], or the original object if `null`. */
+    private class ParsedJson(val parser: JSONParser?, val json: JSON?)
+
     companion object {
-        @JvmStatic
-        fun fromString(string: String): Verification {
-            val split = string.trim().split(" ")
-            require(split.size >= 3) {
-                "Verification must be of the format 'UTC-DATE OpenPGPFingerprint OpenPGPFingerprint [mode] [info]'."
-            }
-            if (split.size == 3) {
-                return Verification(parseUTCDate(split[0]), split[1], split[2])
-            }
 
-            var index = 3
-            val mode =
-                if (split[3].startsWith("mode:")) {
-                    index += 1
-                    SignatureMode.valueOf(split[3].substring("mode:".length))
-                } else null
-
-            val description = split.subList(index, split.size).joinToString(" ").ifBlank { null }
-
-            return Verification(
-                parseUTCDate(split[0]),
-                split[1],
-                split[2],
-                Optional.ofNullable(mode),
-                Optional.ofNullable(description))
+        private const val JSON_UNKNOWN: Byte = 0
+        private const val JSON_PRESENT: Byte = 1
+        private const val JSON_ABSENT: Byte = 2
+
+        /** Check whether [string] starts with `{` and ends with `}`, ignoring whitespace. */
+        private fun looksLikeJson(string: String?): Boolean {
+            if (string == null) return false
+            var start = 0
+            var end = string.length
+            while (start < end && string[start].isWhitespace()) start++
+            while (end > start && string[end - 1].isWhitespace()) end--
+            return end - start >= 2 && string[start] == '{' && string[end - 1] == '}'
         }
 
+        /**
+         * Parse a [Verification] from its string representation.
+         *
+         * @param string verification line
+         * @return verification
+         * @throws IllegalArgumentException if the string is malformed
+         * @see VerificationParser
+         */
         @JvmStatic
-        private fun parseUTCDate(string: String): Date {
-            return try {
-                UTCUtil.parseUTCDate(string)
-            } catch (e: ParseException) {
-                throw IllegalArgumentException("Malformed UTC timestamp.", e)
-            }
-        }
+        fun fromString(string: String): Verification = VerificationParser.parseLine(string)
     }
 
     /**
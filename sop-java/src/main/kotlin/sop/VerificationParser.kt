@@ -0,0 +1,408 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop
+
+import java.io.IOException
+import java.io.InputStream
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.text.ParseException
+import java.util.Date
+import sop.enums.SignatureMode
+import sop.util.HexUtil
+import sop.util.Optional
+import sop.util.UTCUtil
+
+/**
+ * Cursor based parser for the `VERIFICATIONS` output of `sop verify`, `sop inline-verify` and `sop
+ * decrypt --verifications-out`.
+ *
+ * Each line has the format `UTC-DATE SIGNING-KEY-FPR SIGNING-CERT-FPR [mode:MODE] [DESCRIPTION]`.
+ * The parser walks over the input in place, instead of splitting lines into substrings. Timestamps
+ * are parsed directly from the input and fingerprints are decoded into a scratch buffer and looked
+ * up in a small cache of recently seen [Fingerprint] instances, so that a long list of signatures
+ * by the same keys does not allocate per line. The description is only turned into a [String] if it
+ * is requested.
+ *
+ * Blank lines are skipped, lines may be terminated with `\n` or `\r\n`. Instances are not
+ * thread-safe.
+ */
+class VerificationParser {
+
+    private val scratch = ByteArray(MAX_FINGERPRINT_LENGTH)
+    private val fingerprints = arrayOfNulls<Fingerprint>(CACHE_SIZE)
+
+    /** Callback receiving the parsed verification lines. */
+    fun interface Visitor {
+
+        /**
+         * Called for each verification line. The [line] cursor is reused for the following line, so
+         * visitors must copy out whatever they want to keep, e.g. by calling [Line.toVerification].
+         *
+         * @param line parsed line
+         */
+        fun visit(line: Line)
+    }
+
+    /** Cursor pointing at a parsed verification line. */
+    class Line internal constructor() {
+
+        /** Creation time of the signature in milliseconds since the epoch. */
+        var creationTime: Long = 0
+            private set
+
+        /** Fingerprint of the (sub-)key that issued the signature. */
+        lateinit var signingKey: Fingerprint
+            private set
+
+        /** Fingerprint of the certificate that contains the signing key. */
+        lateinit var signingCert: Fingerprint
+            private set
+
+        /** Signature mode, if present. */
+        var signatureMode: SignatureMode? = null
+            private set
+
+        private var source: Source? = null
+        private var descriptionStart = 0
+        private var descriptionEnd = 0
+
+        /** `true` if the line carries a JSON object or description. */
+        val hasJsonOrDescription: Boolean
+            get() = descriptionStart < descriptionEnd
+
+        /** Return the JSON object or description, or `null` if the line does not carry one. */
+        fun jsonOrDescription(): String? =
+            if (hasJsonOrDescription) source!!.string(descriptionStart, descriptionEnd) else null
+
+        /** Convert the line into a [Verification]. */
+        fun toVerification(): Verification =
+            Verification(
+                Date(creationTime),
+                signingKey,
+                signingCert,
+                Optional.ofNullable(signatureMode),
+                Optional.ofNullable(jsonOrDescription()))
+
+        internal fun set(
+            creationTime: Long,
+            signingKey: Fingerprint,
+            signingCert: Fingerprint,
+            signatureMode: SignatureMode?,
+            source: Source,
+            descriptionStart: Int,
+            descriptionEnd: Int
+        ) {
+            this.creationTime = creationTime
+            this.signingKey = signingKey
+            this.signingCert = signingCert
+            this.signatureMode = signatureMode
+            this.source = source
+            this.descriptionStart = descriptionStart
+            this.descriptionEnd = descriptionEnd
+        }
+    }
+
+    /**
+     * Parse a single verification line.
+     *
+     * @param line verification line
+     * @return verification
+     * @throws IllegalArgumentException if the line is malformed
+     */
+    fun parse(line: CharSequence): Verification {
+        val cursor = Line()
+        require(parseLine(CharSource(line), 0, line.length, cursor)) { FORMAT }
+        return cursor.toVerification()
+    }
+
+    /**
+     * Parse all verification lines of [text].
+     *
+     * @param text verification lines
+     * @param visitor visitor receiving the lines
+     * @throws IllegalArgumentException if a line is malformed
+     */
+    fun parse(text: CharSequence, visitor: Visitor) {
+        parseLines(CharSource(text), 0, text.length, true, Line(), visitor)
+    }
+
+    /**
+     * Parse all verification lines contained in the remaining bytes of [buffer]. The lines are read
+     * in place, the position of the buffer is not modified.
+     *
+     * @param buffer UTF-8 encoded verification lines
+     * @param visitor visitor receiving the lines
+     * @throws IllegalArgumentException if a line is malformed
+     */
+    fun parse(buffer: ByteBuffer, visitor: Visitor) {
+        parseLines(ByteSource(buffer), buffer.position(), buffer.limit(), true, Line(), visitor)
+    }
+
+    /**
+     * Parse all verification lines read from [input] until the end of the stream is reached. The
+     * stream is not closed.
+     *
+     * @param input UTF-8 encoded verification lines
+     * @param visitor visitor receiving the lines
+     * @throws IOException in case of an IO error
+     * @throws IllegalArgumentException if a line is malformed
+     */
+    @Throws(IOException::class)
+    fun parse(input: InputStream, visitor: Visitor) {
+        var bytes = ByteArray(BUFFER_SIZE)
+        var source = ByteSource(ByteBuffer.wrap(bytes))
+        val cursor = Line()
+        var length = 0
+        while (true) {
+            if (length == bytes.size) {
+                // A single line does not fit into the buffer
+                bytes = bytes.copyOf(bytes.size * 2)
+                source = ByteSource(ByteBuffer.wrap(bytes))
+            }
+            val read = input.read(bytes, length, bytes.size - length)
+            if (read == -1) {
+                parseLines(source, 0, length, true, cursor, visitor)
+                return
+            }
+            val end = length + read
+            val consumed = parseLines(source, 0, end, false, cursor, visitor)
+            System.arraycopy(bytes, consumed, bytes, 0, end - consumed)
+            length = end - consumed
+        }
+    }
+
+    /**
+     * Parse all verification lines read from [input] until the end of the stream is reached. The
+     * stream is not closed.
+     *
+     * @param input UTF-8 encoded verification lines
+     * @return verifications
+     * @throws IOException in case of an IO error
+     * @throws IllegalArgumentException if a line is malformed
+     */
+    @Throws(IOException::class)
+    fun parseAll(input: InputStream): List<Verification> =
+        mutableListOf<Verification>().also { result ->
+            parse(input) { result.add(it.toVerification()) }
+        }
+
+    /**
+     * Parse the lines between [start] and [end]. If [final] is false, a trailing line without line
+     * break is left alone, since more of it might follow.
+     *
+     * @return position up to which the input was consumed
+     */
+    private fun parseLines(
+        source: Source,
+        start: Int,
+        end: Int,
+        final: Boolean,
+        cursor: Line,
+        visitor: Visitor
+    ): Int {
+        var pos = start
+        while (pos < end) {
+            val lineEnd = source.indexOf('\n', pos, end)
+            if (lineEnd == end && !final) {
+                return pos
+            }
+            if (parseLine(source, pos, lineEnd, cursor)) {
+                visitor.visit(cursor)
+            }
+            pos = lineEnd + 1
+        }
+        return end
+    }
+
+    /**
+     * Parse the line between [start] and [end] into [cursor].
+     *
+     * @return false if the line is blank
+     */
+    private fun parseLine(source: Source, start: Int, end: Int, cursor: Line): Boolean {
+        var from = start
+        var to = end
+        while (from < to && source[from] <= ' ') from++
+        while (to > from && source[to - 1] <= ' ') to--
+        if (from == to) {
+            return false
+        }
+
+        val dateEnd = tokenEnd(source, from, to)
+        val seconds = UTCUtil.parseEpochSeconds(source, from, dateEnd)
+        if (seconds == UTCUtil.INVALID) {
+            val date = source.string(from, dateEnd)
+            throw IllegalArgumentException(
+                "Malformed UTC timestamp.", ParseException("Unparseable date: \"$date\"", 0))
+        }
+
+        val keyStart = skipSeparators(source, dateEnd, to)
+        val keyEnd = tokenEnd(source, keyStart, to)
+        val certStart = skipSeparators(source, keyEnd, to)
+        val certEnd = tokenEnd(source, certStart, to)
+        require(keyStart < keyEnd && certStart < certEnd) { FORMAT }
+        val signingKey = fingerprint(source, keyStart, keyEnd)
+        val signingCert = fingerprint(source, certStart, certEnd)
+
+        var pos = skipSeparators(source, certEnd, to)
+        var mode: SignatureMode? = null
+        if (startsWith(source, pos, to, MODE_PREFIX)) {
+            val modeEnd = tokenEnd(source, pos, to)
+            mode = signatureMode(source, pos + MODE_PREFIX.length, modeEnd)
+            pos = skipSeparators(source, modeEnd, to)
+        }
+
+        cursor.set(seconds * 1000, signingKey, signingCert, mode, source, pos, to)
+        return true
+    }
+
+    /** Decode the hex fingerprint between [start] and [end]. */
+    private fun fingerprint(source: Source, start: Int, end: Int): Fingerprint {
+        val length = (end - start) / 2
+        if ((end - start) % 2 != 0 || length > MAX_FINGERPRINT_LENGTH) {
+            throw malformedFingerprint(source, start, end)
+        }
+        var hash = 1
+        for (i in 0 until length) {
+            val high = HexUtil.digit(source[start + 2 * i])
+            val low = HexUtil.digit(source[start + 2 * i + 1])
+            if (high < 0 || low < 0) {
+                throw malformedFingerprint(source, start, end)
+            }
+            val b = ((high shl 4) or low).toByte()
+            scratch[i] = b
+            hash = 31 * hash + b
+        }
+        val slot = hash and (CACHE_SIZE - 1)
+        val cached = fingerprints[slot]
+        if (cached != null && cached.hashCode() == hash && cached.matches(scratch, length)) {
+            return cached
+        }
+        return Fingerprint.of(scratch, length).also { fingerprints[slot] = it }
+    }
+
+    private fun malformedFingerprint(source: Source, start: Int, end: Int) =
+        IllegalArgumentException("Malformed fingerprint '${source.string(start, end)}'.")
+
+    /** Look up the signature mode named between [start] and [end]. */
+    private fun signatureMode(source: Source, start: Int, end: Int): SignatureMode {
+        for (mode in MODES) {
+            if (end - start == mode.name.length && startsWith(source, start, end, mode.name)) {
+                return mode
+            }
+        }
+        // Let the enum produce its usual error
+        return SignatureMode.valueOf(source.string(start, end))
+    }
+
+    private fun tokenEnd(source: Source, start: Int, end: Int): Int {
+        var pos = start
+        while (pos < end && !isSeparator(source[pos])) pos++
+        return pos
+    }
+
+    private fun skipSeparators(source: Source, start: Int, end: Int): Int {
+        var pos = start
+        while (pos < end && isSeparator(source[pos])) pos++
+        return pos
+    }
+
+    private fun isSeparator(c: Char): Boolean = c == ' ' || c == '\t'
+
+    private fun startsWith(source: Source, start: Int, end: Int, prefix: String): Boolean {
+        if (end - start < prefix.length) return false
+        for (i in prefix.indices) {
+            if (source[start + i] != prefix[i]) return false
+        }
+        return true
+    }
+
+    /** Character view on the parsed input. */
+    internal abstract class Source : CharSequence {
+
+        /** Return the text between [start] and [end]. */
+        abstract fun string(start: Int, end: Int): String
+
+        /** Return the index of the first [c] between [start] and [end], or [end]. */
+        open fun indexOf(c: Char, start: Int, end: Int): Int {
+            var pos = start
+            while (pos < end && get(pos) != c) pos++
+            return pos
+        }
+
+        override fun subSequence(startIndex: Int, endIndex: Int): CharSequence =
+            string(startIndex, endIndex)
+    }
+
+    private class CharSource(private val text: CharSequence) : Source() {
+
+        override val length: Int
+            get() = text.length
+
+        override fun get(index: Int): Char = text[index]
+
+        override fun string(start: Int, end: Int): String = text.subSequence(start, end).toString()
+    }
+
+    /**
+     * View on UTF-8 encoded bytes. All syntax elements are ASCII, so bytes are exposed as chars one
+     * by one and only the description is actually decoded.
+     */
+    private class ByteSource(private val buffer: ByteBuffer) : Source() {
+
+        override val length: Int
+            get() = buffer.limit()
+
+        override fun get(index: Int): Char = (buffer.get(index).toInt() and 0xff).toChar()
+
+        override fun indexOf(c: Char, start: Int, end: Int): Int {
+            if (!buffer.hasArray()) {
+                return super.indexOf(c, start, end)
+            }
+            val array = buffer.array()
+            val offset = buffer.arrayOffset()
+            val b = c.code.toByte()
+            var pos = start
+            while (pos < end && array[offset + pos] != b) pos++
+            return pos
+        }
+
+        override fun string(start: Int, end: Int): String {
+            if (buffer.hasArray()) {
+                return String(
+                    buffer.array(),
+                    buffer.arrayOffset() + start,
+                    end - start,
+                    StandardCharsets.UTF_8)
+            }
+            val slice = buffer.duplicate()
+            slice.limit(end).position(start)
+            return StandardCharsets.UTF_8.decode(slice).toString()
+        }
+    }
+
+    companion object {
+        private const val FORMAT =
+            "Verification must be of the format 'UTC-DATE OpenPGPFingerprint OpenPGPFingerprint [mode] [info]'."
+        private const val MODE_PREFIX = "mode:"
+        private const val MAX_FINGERPRINT_LENGTH = 64
+        private const val CACHE_SIZE = 64
+        private const val BUFFER_SIZE = 8192
+
+        private val MODES = SignatureMode.values()
+
+        private val local = ThreadLocal.withInitial { VerificationParser() }
+
+        /**
+         * Parse a single verification line using a parser that is shared by the calling thread.
+         *
+         * @param line verification line
+         * @return verification
+         * @throws IllegalArgumentException if the line is malformed
+         */
+        @JvmStatic fun parseLine(line: CharSequence): Verification = local.get().parse(line)
+    }
+}
@@ -0,0 +1,158 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.cache
+
+import java.io.InputStream
+import java.io.OutputStream
+import java.util.*
+import sop.DecryptionResult
+import sop.ReadyWithResult
+import sop.SessionKey
+import sop.cache.VerificationCache.Digest
+import sop.exception.SOPGPException
+import sop.operation.Decrypt
+import sop.packet.EncryptedMessageHeader
+import sop.packet.PacketSource
+import sop.packet.RecordingInputStream
+import sop.util.UTF8Util
+
+/**
+ * [Decrypt] implementation which remembers the session keys of decrypted messages in a
+ * [SessionKeyCache]. When a message whose session key packets were seen before is decrypted again
+ * using the same credentials, the cached session key is passed to the [delegate] via
+ * [Decrypt.withSessionKey] instead of the keys and passwords, which saves the costly asymmetric
+ * decryption or password derivation.
+ *
+ * Keys and passwords are held back until [ciphertext] is called, so errors concerning them are only
+ * reported at that point. If the caller passes in a session key explicitly, the cache is bypassed.
+ *
+ * @param delegate actual decryption operation
+ * @param cache cache
+ */
+class CachingDecrypt(private val delegate: Decrypt, private val cache: SessionKeyCache) : Decrypt {
+
+    private val keys = mutableListOf<ByteArray>()
+    private val keyPasswords = mutableListOf<ByteArray>()
+    private val passwords = mutableListOf<String>()
+    private var explicitSessionKey = false
+
+    override fun verifyNotBefore(timestamp: Date): Decrypt = apply {
+        delegate.verifyNotBefore(timestamp)
+    }
+
+    override fun verifyNotAfter(timestamp: Date): Decrypt = apply {
+        delegate.verifyNotAfter(timestamp)
+    }
+
+    override fun verifyWithCert(cert: InputStream): Decrypt = apply {
+        delegate.verifyWithCert(cert)
+    }
+
+    override fun withSessionKey(sessionKey: SessionKey): Decrypt = apply {
+        delegate.withSessionKey(sessionKey)
+        explicitSessionKey = true
+    }
+
+    override fun withPassword(password: String): Decrypt = apply { passwords.add(password) }
+
+    override fun withKey(key: InputStream): Decrypt = withKey(key.readBytes())
+
+    override fun withKey(key: ByteArray): Decrypt = apply { keys.add(key) }
+
+    override fun withKeyPassword(password: ByteArray): Decrypt = apply {
+        keyPasswords.add(password)
+    }
+
+    override fun ciphertext(ciphertext: InputStream): ReadyWithResult<DecryptionResult> {
+        if (explicitSessionKey) {
+            return passCredentials().ciphertext(ciphertext)
+        }
+
+        val recording = RecordingInputStream(ciphertext)
+        val header =
+            try {
+                EncryptedMessageHeader.read(PacketSource.open(recording).reader)
+            } catch (e: SOPGPException.BadData) {
+                // Let the backend report the error
+                null
+            }
+        val message = recording.replay()
+        if (header == null || !header.isEncrypted) {
+            return passCredentials().ciphertext(message)
+        }
+
+        val key = SessionKeyCache.Key(headerDigest(header), credentialsDigest())
+        val sessionKey = cache.get(key)
+        if (sessionKey != null) {
+            return invalidateOnError(key) {
+                delegate.withSessionKey(sessionKey).ciphertext(message)
+            }
+        }
+
+        val ready = passCredentials().ciphertext(message)
+        return object : ReadyWithResult<DecryptionResult>() {
+            override fun writeTo(outputStream: OutputStream): DecryptionResult =
+                ready.writeTo(outputStream).also { result ->
+                    result.sessionKey.get()?.let { cache.put(key, it) }
+                }
+        }
+    }
+
+    private fun passCredentials(): Decrypt =
+        delegate.apply {
+            keys.forEach { withKey(it) }
+            keyPasswords.forEach { withKeyPassword(it) }
+            passwords.forEach { withPassword(it) }
+        }
+
+    private fun invalidateOnError(
+        key: SessionKeyCache.Key,
+        operation: () -> ReadyWithResult<DecryptionResult>
+    ): ReadyWithResult<DecryptionResult> {
+        val ready =
+            try {
+                operation()
+            } catch (e: Exception) {
+                cache.invalidate(key)
+                throw e
+            }
+        return object : ReadyWithResult<DecryptionResult>() {
+            override fun writeTo(outputStream: OutputStream): DecryptionResult =
+                try {
+                    ready.writeTo(outputStream)
+                } catch (e: Exception) {
+                    cache.invalidate(key)
+                    throw e
+                }
+        }
+    }
+
+    private fun headerDigest(header: EncryptedMessageHeader): Digest =
+        Digest.newMessageDigest()
+            .apply {
+                header.packets.forEach {
+                    update(it.header.encoded)
+                    update(it.body)
+                }
+            }
+            .let { Digest.of(it) }
+
+    private fun credentialsDigest(): Digest =
+        mutableSetOf<Digest>()
+            .apply {
+                keys.forEach { add(cache.credentialDigest(KEY, it)) }
+                keyPasswords.forEach { add(cache.credentialDigest(KEY_PASSWORD, it)) }
+                passwords.forEach {
+                    add(cache.credentialDigest(PASSWORD, it.toByteArray(UTF8Util.UTF8)))
+                }
+            }
+            .let { Digest.ofSet(it) }
+
+    companion object {
+        private const val KEY: Byte = 1
+        private const val KEY_PASSWORD: Byte = 2
+        private const val PASSWORD: Byte = 3
+    }
+}
@@ -0,0 +1,139 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.cache
+
+import java.io.Closeable
+import java.io.InputStream
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.*
+import sop.Verification
+import sop.cache.VerificationCache.Digest
+import sop.exception.SOPGPException
+import sop.operation.DetachedVerify
+import sop.operation.VerifySignatures
+
+/**
+ * [DetachedVerify] implementation which consults a [VerificationCache] before delegating to the
+ * wrapped [delegate] operation. On a cache hit, the delegate is never invoked.
+ *
+ * Signed data passed as [InputStream] is digested while it is read. Small data is kept in memory,
+ * larger data is spooled to a temporary file, so that it can be replayed to the delegate on a cache
+ * miss without holding the whole payload on the heap.
+ *
+ * @param delegate actual verification operation
+ * @param cache cache
+ */
+class CachingDetachedVerify(
+    private val delegate: DetachedVerify,
+    private val cache: VerificationCache
+) : DetachedVerify {
+
+    private var notBefore: Date? = null
+    private var notAfter: Date? = null
+    private var signatures: Digest? = null
+    private val certs: MutableSet<Digest> = mutableSetOf()
+
+    override fun notBefore(timestamp: Date): DetachedVerify = apply {
+        delegate.notBefore(timestamp)
+        notBefore = timestamp
+    }
+
+    override fun notAfter(timestamp: Date): DetachedVerify = apply {
+        delegate.notAfter(timestamp)
+        notAfter = timestamp
+    }
+
+    override fun cert(cert: InputStream): DetachedVerify = cert(cert.readBytes())
+
+    override fun cert(cert: ByteArray): DetachedVerify = apply {
+        delegate.cert(cert)
+        certs.add(Digest.of(cert))
+    }
+
+    override fun signatures(signatures: InputStream): VerifySignatures =
+        signatures(signatures.readBytes())
+
+    override fun signatures(signatures: ByteArray): VerifySignatures = apply {
+        delegate.signatures(signatures)
+        this.signatures = Digest.of(signatures)
+    }
+
+    override fun data(data: InputStream): List<Verification> =
+        data
+            .use { SpooledData.read(it) }
+            .use { spooled -> verify(spooled.digest) { spooled.open().use { delegate.data(it) } } }
+
+    override fun data(data: ByteArray): List<Verification> =
+        verify(Digest.of(data)) { delegate.data(data) }
+
+    private fun verify(dataDigest: Digest, verify: () -> List<Verification>): List<Verification> {
+        val sigDigest =
+            signatures
+                ?: throw SOPGPException.MissingArg("Missing argument: signatures cannot be null.")
+        val key = VerificationCache.Key(sigDigest, dataDigest, certs.toSet())
+        val now = Date()
+        cache.get(key, notBefore, notAfter, now)?.let {
+            if (it.isEmpty()) {
+                throw SOPGPException.NoSignature()
+            }
+            return it
+        }
+
+        val verifications = verify()
+        cache.put(key, notBefore, notAfter, verifications, now)
+        return verifications
+    }
+
+    /**
+     * Signed data read from a stream along with its [digest]. Up to [MEMORY_THRESHOLD] bytes are
+     * kept in memory, larger data is spooled to a temporary file which is deleted on [close].
+     */
+    private class SpooledData(
+        val digest: Digest,
+        private val bytes: ByteArray,
+        private val file: Path?
+    ) : Closeable {
+
+        fun open(): InputStream = file?.let { Files.newInputStream(it) } ?: bytes.inputStream()
+
+        override fun close() {
+            file?.let { Files.deleteIfExists(it) }
+        }
+
+        companion object {
+            fun read(input: InputStream): SpooledData {
+                val digest = Digest.newMessageDigest()
+                val buffer = ByteArray(MEMORY_THRESHOLD)
+                val head = input.readNBytes(buffer, 0, buffer.size)
+                digest.update(buffer, 0, head)
+                if (head < buffer.size) {
+                    return SpooledData(Digest.of(digest), buffer.copyOf(head), null)
+                }
+
+                val file = Files.createTempFile("sop-verify", ".data")
+                try {
+                    Files.newOutputStream(file).use { out ->
+                        out.write(buffer, 0, head)
+                        var r: Int
+                        while (input.read(buffer).also { r = it } >= 0) {
+                            digest.update(buffer, 0, r)
+                            out.write(buffer, 0, r)
+                        }
+                    }
+                } catch (t: Throwable) {
+                    Files.deleteIfExists(file)
+                    throw t
+                }
+                return SpooledData(Digest.of(digest), ByteArray(0), file)
+            }
+        }
+    }
+
+    companion object {
+        /** Signed data larger than this number of bytes is spooled to a temporary file. */
+        const val MEMORY_THRESHOLD = 64 * 1024
+    }
+}
@@ -0,0 +1,140 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.cache
+
+import java.io.ByteArrayOutputStream
+import java.io.InputStream
+import java.io.OutputStream
+import java.io.SequenceInputStream
+import java.util.*
+import sop.ReadyWithResult
+import sop.Verification
+import sop.cache.VerificationCache.Digest
+import sop.exception.SOPGPException
+import sop.operation.InlineVerify
+
+/**
+ * [InlineVerify] implementation which consults a [VerificationCache] before delegating to the
+ * wrapped [delegate] operation. On a cache hit, the delegate is never invoked and the plaintext is
+ * written from the cache.
+ *
+ * Since the plaintext needs to be kept alongside the verifications, only messages of up to
+ * [MEMORY_THRESHOLD] bytes, whose plaintext does not exceed that size either, are cached. Larger
+ * messages are passed through to the delegate.
+ *
+ * @param delegate actual verification operation
+ * @param cache cache
+ */
+class CachingInlineVerify(
+    private val delegate: InlineVerify,
+    private val cache: VerificationCache
+) : InlineVerify {
+
+    private var notBefore: Date? = null
+    private var notAfter: Date? = null
+    private val certs: MutableSet<Digest> = mutableSetOf()
+
+    override fun notBefore(timestamp: Date): InlineVerify = apply {
+        delegate.notBefore(timestamp)
+        notBefore = timestamp
+    }
+
+    override fun notAfter(timestamp: Date): InlineVerify = apply {
+        delegate.notAfter(timestamp)
+        notAfter = timestamp
+    }
+
+    override fun cert(cert: InputStream): InlineVerify = cert(cert.readBytes())
+
+    override fun cert(cert: ByteArray): InlineVerify = apply {
+        delegate.cert(cert)
+        certs.add(Digest.of(cert))
+    }
+
+    override fun data(data: InputStream): ReadyWithResult<List<Verification>> {
+        val head = data.readNBytes(MEMORY_THRESHOLD + 1)
+        if (head.size > MEMORY_THRESHOLD) {
+            return delegate.data(SequenceInputStream(head.inputStream(), data))
+        }
+        return data(head)
+    }
+
+    override fun data(data: ByteArray): ReadyWithResult<List<Verification>> {
+        if (data.size > MEMORY_THRESHOLD) {
+            return delegate.data(data)
+        }
+        val message = Digest.of(data)
+        val key = VerificationCache.Key(message, message, certs.toSet(), inline = true)
+        val now = Date()
+        cache.getInline(key, notBefore, notAfter, now)?.let { (plaintext, verifications) ->
+            return CachedResult(plaintext, verifications)
+        }
+
+        val result = delegate.data(data)
+        return object : ReadyWithResult<List<Verification>>() {
+            override fun writeTo(outputStream: OutputStream): List<Verification> {
+                val plaintext = BoundedCopy(outputStream)
+                val verifications = result.writeTo(plaintext)
+                plaintext.bytes()?.let {
+                    cache.putInline(key, notBefore, notAfter, it, verifications, now)
+                }
+                return verifications
+            }
+        }
+    }
+
+    private class CachedResult(
+        private val plaintext: ByteArray,
+        private val verifications: List<Verification>
+    ) : ReadyWithResult<List<Verification>>() {
+
+        override fun writeTo(outputStream: OutputStream): List<Verification> {
+            if (verifications.isEmpty()) {
+                throw SOPGPException.NoSignature()
+            }
+            outputStream.write(plaintext)
+            return verifications
+        }
+    }
+
+    /**
+     * Forwards all output to [out] and keeps a copy of it, unless it grows beyond
+     * [MEMORY_THRESHOLD] bytes.
+     */
+    private class BoundedCopy(private val out: OutputStream) : OutputStream() {
+
+        private var copy: ByteArrayOutputStream? = ByteArrayOutputStream()
+
+        override fun write(b: Int) {
+            out.write(b)
+            copy(1) { it.write(b) }
+        }
+
+        override fun write(b: ByteArray, off: Int, len: Int) {
+            out.write(b, off, len)
+            copy(len) { it.write(b, off, len) }
+        }
+
+        override fun flush() = out.flush()
+
+        override fun close() = out.close()
+
+        fun bytes(): ByteArray? = copy?.toByteArray()
+
+        private inline fun copy(len: Int, write: (ByteArrayOutputStream) -> Unit) {
+            val buffer = copy ?: return
+            if (buffer.size() + len > MEMORY_THRESHOLD) {
+                copy = null
+            } else {
+                write(buffer)
+            }
+        }
+    }
+
+    companion object {
+        /** Messages and plaintexts larger than this number of bytes are not cached. */
+        const val MEMORY_THRESHOLD = 64 * 1024
+    }
+}
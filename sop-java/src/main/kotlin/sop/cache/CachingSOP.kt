@@ -0,0 +1,26 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.cache
+
+import sop.SOP
+import sop.operation.Decrypt
+
+/**
+ * [SOP] implementation which caches the session keys of decrypted messages in the given
+ * [SessionKeyCache], so that repeatedly decrypting the same message skips the expensive session key
+ * recovery. All other operations are passed through to the [delegate] unchanged.
+ *
+ * Caching is opt-in, since holding on to session keys extends their lifetime in memory.
+ *
+ * @param delegate actual SOP implementation
+ * @param sessionKeyCache cache shared by all operations created by this instance
+ */
+class CachingSOP
+@JvmOverloads
+constructor(private val delegate: SOP, val sessionKeyCache: SessionKeyCache = SessionKeyCache()) :
+    SOP by delegate {
+
+    override fun decrypt(): Decrypt = CachingDecrypt(delegate.decrypt(), sessionKeyCache)
+}
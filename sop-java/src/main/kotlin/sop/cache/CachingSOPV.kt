@@ -0,0 +1,33 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.cache
+
+import sop.SOPV
+import sop.operation.DetachedVerify
+import sop.operation.InlineVerify
+
+/**
+ * [SOPV] implementation which caches the results of detached and inline signature verifications in
+ * the given [VerificationCache]. All other operations are passed through to the [delegate]
+ * unchanged.
+ *
+ * Inline-signed messages are only cached up to [CachingInlineVerify.MEMORY_THRESHOLD] bytes, since
+ * their plaintext needs to be kept in the cache as well.
+ *
+ * @param delegate actual SOPV implementation
+ * @param cache cache shared by all operations created by this instance
+ */
+class CachingSOPV
+@JvmOverloads
+constructor(private val delegate: SOPV, val cache: VerificationCache = VerificationCache()) :
+    SOPV by delegate {
+
+    override fun verify(): DetachedVerify = detachedVerify()
+
+    override fun detachedVerify(): DetachedVerify =
+        CachingDetachedVerify(delegate.detachedVerify(), cache)
+
+    override fun inlineVerify(): InlineVerify = CachingInlineVerify(delegate.inlineVerify(), cache)
+}
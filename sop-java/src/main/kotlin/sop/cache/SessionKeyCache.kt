@@ -0,0 +1,139 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.cache
+
+import java.security.SecureRandom
+import java.util.*
+import javax.crypto.Mac
+import javax.crypto.spec.SecretKeySpec
+import sop.SessionKey
+import sop.cache.VerificationCache.Digest
+
+/**
+ * Bounded, thread-safe in-memory cache of message session keys.
+ *
+ * Entries are keyed by a digest of the encrypted session key packets (PKESK/SKESK) of a message and
+ * a digest of the decryption credentials (keys, key passwords and message passwords) that were used
+ * to obtain the session key. A session key can therefore only be looked up by a caller who presents
+ * the same credentials. Credentials are digested using an HMAC keyed with a random secret of the
+ * cache instance (see [credentialDigest]), so the cache keys cannot be used to test password
+ * guesses offline. Session keys are copied on the way in and out, and are overwritten with zeros
+ * once their entry is evicted, expires or is invalidated.
+ *
+ * @param maxEntries maximum number of cached session keys. Least recently used entries are evicted
+ *   first.
+ * @param ttlMillis time in milliseconds after which an entry expires
+ */
+class SessionKeyCache
+@JvmOverloads
+constructor(
+    private val maxEntries: Int = DEFAULT_MAX_ENTRIES,
+    private val ttlMillis: Long = DEFAULT_TTL_MILLIS
+) {
+
+    init {
+        require(maxEntries > 0) { "maxEntries MUST be positive." }
+        require(ttlMillis >= 0) { "ttlMillis MUST NOT be negative." }
+    }
+
+    private val secret =
+        SecretKeySpec(ByteArray(SECRET_LENGTH).also { SecureRandom().nextBytes(it) }, HMAC)
+
+    private val entries =
+        object : LinkedHashMap<Key, CachedKey>(16, 0.75f, true) {
+            override fun removeEldestEntry(
+                eldest: MutableMap.MutableEntry<Key, CachedKey>
+            ): Boolean = (size > maxEntries).also { if (it) eldest.value.wipe() }
+        }
+
+    /** Number of currently cached session keys. */
+    val size: Int
+        get() = synchronized(entries) { entries.size }
+
+    /**
+     * Look up the session key for the given [key].
+     *
+     * @param key cache key
+     * @param now current time in milliseconds
+     * @return copy of the cached session key, or `null` on a cache miss
+     */
+    @JvmOverloads
+    fun get(key: Key, now: Long = System.currentTimeMillis()): SessionKey? =
+        synchronized(entries) {
+            val entry = entries[key] ?: return null
+            if (now - entry.storedAt > ttlMillis) {
+                entries.remove(key)
+                entry.wipe()
+                return null
+            }
+            SessionKey(entry.algorithm, entry.key.copyOf())
+        }
+
+    /**
+     * Store a session key.
+     *
+     * @param key cache key
+     * @param sessionKey session key
+     * @param now current time in milliseconds
+     */
+    @JvmOverloads
+    fun put(key: Key, sessionKey: SessionKey, now: Long = System.currentTimeMillis()) {
+        val entry = CachedKey(sessionKey.algorithm, sessionKey.key.copyOf(), now)
+        synchronized(entries) { entries.put(key, entry)?.wipe() }
+    }
+
+    /**
+     * Drop the session key stored for the given [key].
+     *
+     * @param key cache key
+     */
+    fun invalidate(key: Key) {
+        synchronized(entries) { entries.remove(key)?.wipe() }
+    }
+
+    /** Drop all cached session keys. */
+    fun invalidateAll() {
+        synchronized(entries) {
+            entries.values.forEach { it.wipe() }
+            entries.clear()
+        }
+    }
+
+    /**
+     * Compute a digest of a decryption credential, which is keyed with the secret of this cache.
+     * The same credential results in different digests in different cache instances.
+     *
+     * @param type type of the credential, which is mixed into the digest
+     * @param credential credential
+     * @return keyed digest
+     */
+    fun credentialDigest(type: Byte, credential: ByteArray): Digest =
+        Mac.getInstance(HMAC)
+            .apply {
+                init(secret)
+                update(type)
+            }
+            .let { Digest(it.doFinal(credential)) }
+
+    private class CachedKey(val algorithm: Byte, val key: ByteArray, val storedAt: Long) {
+        fun wipe() = Arrays.fill(key, 0)
+    }
+
+    /**
+     * Cache key.
+     *
+     * @param header digest of the encrypted session key packets of the message
+     * @param credentials digest of the decryption credentials
+     */
+    data class Key(val header: Digest, val credentials: Digest)
+
+    companion object {
+        const val DEFAULT_MAX_ENTRIES = 256
+        const val DEFAULT_TTL_MILLIS = 10 * 60 * 1000L
+
+        private const val HMAC = "HmacSHA256"
+        private const val SECRET_LENGTH = 32
+    }
+}
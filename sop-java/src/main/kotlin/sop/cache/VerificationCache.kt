@@ -0,0 +1,252 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.cache
+
+import java.security.MessageDigest
+import java.util.*
+import sop.Verification
+
+/**
+ * Bounded, thread-safe cache of signature verification results.
+ *
+ * Entries are keyed by a digest of the signatures, a digest of the signed data and a digest of the
+ * set of verification certificates. Each entry remembers the `notBefore`/`notAfter` window it was
+ * computed for. A cached result is only reused if its window covers the window of the lookup, in
+ * which case the cached [Verification] list is narrowed down to the requested window. Results that
+ * were computed with an implicit `notAfter` of "now" are reused for subsequent "now" lookups for at
+ * most [maxAgeMillis] milliseconds.
+ *
+ * Results of inline-signed messages additionally carry the plaintext of the message, so that it can
+ * be reproduced on a cache hit.
+ *
+ * @param maxEntries maximum number of cached results. Least recently used entries are evicted
+ *   first.
+ * @param maxAgeMillis maximum age of an entry in milliseconds
+ */
+class VerificationCache
+@JvmOverloads
+constructor(
+    private val maxEntries: Int = DEFAULT_MAX_ENTRIES,
+    private val maxAgeMillis: Long = DEFAULT_MAX_AGE_MILLIS
+) {
+
+    init {
+        require(maxEntries > 0) { "maxEntries MUST be positive." }
+        require(maxAgeMillis >= 0) { "maxAgeMillis MUST NOT be negative." }
+    }
+
+    private val entries =
+        object : LinkedHashMap<Key, CachedResult>(16, 0.75f, true) {
+            override fun removeEldestEntry(
+                eldest: MutableMap.MutableEntry<Key, CachedResult>?
+            ): Boolean = size > maxEntries
+        }
+
+    /** Number of currently cached results. */
+    val size: Int
+        get() = synchronized(entries) { entries.size }
+
+    /**
+     * Look up the verifications for the given [key] within the given window.
+     *
+     * @param key cache key
+     * @param notBefore lower bound of the verification window or `null` for the beginning of time
+     * @param notAfter upper bound of the verification window or `null` for "now"
+     * @param now current time
+     * @return cached verifications narrowed down to the window, or `null` on a cache miss.
+     */
+    @JvmOverloads
+    fun get(key: Key, notBefore: Date?, notAfter: Date?, now: Date = Date()): List<Verification>? =
+        lookup(key, notBefore, notAfter, now)?.narrow(notBefore, notAfter, now)
+
+    /**
+     * Look up the result of an inline-signed message within the given window.
+     *
+     * @return cached plaintext and verifications narrowed down to the window, or `null` on a cache
+     *   miss.
+     */
+    internal fun getInline(
+        key: Key,
+        notBefore: Date?,
+        notAfter: Date?,
+        now: Date
+    ): Pair<ByteArray, List<Verification>>? {
+        val entry = lookup(key, notBefore, notAfter, now) ?: return null
+        val plaintext = entry.plaintext ?: return null
+        return plaintext to entry.narrow(notBefore, notAfter, now)
+    }
+
+    private fun lookup(key: Key, notBefore: Date?, notAfter: Date?, now: Date): CachedResult? {
+        val entry = synchronized(entries) { entries[key] } ?: return null
+        if (now.time - entry.evaluatedAt.time > maxAgeMillis) {
+            synchronized(entries) { entries.remove(key, entry) }
+            return null
+        }
+        return entry.takeIf { it.covers(notBefore, notAfter, now) }
+    }
+
+    /**
+     * Store the result of a successful verification.
+     *
+     * @param key cache key
+     * @param notBefore lower bound of the window the result was computed for
+     * @param notAfter upper bound of the window the result was computed for or `null` for "now"
+     * @param verifications verification result
+     * @param evaluatedAt time at which the result was computed
+     */
+    @JvmOverloads
+    fun put(
+        key: Key,
+        notBefore: Date?,
+        notAfter: Date?,
+        verifications: List<Verification>,
+        evaluatedAt: Date = Date()
+    ) {
+        val entry = CachedResult(notBefore, notAfter, evaluatedAt, verifications.toList(), null)
+        synchronized(entries) { entries[key] = entry }
+    }
+
+    /**
+     * Store the result of a successful verification of an inline-signed message along with its
+     * plaintext.
+     */
+    internal fun putInline(
+        key: Key,
+        notBefore: Date?,
+        notAfter: Date?,
+        plaintext: ByteArray,
+        verifications: List<Verification>,
+        evaluatedAt: Date
+    ) {
+        val entry =
+            CachedResult(notBefore, notAfter, evaluatedAt, verifications.toList(), plaintext)
+        synchronized(entries) { entries[key] = entry }
+    }
+
+    /**
+     * Drop all cached results that were computed using the given certificate. Call this method when
+     * you learn about an update (e.g. a revocation) of a certificate.
+     *
+     * @param cert encoded certificate as passed to [sop.operation.AbstractVerify.cert]
+     */
+    fun invalidateCert(cert: ByteArray) = invalidateCert(Digest.of(cert))
+
+    /**
+     * Drop all cached results that were computed using the certificate with the given digest.
+     *
+     * @param certDigest digest of the certificate
+     */
+    fun invalidateCert(certDigest: Digest) {
+        synchronized(entries) { entries.keys.removeIf { it.certDigests.contains(certDigest) } }
+    }
+
+    /** Drop all cached results. */
+    fun invalidateAll() {
+        synchronized(entries) { entries.clear() }
+    }
+
+    private class CachedResult(
+        val notBefore: Date?,
+        val notAfter: Date?,
+        val evaluatedAt: Date,
+        val verifications: List<Verification>,
+        val plaintext: ByteArray?
+    ) {
+
+        fun narrow(queryNotBefore: Date?, queryNotAfter: Date?, now: Date): List<Verification> {
+            val lower = queryNotBefore?.time ?: Long.MIN_VALUE
+            val upper = (queryNotAfter ?: now).time
+            return verifications.filter { it.creationTime.time in lower..upper }
+        }
+
+        fun covers(queryNotBefore: Date?, queryNotAfter: Date?, now: Date): Boolean {
+            val lowerCovered =
+                notBefore == null || (queryNotBefore != null && !queryNotBefore.before(notBefore))
+            if (!lowerCovered) {
+                return false
+            }
+            if (notAfter == null) {
+                // Result is valid for "now", which we accept for the lifetime of the entry
+                return queryNotAfter == null || !queryNotAfter.after(evaluatedAt)
+            }
+            return !(queryNotAfter ?: now).after(notAfter)
+        }
+    }
+
+    /**
+     * Cache key.
+     *
+     * @param signatures digest of the signatures, or of the whole message if [inline]
+     * @param data digest of the signed data, or of the whole message if [inline]
+     * @param certDigests digests of the individual verification certificates
+     * @param inline whether the key identifies an inline-signed message. Inline and detached keys
+     *   never match each other, even if their digests are equal.
+     */
+    class Key
+    @JvmOverloads
+    constructor(
+        val signatures: Digest,
+        val data: Digest,
+        val certDigests: Set<Digest>,
+        val inline: Boolean = false
+    ) {
+
+        private val certs: Digest = Digest.ofSet(certDigests)
+
+        override fun equals(other: Any?): Boolean {
+            if (this === other) return true
+            if (other !is Key) return false
+            return signatures == other.signatures &&
+                data == other.data &&
+                certs == other.certs &&
+                inline == other.inline
+        }
+
+        override fun hashCode(): Int {
+            var hashCode = inline.hashCode()
+            hashCode = 31 * hashCode + signatures.hashCode()
+            hashCode = 31 * hashCode + data.hashCode()
+            hashCode = 31 * hashCode + certs.hashCode()
+            return hashCode
+        }
+    }
+
+    /** SHA-256 digest of some input data. */
+    class Digest(private val bytes: ByteArray) : Comparable<Digest> {
+
+        override fun equals(other: Any?): Boolean {
+            if (this === other) return true
+            if (other !is Digest) return false
+            return bytes.contentEquals(other.bytes)
+        }
+
+        override fun hashCode(): Int = bytes.contentHashCode()
+
+        override fun compareTo(other: Digest): Int = Arrays.compareUnsigned(bytes, other.bytes)
+
+        companion object {
+            const val ALGORITHM = "SHA-256"
+
+            /** Return a new [MessageDigest] instance of the algorithm used for cache keys. */
+            @JvmStatic fun newMessageDigest(): MessageDigest = MessageDigest.getInstance(ALGORITHM)
+
+            @JvmStatic fun of(data: ByteArray): Digest = Digest(newMessageDigest().digest(data))
+
+            @JvmStatic fun of(digest: MessageDigest): Digest = Digest(digest.digest())
+
+            /** Order-independent digest over a set of digests. */
+            @JvmStatic
+            fun ofSet(digests: Set<Digest>): Digest =
+                newMessageDigest()
+                    .apply { digests.sorted().forEach { update(it.bytes) } }
+                    .let { of(it) }
+        }
+    }
+
+    companion object {
+        const val DEFAULT_MAX_ENTRIES = 1024
+        const val DEFAULT_MAX_AGE_MILLIS = 5 * 60 * 1000L
+    }
+}
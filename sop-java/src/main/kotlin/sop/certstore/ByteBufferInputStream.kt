@@ -0,0 +1,36 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.certstore
+
+import java.io.InputStream
+import java.nio.ByteBuffer
+
+/** [InputStream] reading the remaining bytes of a [ByteBuffer] without copying them first. */
+internal class ByteBufferInputStream(buffer: ByteBuffer) : InputStream() {
+
+    private val buffer = buffer.duplicate()
+
+    override fun read(): Int = if (buffer.hasRemaining()) buffer.get().toInt() and 0xFF else -1
+
+    override fun read(b: ByteArray, off: Int, len: Int): Int {
+        if (len == 0) {
+            return 0
+        }
+        if (!buffer.hasRemaining()) {
+            return -1
+        }
+        val n = minOf(len, buffer.remaining())
+        buffer.get(b, off, n)
+        return n
+    }
+
+    override fun skip(n: Long): Long {
+        val skipped = minOf(n.coerceAtLeast(0), buffer.remaining().toLong()).toInt()
+        buffer.position(buffer.position() + skipped)
+        return skipped.toLong()
+    }
+
+    override fun available(): Int = buffer.remaining()
+}
@@ -0,0 +1,413 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.certstore
+
+import java.io.ByteArrayOutputStream
+import java.io.Closeable
+import java.io.IOException
+import java.io.InputStream
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.AtomicMoveNotSupportedException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption
+import sop.SOP
+import sop.certstore.FingerprintIndex.Entry
+import sop.certstore.FingerprintIndex.Location
+import sop.exception.SOPGPException
+import sop.packet.PacketReader
+import sop.packet.PacketTag
+import sop.packet.TransferableKey
+import sop.util.HexUtil
+
+/**
+ * Persistent store of OpenPGP certificates, addressed by fingerprint.
+ *
+ * Certificates are kept in binary form in an append-only pack file, which at any time is a valid
+ * OpenPGP keyring. A memory-mapped, sorted index maps the fingerprints of primary keys and subkeys
+ * to the location of the containing certificate, so that looking up a certificate neither parses
+ * the store nor copies the certificate: [get] returns a read-only slice of the mapped pack file,
+ * which can be passed to operations like [sop.operation.Encrypt.withCert],
+ * [sop.operation.AbstractVerify.cert] or [sop.operation.ValidateUserId.authorities] via [open].
+ *
+ * Adding a certificate that is already stored merges the new copy into the stored one using
+ * [sop.operation.MergeCerts], if a [SOP] implementation is given. Otherwise the new copy replaces
+ * the stored one. Outdated copies remain in the pack file until [compact] is called.
+ *
+ * Lookups are thread-safe and do not block while certificates are added. The store does not
+ * coordinate with other processes, so only one process must modify a store at a time.
+ *
+ * Since the pack file is mapped as a single buffer, its size is limited to [MAX_PACK_SIZE] bytes (2
+ * GiB). [compact] replaces the pack file. Views returned by [get] before stay valid and keep
+ * showing the old pack file on platforms that allow replacing a mapped file. Other platforms
+ * (Windows) do not allow this, so [compact] fails there and leaves the store unchanged.
+ */
+class CertificateStore private constructor(directory: Path, private val sop: SOP?) : Closeable {
+
+    private val packFile = directory.resolve(PACK_FILE)
+    private val indexFile = directory.resolve(INDEX_FILE)
+    private var pack: FileChannel = openPack()
+
+    @Volatile private var snapshot: Snapshot = load()
+
+    @Volatile private var closed = false
+
+    /** Number of stored certificates. */
+    val size: Int
+        get() = snapshot.index.certificateCount
+
+    /** Fingerprints of the primary keys of all stored certificates, in uppercase hex. */
+    fun fingerprints(): List<String> =
+        snapshot.index.entries().filterValues { it.primary }.keys.toList()
+
+    /**
+     * Whether a certificate containing a key with the given fingerprint is stored.
+     *
+     * @param fingerprint primary key or subkey fingerprint in hex
+     */
+    operator fun contains(fingerprint: String): Boolean = get(fingerprint) != null
+
+    /**
+     * Look up the certificate containing a key with the given fingerprint.
+     *
+     * @param fingerprint primary key or subkey fingerprint in hex
+     * @return read-only view of the binary certificate inside the mapped pack file, or `null` if no
+     *   such certificate is stored. The view is not affected by later modifications of the store.
+     */
+    fun get(fingerprint: String): ByteBuffer? {
+        check(!closed) { "Certificate store is closed." }
+        val current = snapshot
+        val location = parseFingerprint(fingerprint)?.let { current.index.find(it) } ?: return null
+        return current.slice(location)
+    }
+
+    /**
+     * Open the certificate containing a key with the given fingerprint for reading.
+     *
+     * @param fingerprint primary key or subkey fingerprint in hex
+     * @return input stream reading the binary certificate from the mapped pack file
+     * @throws SOPGPException.MissingInput if no such certificate is stored
+     */
+    @Throws(SOPGPException.MissingInput::class)
+    fun open(fingerprint: String): InputStream =
+        get(fingerprint)?.let { ByteBufferInputStream(it) }
+            ?: throw SOPGPException.MissingInput(
+                "No certificate with fingerprint $fingerprint in store.")
+
+    /**
+     * Add certificates to the store.
+     *
+     * @param certs binary or armored certificate(s)
+     * @return primary key fingerprints of the certificates that were added or changed
+     * @throws SOPGPException.BadData if the input is not a sequence of OpenPGP certificates
+     * @throws IOException in case of an IO error
+     */
+    @Throws(SOPGPException.BadData::class, IOException::class)
+    fun add(certs: InputStream): List<String> = add(TransferableKey.split(certs))
+
+    /**
+     * Add certificates to the store.
+     *
+     * @param certs binary or armored certificate(s)
+     * @return primary key fingerprints of the certificates that were added or changed
+     * @throws SOPGPException.BadData if the input is not a sequence of OpenPGP certificates
+     * @throws IOException in case of an IO error
+     */
+    @Throws(SOPGPException.BadData::class, IOException::class)
+    fun add(certs: ByteArray): List<String> = add(certs.inputStream())
+
+    private fun add(certs: List<TransferableKey>): List<String> =
+        synchronized(this) {
+            check(!closed) { "Certificate store is closed." }
+            val current = snapshot
+            val update = Update(current)
+            val changed = LinkedHashSet<String>()
+            for (cert in certs) {
+                if (isSecretKey(cert)) {
+                    throw SOPGPException.BadData("Refusing to store secret key material.")
+                }
+                val fingerprint =
+                    cert.fingerprint
+                        ?: throw SOPGPException.BadData(
+                            "Cannot compute the fingerprint of the certificate.")
+                val stored = update.entries[fingerprint]?.takeIf { it.primary }?.location
+                val updated =
+                    if (stored == null) {
+                        cert
+                    } else {
+                        val base = update.read(stored)
+                        if (base.contentEquals(cert.encoded)) {
+                            continue
+                        }
+                        merge(fingerprint, base, cert).takeUnless { it.encoded.contentEquals(base) }
+                            ?: continue
+                    }
+                update.append(updated, stored)
+                changed.add(fingerprint)
+            }
+            if (changed.isNotEmpty()) {
+                commit(update)
+            }
+            changed.toList()
+        }
+
+    /**
+     * Rewrite the pack file, dropping outdated copies of certificates. The rewritten pack file
+     * replaces the current one, which requires that the platform allows replacing a file that is
+     * still mapped by views returned from [get].
+     *
+     * @throws IOException in case of an IO error, or if the pack file cannot be replaced while it
+     *   is mapped. In that case, the store remains unchanged.
+     */
+    @Throws(IOException::class)
+    fun compact() {
+        synchronized(this) {
+            check(!closed) { "Certificate store is closed." }
+            val current = snapshot
+            val entries = current.index.entries()
+            val live =
+                entries.values.filter { it.primary }.map { it.location }.sortedBy { it.offset }
+            if (live.sumOf { it.length.toLong() } == current.index.packLength) {
+                return
+            }
+            val relocated = HashMap<Location, Location>()
+            val tmp = packFile.resolveSibling("$PACK_FILE.tmp")
+            FileChannel.open(
+                    tmp,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)
+                .use { out ->
+                    for (location in live) {
+                        relocated[location] = Location(out.position(), location.length)
+                        writeFully(out, current.slice(location))
+                    }
+                    out.force(true)
+                }
+            pack.close()
+            try {
+                move(tmp, packFile)
+            } catch (e: IOException) {
+                Files.deleteIfExists(tmp)
+                throw IOException("Cannot replace the pack file while it is mapped.", e)
+            } finally {
+                pack = openPack()
+            }
+            entries.replaceAll { _, entry ->
+                Entry(relocated.getValue(entry.location), entry.primary)
+            }
+            snapshot = writeIndex(entries)
+        }
+    }
+
+    override fun close() =
+        synchronized(this) {
+            closed = true
+            pack.close()
+        }
+
+    private fun merge(
+        fingerprint: String,
+        base: ByteArray,
+        update: TransferableKey
+    ): TransferableKey {
+        if (sop == null) {
+            return update
+        }
+        val merged = sop.mergeCerts().noArmor().updates(update.encoded).baseCertificates(base).bytes
+        return TransferableKey.split(merged.inputStream()).find { it.fingerprint == fingerprint }
+            ?: throw SOPGPException.BadData(
+                "Merging updates into certificate $fingerprint did not yield the certificate.")
+    }
+
+    private fun commit(update: Update) {
+        val appended = update.appended.toByteArray()
+        if (update.packLength + appended.size > MAX_PACK_SIZE) {
+            throw IOException("Certificate store would exceed the maximum size of 2 GiB.")
+        }
+        pack.position(update.packLength)
+        writeFully(pack, ByteBuffer.wrap(appended))
+        pack.force(false)
+        snapshot = writeIndex(update.entries)
+    }
+
+    private fun openPack(): FileChannel =
+        FileChannel.open(
+            packFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+
+    /**
+     * Map the index and the pack file. Data appended to the pack file by an interrupted [add] is
+     * discarded, a missing or inconsistent index is rebuilt from the pack file.
+     */
+    private fun load(): Snapshot {
+        val index = if (Files.exists(indexFile)) FingerprintIndex.map(indexFile) else null
+        if (index != null && index.packLength <= pack.size()) {
+            if (index.packLength < pack.size()) {
+                pack.truncate(index.packLength)
+            }
+            return Snapshot(mapPack(), index)
+        }
+        return rebuild()
+    }
+
+    private fun rebuild(): Snapshot {
+        val packed = mapPack()
+        val update = Update(Snapshot(packed, FingerprintIndex.EMPTY))
+        var offset = 0L
+        for (cert in TransferableKey.split(ByteBufferInputStream(packed))) {
+            val location = Location(offset, cert.encoded.size)
+            val stored = cert.fingerprint?.let { update.entries[it] }?.takeIf { it.primary }
+            update.index(cert, location, stored?.location)
+            offset += cert.encoded.size
+        }
+        return writeIndex(update.entries)
+    }
+
+    private fun writeIndex(entries: Map<String, Entry>): Snapshot {
+        val tmp = indexFile.resolveSibling("$INDEX_FILE.tmp")
+        FileChannel.open(
+                tmp,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)
+            .use {
+                writeFully(it, FingerprintIndex.encode(pack.size(), entries))
+                it.force(true)
+            }
+        move(tmp, indexFile)
+        val index =
+            FingerprintIndex.map(indexFile) ?: throw IOException("Cannot read back index file.")
+        return Snapshot(mapPack(), index)
+    }
+
+    private fun mapPack(): ByteBuffer {
+        val size = pack.size()
+        if (size > MAX_PACK_SIZE) {
+            throw IOException("Pack file exceeds the maximum size of 2 GiB.")
+        }
+        return pack.map(FileChannel.MapMode.READ_ONLY, 0, size)
+    }
+
+    /** Immutable view of the mapped pack file and its index. */
+    private class Snapshot(val pack: ByteBuffer, val index: FingerprintIndex) {
+
+        fun slice(location: Location): ByteBuffer =
+            pack
+                .duplicate()
+                .position(location.offset.toInt())
+                .limit(location.offset.toInt() + location.length)
+                .slice()
+                .asReadOnlyBuffer()
+    }
+
+    /** Pending modification: certificates to append to the pack file and the resulting index. */
+    private class Update(private val snapshot: Snapshot) {
+
+        val packLength = snapshot.index.packLength
+        val entries = snapshot.index.entries()
+        val appended = ByteArrayOutputStream()
+        private val fingerprintsByLocation = HashMap<Location, MutableList<String>>()
+
+        init {
+            entries.forEach { (fingerprint, entry) ->
+                fingerprintsByLocation.getOrPut(entry.location) { mutableListOf() }.add(fingerprint)
+            }
+        }
+
+        fun read(location: Location): ByteArray {
+            if (location.offset < packLength) {
+                return ByteArray(location.length).also { snapshot.slice(location).get(it) }
+            }
+            val start = (location.offset - packLength).toInt()
+            return appended.toByteArray().copyOfRange(start, start + location.length)
+        }
+
+        fun append(cert: TransferableKey, replaces: Location?) {
+            val location = Location(packLength + appended.size(), cert.encoded.size)
+            appended.write(cert.encoded)
+            index(cert, location, replaces)
+        }
+
+        fun index(cert: TransferableKey, location: Location, replaces: Location?) {
+            replaces?.let { old ->
+                fingerprintsByLocation.remove(old)?.forEach { entries.remove(it) }
+            }
+            cert.components.forEachIndexed { i, component ->
+                val fingerprint = component.fingerprint ?: return@forEachIndexed
+                if (i > 0 && entries[fingerprint]?.primary == true) {
+                    // Never shadow another certificate's primary key
+                    return@forEachIndexed
+                }
+                entries.put(fingerprint, Entry(location, i == 0))?.let { previous ->
+                    fingerprintsByLocation[previous.location]?.remove(fingerprint)
+                }
+                fingerprintsByLocation.getOrPut(location) { mutableListOf() }.add(fingerprint)
+            }
+        }
+    }
+
+    companion object {
+
+        /** Name of the pack file inside the store directory. */
+        const val PACK_FILE = "certs.pgp"
+
+        /** Name of the index file inside the store directory. */
+        const val INDEX_FILE = "certs.idx"
+
+        /** Maximum size of the pack file in bytes. */
+        const val MAX_PACK_SIZE = Int.MAX_VALUE.toLong()
+
+        private val FINGERPRINT = Regex("[0-9A-F]{40}|[0-9A-F]{64}")
+
+        /**
+         * Open the certificate store in the given directory, creating it if necessary.
+         *
+         * @param directory store directory
+         * @param sop SOP implementation used to merge updates into stored certificates, or `null`
+         *   to replace stored certificates with updated copies
+         * @return certificate store
+         * @throws SOPGPException.BadData if the pack file is corrupted and the index cannot be
+         *   rebuilt
+         * @throws IOException in case of an IO error
+         */
+        @JvmStatic
+        @JvmOverloads
+        @Throws(IOException::class)
+        fun open(directory: Path, sop: SOP? = null): CertificateStore {
+            Files.createDirectories(directory)
+            return CertificateStore(directory, sop)
+        }
+
+        private fun parseFingerprint(fingerprint: String): ByteArray? =
+            fingerprint
+                .filterNot { it.isWhitespace() }
+                .uppercase()
+                .takeIf { FINGERPRINT.matches(it) }
+                ?.let { HexUtil.hexToBytes(it) }
+
+        private fun isSecretKey(cert: TransferableKey): Boolean =
+            PacketReader(cert.encoded.inputStream()).nextHeader()?.tag == PacketTag.SECRET_KEY
+
+        private fun writeFully(channel: FileChannel, buffer: ByteBuffer) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer)
+            }
+        }
+
+        private fun move(source: Path, target: Path) {
+            try {
+                Files.move(
+                    source,
+                    target,
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING)
+            } catch (e: AtomicMoveNotSupportedException) {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING)
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.certstore
+
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import sop.util.HexUtil
+
+/**
+ * Sorted table mapping primary key and subkey fingerprints to the location of a certificate in the
+ * pack file of a [CertificateStore]. The table is meant to be memory-mapped, lookups are a binary
+ * search directly on the mapped bytes.
+ *
+ * Layout (all numbers big endian):
+ * ```
+ * header:  magic "SOPCIDX1" (8) | pack length (8) | record count (4) | certificate count (4)
+ * record:  fingerprint, zero padded (32) | fingerprint length (1) | flags (1) | reserved (2) |
+ *          offset (8) | length (4)
+ * ```
+ *
+ * Records are sorted by the padded fingerprint, then by fingerprint length.
+ */
+internal class FingerprintIndex private constructor(private val buffer: ByteBuffer) {
+
+    /** Length of the pack file at the time the index was written. */
+    val packLength: Long = buffer.getLong(8)
+
+    /** Number of records. */
+    val count: Int = buffer.getInt(16)
+
+    /** Number of certificates, i.e. records of primary keys. */
+    val certificateCount: Int = buffer.getInt(20)
+
+    /**
+     * Look up the certificate containing a key with the given fingerprint.
+     *
+     * @param fingerprint binary fingerprint
+     * @return location of the certificate or `null` if the fingerprint is unknown
+     */
+    fun find(fingerprint: ByteArray): Location? {
+        var low = 0
+        var high = count - 1
+        while (low <= high) {
+            val mid = (low + high) ushr 1
+            val c = compare(mid, fingerprint)
+            when {
+                c < 0 -> low = mid + 1
+                c > 0 -> high = mid - 1
+                else -> return entry(mid).location
+            }
+        }
+        return null
+    }
+
+    /** Return all records, keyed by fingerprint in uppercase hex. */
+    fun entries(): MutableMap<String, Entry> {
+        val entries = LinkedHashMap<String, Entry>(count * 2)
+        for (i in 0 until count) {
+            val base = HEADER_LENGTH + i * RECORD_LENGTH
+            val fingerprint = ByteArray(buffer.get(base + MAX_FINGERPRINT_LENGTH).toInt())
+            for (j in fingerprint.indices) {
+                fingerprint[j] = buffer.get(base + j)
+            }
+            entries[HexUtil.bytesToHex(fingerprint)] = entry(i)
+        }
+        return entries
+    }
+
+    private fun entry(record: Int): Entry {
+        val base = HEADER_LENGTH + record * RECORD_LENGTH
+        return Entry(
+            Location(buffer.getLong(base + 36), buffer.getInt(base + 44)),
+            buffer.get(base + 33).toInt() and FLAG_PRIMARY != 0)
+    }
+
+    private fun compare(record: Int, fingerprint: ByteArray): Int {
+        val base = HEADER_LENGTH + record * RECORD_LENGTH
+        for (i in 0 until MAX_FINGERPRINT_LENGTH) {
+            val a = buffer.get(base + i).toInt() and 0xFF
+            val b = if (i < fingerprint.size) fingerprint[i].toInt() and 0xFF else 0
+            if (a != b) {
+                return a - b
+            }
+        }
+        return buffer.get(base + MAX_FINGERPRINT_LENGTH).toInt() - fingerprint.size
+    }
+
+    /**
+     * Location of a certificate in the pack file.
+     *
+     * @param offset offset of the first byte
+     * @param length length in bytes
+     */
+    data class Location(val offset: Long, val length: Int)
+
+    /**
+     * Index record.
+     *
+     * @param location location of the certificate
+     * @param primary whether the fingerprint is the one of the primary key
+     */
+    data class Entry(val location: Location, val primary: Boolean)
+
+    companion object {
+        private val MAGIC = "SOPCIDX1".toByteArray(Charsets.US_ASCII)
+        private const val HEADER_LENGTH = 24
+        private const val RECORD_LENGTH = 48
+        private const val MAX_FINGERPRINT_LENGTH = 32
+        private const val FLAG_PRIMARY = 0x01
+
+        /** Index of an empty pack file. */
+        val EMPTY: FingerprintIndex = FingerprintIndex(encode(0, mapOf()))
+
+        /**
+         * Interpret the given buffer as an index.
+         *
+         * @return index or `null` if the buffer does not contain a well-formed index
+         */
+        fun parse(buffer: ByteBuffer): FingerprintIndex? {
+            if (buffer.capacity() < HEADER_LENGTH ||
+                MAGIC.indices.any { buffer.get(it) != MAGIC[it] }) {
+                return null
+            }
+            val count = buffer.getInt(16).toLong()
+            if (count < 0 || HEADER_LENGTH + count * RECORD_LENGTH != buffer.capacity().toLong()) {
+                return null
+            }
+            return FingerprintIndex(buffer)
+        }
+
+        /**
+         * Map an index file into memory.
+         *
+         * @return index or `null` if the file does not contain a well-formed index
+         */
+        fun map(path: Path): FingerprintIndex? =
+            FileChannel.open(path, StandardOpenOption.READ).use {
+                parse(it.map(FileChannel.MapMode.READ_ONLY, 0, it.size()))
+            }
+
+        /**
+         * Serialize an index.
+         *
+         * @param packLength length of the pack file the index refers to
+         * @param entries records, keyed by fingerprint in uppercase hex
+         */
+        fun encode(packLength: Long, entries: Map<String, Entry>): ByteBuffer {
+            val records =
+                entries.entries
+                    .map { HexUtil.hexToBytes(it.key) to it.value }
+                    .sortedWith { a, b -> compare(a.first, b.first) }
+            val buffer = ByteBuffer.allocate(HEADER_LENGTH + records.size * RECORD_LENGTH)
+            buffer.put(MAGIC)
+            buffer.putLong(packLength)
+            buffer.putInt(records.size)
+            buffer.putInt(records.count { it.second.primary })
+            for ((fingerprint, entry) in records) {
+                require(fingerprint.size <= MAX_FINGERPRINT_LENGTH) {
+                    "Fingerprint too long: ${fingerprint.size} bytes."
+                }
+                buffer.put(fingerprint)
+                buffer.put(ByteArray(MAX_FINGERPRINT_LENGTH - fingerprint.size))
+                buffer.put(fingerprint.size.toByte())
+                buffer.put((if (entry.primary) FLAG_PRIMARY else 0).toByte())
+                buffer.putShort(0)
+                buffer.putLong(entry.location.offset)
+                buffer.putInt(entry.location.length)
+            }
+            buffer.flip()
+            return buffer
+        }
+
+        private fun compare(a: ByteArray, b: ByteArray): Int {
+            for (i in 0 until MAX_FINGERPRINT_LENGTH) {
+                val x = if (i < a.size) a[i].toInt() and 0xFF else 0
+                val y = if (i < b.size) b[i].toInt() and 0xFF else 0
+                if (x != y) {
+                    return x - y
+                }
+            }
+            return a.size - b.size
+        }
+    }
+}
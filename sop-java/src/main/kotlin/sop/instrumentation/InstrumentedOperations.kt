@@ -0,0 +1,414 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation
+
+import java.io.InputStream
+import java.util.*
+import sop.DecryptionResult
+import sop.EncryptionResult
+import sop.InspectionResult
+import sop.Profile
+import sop.Ready
+import sop.ReadyWithResult
+import sop.SessionKey
+import sop.Signatures
+import sop.SigningResult
+import sop.Verification
+import sop.enums.EncryptAs
+import sop.enums.EncryptFor
+import sop.enums.InlineSignAs
+import sop.enums.SignAs
+import sop.instrumentation.OperationListener.Companion.KIND_CERT
+import sop.instrumentation.OperationListener.Companion.KIND_KEY
+import sop.operation.*
+
+// Decorators for the individual operations. Builder methods are passed through to the delegate,
+// while terminal methods are routed through the [Instrumenter].
+
+internal class InstrumentedVersion(private val delegate: Version, private val i: Instrumenter) :
+    Version {
+
+    override fun getName(): String = i.value(VERSION) { delegate.getName() }
+
+    override fun getVersion(): String = i.value(VERSION) { delegate.getVersion() }
+
+    override fun getBackendVersion(): String = i.value(VERSION) { delegate.getBackendVersion() }
+
+    override fun getExtendedVersion(): String = i.value(VERSION) { delegate.getExtendedVersion() }
+
+    override fun getSopSpecRevisionNumber(): Int =
+        i.value(VERSION) { delegate.getSopSpecRevisionNumber() }
+
+    override fun isSopSpecImplementationIncomplete(): Boolean =
+        i.value(VERSION) { delegate.isSopSpecImplementationIncomplete() }
+
+    override fun getSopSpecImplementationRemarks(): String? =
+        i.value(VERSION) { delegate.getSopSpecImplementationRemarks() }
+
+    override fun getSopVVersion(): String = i.value(VERSION) { delegate.getSopVVersion() }
+
+    override fun getSopJavaVersion(): String? = delegate.getSopJavaVersion()
+
+    companion object {
+        const val VERSION = "version"
+    }
+}
+
+internal class InstrumentedGenerateKey(
+    private val delegate: GenerateKey,
+    private val i: Instrumenter
+) : GenerateKey {
+
+    override fun noArmor(): GenerateKey = apply { delegate.noArmor() }
+
+    override fun userId(userId: String): GenerateKey = apply { delegate.userId(userId) }
+
+    override fun withKeyPassword(password: String): GenerateKey = apply {
+        delegate.withKeyPassword(password)
+    }
+
+    override fun withKeyPassword(password: ByteArray): GenerateKey = apply {
+        delegate.withKeyPassword(password)
+    }
+
+    override fun profile(profile: String): GenerateKey = apply { delegate.profile(profile) }
+
+    override fun signingOnly(): GenerateKey = apply { delegate.signingOnly() }
+
+    override fun generate(): Ready = i.ready("generate-key") { delegate.generate() }
+}
+
+internal class InstrumentedExtractCert(
+    private val delegate: ExtractCert,
+    private val i: Instrumenter
+) : ExtractCert {
+
+    override fun noArmor(): ExtractCert = apply { delegate.noArmor() }
+
+    override fun key(keyInputStream: InputStream): Ready =
+        i.ready("extract-cert", keyInputStream) { delegate.key(it) }
+}
+
+internal class InstrumentedDetachedSign(
+    private val delegate: DetachedSign,
+    private val i: Instrumenter
+) : DetachedSign {
+
+    override fun noArmor(): DetachedSign = apply { delegate.noArmor() }
+
+    override fun mode(mode: SignAs): DetachedSign = apply { delegate.mode(mode) }
+
+    override fun key(key: InputStream): DetachedSign = apply {
+        delegate.key(i.ingest("sign", KIND_KEY, key))
+    }
+
+    override fun withKeyPassword(password: ByteArray): DetachedSign = apply {
+        delegate.withKeyPassword(password)
+    }
+
+    override fun data(data: InputStream): ReadyWithResult<SigningResult> =
+        i.readyWithResult("sign", data) { delegate.data(it) }
+}
+
+internal class InstrumentedInlineSign(
+    private val delegate: InlineSign,
+    private val i: Instrumenter
+) : InlineSign {
+
+    override fun noArmor(): InlineSign = apply { delegate.noArmor() }
+
+    override fun mode(mode: InlineSignAs): InlineSign = apply { delegate.mode(mode) }
+
+    override fun key(key: InputStream): InlineSign = apply {
+        delegate.key(i.ingest("inline-sign", KIND_KEY, key))
+    }
+
+    override fun withKeyPassword(password: ByteArray): InlineSign = apply {
+        delegate.withKeyPassword(password)
+    }
+
+    override fun data(data: InputStream): Ready = i.ready("inline-sign", data) { delegate.data(it) }
+}
+
+internal class InstrumentedDetachedVerify(
+    private val delegate: DetachedVerify,
+    private val i: Instrumenter
+) : DetachedVerify {
+
+    override fun notBefore(timestamp: Date): DetachedVerify = apply {
+        delegate.notBefore(timestamp)
+    }
+
+    override fun notAfter(timestamp: Date): DetachedVerify = apply { delegate.notAfter(timestamp) }
+
+    override fun cert(cert: InputStream): DetachedVerify = apply {
+        delegate.cert(i.ingest("verify", KIND_CERT, cert))
+    }
+
+    override fun signatures(signatures: InputStream): VerifySignatures = apply {
+        delegate.signatures(signatures)
+    }
+
+    override fun data(data: InputStream): List<Verification> =
+        i.value("verify", data) { delegate.data(it) }
+}
+
+internal class InstrumentedInlineVerify(
+    private val delegate: InlineVerify,
+    private val i: Instrumenter
+) : InlineVerify {
+
+    override fun notBefore(timestamp: Date): InlineVerify = apply { delegate.notBefore(timestamp) }
+
+    override fun notAfter(timestamp: Date): InlineVerify = apply { delegate.notAfter(timestamp) }
+
+    override fun cert(cert: InputStream): InlineVerify = apply {
+        delegate.cert(i.ingest("inline-verify", KIND_CERT, cert))
+    }
+
+    override fun data(data: InputStream): ReadyWithResult<List<Verification>> =
+        i.readyWithResult("inline-verify", data) { delegate.data(it) }
+}
+
+internal class InstrumentedInlineDetach(
+    private val delegate: InlineDetach,
+    private val i: Instrumenter
+) : InlineDetach {
+
+    override fun noArmor(): InlineDetach = apply { delegate.noArmor() }
+
+    override fun message(messageInputStream: InputStream): ReadyWithResult<Signatures> =
+        i.readyWithResult("inline-detach", messageInputStream) { delegate.message(it) }
+}
+
+internal class InstrumentedEncrypt(private val delegate: Encrypt, private val i: Instrumenter) :
+    Encrypt {
+
+    override fun noArmor(): Encrypt = apply { delegate.noArmor() }
+
+    override fun mode(mode: EncryptAs): Encrypt = apply { delegate.mode(mode) }
+
+    override fun encryptFor(purpose: EncryptFor): Encrypt = apply { delegate.encryptFor(purpose) }
+
+    override fun signWith(key: InputStream): Encrypt = apply {
+        delegate.signWith(i.ingest("encrypt", KIND_KEY, key))
+    }
+
+    override fun withKeyPassword(password: ByteArray): Encrypt = apply {
+        delegate.withKeyPassword(password)
+    }
+
+    override fun withPassword(password: String): Encrypt = apply { delegate.withPassword(password) }
+
+    override fun withCert(cert: InputStream): Encrypt = apply {
+        delegate.withCert(i.ingest("encrypt", KIND_CERT, cert))
+    }
+
+    override fun profile(profileName: String): Encrypt = apply { delegate.profile(profileName) }
+
+    override fun plaintext(plaintext: InputStream): ReadyWithResult<EncryptionResult> =
+        i.readyWithResult("encrypt", plaintext) { delegate.plaintext(it) }
+}
+
+internal class InstrumentedDecrypt(private val delegate: Decrypt, private val i: Instrumenter) :
+    Decrypt {
+
+    override fun verifyNotBefore(timestamp: Date): Decrypt = apply {
+        delegate.verifyNotBefore(timestamp)
+    }
+
+    override fun verifyNotAfter(timestamp: Date): Decrypt = apply {
+        delegate.verifyNotAfter(timestamp)
+    }
+
+    override fun verifyWithCert(cert: InputStream): Decrypt = apply {
+        delegate.verifyWithCert(i.ingest("decrypt", KIND_CERT, cert))
+    }
+
+    override fun withSessionKey(sessionKey: SessionKey): Decrypt = apply {
+        delegate.withSessionKey(sessionKey)
+    }
+
+    override fun withPassword(password: String): Decrypt = apply { delegate.withPassword(password) }
+
+    override fun withKey(key: InputStream): Decrypt = apply {
+        delegate.withKey(i.ingest("decrypt", KIND_KEY, key))
+    }
+
+    override fun withKeyPassword(password: ByteArray): Decrypt = apply {
+        delegate.withKeyPassword(password)
+    }
+
+    override fun ciphertext(ciphertext: InputStream): ReadyWithResult<DecryptionResult> =
+        i.readyWithResult("decrypt", ciphertext) { delegate.ciphertext(it) }
+}
+
+internal class InstrumentedArmor(private val delegate: Armor, private val i: Instrumenter) : Armor {
+
+    override fun data(data: InputStream): Ready = i.ready("armor", data) { delegate.data(it) }
+}
+
+internal class InstrumentedDearmor(private val delegate: Dearmor, private val i: Instrumenter) :
+    Dearmor {
+
+    override fun data(data: InputStream): Ready = i.ready("dearmor", data) { delegate.data(it) }
+}
+
+internal class InstrumentedListProfiles(
+    private val delegate: ListProfiles,
+    private val i: Instrumenter
+) : ListProfiles {
+
+    override fun subcommand(command: String): List<Profile> =
+        i.value("list-profiles") { delegate.subcommand(command) }
+}
+
+internal class InstrumentedRevokeKey(private val delegate: RevokeKey, private val i: Instrumenter) :
+    RevokeKey {
+
+    override fun noArmor(): RevokeKey = apply { delegate.noArmor() }
+
+    override fun withKeyPassword(password: ByteArray): RevokeKey = apply {
+        delegate.withKeyPassword(password)
+    }
+
+    override fun keys(keys: InputStream): Ready = i.ready("revoke-key", keys) { delegate.keys(it) }
+}
+
+internal class InstrumentedChangeKeyPassword(
+    private val delegate: ChangeKeyPassword,
+    private val i: Instrumenter
+) : ChangeKeyPassword {
+
+    override fun noArmor(): ChangeKeyPassword = apply { delegate.noArmor() }
+
+    override fun oldKeyPassphrase(oldPassphrase: String): ChangeKeyPassword = apply {
+        delegate.oldKeyPassphrase(oldPassphrase)
+    }
+
+    override fun newKeyPassphrase(newPassphrase: String): ChangeKeyPassword = apply {
+        delegate.newKeyPassphrase(newPassphrase)
+    }
+
+    override fun keys(keys: InputStream): Ready =
+        i.ready("change-key-password", keys) { delegate.keys(it) }
+}
+
+internal class InstrumentedUpdateKey(private val delegate: UpdateKey, private val i: Instrumenter) :
+    UpdateKey {
+
+    override fun noArmor(): UpdateKey = apply { delegate.noArmor() }
+
+    override fun signingOnly(): UpdateKey = apply { delegate.signingOnly() }
+
+    override fun noAddedCapabilities(): UpdateKey = apply { delegate.noAddedCapabilities() }
+
+    override fun revokeDeprecatedKeys(): UpdateKey = apply { delegate.revokeDeprecatedKeys() }
+
+    override fun withKeyPassword(password: ByteArray): UpdateKey = apply {
+        delegate.withKeyPassword(password)
+    }
+
+    override fun mergeCerts(certs: InputStream): UpdateKey = apply {
+        delegate.mergeCerts(i.ingest("update-key", KIND_CERT, certs))
+    }
+
+    override fun key(key: InputStream): Ready = i.ready("update-key", key) { delegate.key(it) }
+}
+
+internal class InstrumentedMergeCerts(
+    private val delegate: MergeCerts,
+    private val i: Instrumenter
+) : MergeCerts {
+
+    override fun noArmor(): MergeCerts = apply { delegate.noArmor() }
+
+    override fun updates(updateCerts: InputStream): MergeCerts = apply {
+        delegate.updates(i.ingest("merge-certs", KIND_CERT, updateCerts))
+    }
+
+    override fun baseCertificates(certs: InputStream): Ready =
+        i.ready("merge-certs", certs) { delegate.baseCertificates(it) }
+}
+
+internal class InstrumentedCertifyUserId(
+    private val delegate: CertifyUserId,
+    private val i: Instrumenter
+) : CertifyUserId {
+
+    override fun noArmor(): CertifyUserId = apply { delegate.noArmor() }
+
+    override fun userId(userId: String): CertifyUserId = apply { delegate.userId(userId) }
+
+    override fun withKeyPassword(password: ByteArray): CertifyUserId = apply {
+        delegate.withKeyPassword(password)
+    }
+
+    override fun noRequireSelfSig(): CertifyUserId = apply { delegate.noRequireSelfSig() }
+
+    override fun keys(keys: InputStream): CertifyUserId = apply {
+        delegate.keys(i.ingest("certify-userid", KIND_KEY, keys))
+    }
+
+    override fun certs(certs: InputStream): Ready =
+        i.ready("certify-userid", certs) { delegate.certs(it) }
+}
+
+internal class InstrumentedValidateUserId(
+    private val delegate: ValidateUserId,
+    private val i: Instrumenter
+) : ValidateUserId {
+
+    override fun addrSpecOnly(): ValidateUserId = apply { delegate.addrSpecOnly() }
+
+    override fun userId(userId: String): ValidateUserId = apply { delegate.userId(userId) }
+
+    override fun authorities(certs: InputStream): ValidateUserId = apply {
+        delegate.authorities(i.ingest("validate-userid", KIND_CERT, certs))
+    }
+
+    override fun validateAt(date: Date): ValidateUserId = apply { delegate.validateAt(date) }
+
+    override fun subjects(certs: InputStream): Boolean =
+        i.value("validate-userid", certs) { delegate.subjects(it) }
+}
+
+internal class InstrumentedRewrap(private val delegate: Rewrap, private val i: Instrumenter) :
+    Rewrap {
+
+    override fun noArmor(): Rewrap = apply { delegate.noArmor() }
+
+    override fun withKey(key: InputStream): Rewrap = apply {
+        delegate.withKey(i.ingest("rewrap", KIND_KEY, key))
+    }
+
+    override fun withKeyPassword(password: ByteArray): Rewrap = apply {
+        delegate.withKeyPassword(password)
+    }
+
+    override fun withMessagePassword(password: String): Rewrap = apply {
+        delegate.withMessagePassword(password)
+    }
+
+    override fun withSessionKey(sessionKey: SessionKey): Rewrap = apply {
+        delegate.withSessionKey(sessionKey)
+    }
+
+    override fun withCert(cert: InputStream): Rewrap = apply {
+        delegate.withCert(i.ingest("rewrap", KIND_CERT, cert))
+    }
+
+    override fun withPassword(password: String): Rewrap = apply { delegate.withPassword(password) }
+
+    override fun message(message: InputStream): Ready =
+        i.ready("rewrap", message) { delegate.message(it) }
+}
+
+internal class InstrumentedInspect(private val delegate: Inspect, private val i: Instrumenter) :
+    Inspect {
+
+    override fun data(data: InputStream): InspectionResult =
+        i.value("inspect", data) { delegate.data(it) }
+}
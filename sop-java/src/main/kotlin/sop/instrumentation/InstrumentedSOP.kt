@@ -0,0 +1,80 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation
+
+import sop.SOP
+import sop.instrumentation.metrics.MetricsOperationListener
+import sop.instrumentation.metrics.MetricsRegistry
+import sop.operation.*
+
+/**
+ * Decorator for a [SOP] implementation, which reports the lifecycle of every operation to an
+ * [OperationListener]. This can be used to collect metrics (see [MetricsOperationListener]) or to
+ * otherwise observe the SOP layer without touching the wrapped implementation.
+ *
+ * @param delegate wrapped SOP implementation
+ * @param listener listener that is notified about operations
+ */
+class InstrumentedSOP(private val delegate: SOP, listener: OperationListener) : SOP {
+
+    /**
+     * Record metrics about all operations in the given [MetricsRegistry].
+     *
+     * @param delegate wrapped SOP implementation
+     * @param registry metrics registry
+     */
+    constructor(
+        delegate: SOP,
+        registry: MetricsRegistry
+    ) : this(delegate, MetricsOperationListener(registry))
+
+    private val i = Instrumenter(listener)
+
+    override fun version(): Version = InstrumentedVersion(delegate.version(), i)
+
+    override fun generateKey(): GenerateKey = InstrumentedGenerateKey(delegate.generateKey(), i)
+
+    override fun extractCert(): ExtractCert = InstrumentedExtractCert(delegate.extractCert(), i)
+
+    override fun detachedSign(): DetachedSign = InstrumentedDetachedSign(delegate.detachedSign(), i)
+
+    override fun inlineSign(): InlineSign = InstrumentedInlineSign(delegate.inlineSign(), i)
+
+    override fun detachedVerify(): DetachedVerify =
+        InstrumentedDetachedVerify(delegate.detachedVerify(), i)
+
+    override fun inlineVerify(): InlineVerify = InstrumentedInlineVerify(delegate.inlineVerify(), i)
+
+    override fun inlineDetach(): InlineDetach = InstrumentedInlineDetach(delegate.inlineDetach(), i)
+
+    override fun encrypt(): Encrypt = InstrumentedEncrypt(delegate.encrypt(), i)
+
+    override fun decrypt(): Decrypt = InstrumentedDecrypt(delegate.decrypt(), i)
+
+    override fun armor(): Armor = InstrumentedArmor(delegate.armor(), i)
+
+    override fun dearmor(): Dearmor = InstrumentedDearmor(delegate.dearmor(), i)
+
+    override fun listProfiles(): ListProfiles = InstrumentedListProfiles(delegate.listProfiles(), i)
+
+    override fun revokeKey(): RevokeKey = InstrumentedRevokeKey(delegate.revokeKey(), i)
+
+    override fun changeKeyPassword(): ChangeKeyPassword =
+        InstrumentedChangeKeyPassword(delegate.changeKeyPassword(), i)
+
+    override fun updateKey(): UpdateKey = InstrumentedUpdateKey(delegate.updateKey(), i)
+
+    override fun mergeCerts(): MergeCerts = InstrumentedMergeCerts(delegate.mergeCerts(), i)
+
+    override fun certifyUserId(): CertifyUserId =
+        InstrumentedCertifyUserId(delegate.certifyUserId(), i)
+
+    override fun validateUserId(): ValidateUserId =
+        InstrumentedValidateUserId(delegate.validateUserId(), i)
+
+    override fun rewrap(): Rewrap = InstrumentedRewrap(delegate.rewrap(), i)
+
+    override fun inspect(): Inspect = InstrumentedInspect(delegate.inspect(), i)
+}
@@ -0,0 +1,47 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation
+
+import sop.SOPV
+import sop.instrumentation.metrics.MetricsOperationListener
+import sop.instrumentation.metrics.MetricsRegistry
+import sop.operation.DetachedVerify
+import sop.operation.InlineVerify
+import sop.operation.ValidateUserId
+import sop.operation.Version
+
+/**
+ * Decorator for a [SOPV] implementation, which reports the lifecycle of every operation to an
+ * [OperationListener].
+ *
+ * @param delegate wrapped SOPV implementation
+ * @param listener listener that is notified about operations
+ * @see InstrumentedSOP
+ */
+class InstrumentedSOPV(private val delegate: SOPV, listener: OperationListener) : SOPV {
+
+    /**
+     * Record metrics about all operations in the given [MetricsRegistry].
+     *
+     * @param delegate wrapped SOPV implementation
+     * @param registry metrics registry
+     */
+    constructor(
+        delegate: SOPV,
+        registry: MetricsRegistry
+    ) : this(delegate, MetricsOperationListener(registry))
+
+    private val i = Instrumenter(listener)
+
+    override fun version(): Version = InstrumentedVersion(delegate.version(), i)
+
+    override fun detachedVerify(): DetachedVerify =
+        InstrumentedDetachedVerify(delegate.detachedVerify(), i)
+
+    override fun inlineVerify(): InlineVerify = InstrumentedInlineVerify(delegate.inlineVerify(), i)
+
+    override fun validateUserId(): ValidateUserId =
+        InstrumentedValidateUserId(delegate.validateUserId(), i)
+}
@@ -0,0 +1,174 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation
+
+import java.io.FilterInputStream
+import java.io.FilterOutputStream
+import java.io.InputStream
+import java.io.OutputStream
+import java.lang.ref.Cleaner
+import sop.Ready
+import sop.ReadyWithResult
+
+/**
+ * Helper that drives the [OperationListener] callbacks around the terminal methods of the wrapped
+ * operations.
+ *
+ * Operations end once their [Ready]/[ReadyWithResult] has been written. Results that become
+ * unreachable without having been written are reported as failed with an
+ * [OperationAbandonedException] once the garbage collector discovers them.
+ */
+internal class Instrumenter(private val listener: OperationListener) {
+
+    fun ready(subcommand: String, operation: () -> Ready): Ready =
+        wrapReady(start(subcommand), operation)
+
+    fun ready(subcommand: String, input: InputStream, operation: (InputStream) -> Ready): Ready =
+        start(subcommand).let { context ->
+            wrapReady(context) { operation(CountingInput(input, context)) }
+        }
+
+    fun <T> readyWithResult(
+        subcommand: String,
+        input: InputStream,
+        operation: (InputStream) -> ReadyWithResult<T>
+    ): ReadyWithResult<T> {
+        val context = start(subcommand)
+        val ready = observe(context, false) { operation(CountingInput(input, context)) }
+        return object : ReadyWithResult<T>() {
+                override fun writeTo(outputStream: OutputStream): T =
+                    observe(context, true) { ready.writeTo(CountingOutput(outputStream, context)) }
+            }
+            .also { finishWhenAbandoned(it, context) }
+    }
+
+    fun <T> value(subcommand: String, operation: () -> T): T =
+        start(subcommand).let { context -> observe(context, true, operation) }
+
+    fun <T> value(subcommand: String, input: InputStream, operation: (InputStream) -> T): T =
+        start(subcommand).let { context ->
+            observe(context, true) { operation(CountingInput(input, context)) }
+        }
+
+    /**
+     * Wrap an [InputStream] containing key material, such that the listener is notified about the
+     * number of consumed bytes once the stream is exhausted or closed.
+     */
+    fun ingest(subcommand: String, kind: String, input: InputStream): InputStream =
+        IngestingInput(input, subcommand, kind)
+
+    private fun wrapReady(context: OperationContext, operation: () -> Ready): Ready {
+        val ready = observe(context, false, operation)
+        return object : Ready() {
+                override fun writeTo(outputStream: OutputStream) =
+                    observe(context, true) { ready.writeTo(CountingOutput(outputStream, context)) }
+            }
+            .also { finishWhenAbandoned(it, context) }
+    }
+
+    /** Finish the operation with an [OperationAbandonedException] once [result] is collected. */
+    private fun finishWhenAbandoned(result: Any, context: OperationContext) {
+        // The cleanup action must not reference the result, otherwise it would never be collected
+        CLEANER.register(result) {
+            finish(context, OperationAbandonedException(context.subcommand))
+        }
+    }
+
+    private fun start(subcommand: String): OperationContext =
+        OperationContext(subcommand).also { listener.onStart(it) }
+
+    private inline fun <T> observe(
+        context: OperationContext,
+        finishOnSuccess: Boolean,
+        block: () -> T
+    ): T {
+        val result =
+            try {
+                listener.onEnter(context)
+                try {
+                    block()
+                } finally {
+                    listener.onLeave(context)
+                }
+            } catch (e: Throwable) {
+                finish(context, e)
+                throw e
+            }
+        if (finishOnSuccess) {
+            finish(context, null)
+        }
+        return result
+    }
+
+    private fun finish(context: OperationContext, error: Throwable?) {
+        if (context.markFinished()) {
+            listener.onFinish(context, error)
+        }
+    }
+
+    companion object {
+        private val CLEANER: Cleaner = Cleaner.create()
+    }
+
+    private class CountingInput(inputStream: InputStream, private val context: OperationContext) :
+        FilterInputStream(inputStream) {
+
+        override fun read(): Int = super.read().also { if (it >= 0) context.addBytesIn(1) }
+
+        override fun read(b: ByteArray, off: Int, len: Int): Int =
+            super.read(b, off, len).also { if (it > 0) context.addBytesIn(it.toLong()) }
+
+        override fun skip(n: Long): Long = super.skip(n).also { context.addBytesIn(it) }
+    }
+
+    private inner class IngestingInput(
+        inputStream: InputStream,
+        private val subcommand: String,
+        private val kind: String
+    ) : FilterInputStream(inputStream) {
+
+        private var count = 0L
+        private var reported = false
+
+        override fun read(): Int = super.read().also { if (it >= 0) count += 1 else report() }
+
+        override fun read(b: ByteArray, off: Int, len: Int): Int =
+            super.read(b, off, len).also { if (it >= 0) count += it else report() }
+
+        override fun close() {
+            super.close()
+            report()
+        }
+
+        private fun report() {
+            if (!reported) {
+                reported = true
+                listener.onIngest(subcommand, kind, count)
+            }
+        }
+    }
+
+    private inner class CountingOutput(
+        outputStream: OutputStream,
+        private val context: OperationContext
+    ) : FilterOutputStream(outputStream) {
+
+        override fun write(b: Int) {
+            out.write(b)
+            count(1)
+        }
+
+        override fun write(b: ByteArray, off: Int, len: Int) {
+            out.write(b, off, len)
+            count(len)
+        }
+
+        private fun count(len: Int) {
+            if (len > 0 && context.addBytesOut(len.toLong())) {
+                listener.onFirstByte(context)
+            }
+        }
+    }
+}
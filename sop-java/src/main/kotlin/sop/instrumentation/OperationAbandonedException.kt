@@ -0,0 +1,14 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation
+
+/**
+ * Error passed to [OperationListener.onFinish] for operations whose [sop.Ready] or
+ * [sop.ReadyWithResult] was garbage collected without having been written.
+ *
+ * @param subcommand name of the subcommand
+ */
+class OperationAbandonedException(subcommand: String) :
+    IllegalStateException("Result of operation '$subcommand' was never consumed.")
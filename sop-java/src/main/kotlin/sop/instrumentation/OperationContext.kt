@@ -0,0 +1,106 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * State of a single observed SOP operation, shared between the [InstrumentedSOP] decorator and the
+ * registered [OperationListener]. An operation starts when the terminal method of an operation
+ * (e.g. [sop.operation.Decrypt.ciphertext]) is called and ends once the resulting
+ * [sop.Ready]/[sop.ReadyWithResult] has been written out completely, or the operation failed.
+ *
+ * @param subcommand name of the SOP subcommand, e.g. `decrypt`
+ */
+class OperationContext(val subcommand: String) {
+
+    /** Value of [System.nanoTime] at the start of the operation. */
+    val startNanos: Long = System.nanoTime()
+
+    @Volatile private var firstByteNanos: Long = -1
+    @Volatile private var endNanos: Long = -1
+    private val bytesInCounter = AtomicLong()
+    private val bytesOutCounter = AtomicLong()
+    private val finished = AtomicBoolean(false)
+    private val attributes = ConcurrentHashMap<Any, Any>()
+
+    /** Number of input bytes consumed so far. */
+    val bytesIn: Long
+        get() = bytesInCounter.get()
+
+    /** Number of output bytes written so far. */
+    val bytesOut: Long
+        get() = bytesOutCounter.get()
+
+    /** Whether the operation already finished. */
+    val isFinished: Boolean
+        get() = finished.get()
+
+    /** Nanoseconds between the start of the operation and the first output byte, or `-1`. */
+    val timeToFirstByteNanos: Long
+        get() = firstByteNanos.let { if (it < 0) -1 else it - startNanos }
+
+    /** Nanoseconds between the start and the end of the operation, or `-1` if still running. */
+    val durationNanos: Long
+        get() = endNanos.let { if (it < 0) -1 else it - startNanos }
+
+    /**
+     * Return the attribute stored under the given [key], or `null`. Listeners can use attributes to
+     * carry state from [OperationListener.onStart] to [OperationListener.onFinish].
+     *
+     * @param key attribute key
+     * @return attribute value or null
+     */
+    fun getAttribute(key: Any): Any? = attributes[key]
+
+    /**
+     * Store an attribute.
+     *
+     * @param key attribute key
+     * @param value attribute value
+     */
+    fun setAttribute(key: Any, value: Any) {
+        attributes[key] = value
+    }
+
+    /**
+     * Remove the attribute stored under the given [key].
+     *
+     * @param key attribute key
+     * @return removed attribute value or null
+     */
+    fun removeAttribute(key: Any): Any? = attributes.remove(key)
+
+    internal fun addBytesIn(count: Long) {
+        bytesInCounter.addAndGet(count)
+    }
+
+    /** Return `true` if this call marked the first output byte. */
+    internal fun addBytesOut(count: Long): Boolean {
+        bytesOutCounter.addAndGet(count)
+        if (firstByteNanos < 0) {
+            synchronized(this) {
+                if (firstByteNanos < 0) {
+                    firstByteNanos = System.nanoTime()
+                    return true
+                }
+            }
+        }
+        return false
+    }
+
+    /** Return `true` if this call marked the operation as finished. */
+    internal fun markFinished(): Boolean {
+        if (!finished.compareAndSet(false, true)) {
+            return false
+        }
+        endNanos = System.nanoTime()
+        return true
+    }
+
+    override fun toString(): String = "OperationContext[$subcommand]"
+}
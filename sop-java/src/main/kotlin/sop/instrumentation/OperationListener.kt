@@ -0,0 +1,129 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation
+
+/**
+ * Callback interface which gets notified about the lifecycle of operations executed through an
+ * [InstrumentedSOP]. All methods have empty default implementations, so implementations only need
+ * to override the callbacks they are interested in.
+ *
+ * Callbacks are invoked on the thread that drives the operation. Implementations must therefore be
+ * thread-safe and should return quickly.
+ */
+interface OperationListener {
+
+    /**
+     * Called before the operation is handed to the wrapped SOP implementation. Throwing an
+     * exception from this method aborts the operation.
+     *
+     * @param context operation context
+     */
+    fun onStart(context: OperationContext) {}
+
+    /**
+     * Called when the operation emits its first byte of output.
+     *
+     * @param context operation context
+     */
+    fun onFirstByte(context: OperationContext) {}
+
+    /**
+     * Called each time the calling thread hands control to the wrapped SOP implementation on behalf
+     * of the operation, i.e. when invoking the terminal method and when writing out the result.
+     * Every call is followed by a call to [onLeave] on the same thread. Listeners can use this pair
+     * of callbacks to install thread-local state, such as the current
+     * [sop.instrumentation.tracing.TraceContext].
+     *
+     * @param context operation context
+     */
+    fun onEnter(context: OperationContext) {}
+
+    /**
+     * Called when control returns from the wrapped SOP implementation after [onEnter].
+     *
+     * @param context operation context
+     */
+    fun onLeave(context: OperationContext) {}
+
+    /**
+     * Called exactly once when the operation completed, either successfully or with an error.
+     *
+     * If the [sop.Ready]/[sop.ReadyWithResult] of an operation is dropped without having been
+     * written, this method is called with an [OperationAbandonedException] from a cleaner thread
+     * once the garbage collector discovers the result. Until then, the operation is in progress.
+     *
+     * @param context operation context
+     * @param error exception that caused the operation to fail, or `null` on success
+     */
+    fun onFinish(context: OperationContext, error: Throwable?) {}
+
+    /**
+     * Called when an operation has consumed key material, e.g. certificates passed to
+     * [sop.operation.Encrypt.withCert] or keys passed to [sop.operation.DetachedSign.key]. Since
+     * key material is passed in before the terminal method is called, this callback is not
+     * associated with an [OperationContext].
+     *
+     * @param subcommand name of the subcommand
+     * @param kind kind of key material, either [KIND_CERT] or [KIND_KEY]
+     * @param bytes number of bytes consumed
+     */
+    fun onIngest(subcommand: String, kind: String, bytes: Long) {}
+
+    companion object {
+
+        /** Kind of key material passed to [onIngest] for OpenPGP certificates. */
+        const val KIND_CERT = "cert"
+
+        /** Kind of key material passed to [onIngest] for OpenPGP secret keys. */
+        const val KIND_KEY = "key"
+
+        /**
+         * Combine multiple listeners into one. [onStart] and [onEnter] are called on the listeners
+         * in the given order, [onLeave] and [onFinish] in reverse order.
+         *
+         * @param listeners listeners
+         * @return combined listener
+         */
+        @JvmStatic
+        fun composite(vararg listeners: OperationListener): OperationListener =
+            CompositeOperationListener(listeners.toList())
+    }
+}
+
+private class CompositeOperationListener(private val listeners: List<OperationListener>) :
+    OperationListener {
+
+    override fun onStart(context: OperationContext) {
+        for ((index, listener) in listeners.withIndex()) {
+            try {
+                listener.onStart(context)
+            } catch (e: Throwable) {
+                // Roll back listeners that were already started
+                listeners.subList(0, index).asReversed().forEach { it.onFinish(context, e) }
+                throw e
+            }
+        }
+    }
+
+    override fun onFirstByte(context: OperationContext) {
+        listeners.forEach { it.onFirstByte(context) }
+    }
+
+    override fun onEnter(context: OperationContext) {
+        listeners.forEach { it.onEnter(context) }
+    }
+
+    override fun onLeave(context: OperationContext) {
+        listeners.asReversed().forEach { it.onLeave(context) }
+    }
+
+    override fun onFinish(context: OperationContext, error: Throwable?) {
+        listeners.asReversed().forEach { it.onFinish(context, error) }
+    }
+
+    override fun onIngest(subcommand: String, kind: String, bytes: Long) {
+        listeners.forEach { it.onIngest(subcommand, kind, bytes) }
+    }
+}
@@ -0,0 +1,67 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation.jfr
+
+import sop.exception.SOPGPException
+import sop.instrumentation.OperationContext
+import sop.instrumentation.OperationListener
+
+/**
+ * [OperationListener] which emits [OperationEvent] and [KeyMaterialEvent] to the JDK Flight
+ * Recorder. This allows to correlate SOP latency with GC activity and I/O within a single
+ * recording.
+ *
+ * If the events are not enabled in the active recording settings, the listener does not retain any
+ * state per operation.
+ *
+ * Example: Start the application with `-XX:StartFlightRecording:filename=sop.jfr` and inspect the
+ * recording using `jfr print --events sop.Operation sop.jfr`.
+ */
+class JfrOperationListener : OperationListener {
+
+    override fun onStart(context: OperationContext) {
+        val event = OperationEvent()
+        if (event.isEnabled) {
+            event.begin()
+            context.setAttribute(EVENT_KEY, event)
+        }
+    }
+
+    override fun onFinish(context: OperationContext, error: Throwable?) {
+        val event = context.getAttribute(EVENT_KEY) as OperationEvent? ?: return
+        event.end()
+        if (event.shouldCommit()) {
+            event.subcommand = context.subcommand
+            event.bytesIn = context.bytesIn
+            event.bytesOut = context.bytesOut
+            event.timeToFirstByte = context.timeToFirstByteNanos
+            event.outcome = error?.javaClass?.simpleName ?: OUTCOME_SUCCESS
+            event.exitCode =
+                when (error) {
+                    null -> 0
+                    is SOPGPException -> error.getExitCode()
+                    else -> -1
+                }
+            event.commit()
+        }
+    }
+
+    override fun onIngest(subcommand: String, kind: String, bytes: Long) {
+        val event = KeyMaterialEvent()
+        if (event.shouldCommit()) {
+            event.subcommand = subcommand
+            event.kind = kind
+            event.size = bytes
+            event.commit()
+        }
+    }
+
+    companion object {
+        /** Value of [OperationEvent.outcome] for successful operations. */
+        const val OUTCOME_SUCCESS = "success"
+
+        private val EVENT_KEY = Any()
+    }
+}
@@ -0,0 +1,28 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation.jfr
+
+import jdk.jfr.Category
+import jdk.jfr.DataAmount
+import jdk.jfr.Description
+import jdk.jfr.Event
+import jdk.jfr.Label
+import jdk.jfr.Name
+import jdk.jfr.StackTrace
+
+/** JFR event emitted when a SOP operation consumed certificates or secret keys. */
+@Name("sop.KeyMaterial")
+@Label("SOP Key Material")
+@Category("SOP")
+@Description("Certificates or secret keys passed to a SOP subcommand")
+@StackTrace(false)
+class KeyMaterialEvent : Event() {
+
+    @Label("Subcommand") @JvmField var subcommand: String? = null
+
+    @Label("Kind") @Description("Either 'cert' or 'key'") @JvmField var kind: String? = null
+
+    @Label("Size") @DataAmount @JvmField var size: Long = 0
+}
@@ -0,0 +1,48 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation.jfr
+
+import jdk.jfr.Category
+import jdk.jfr.DataAmount
+import jdk.jfr.Description
+import jdk.jfr.Event
+import jdk.jfr.Label
+import jdk.jfr.Name
+import jdk.jfr.StackTrace
+import jdk.jfr.Timespan
+
+/**
+ * JFR event spanning a single SOP operation, from the invocation of the terminal method until the
+ * result has been written out completely.
+ */
+@Name("sop.Operation")
+@Label("SOP Operation")
+@Category("SOP")
+@Description("Execution of a SOP subcommand")
+@StackTrace(false)
+class OperationEvent : Event() {
+
+    @Label("Subcommand") @JvmField var subcommand: String? = null
+
+    @Label("Bytes In") @DataAmount @JvmField var bytesIn: Long = 0
+
+    @Label("Bytes Out") @DataAmount @JvmField var bytesOut: Long = 0
+
+    @Label("Time To First Byte")
+    @Description("Time until the first output byte was written, or -1 if there was no output")
+    @Timespan(Timespan.NANOSECONDS)
+    @JvmField
+    var timeToFirstByte: Long = -1
+
+    @Label("Outcome")
+    @Description("'success', or the simple class name of the exception that aborted the operation")
+    @JvmField
+    var outcome: String? = null
+
+    @Label("Exit Code")
+    @Description("Exit code corresponding to the outcome, 0 on success, -1 if unknown")
+    @JvmField
+    var exitCode: Int = 0
+}
@@ -0,0 +1,126 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation.metrics
+
+import java.lang.management.ManagementFactory
+import java.util.Hashtable
+import java.util.concurrent.ConcurrentHashMap
+import javax.management.InstanceAlreadyExistsException
+import javax.management.InstanceNotFoundException
+import javax.management.MBeanServer
+import javax.management.ObjectName
+import sop.instrumentation.metrics.MetricsOperationListener.Companion.BYTES_IN
+import sop.instrumentation.metrics.MetricsOperationListener.Companion.BYTES_OUT
+import sop.instrumentation.metrics.MetricsOperationListener.Companion.DURATION
+import sop.instrumentation.metrics.MetricsOperationListener.Companion.ERRORS
+import sop.instrumentation.metrics.MetricsOperationListener.Companion.IN_FLIGHT
+import sop.instrumentation.metrics.MetricsOperationListener.Companion.TAG_EXIT_CODE
+import sop.instrumentation.metrics.MetricsOperationListener.Companion.TAG_SUBCOMMAND
+import sop.instrumentation.metrics.MetricsOperationListener.Companion.TIME_TO_FIRST_BYTE
+
+/**
+ * [SimpleMetricsRegistry] which exposes the metrics recorded by a [MetricsOperationListener] via
+ * JMX. For each subcommand, an [OperationMetricsMXBean] is registered under the name
+ * `<domain>:type=Operation,name=<subcommand>` as soon as the first metric for the subcommand is
+ * recorded.
+ *
+ * @param mBeanServer MBean server to register the beans with
+ * @param domain JMX domain
+ */
+class JmxMetricsRegistry
+@JvmOverloads
+constructor(
+    private val mBeanServer: MBeanServer = ManagementFactory.getPlatformMBeanServer(),
+    private val domain: String = DEFAULT_DOMAIN
+) : SimpleMetricsRegistry(), AutoCloseable {
+
+    private val registered = ConcurrentHashMap<String, ObjectName>()
+
+    override fun onRegistered(id: MetricId) {
+        val subcommand = id.tags[TAG_SUBCOMMAND] ?: return
+        registered.computeIfAbsent(subcommand) {
+            val name = objectName(subcommand)
+            try {
+                mBeanServer.registerMBean(OperationMetrics(subcommand), name)
+            } catch (e: InstanceAlreadyExistsException) {
+                // Another registry with the same domain already exported this subcommand
+            }
+            name
+        }
+    }
+
+    /**
+     * Return the [ObjectName] under which the metrics of the given subcommand are exposed.
+     *
+     * @param subcommand subcommand name
+     * @return object name
+     */
+    fun objectName(subcommand: String): ObjectName =
+        ObjectName(domain, Hashtable(mapOf("type" to "Operation", "name" to subcommand)))
+
+    /** Unregister all MBeans registered by this registry. */
+    override fun close() {
+        registered.values.forEach {
+            try {
+                mBeanServer.unregisterMBean(it)
+            } catch (e: InstanceNotFoundException) {
+                // already gone
+            }
+        }
+        registered.clear()
+    }
+
+    private inner class OperationMetrics(override val subcommand: String) : OperationMetricsMXBean {
+
+        private val tags = mapOf(TAG_SUBCOMMAND to subcommand)
+
+        override val invocations: Long
+            get() = histogram(DURATION, tags).count
+
+        override val inFlight: Long
+            get() = gauge(IN_FLIGHT, tags).value
+
+        override val errors: Long
+            get() = errorsByExitCode.values.sum()
+
+        override val errorsByExitCode: Map<String, Long>
+            get() =
+                counters
+                    .filter { (id, _) ->
+                        id.name == ERRORS && id.tags[TAG_SUBCOMMAND] == subcommand
+                    }
+                    .map { (id, counter) -> id.tags[TAG_EXIT_CODE].toString() to counter.value }
+                    .toMap()
+
+        override val bytesIn: Long
+            get() = counter(BYTES_IN, tags).value
+
+        override val bytesOut: Long
+            get() = counter(BYTES_OUT, tags).value
+
+        override val meanDurationMillis: Double
+            get() = histogram(DURATION, tags).mean / NANOS_PER_MILLI
+
+        override val p50DurationMillis: Double
+            get() = histogram(DURATION, tags).percentile(0.5) / NANOS_PER_MILLI
+
+        override val p99DurationMillis: Double
+            get() = histogram(DURATION, tags).percentile(0.99) / NANOS_PER_MILLI
+
+        override val maxDurationMillis: Double
+            get() = histogram(DURATION, tags).max / NANOS_PER_MILLI
+
+        override val p50TimeToFirstByteMillis: Double
+            get() = histogram(TIME_TO_FIRST_BYTE, tags).percentile(0.5) / NANOS_PER_MILLI
+
+        override val p99TimeToFirstByteMillis: Double
+            get() = histogram(TIME_TO_FIRST_BYTE, tags).percentile(0.99) / NANOS_PER_MILLI
+    }
+
+    companion object {
+        const val DEFAULT_DOMAIN = "sop"
+        private const val NANOS_PER_MILLI = 1_000_000.0
+    }
+}
@@ -0,0 +1,69 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation.metrics
+
+import sop.exception.SOPGPException
+import sop.instrumentation.OperationContext
+import sop.instrumentation.OperationListener
+
+/**
+ * [OperationListener] that records metrics about SOP operations into a [MetricsRegistry]. All
+ * metrics are tagged with the name of the subcommand ([TAG_SUBCOMMAND]). Error counts are
+ * additionally tagged with the exit code of the [SOPGPException] ([TAG_EXIT_CODE]).
+ *
+ * @param registry metrics registry
+ */
+class MetricsOperationListener(private val registry: MetricsRegistry) : OperationListener {
+
+    override fun onStart(context: OperationContext) {
+        registry.gauge(IN_FLIGHT, tags(context)).increment()
+    }
+
+    override fun onFirstByte(context: OperationContext) {
+        registry.histogram(TIME_TO_FIRST_BYTE, tags(context)).record(context.timeToFirstByteNanos)
+    }
+
+    override fun onFinish(context: OperationContext, error: Throwable?) {
+        val tags = tags(context)
+        registry.gauge(IN_FLIGHT, tags).decrement()
+        registry.histogram(DURATION, tags).record(context.durationNanos)
+        registry.counter(BYTES_IN, tags).increment(context.bytesIn)
+        registry.counter(BYTES_OUT, tags).increment(context.bytesOut)
+        if (error != null) {
+            registry.counter(ERRORS, tags + (TAG_EXIT_CODE to exitCode(error))).increment(1)
+        }
+    }
+
+    private fun tags(context: OperationContext): Map<String, String> =
+        mapOf(TAG_SUBCOMMAND to context.subcommand)
+
+    companion object {
+        /** Wall-clock duration of operations in nanoseconds (histogram). */
+        const val DURATION = "sop.operation.duration"
+        /** Time between operation start and the first output byte in nanoseconds (histogram). */
+        const val TIME_TO_FIRST_BYTE = "sop.operation.ttfb"
+        /** Number of input bytes (counter). */
+        const val BYTES_IN = "sop.operation.bytes.in"
+        /** Number of output bytes (counter). */
+        const val BYTES_OUT = "sop.operation.bytes.out"
+        /**
+         * Number of operations currently in progress (gauge). Operations whose result is dropped
+         * without being written are counted until the result is garbage collected.
+         */
+        const val IN_FLIGHT = "sop.operation.inflight"
+        /** Number of failed operations (counter). */
+        const val ERRORS = "sop.operation.errors"
+
+        const val TAG_SUBCOMMAND = "subcommand"
+        const val TAG_EXIT_CODE = "exitCode"
+
+        /** Value of the [TAG_EXIT_CODE] tag for exceptions that are not [SOPGPException]s. */
+        const val EXIT_CODE_UNKNOWN = "unknown"
+
+        @JvmStatic
+        fun exitCode(error: Throwable): String =
+            (error as? SOPGPException)?.getExitCode()?.toString() ?: EXIT_CODE_UNKNOWN
+    }
+}
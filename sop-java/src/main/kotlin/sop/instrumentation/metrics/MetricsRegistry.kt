@@ -0,0 +1,82 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation.metrics
+
+/**
+ * Minimal SPI for recording metrics, which allows to plug SOP metrics into arbitrary metrics
+ * libraries. Metrics are identified by a name and a set of tags. Implementations are expected to
+ * return the same metric instance for repeated calls with the same name and tags.
+ *
+ * @see SimpleMetricsRegistry
+ * @see JmxMetricsRegistry
+ */
+interface MetricsRegistry {
+
+    /**
+     * Return a monotonically increasing counter.
+     *
+     * @param name metric name
+     * @param tags metric tags
+     * @return counter
+     */
+    fun counter(name: String, tags: Map<String, String>): Counter
+
+    /**
+     * Return a gauge which can be incremented and decremented.
+     *
+     * @param name metric name
+     * @param tags metric tags
+     * @return gauge
+     */
+    fun gauge(name: String, tags: Map<String, String>): Gauge
+
+    /**
+     * Return a histogram recording the distribution of values.
+     *
+     * @param name metric name
+     * @param tags metric tags
+     * @return histogram
+     */
+    fun histogram(name: String, tags: Map<String, String>): Histogram
+
+    /** Monotonically increasing counter. */
+    fun interface Counter {
+
+        /**
+         * Increase the counter by [amount].
+         *
+         * @param amount non-negative amount
+         */
+        fun increment(amount: Long)
+    }
+
+    /** Gauge tracking a value that can go up and down, e.g. the number of in-flight operations. */
+    interface Gauge {
+
+        /** Increment the gauge by one. */
+        fun increment()
+
+        /** Decrement the gauge by one. */
+        fun decrement()
+
+        /**
+         * Set the gauge to the given value.
+         *
+         * @param value new value
+         */
+        fun set(value: Long)
+    }
+
+    /** Histogram recording a distribution of values, e.g. latencies in nanoseconds. */
+    fun interface Histogram {
+
+        /**
+         * Record a value.
+         *
+         * @param value value
+         */
+        fun record(value: Long)
+    }
+}
@@ -0,0 +1,52 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation.metrics
+
+/**
+ * JMX view on the metrics of a single SOP subcommand.
+ *
+ * @see JmxMetricsRegistry
+ */
+interface OperationMetricsMXBean {
+
+    /** Name of the subcommand. */
+    val subcommand: String
+
+    /** Number of completed operations. */
+    val invocations: Long
+
+    /** Number of operations currently in progress. */
+    val inFlight: Long
+
+    /** Number of failed operations. */
+    val errors: Long
+
+    /** Number of failed operations by exit code. */
+    val errorsByExitCode: Map<String, Long>
+
+    /** Total number of input bytes. */
+    val bytesIn: Long
+
+    /** Total number of output bytes. */
+    val bytesOut: Long
+
+    /** Mean wall-clock duration in milliseconds. */
+    val meanDurationMillis: Double
+
+    /** Approximated median wall-clock duration in milliseconds. */
+    val p50DurationMillis: Double
+
+    /** Approximated 99th percentile of the wall-clock duration in milliseconds. */
+    val p99DurationMillis: Double
+
+    /** Maximum wall-clock duration in milliseconds. */
+    val maxDurationMillis: Double
+
+    /** Approximated median time to first byte in milliseconds. */
+    val p50TimeToFirstByteMillis: Double
+
+    /** Approximated 99th percentile of the time to first byte in milliseconds. */
+    val p99TimeToFirstByteMillis: Double
+}
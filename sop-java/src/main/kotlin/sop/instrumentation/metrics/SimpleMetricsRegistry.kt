@@ -0,0 +1,177 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation.metrics
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * Dependency-free in-memory [MetricsRegistry] implementation. Recorded values can be read back
+ * using the accessors of the returned metric objects, or via [counters], [gauges] and [histograms].
+ */
+open class SimpleMetricsRegistry : MetricsRegistry {
+
+    private val counterMap = ConcurrentHashMap<MetricId, SimpleCounter>()
+    private val gaugeMap = ConcurrentHashMap<MetricId, SimpleGauge>()
+    private val histogramMap = ConcurrentHashMap<MetricId, SimpleHistogram>()
+
+    /** Snapshot of all counters. */
+    val counters: Map<MetricId, SimpleCounter>
+        get() = counterMap.toMap()
+
+    /** Snapshot of all gauges. */
+    val gauges: Map<MetricId, SimpleGauge>
+        get() = gaugeMap.toMap()
+
+    /** Snapshot of all histograms. */
+    val histograms: Map<MetricId, SimpleHistogram>
+        get() = histogramMap.toMap()
+
+    override fun counter(name: String, tags: Map<String, String>): SimpleCounter =
+        getOrRegister(counterMap, MetricId(name, tags)) { SimpleCounter() }
+
+    override fun gauge(name: String, tags: Map<String, String>): SimpleGauge =
+        getOrRegister(gaugeMap, MetricId(name, tags)) { SimpleGauge() }
+
+    override fun histogram(name: String, tags: Map<String, String>): SimpleHistogram =
+        getOrRegister(histogramMap, MetricId(name, tags)) { SimpleHistogram() }
+
+    /**
+     * Callback that is invoked once when a new metric is registered.
+     *
+     * @param id identifier of the new metric
+     */
+    protected open fun onRegistered(id: MetricId) {}
+
+    private fun <T> getOrRegister(
+        map: ConcurrentHashMap<MetricId, T>,
+        id: MetricId,
+        factory: () -> T
+    ): T {
+        map[id]?.let {
+            return it
+        }
+        var registered = false
+        val metric =
+            map.computeIfAbsent(id) {
+                registered = true
+                factory()
+            }
+        if (registered) {
+            onRegistered(id)
+        }
+        return metric
+    }
+
+    /**
+     * Identifier of a metric.
+     *
+     * @param name metric name
+     * @param tags metric tags
+     */
+    data class MetricId(val name: String, val tags: Map<String, String>)
+
+    /** Counter backed by a [LongAdder]. */
+    class SimpleCounter : MetricsRegistry.Counter {
+        private val adder = LongAdder()
+
+        val value: Long
+            get() = adder.sum()
+
+        override fun increment(amount: Long) = adder.add(amount)
+    }
+
+    /** Gauge backed by an [AtomicLong]. */
+    class SimpleGauge : MetricsRegistry.Gauge {
+        private val current = AtomicLong()
+
+        val value: Long
+            get() = current.get()
+
+        override fun increment() {
+            current.incrementAndGet()
+        }
+
+        override fun decrement() {
+            current.decrementAndGet()
+        }
+
+        override fun set(value: Long) {
+            current.set(value)
+        }
+    }
+
+    /**
+     * Lock-free histogram with exponential (power of two) buckets. Percentiles are approximated by
+     * the upper bound of the bucket in which they fall, so they are accurate to within a factor of
+     * two, which is sufficient to spot latency regressions.
+     */
+    class SimpleHistogram : MetricsRegistry.Histogram {
+        private val buckets = AtomicLongArray(BUCKETS)
+        private val countAdder = LongAdder()
+        private val sumAdder = LongAdder()
+        private val maxValue = AtomicLong(Long.MIN_VALUE)
+
+        /** Number of recorded values. */
+        val count: Long
+            get() = countAdder.sum()
+
+        /** Sum of all recorded values. */
+        val sum: Long
+            get() = sumAdder.sum()
+
+        /** Largest recorded value, or `0` if no values were recorded. */
+        val max: Long
+            get() = maxValue.get().let { if (it == Long.MIN_VALUE) 0 else it }
+
+        /** Arithmetic mean of all recorded values, or `0` if no values were recorded. */
+        val mean: Double
+            get() = count.let { if (it == 0L) 0.0 else sum.toDouble() / it }
+
+        override fun record(value: Long) {
+            if (value < 0) {
+                return
+            }
+            buckets.incrementAndGet(bucketOf(value))
+            countAdder.increment()
+            sumAdder.add(value)
+            maxValue.accumulateAndGet(value, ::maxOf)
+        }
+
+        /**
+         * Return an approximation of the given percentile.
+         *
+         * @param percentile percentile between 0.0 and 1.0
+         * @return approximated value
+         */
+        fun percentile(percentile: Double): Long {
+            require(percentile in 0.0..1.0) { "Percentile MUST be between 0.0 and 1.0" }
+            val total = count
+            if (total == 0L) {
+                return 0
+            }
+            val rank = maxOf(1L, Math.ceil(percentile * total).toLong())
+            var seen = 0L
+            for (bucket in 0 until BUCKETS) {
+                seen += buckets.get(bucket)
+                if (seen >= rank) {
+                    return minOf(upperBound(bucket), max)
+                }
+            }
+            return max
+        }
+
+        companion object {
+            private const val BUCKETS = 64
+
+            private fun bucketOf(value: Long): Int = 64 - java.lang.Long.numberOfLeadingZeros(value)
+
+            private fun upperBound(bucket: Int): Long =
+                if (bucket >= 63) Long.MAX_VALUE else (1L shl bucket) - 1
+        }
+    }
+}
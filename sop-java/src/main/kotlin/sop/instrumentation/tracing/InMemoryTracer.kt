@@ -0,0 +1,86 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation.tracing
+
+import java.util.Collections
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicBoolean
+
+/** [Tracer] which collects finished spans in memory. Intended for tests and debugging. */
+class InMemoryTracer : Tracer {
+
+    private val spans = ConcurrentLinkedQueue<RecordedSpan>()
+
+    /** Spans that have ended so far, in the order in which they ended. */
+    val finishedSpans: List<RecordedSpan>
+        get() = Collections.unmodifiableList(spans.toList())
+
+    /** Discard all collected spans. */
+    fun clear() {
+        spans.clear()
+    }
+
+    override fun startSpan(name: String, parent: TraceContext?): Span =
+        InMemorySpan(name, parent?.newChild() ?: TraceContext.newRoot(), parent?.spanId)
+
+    /**
+     * A span that has ended.
+     *
+     * @param name span name
+     * @param context context of the span
+     * @param parentSpanId span-id of the parent span, or `null` for root spans
+     * @param startNanos value of [System.nanoTime] at the start of the span
+     * @param endNanos value of [System.nanoTime] at the end of the span
+     * @param attributes attributes of the span
+     * @param error error recorded on the span, or `null`
+     */
+    data class RecordedSpan(
+        val name: String,
+        val context: TraceContext,
+        val parentSpanId: String?,
+        val startNanos: Long,
+        val endNanos: Long,
+        val attributes: Map<String, String>,
+        val error: Throwable?
+    ) {
+        /** Duration of the span in nanoseconds. */
+        val durationNanos: Long
+            get() = endNanos - startNanos
+    }
+
+    private inner class InMemorySpan(
+        private val name: String,
+        override val context: TraceContext,
+        private val parentSpanId: String?
+    ) : Span {
+
+        private val startNanos = System.nanoTime()
+        private val attributes = Collections.synchronizedMap(LinkedHashMap<String, String>())
+        private val ended = AtomicBoolean(false)
+        @Volatile private var error: Throwable? = null
+
+        override fun setAttribute(key: String, value: String) {
+            attributes[key] = value
+        }
+
+        override fun recordError(error: Throwable) {
+            this.error = error
+        }
+
+        override fun end() {
+            if (ended.compareAndSet(false, true)) {
+                spans.add(
+                    RecordedSpan(
+                        name,
+                        context,
+                        parentSpanId,
+                        startNanos,
+                        System.nanoTime(),
+                        synchronized(attributes) { attributes.toMap() },
+                        error))
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation.tracing
+
+/** A timed unit of work within a trace, created by a [Tracer]. */
+interface Span {
+
+    /** Context identifying this span. Child spans and child processes use it as their parent. */
+    val context: TraceContext
+
+    /**
+     * Attach an attribute to the span.
+     *
+     * @param key attribute key
+     * @param value attribute value
+     */
+    fun setAttribute(key: String, value: String)
+
+    /**
+     * Mark the span as failed.
+     *
+     * @param error exception that caused the failure
+     */
+    fun recordError(error: Throwable)
+
+    /** End the span. Subsequent calls have no effect. */
+    fun end()
+}
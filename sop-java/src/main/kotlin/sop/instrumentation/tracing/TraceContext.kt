@@ -0,0 +1,145 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation.tracing
+
+import java.util.concurrent.ThreadLocalRandom
+
+/**
+ * Identifies a span within a distributed trace, following the
+ * [W3C Trace Context](https://www.w3.org/TR/trace-context/) specification.
+ *
+ * @param traceId 32 lowercase hex digits identifying the trace
+ * @param spanId 16 lowercase hex digits identifying the span within the trace
+ * @param sampled whether the trace is sampled
+ */
+data class TraceContext(val traceId: String, val spanId: String, val sampled: Boolean = true) {
+
+    init {
+        require(isValidId(traceId, 32)) { "Invalid trace-id '$traceId'." }
+        require(isValidId(spanId, 16)) { "Invalid span-id '$spanId'." }
+    }
+
+    /**
+     * Create a new context for a child span, which shares the trace-id and sampling decision of
+     * this context.
+     *
+     * @return child context
+     */
+    fun newChild(): TraceContext = TraceContext(traceId, randomId(1), sampled)
+
+    /**
+     * Return the value of the `traceparent` header for this context.
+     *
+     * @return traceparent, e.g. `00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01`
+     */
+    fun toTraceparent(): String = "00-$traceId-$spanId-${if (sampled) "01" else "00"}"
+
+    override fun toString(): String = toTraceparent()
+
+    /**
+     * Restores the previously current [TraceContext] when closed. Scopes must be closed on the
+     * thread that opened them, in reverse order.
+     */
+    fun interface Scope : AutoCloseable {
+        override fun close()
+    }
+
+    companion object {
+
+        /** Name of the environment variable used to pass the trace context to child processes. */
+        const val TRACEPARENT_ENV = "TRACEPARENT"
+
+        private val current = ThreadLocal<TraceContext?>()
+
+        /**
+         * Create a context for a new trace.
+         *
+         * @param sampled whether the trace is sampled
+         * @return root context
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun newRoot(sampled: Boolean = true): TraceContext =
+            TraceContext(randomId(2), randomId(1), sampled)
+
+        /**
+         * Parse a `traceparent` value. Unknown versions are accepted as long as the version 00
+         * fields can be parsed, as required by the specification.
+         *
+         * @param traceparent traceparent value
+         * @return context, or `null` if the value is malformed
+         */
+        @JvmStatic
+        fun parse(traceparent: String?): TraceContext? {
+            if (traceparent == null) {
+                return null
+            }
+            val parts = traceparent.trim().split('-')
+            if (parts.size < 4 || !isHex(parts[0], 2) || parts[0] == "ff") {
+                return null
+            }
+            if (parts[0] == "00" && parts.size != 4) {
+                return null
+            }
+            if (!isHex(parts[3], 2) || !isValidId(parts[1], 32) || !isValidId(parts[2], 16)) {
+                return null
+            }
+            val flags = parts[3].toInt(16)
+            return TraceContext(parts[1], parts[2], flags and 0x01 != 0)
+        }
+
+        /**
+         * Read the trace context passed by a parent process via the [TRACEPARENT_ENV] environment
+         * variable.
+         *
+         * @return context or `null`
+         */
+        @JvmStatic fun fromEnvironment(): TraceContext? = parse(System.getenv(TRACEPARENT_ENV))
+
+        /**
+         * Return the trace context that is current on the calling thread.
+         *
+         * @return current context or `null`
+         */
+        @JvmStatic fun current(): TraceContext? = current.get()
+
+        /**
+         * Make the given context current on the calling thread until the returned [Scope] is
+         * closed.
+         *
+         * @param context context, or `null` to clear the current context
+         * @return scope restoring the previous context
+         */
+        @JvmStatic
+        fun makeCurrent(context: TraceContext?): Scope {
+            val previous = current.get()
+            current.set(context)
+            return Scope { current.set(previous) }
+        }
+
+        private fun randomId(longs: Int): String {
+            val random = ThreadLocalRandom.current()
+            while (true) {
+                val id = buildString {
+                    repeat(longs) {
+                        val hex = java.lang.Long.toHexString(random.nextLong())
+                        repeat(16 - hex.length) { append('0') }
+                        append(hex)
+                    }
+                }
+                if (isValidId(id, longs * 16)) {
+                    return id
+                }
+            }
+        }
+
+        private fun isHex(value: String, length: Int): Boolean =
+            value.length == length && value.all { it in '0'..'9' || it in 'a'..'f' }
+
+        // all-zero ids are invalid
+        private fun isValidId(id: String, length: Int): Boolean =
+            isHex(id, length) && id.any { it != '0' }
+    }
+}
@@ -0,0 +1,24 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation.tracing
+
+/**
+ * Service provider interface for tracing backends. Implementations can bridge to a tracing library
+ * of choice, e.g. OpenTelemetry, without sop-java depending on it.
+ *
+ * @see TracingOperationListener
+ * @see InMemoryTracer
+ */
+fun interface Tracer {
+
+    /**
+     * Start a new span.
+     *
+     * @param name span name
+     * @param parent context of the parent span, or `null` to start a new trace
+     * @return started span
+     */
+    fun startSpan(name: String, parent: TraceContext?): Span
+}
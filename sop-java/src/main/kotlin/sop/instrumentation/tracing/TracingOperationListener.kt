@@ -0,0 +1,51 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation.tracing
+
+import sop.instrumentation.OperationContext
+import sop.instrumentation.OperationListener
+
+/**
+ * [OperationListener] which wraps every operation of an [sop.instrumentation.InstrumentedSOP] into
+ * a [Span]. The span is a child of the [TraceContext] that is current when the operation starts.
+ * While the wrapped implementation executes on behalf of the operation, the context of the span is
+ * made current, such that implementations like `ExternalSOP` can propagate it further.
+ *
+ * @param tracer tracer creating the spans
+ */
+class TracingOperationListener(private val tracer: Tracer) : OperationListener {
+
+    override fun onStart(context: OperationContext) {
+        val span = tracer.startSpan("sop ${context.subcommand}", TraceContext.current())
+        span.setAttribute(ATTR_SUBCOMMAND, context.subcommand)
+        context.setAttribute(SPAN_KEY, span)
+    }
+
+    override fun onEnter(context: OperationContext) {
+        val span = context.getAttribute(SPAN_KEY) as Span? ?: return
+        context.setAttribute(SCOPE_KEY, TraceContext.makeCurrent(span.context))
+    }
+
+    override fun onLeave(context: OperationContext) {
+        (context.getAttribute(SCOPE_KEY) as TraceContext.Scope?)?.close()
+    }
+
+    override fun onFinish(context: OperationContext, error: Throwable?) {
+        val span = context.getAttribute(SPAN_KEY) as Span? ?: return
+        span.setAttribute(ATTR_BYTES_IN, context.bytesIn.toString())
+        span.setAttribute(ATTR_BYTES_OUT, context.bytesOut.toString())
+        error?.let { span.recordError(it) }
+        span.end()
+    }
+
+    companion object {
+        const val ATTR_SUBCOMMAND = "sop.subcommand"
+        const val ATTR_BYTES_IN = "sop.bytes_in"
+        const val ATTR_BYTES_OUT = "sop.bytes_out"
+
+        private val SPAN_KEY = Any()
+        private val SCOPE_KEY = Any()
+    }
+}
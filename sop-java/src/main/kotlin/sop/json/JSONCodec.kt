@@ -0,0 +1,32 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.json
+
+import java.text.ParseException
+import sop.Verification
+
+/**
+ * Built-in, dependency-free [Verification.JSONParser] and [Verification.JSONSerializer] for the
+ * VERIFICATIONS extension JSON. It covers only the [Verification.JSON] schema and is used by
+ * [Verification] whenever no other parser or serializer is given.
+ *
+ * The free-form `ext` value is represented as a tree made up of [Map]s with [String] keys (in
+ * document order), [List]s, [String]s, [Boolean]s, `null` and numbers. Integral numbers that fit
+ * into a [Long] are parsed as [Long], all other numbers as [Double]. When serializing, any [Map],
+ * [Iterable], array, [CharSequence], [Number] and [Boolean] value is accepted.
+ */
+object JSONCodec : Verification.JSONParser, Verification.JSONSerializer {
+
+    @Throws(ParseException::class)
+    override fun parse(string: String): Verification.JSON =
+        JSONReader(string).readVerificationJSON()
+
+    /**
+     * Serialize the given JSON object into a single-line JSON string.
+     *
+     * @throws IllegalArgumentException if the `ext` value contains unsupported types
+     */
+    override fun serialize(json: Verification.JSON): String = JSONWriter().write(json).toString()
+}
@@ -0,0 +1,253 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.json
+
+import java.text.ParseException
+import sop.Verification
+import sop.util.HexUtil
+
+/**
+ * Minimal recursive descent reader for the [Verification.JSON] schema. Strings without escape
+ * sequences are cut out of the input directly, a [StringBuilder] is only used for strings that need
+ * unescaping.
+ */
+internal class JSONReader(private val input: String) {
+
+    private var pos = 0
+
+    /** Read a [Verification.JSON] object, which must make up the whole input. */
+    fun readVerificationJSON(): Verification.JSON {
+        var signers: List<String> = listOf()
+        var comment: String? = null
+        var ext: Any? = null
+        expect('{')
+        if (!consume('}')) {
+            do {
+                val name = readString()
+                expect(':')
+                when (name) {
+                    SIGNERS -> signers = readSigners()
+                    COMMENT -> comment = readNullableString()
+                    EXT -> ext = readValue(1)
+                    else -> readValue(1)
+                }
+            } while (consume(','))
+            expect('}')
+        }
+        skipWhitespace()
+        if (pos != input.length) {
+            throw error("Unexpected data after JSON object")
+        }
+        return Verification.JSON(signers, comment, ext)
+    }
+
+    private fun readSigners(): List<String> {
+        if (consumeLiteral("null")) {
+            return listOf()
+        }
+        expect('[')
+        if (consume(']')) {
+            return listOf()
+        }
+        val signers = mutableListOf<String>()
+        do {
+            readNullableString()?.let { signers.add(it) }
+        } while (consume(','))
+        expect(']')
+        return signers
+    }
+
+    private fun readNullableString(): String? = if (consumeLiteral("null")) null else readString()
+
+    private fun readValue(depth: Int): Any? {
+        if (depth > MAX_DEPTH) {
+            throw error("JSON nested too deeply")
+        }
+        skipWhitespace()
+        if (pos == input.length) {
+            throw error("Unexpected end of input")
+        }
+        return when (input[pos]) {
+            '{' -> readObject(depth)
+            '[' -> readArray(depth)
+            '"' -> readString()
+            't' -> true.also { expectLiteral("true") }
+            'f' -> false.also { expectLiteral("false") }
+            'n' -> null.also { expectLiteral("null") }
+            else -> readNumber()
+        }
+    }
+
+    private fun readObject(depth: Int): Map<String, Any?> {
+        expect('{')
+        val map = LinkedHashMap<String, Any?>()
+        if (consume('}')) {
+            return map
+        }
+        do {
+            val name = readString()
+            expect(':')
+            map[name] = readValue(depth + 1)
+        } while (consume(','))
+        expect('}')
+        return map
+    }
+
+    private fun readArray(depth: Int): List<Any?> {
+        expect('[')
+        val list = ArrayList<Any?>()
+        if (consume(']')) {
+            return list
+        }
+        do {
+            list.add(readValue(depth + 1))
+        } while (consume(','))
+        expect(']')
+        return list
+    }
+
+    private fun readString(): String {
+        expect('"')
+        val start = pos
+        while (pos < input.length) {
+            val c = input[pos]
+            when {
+                c == '"' -> return input.substring(start, pos++)
+                c == '\\' -> return readEscapedString(start)
+                c < ' ' -> throw error("Unescaped control character in string")
+            }
+            pos++
+        }
+        throw error("Unterminated string")
+    }
+
+    /** Continue reading a string starting at [start] at the first escape sequence. */
+    private fun readEscapedString(start: Int): String {
+        val sb = StringBuilder(pos - start + 16).append(input, start, pos)
+        while (pos < input.length) {
+            val c = input[pos++]
+            when {
+                c == '"' -> return sb.toString()
+                c < ' ' -> throw error("Unescaped control character in string")
+                c != '\\' -> sb.append(c)
+                pos == input.length -> break
+                else ->
+                    when (input[pos++]) {
+                        '"' -> sb.append('"')
+                        '\\' -> sb.append('\\')
+                        '/' -> sb.append('/')
+                        'b' -> sb.append('\b')
+                        'f' -> sb.append('\u000c')
+                        'n' -> sb.append('\n')
+                        'r' -> sb.append('\r')
+                        't' -> sb.append('\t')
+                        'u' -> sb.append(readUnicodeEscape())
+                        else -> throw error("Invalid escape sequence")
+                    }
+            }
+        }
+        throw error("Unterminated string")
+    }
+
+    private fun readUnicodeEscape(): Char {
+        if (pos + 4 > input.length) {
+            throw error("Invalid unicode escape")
+        }
+        var value = 0
+        for (i in 0 until 4) {
+            val digit = HexUtil.digit(input[pos++])
+            if (digit < 0) {
+                throw error("Invalid unicode escape")
+            }
+            value = (value shl 4) or digit
+        }
+        return value.toChar()
+    }
+
+    private fun readNumber(): Number {
+        val start = pos
+        if (peek('-')) pos++
+        val integerStart = pos
+        skipDigits()
+        if (pos == integerStart || (input[integerStart] == '0' && pos - integerStart > 1)) {
+            throw error("Invalid value", start)
+        }
+        var integral = true
+        if (peek('.')) {
+            integral = false
+            pos++
+            if (skipDigits() == 0) throw error("Invalid number", start)
+        }
+        if (peek('e') || peek('E')) {
+            integral = false
+            pos++
+            if (peek('+') || peek('-')) pos++
+            if (skipDigits() == 0) throw error("Invalid number", start)
+        }
+        if (integral && pos - integerStart <= MAX_LONG_DIGITS) {
+            var value = 0L
+            for (i in integerStart until pos) {
+                value = value * 10 + (input[i] - '0')
+            }
+            return if (start == integerStart) value else -value
+        }
+        return input.substring(start, pos).toDouble()
+    }
+
+    private fun skipDigits(): Int {
+        val start = pos
+        while (pos < input.length && input[pos] in '0'..'9') pos++
+        return pos - start
+    }
+
+    private fun skipWhitespace() {
+        while (pos < input.length) {
+            when (input[pos]) {
+                ' ',
+                '\t',
+                '\n',
+                '\r' -> pos++
+                else -> return
+            }
+        }
+    }
+
+    private fun peek(c: Char): Boolean = pos < input.length && input[pos] == c
+
+    /** Skip whitespace and consume [c] if it is the next character. */
+    private fun consume(c: Char): Boolean {
+        skipWhitespace()
+        return peek(c).also { if (it) pos++ }
+    }
+
+    private fun expect(c: Char) {
+        if (!consume(c)) {
+            throw error("Expected '$c'")
+        }
+    }
+
+    /** Skip whitespace and consume [literal] if it comes next. */
+    private fun consumeLiteral(literal: String): Boolean {
+        skipWhitespace()
+        return input.startsWith(literal, pos).also { if (it) pos += literal.length }
+    }
+
+    private fun expectLiteral(literal: String) {
+        if (!consumeLiteral(literal)) {
+            throw error("Invalid value")
+        }
+    }
+
+    private fun error(message: String, offset: Int = pos): ParseException =
+        ParseException("$message at offset $offset.", offset)
+
+    companion object {
+        private const val SIGNERS = "signers"
+        private const val COMMENT = "comment"
+        private const val EXT = "ext"
+        private const val MAX_DEPTH = 64
+        private const val MAX_LONG_DIGITS = 18
+    }
+}
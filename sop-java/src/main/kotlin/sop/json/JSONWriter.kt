@@ -0,0 +1,120 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.json
+
+import sop.Verification
+
+/**
+ * Minimal writer producing compact single-line JSON for the [Verification.JSON] schema. Fields are
+ * written in the order `signers`, `comment`, `ext`, `null` fields are omitted.
+ */
+internal class JSONWriter {
+
+    private val out = StringBuilder()
+
+    fun write(json: Verification.JSON): JSONWriter = apply {
+        out.append("{\"signers\":[")
+        json.signers.forEachIndexed { index, signer ->
+            if (index != 0) out.append(',')
+            writeString(signer)
+        }
+        out.append(']')
+        json.comment?.let {
+            out.append(",\"comment\":")
+            writeString(it)
+        }
+        json.ext?.let {
+            out.append(",\"ext\":")
+            writeValue(it, 1)
+        }
+        out.append('}')
+    }
+
+    override fun toString(): String = out.toString()
+
+    private fun writeValue(value: Any?, depth: Int) {
+        require(depth <= MAX_DEPTH) { "JSON nested too deeply." }
+        when (value) {
+            null -> out.append("null")
+            is CharSequence -> writeString(value.toString())
+            is Char -> writeString(value.toString())
+            is Boolean -> out.append(value)
+            is Double -> writeFloatingPoint(value)
+            is Float -> writeFloatingPoint(value.toDouble())
+            is Number -> out.append(value.toString())
+            is Map<*, *> -> writeObject(value, depth)
+            is Iterable<*> -> writeArray(value, depth)
+            is Array<*> -> writeArray(value.asIterable(), depth)
+            else ->
+                throw IllegalArgumentException(
+                    "Unsupported ext value of type ${value.javaClass.name}.")
+        }
+    }
+
+    private fun writeFloatingPoint(value: Double) {
+        require(value.isFinite()) { "JSON does not support $value." }
+        out.append(value)
+    }
+
+    private fun writeObject(map: Map<*, *>, depth: Int) {
+        out.append('{')
+        var first = true
+        for ((key, value) in map) {
+            if (!first) out.append(',')
+            first = false
+            writeString(key.toString())
+            out.append(':')
+            writeValue(value, depth + 1)
+        }
+        out.append('}')
+    }
+
+    private fun writeArray(values: Iterable<*>, depth: Int) {
+        out.append('[')
+        var first = true
+        for (value in values) {
+            if (!first) out.append(',')
+            first = false
+            writeValue(value, depth + 1)
+        }
+        out.append(']')
+    }
+
+    private fun writeString(string: String) {
+        out.append('"')
+        var start = 0
+        for (i in string.indices) {
+            val c = string[i]
+            val escape =
+                when {
+                    c == '"' -> "\\\""
+                    c == '\\' -> "\\\\"
+                    c == '\n' -> "\\n"
+                    c == '\r' -> "\\r"
+                    c == '\t' -> "\\t"
+                    c < ' ' || c == '\u2028' || c == '\u2029' -> null
+                    else -> continue
+                }
+            out.append(string, start, i)
+            if (escape != null) {
+                out.append(escape)
+            } else {
+                out.append("\\u")
+                val code = c.code
+                for (shift in 12 downTo 0 step 4) {
+                    out.append(HEX[(code shr shift) and 0xf])
+                }
+            }
+            start = i + 1
+        }
+        out.append(string, start, string.length)
+        out.append('"')
+    }
+
+    companion object {
+        private const val MAX_DEPTH = 64
+        private const val HEX = "0123456789abcdef"
+    }
+}
@@ -6,6 +6,7 @@ package sop.operation
 
 import java.io.IOException
 import java.io.InputStream
+import sop.UnlockedKey
 import sop.exception.SOPGPException.BadData
 import sop.exception.SOPGPException.KeyCannotSign
 import sop.exception.SOPGPException.PasswordNotHumanReadable
@@ -55,6 +56,19 @@ interface AbstractSign<T> {
         KeyCannotSign::class, BadData::class, UnsupportedAsymmetricAlgo::class, IOException::class)
     fun key(key: ByteArray): T = key(key.inputStream())
 
+    /**
+     * Add a signing key that was unlocked using [sop.SOP.unlock]. No password is required.
+     *
+     * @param key unlocked key
+     * @return builder instance
+     * @throws IllegalStateException if the unlocked key was closed or expired
+     * @throws KeyCannotSign if the key cannot be used for signing
+     * @throws UnsupportedAsymmetricAlgo if the key uses an unsupported asymmetric algorithm
+     * @throws IOException in case of an IO error
+     */
+    @Throws(KeyCannotSign::class, UnsupportedAsymmetricAlgo::class, IOException::class)
+    fun key(key: UnlockedKey): T = key.inputStream.use { key(it) }
+
     /**
      * Provide the password for the secret key used for signing.
      *
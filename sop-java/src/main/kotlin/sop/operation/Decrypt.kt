@@ -10,6 +10,7 @@ import java.util.*
 import sop.DecryptionResult
 import sop.ReadyWithResult
 import sop.SessionKey
+import sop.UnlockedKey
 import sop.exception.SOPGPException.*
 import sop.util.UTF8Util
 
@@ -102,6 +103,18 @@ interface Decrypt {
     @Throws(BadData::class, UnsupportedAsymmetricAlgo::class, IOException::class)
     fun withKey(key: ByteArray): Decrypt = withKey(key.inputStream())
 
+    /**
+     * Adds a decryption key that was unlocked using [sop.SOP.unlock]. No password is required.
+     *
+     * @param key unlocked key
+     * @return builder instance
+     * @throws IllegalStateException if the unlocked key was closed or expired
+     * @throws UnsupportedAsymmetricAlgo if the key uses an unsupported asymmetric algorithm
+     * @throws IOException in case of an IO error
+     */
+    @Throws(UnsupportedAsymmetricAlgo::class, IOException::class)
+    fun withKey(key: UnlockedKey): Decrypt = key.inputStream.use { withKey(it) }
+
     /**
      * Provide the decryption password for the secret key.
      *
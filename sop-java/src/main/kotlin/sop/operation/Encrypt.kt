@@ -9,6 +9,7 @@ import java.io.InputStream
 import sop.EncryptionResult
 import sop.Profile
 import sop.ReadyWithResult
+import sop.UnlockedKey
 import sop.enums.EncryptAs
 import sop.enums.EncryptFor
 import sop.exception.SOPGPException.*
@@ -70,6 +71,19 @@ interface Encrypt {
         KeyCannotSign::class, UnsupportedAsymmetricAlgo::class, BadData::class, IOException::class)
     fun signWith(key: ByteArray): Encrypt = signWith(key.inputStream())
 
+    /**
+     * Adds a signer key that was unlocked using [sop.SOP.unlock]. No password is required.
+     *
+     * @param key unlocked key
+     * @return builder instance
+     * @throws IllegalStateException if the unlocked key was closed or expired
+     * @throws KeyCannotSign if the key cannot be used for signing
+     * @throws UnsupportedAsymmetricAlgo if the key uses an unsupported asymmetric algorithm
+     * @throws IOException in case of an IO error
+     */
+    @Throws(KeyCannotSign::class, UnsupportedAsymmetricAlgo::class, IOException::class)
+    fun signWith(key: UnlockedKey): Encrypt = key.inputStream.use { signWith(it) }
+
     /**
      * Provide the password for the secret key used for signing.
      *
@@ -0,0 +1,39 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.operation
+
+import java.io.IOException
+import java.io.InputStream
+import sop.InspectionResult
+import sop.exception.SOPGPException.BadData
+
+/**
+ * Interface for inspecting the leading packets of OpenPGP messages, signatures, keys or
+ * certificates. Inspection does not require any secret material and does not decrypt or verify
+ * anything. It can for example be used to route an encrypted message to the right decryption key.
+ */
+interface Inspect {
+
+    /**
+     * Inspect OpenPGP data.
+     *
+     * @param data binary or ASCII armored OpenPGP data
+     * @return inspection result
+     * @throws BadData if the input is not valid OpenPGP data
+     * @throws IOException in case of an IO error
+     */
+    @Throws(BadData::class, IOException::class) fun data(data: InputStream): InspectionResult
+
+    /**
+     * Inspect OpenPGP data.
+     *
+     * @param data binary or ASCII armored OpenPGP data
+     * @return inspection result
+     * @throws BadData if the input is not valid OpenPGP data
+     * @throws IOException in case of an IO error
+     */
+    @Throws(BadData::class, IOException::class)
+    fun data(data: ByteArray): InspectionResult = data(data.inputStream())
+}
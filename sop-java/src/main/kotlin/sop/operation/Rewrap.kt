@@ -0,0 +1,168 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.operation
+
+import java.io.IOException
+import java.io.InputStream
+import sop.Ready
+import sop.SessionKey
+import sop.exception.SOPGPException.*
+import sop.util.UTF8Util
+
+/**
+ * Interface for changing the recipients of an encrypted OpenPGP message without re-encrypting its
+ * payload. The session key of the message is recovered using the given keys, passwords or session
+ * key, and is then wrapped into fresh session key packets (PKESK/SKESK) for the new set of
+ * recipients. The encrypted data packet is copied to the output unchanged, so the cost of the
+ * operation does not depend on the size of the message.
+ */
+interface Rewrap {
+
+    /**
+     * Disable ASCII armor encoding of the output.
+     *
+     * @return builder instance
+     */
+    fun noArmor(): Rewrap
+
+    /**
+     * Adds a secret key used to recover the session key of the message.
+     *
+     * @param key input stream containing the key(s)
+     * @return builder instance
+     * @throws BadData if the [InputStream] does not contain an OpenPGP key
+     * @throws UnsupportedAsymmetricAlgo if the key uses an unsupported asymmetric algorithm
+     * @throws IOException in case of an IO error
+     */
+    @Throws(BadData::class, UnsupportedAsymmetricAlgo::class, IOException::class)
+    fun withKey(key: InputStream): Rewrap
+
+    /**
+     * Adds a secret key used to recover the session key of the message.
+     *
+     * @param key byte array containing the key(s)
+     * @return builder instance
+     * @throws BadData if the byte array does not contain an OpenPGP key
+     * @throws UnsupportedAsymmetricAlgo if the key uses an unsupported asymmetric algorithm
+     * @throws IOException in case of an IO error
+     */
+    @Throws(BadData::class, UnsupportedAsymmetricAlgo::class, IOException::class)
+    fun withKey(key: ByteArray): Rewrap = withKey(key.inputStream())
+
+    /**
+     * Provide a password to unlock the secret keys.
+     *
+     * @param password password
+     * @return builder instance
+     * @throws UnsupportedOption if key passwords are not supported
+     * @throws PasswordNotHumanReadable if the password is not human-readable
+     */
+    @Throws(UnsupportedOption::class, PasswordNotHumanReadable::class)
+    fun withKeyPassword(password: String): Rewrap =
+        withKeyPassword(password.toByteArray(UTF8Util.UTF8))
+
+    /**
+     * Provide a password to unlock the secret keys.
+     *
+     * @param password password
+     * @return builder instance
+     * @throws UnsupportedOption if key passwords are not supported
+     * @throws PasswordNotHumanReadable if the password is not human-readable
+     */
+    @Throws(UnsupportedOption::class, PasswordNotHumanReadable::class)
+    fun withKeyPassword(password: ByteArray): Rewrap
+
+    /**
+     * Adds a password used to recover the session key from an SKESK packet of the message.
+     *
+     * @param password password
+     * @return builder instance
+     * @throws PasswordNotHumanReadable if the password is not human-readable
+     * @throws UnsupportedOption if this option is not supported
+     */
+    @Throws(PasswordNotHumanReadable::class, UnsupportedOption::class)
+    fun withMessagePassword(password: String): Rewrap
+
+    /**
+     * Provide the session key of the message directly. No key or message password is needed in this
+     * case.
+     *
+     * @param sessionKey session key
+     * @return builder instance
+     * @throws UnsupportedOption if this option is not supported
+     */
+    @Throws(UnsupportedOption::class) fun withSessionKey(sessionKey: SessionKey): Rewrap
+
+    /**
+     * Adds a certificate of a new recipient.
+     *
+     * @param cert input stream containing the encoded certificate(s)
+     * @return builder instance
+     * @throws CertCannotEncrypt if the certificate is not encryption capable
+     * @throws UnsupportedAsymmetricAlgo if the certificate uses an unsupported asymmetric algorithm
+     * @throws BadData if the [InputStream] does not contain an OpenPGP certificate
+     * @throws IOException in case of an IO error
+     */
+    @Throws(
+        CertCannotEncrypt::class,
+        UnsupportedAsymmetricAlgo::class,
+        BadData::class,
+        IOException::class)
+    fun withCert(cert: InputStream): Rewrap
+
+    /**
+     * Adds a certificate of a new recipient.
+     *
+     * @param cert byte array containing the encoded certificate(s)
+     * @return builder instance
+     * @throws CertCannotEncrypt if the certificate is not encryption capable
+     * @throws UnsupportedAsymmetricAlgo if the certificate uses an unsupported asymmetric algorithm
+     * @throws BadData if the byte array does not contain an OpenPGP certificate
+     * @throws IOException in case of an IO error
+     */
+    @Throws(
+        CertCannotEncrypt::class,
+        UnsupportedAsymmetricAlgo::class,
+        BadData::class,
+        IOException::class)
+    fun withCert(cert: ByteArray): Rewrap = withCert(cert.inputStream())
+
+    /**
+     * Adds a password with which the rewrapped message can be decrypted.
+     *
+     * @param password password
+     * @return builder instance
+     * @throws PasswordNotHumanReadable if the password is not human-readable
+     * @throws UnsupportedOption if this option is not supported
+     */
+    @Throws(PasswordNotHumanReadable::class, UnsupportedOption::class)
+    fun withPassword(password: String): Rewrap
+
+    /**
+     * Rewrap the given encrypted message.
+     *
+     * @param message input stream containing the encrypted message
+     * @return object to write the rewrapped message to an output stream
+     * @throws MissingArg if no new recipient was provided
+     * @throws CannotDecrypt if the session key cannot be recovered
+     * @throws BadData if the input is not an encrypted OpenPGP message
+     * @throws IOException in case of an IO error
+     */
+    @Throws(MissingArg::class, CannotDecrypt::class, BadData::class, IOException::class)
+    fun message(message: InputStream): Ready
+
+    /**
+     * Rewrap the given encrypted message.
+     *
+     * @param message byte array containing the encrypted message
+     * @return object to write the rewrapped message to an output stream
+     * @throws MissingArg if no new recipient was provided
+     * @throws CannotDecrypt if the session key cannot be recovered
+     * @throws BadData if the input is not an encrypted OpenPGP message
+     * @throws IOException in case of an IO error
+     */
+    @Throws(MissingArg::class, CannotDecrypt::class, BadData::class, IOException::class)
+    fun message(message: ByteArray): Ready = message(message.inputStream())
+}
@@ -0,0 +1,222 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.packet
+
+import java.io.BufferedInputStream
+import java.io.ByteArrayOutputStream
+import java.io.InputStream
+import java.util.*
+import sop.exception.SOPGPException
+
+/**
+ * Streaming decoder for ASCII armored OpenPGP data (RFC 9580 section 6). Armor headers are skipped
+ * and the optional CRC-24 checksum is ignored. For cleartext signed messages, the cleartext is
+ * skipped and the decoder yields the packets of the signature block. Concatenated armored blocks,
+ * as commonly found in keyrings, are decoded one after another.
+ *
+ * @param input armored data
+ */
+internal class ArmorDecoder(input: InputStream) : InputStream() {
+
+    private val input = input as? BufferedInputStream ?: BufferedInputStream(input)
+    private val pending = StringBuilder()
+    private var buffer = ByteArray(0)
+    private var position = 0
+    private var finished = false
+
+    /** Armor type, e.g. `MESSAGE`, `SIGNATURE` or `PUBLIC KEY BLOCK`. */
+    val type: String
+
+    init {
+        var line = nextNonBlankLine() ?: throw SOPGPException.BadData("Missing armor header line.")
+        type = parseHeaderLine(line)
+        if (type == CLEARTEXT_SIGNED_MESSAGE) {
+            do {
+                line =
+                    readLine()
+                        ?: throw SOPGPException.BadData(
+                            "Cleartext signed message lacks a signature block.")
+            } while (!line.startsWith("$BEGIN$SIGNATURE$DASHES"))
+        }
+        skipArmorHeaders()
+    }
+
+    override fun read(): Int {
+        if (!fill()) {
+            return -1
+        }
+        return buffer[position++].toInt() and 0xFF
+    }
+
+    override fun read(b: ByteArray, off: Int, len: Int): Int {
+        if (len == 0) {
+            return 0
+        }
+        if (!fill()) {
+            return -1
+        }
+        val n = minOf(len, buffer.size - position)
+        System.arraycopy(buffer, position, b, off, n)
+        position += n
+        return n
+    }
+
+    override fun close() = input.close()
+
+    private fun fill(): Boolean {
+        while (position == buffer.size) {
+            if (finished && !nextBlock()) {
+                return false
+            }
+            val line = readLine()
+            if (line == null) {
+                throw SOPGPException.BadData("Armored data lacks the armor tail line.")
+            }
+            consume(line)
+        }
+        return true
+    }
+
+    /** Skip armor headers, tolerating armor that lacks the empty line separating them. */
+    private fun skipArmorHeaders() {
+        while (true) {
+            val line = readLine() ?: return
+            if (line.isBlank()) {
+                return
+            }
+            if (!line.contains(": ")) {
+                consume(line)
+                return
+            }
+        }
+    }
+
+    /** Continue with the next armored block of concatenated armored data, e.g. of a keyring. */
+    private fun nextBlock(): Boolean {
+        var line = nextNonBlankLine() ?: return false
+        if (line.trim().startsWith(END)) {
+            // Armor tail line following a checksum line
+            line = nextNonBlankLine() ?: return false
+        }
+        if (!line.trim().startsWith(BEGIN)) {
+            return false
+        }
+        parseHeaderLine(line)
+        finished = false
+        skipArmorHeaders()
+        return true
+    }
+
+    /** Process a line of the armored body. */
+    private fun consume(line: String) {
+        val trimmed = line.trim()
+        if (trimmed.startsWith("=") || trimmed.startsWith(DASHES)) {
+            // Checksum or armor tail line
+            finished = true
+            decode(pending.length)
+            return
+        }
+        pending.append(trimmed)
+        decode(pending.length - pending.length % 4)
+    }
+
+    private fun decode(count: Int) {
+        if (count == 0) {
+            return
+        }
+        try {
+            buffer = Base64.getDecoder().decode(pending.substring(0, count))
+        } catch (e: IllegalArgumentException) {
+            throw SOPGPException.BadData("Invalid Base64 in armored data.", e)
+        }
+        position = 0
+        pending.delete(0, count)
+    }
+
+    private fun nextNonBlankLine(): String? {
+        while (true) {
+            val line = readLine() ?: return null
+            if (line.isNotBlank()) {
+                return line
+            }
+        }
+    }
+
+    private fun readLine(): String? {
+        val line = ByteArrayOutputStream()
+        var c = input.read()
+        if (c < 0) {
+            return null
+        }
+        while (c >= 0 && c != '\n'.code) {
+            if (line.size() >= MAX_LINE_LENGTH) {
+                throw SOPGPException.BadData("Armored line exceeds $MAX_LINE_LENGTH characters.")
+            }
+            if (c != '\r'.code) {
+                line.write(c)
+            }
+            c = input.read()
+        }
+        return line.toString(Charsets.UTF_8)
+    }
+
+    companion object {
+        private const val DASHES = "-----"
+        private const val BEGIN = "-----BEGIN PGP "
+        private const val END = "-----END PGP "
+        private const val SIGNATURE = "SIGNATURE"
+        private const val MAX_LINE_LENGTH = 64 * 1024
+        private const val PEEK_LIMIT = 1024
+
+        /** Armor type of cleartext signed messages. */
+        const val CLEARTEXT_SIGNED_MESSAGE = "SIGNED MESSAGE"
+
+        /**
+         * Check whether the given input starts with an armor header line without consuming it.
+         *
+         * @param input input supporting [InputStream.mark]
+         * @return true if the input is armored
+         */
+        @JvmStatic fun isArmored(input: BufferedInputStream): Boolean = peekType(input) != null
+
+        /**
+         * Return the armor type of the given input without consuming it.
+         *
+         * @param input input supporting [InputStream.mark]
+         * @return armor type, or `null` if the input does not start with an armor header line
+         */
+        @JvmStatic
+        fun peekType(input: BufferedInputStream): String? {
+            input.mark(PEEK_LIMIT)
+            try {
+                val line = StringBuilder()
+                var c = input.read()
+                var count = 0
+                while (c >= 0 && Character.isWhitespace(c) && ++count < PEEK_LIMIT) {
+                    c = input.read()
+                }
+                while (c >= 0 && c != '\n'.code && ++count < PEEK_LIMIT) {
+                    line.append(c.toChar())
+                    c = input.read()
+                }
+                val trimmed = line.trim()
+                if (!trimmed.startsWith(BEGIN) || !trimmed.endsWith(DASHES)) {
+                    return null
+                }
+                return trimmed.substring(BEGIN.length, trimmed.length - DASHES.length)
+            } finally {
+                input.reset()
+            }
+        }
+
+        private fun parseHeaderLine(line: String): String {
+            val trimmed = line.trim()
+            if (!trimmed.startsWith(BEGIN) || !trimmed.endsWith(DASHES)) {
+                throw SOPGPException.BadData("Invalid armor header line.")
+            }
+            return trimmed.substring(BEGIN.length, trimmed.length - DASHES.length)
+        }
+    }
+}
@@ -0,0 +1,81 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.packet
+
+import java.io.OutputStream
+import java.util.*
+
+/**
+ * Streaming ASCII armor encoder (RFC 9580 section 6). Call [finish] to write the checksum and the
+ * armor tail line. The underlying stream is not closed.
+ *
+ * @param out underlying stream
+ * @param type armor type, e.g. `MESSAGE`
+ */
+internal class ArmorEncoder(private val out: OutputStream, private val type: String) :
+    OutputStream() {
+
+    private val line = ByteArray(BYTES_PER_LINE)
+    private var lineLength = 0
+    private var crc = CRC24_INIT
+    private var started = false
+
+    override fun write(b: Int) {
+        start()
+        updateCrc(b)
+        line[lineLength++] = b.toByte()
+        if (lineLength == BYTES_PER_LINE) {
+            flushLine()
+        }
+    }
+
+    override fun write(b: ByteArray, off: Int, len: Int) {
+        for (index in off until off + len) {
+            write(b[index].toInt())
+        }
+    }
+
+    /** Write any buffered data, the checksum and the armor tail line. */
+    fun finish() {
+        start()
+        if (lineLength > 0) {
+            flushLine()
+        }
+        val checksum = byteArrayOf((crc shr 16).toByte(), (crc shr 8).toByte(), crc.toByte())
+        writeAscii("=" + Base64.getEncoder().encodeToString(checksum) + "\n")
+        writeAscii("-----END PGP $type-----\n")
+    }
+
+    private fun start() {
+        if (!started) {
+            started = true
+            writeAscii("-----BEGIN PGP $type-----\n\n")
+        }
+    }
+
+    private fun flushLine() {
+        out.write(Base64.getEncoder().encode(line.copyOf(lineLength)))
+        out.write('\n'.code)
+        lineLength = 0
+    }
+
+    private fun updateCrc(b: Int) {
+        crc = crc xor ((b and 0xFF) shl 16)
+        repeat(8) {
+            crc = crc shl 1
+            if (crc and 0x1000000 != 0) {
+                crc = crc xor CRC24_POLY
+            }
+        }
+    }
+
+    private fun writeAscii(string: String) = out.write(string.toByteArray(Charsets.US_ASCII))
+
+    companion object {
+        private const val BYTES_PER_LINE = 48
+        private const val CRC24_INIT = 0xB704CE
+        private const val CRC24_POLY = 0x1864CFB
+    }
+}
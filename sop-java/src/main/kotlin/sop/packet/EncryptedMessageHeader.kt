@@ -0,0 +1,65 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.packet
+
+import sop.exception.SOPGPException
+
+/**
+ * Leading encrypted session key packets (PKESK and SKESK) of an encrypted OpenPGP message.
+ *
+ * @param packets encodings (header and body) of the session key packets in message order
+ * @param next header of the first packet following the session key packets, or `null` if the input
+ *   ended
+ */
+internal class EncryptedMessageHeader(val packets: List<EncodedPacket>, val next: PacketHeader?) {
+
+    /** Whether the message starts with at least one session key packet. */
+    val isEncrypted: Boolean
+        get() = packets.isNotEmpty()
+
+    /** Packet header and body. */
+    class EncodedPacket(val header: PacketHeader, val body: ByteArray) {
+        val tag: Int
+            get() = header.tag
+    }
+
+    companion object {
+
+        /** Upper bound for the number of session key packets of a single message. */
+        const val MAX_SESSION_KEY_PACKETS = 4096
+
+        /**
+         * Read the session key packets at the start of the message. Marker and padding packets are
+         * skipped.
+         *
+         * @param reader packet reader positioned at the start of the message
+         * @return encrypted message header
+         * @throws SOPGPException.BadData if the message is malformed or has excessively many
+         *   session key packets
+         */
+        @JvmStatic
+        fun read(reader: PacketReader): EncryptedMessageHeader {
+            val packets = mutableListOf<EncodedPacket>()
+            while (true) {
+                val header = reader.nextHeader() ?: return EncryptedMessageHeader(packets, null)
+                when (header.tag) {
+                    PacketTag.MARKER,
+                    PacketTag.PADDING -> reader.skipBody(header)
+                    PacketTag.PKESK,
+                    PacketTag.SKESK -> {
+                        if (packets.size == MAX_SESSION_KEY_PACKETS) {
+                            throw SOPGPException.BadData(
+                                "Message has more than $MAX_SESSION_KEY_PACKETS session key packets.")
+                        }
+                        packets.add(EncodedPacket(header, reader.readBody(header, MAX_ESK_LENGTH)))
+                    }
+                    else -> return EncryptedMessageHeader(packets, header)
+                }
+            }
+        }
+
+        private const val MAX_ESK_LENGTH = 64 * 1024
+    }
+}
@@ -0,0 +1,26 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.packet
+
+/**
+ * Header of an OpenPGP packet.
+ *
+ * @param tag packet type ID
+ * @param encoded encoding of the header as it appeared in the input
+ * @param length length of the packet body, or the length of the first chunk if [partial] is `true`,
+ *   or `-1` if the packet extends to the end of the input
+ * @param partial whether the packet body is encoded using partial body lengths
+ */
+internal class PacketHeader(
+    val tag: Int,
+    val encoded: ByteArray,
+    val length: Long,
+    val partial: Boolean
+) {
+
+    /** Whether the length of the packet body is known upfront. */
+    val isDefiniteLength: Boolean
+        get() = !partial && length >= 0
+}
@@ -0,0 +1,55 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.packet
+
+import java.io.InputStream
+import sop.InspectionResult
+import sop.InspectionResult.Issuer
+import sop.InspectionResult.Packet
+import sop.InspectionResult.Recipient
+import sop.operation.Inspect
+
+/**
+ * [Inspect] implementation based on the packet framing alone. Only the headers of the packets are
+ * read, plus the bodies of PKESK, signature and one-pass-signature packets, which are small. The
+ * input is not consumed past the first packet that contains message data (literal, compressed or
+ * encrypted data).
+ */
+internal class PacketInspector : Inspect {
+
+    override fun data(data: InputStream): InspectionResult {
+        val source = PacketSource.open(data)
+        val reader = source.reader
+        val packets = mutableListOf<Packet>()
+        val recipients = mutableListOf<Recipient>()
+        val issuers = mutableListOf<Issuer>()
+
+        while (packets.size < MAX_PACKETS) {
+            val header = reader.nextHeader() ?: break
+            packets.add(
+                Packet(header.tag, PacketTag.name(header.tag), header.length, header.partial))
+            when (header.tag) {
+                PacketTag.PKESK -> recipients.add(PacketParser.parsePkesk(reader.readBody(header)))
+                PacketTag.SIGNATURE ->
+                    issuers.addAll(PacketParser.parseSignatureIssuers(reader.readBody(header)))
+                PacketTag.ONE_PASS_SIGNATURE ->
+                    PacketParser.parseOnePassSignatureIssuer(reader.readBody(header))?.let {
+                        issuers.add(it)
+                    }
+                PacketTag.LITERAL_DATA,
+                PacketTag.COMPRESSED_DATA,
+                PacketTag.SYMMETRICALLY_ENCRYPTED_DATA,
+                PacketTag.SEIPD -> break
+                else -> reader.skipBody(header)
+            }
+        }
+        return InspectionResult(source.armorType, packets, recipients, issuers.distinct())
+    }
+
+    companion object {
+        /** Upper bound for the number of inspected packets. */
+        const val MAX_PACKETS = 10_000
+    }
+}
@@ -0,0 +1,195 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.packet
+
+import sop.InspectionResult.Issuer
+import sop.InspectionResult.Recipient
+import sop.exception.SOPGPException
+import sop.util.HexUtil
+
+/**
+ * Parsers for the fields of PKESK, signature and one-pass-signature packets that identify the keys
+ * involved (RFC 9580 sections 5.1, 5.2 and 5.4).
+ */
+internal object PacketParser {
+
+    private const val SUBPACKET_ISSUER_KEY_ID = 16
+    private const val SUBPACKET_ISSUER_FINGERPRINT = 33
+
+    /**
+     * Parse the recipient of a PKESK packet.
+     *
+     * @param body packet body
+     * @return recipient
+     */
+    fun parsePkesk(body: ByteArray): Recipient {
+        val reader = BodyReader(body, "PKESK packet")
+        return when (val version = reader.octet()) {
+            3 -> {
+                val keyId = HexUtil.bytesToHex(reader.octets(8))
+                Recipient(version, reader.octet(), keyId, null)
+            }
+            6 -> {
+                val length = reader.octet()
+                if (length == 0) {
+                    Recipient(version, reader.octet(), null, null)
+                } else {
+                    val keyVersion = reader.octet()
+                    val fingerprint = reader.octets(length - 1)
+                    Recipient(
+                        version,
+                        reader.octet(),
+                        keyId(keyVersion, fingerprint),
+                        HexUtil.bytesToHex(fingerprint))
+                }
+            }
+            else -> Recipient(version, 0, null, null)
+        }
+    }
+
+    /**
+     * Parse the issuers named by a signature packet. For v4 and later signatures, issuer
+     * fingerprint and issuer key ID subpackets are considered, both from the hashed and unhashed
+     * area.
+     *
+     * @param body packet body
+     * @return issuers, which may be empty for signatures without issuer information
+     */
+    fun parseSignatureIssuers(body: ByteArray): List<Issuer> {
+        val reader = BodyReader(body, "signature packet")
+        return when (reader.octet()) {
+            3 -> {
+                reader.octets(6) // hashed length, type, creation time
+                listOf(Issuer(HexUtil.bytesToHex(reader.octets(8)), null))
+            }
+            4 -> {
+                reader.octets(3) // type, public key algorithm, hash algorithm
+                val hashed = reader.octets(reader.uint16())
+                val unhashed = reader.octets(reader.uint16())
+                issuersFromSubpackets(hashed + unhashed)
+            }
+            5,
+            6 -> {
+                reader.octets(3)
+                val hashed = reader.octets(reader.uint32())
+                val unhashed = reader.octets(reader.uint32())
+                issuersFromSubpackets(hashed + unhashed)
+            }
+            else -> listOf()
+        }
+    }
+
+    /**
+     * Parse the issuer of a one-pass-signature packet.
+     *
+     * @param body packet body
+     * @return issuer or `null` for unknown packet versions
+     */
+    fun parseOnePassSignatureIssuer(body: ByteArray): Issuer? {
+        val reader = BodyReader(body, "one-pass-signature packet")
+        return when (reader.octet()) {
+            3 -> {
+                reader.octets(3) // type, hash algorithm, public key algorithm
+                Issuer(HexUtil.bytesToHex(reader.octets(8)), null)
+            }
+            6 -> {
+                reader.octets(3)
+                reader.octets(reader.octet()) // salt
+                val fingerprint = reader.octets(32)
+                Issuer(keyId(6, fingerprint), HexUtil.bytesToHex(fingerprint))
+            }
+            else -> null
+        }
+    }
+
+    private fun issuersFromSubpackets(subpackets: ByteArray): List<Issuer> {
+        val reader = BodyReader(subpackets, "signature subpacket")
+        val fingerprints = mutableListOf<Issuer>()
+        val keyIds = mutableListOf<String>()
+        while (reader.hasRemaining()) {
+            val first = reader.octet()
+            val length =
+                when {
+                    first < 192 -> first
+                    first < 255 -> ((first - 192) shl 8) + reader.octet() + 192
+                    else -> reader.uint32()
+                }
+            if (length == 0) {
+                throw SOPGPException.BadData("Invalid signature subpacket of length 0.")
+            }
+            val type = reader.octet() and 0x7F
+            val data = reader.octets(length - 1)
+            when (type) {
+                SUBPACKET_ISSUER_KEY_ID ->
+                    if (data.size == 8) {
+                        keyIds.add(HexUtil.bytesToHex(data))
+                    }
+                SUBPACKET_ISSUER_FINGERPRINT ->
+                    if (data.size > 1) {
+                        val fingerprint = data.copyOfRange(1, data.size)
+                        fingerprints.add(
+                            Issuer(
+                                keyId(data[0].toInt(), fingerprint),
+                                HexUtil.bytesToHex(fingerprint)))
+                    }
+            }
+        }
+        // Key IDs that are covered by a fingerprint are redundant
+        val issuers = fingerprints.distinct().toMutableList()
+        keyIds
+            .distinct()
+            .filter { keyId -> issuers.none { it.keyId == keyId } }
+            .forEach { issuers.add(Issuer(it, null)) }
+        return issuers
+    }
+
+    /**
+     * Derive the key ID from a fingerprint. Version 4 key IDs are the low-order 64 bits, version 6
+     * (and version 5) key IDs the high-order 64 bits of the fingerprint.
+     */
+    fun keyId(keyVersion: Int, fingerprint: ByteArray): String? =
+        when {
+            fingerprint.size < 8 -> null
+            keyVersion == 4 ->
+                HexUtil.bytesToHex(fingerprint.copyOfRange(fingerprint.size - 8, fingerprint.size))
+            else -> HexUtil.bytesToHex(fingerprint.copyOfRange(0, 8))
+        }
+
+    /** Bounds-checked reader over a packet body. */
+    internal class BodyReader(private val body: ByteArray, private val what: String) {
+
+        /** Number of octets read so far. */
+        var position = 0
+            private set
+
+        fun hasRemaining(): Boolean = position < body.size
+
+        fun octet(): Int {
+            require(1)
+            return body[position++].toInt() and 0xFF
+        }
+
+        fun octets(n: Int): ByteArray {
+            require(n)
+            return body.copyOfRange(position, position + n).also { position += n }
+        }
+
+        fun uint16(): Int = (octet() shl 8) or octet()
+
+        fun uint32(): Int {
+            val value = (octet().toLong() shl 24) or (uint16().toLong() shl 8) or octet().toLong()
+            if (value > Int.MAX_VALUE) {
+                throw SOPGPException.BadData("Invalid length in $what.")
+            }
+            return value.toInt()
+        }
+
+        private fun require(n: Int) {
+            if (n < 0 || body.size - position < n) {
+                throw SOPGPException.BadData("Truncated $what.")
+            }
+        }
+    }
+}
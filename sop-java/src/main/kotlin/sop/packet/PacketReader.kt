@@ -0,0 +1,204 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.packet
+
+import java.io.ByteArrayOutputStream
+import java.io.EOFException
+import java.io.InputStream
+import sop.exception.SOPGPException
+
+/**
+ * Minimal reader for the OpenPGP packet framing (RFC 9580 section 4.2). It only understands packet
+ * headers and lengths, which is enough to look at the leading packets of a message without handing
+ * it to the SOP backend. Both the current and the legacy packet format are supported.
+ *
+ * @param input binary (dearmored) OpenPGP data
+ */
+internal class PacketReader(private val input: InputStream) {
+
+    /**
+     * Underlying stream, positioned after the last consumed packet header or body. This can be used
+     * to copy the remainder of the input without interpreting it.
+     */
+    val remaining: InputStream
+        get() = input
+
+    /**
+     * Read the header of the next packet. The body of the previous packet must have been consumed
+     * using [readBody] or [skipBody].
+     *
+     * @return packet header or `null` if the end of the input is reached
+     * @throws SOPGPException.BadData if the input does not contain a valid packet header
+     */
+    fun nextHeader(): PacketHeader? {
+        val ctb = input.read()
+        if (ctb < 0) {
+            return null
+        }
+        if (ctb and 0x80 == 0) {
+            throw SOPGPException.BadData("Invalid OpenPGP packet header 0x%02X.".format(ctb))
+        }
+        val encoded = ByteArrayOutputStream().apply { write(ctb) }
+        if (ctb and 0x40 != 0) {
+            val (length, partial) = readLength(encoded)
+            return PacketHeader(ctb and 0x3F, encoded.toByteArray(), length, partial)
+        }
+        val tag = (ctb shr 2) and 0x0F
+        val length =
+            when (ctb and 0x03) {
+                0 -> readOctet(encoded).toLong()
+                1 -> ((readOctet(encoded) shl 8) or readOctet(encoded)).toLong()
+                2 -> readUInt32(encoded)
+                else -> -1L
+            }
+        return PacketHeader(tag, encoded.toByteArray(), length, false)
+    }
+
+    /**
+     * Read the body of a packet with a definite length.
+     *
+     * @param header packet header
+     * @param maxLength maximum accepted body length
+     * @return packet body
+     * @throws SOPGPException.BadData if the packet is truncated, exceeds [maxLength] or does not
+     *   have a definite length
+     */
+    fun readBody(header: PacketHeader, maxLength: Int = DEFAULT_MAX_BODY_LENGTH): ByteArray {
+        if (!header.isDefiniteLength) {
+            throw SOPGPException.BadData(
+                "Unexpected indeterminate length of ${PacketTag.name(header.tag)} packet.")
+        }
+        if (header.length > maxLength) {
+            throw SOPGPException.BadData(
+                "${PacketTag.name(header.tag)} packet exceeds $maxLength bytes.")
+        }
+        val body = input.readNBytes(header.length.toInt())
+        if (body.size.toLong() != header.length) {
+            throw SOPGPException.BadData("Truncated ${PacketTag.name(header.tag)} packet.")
+        }
+        return body
+    }
+
+    /**
+     * Skip over the body of a packet, following partial body length chunks if necessary.
+     *
+     * @param header packet header
+     * @return total number of skipped body bytes
+     */
+    fun skipBody(header: PacketHeader): Long {
+        if (header.length < 0) {
+            return drain()
+        }
+        var total = 0L
+        var chunk = header.length
+        var partial = header.partial
+        while (true) {
+            skipFully(chunk)
+            total += chunk
+            if (!partial) {
+                return total
+            }
+            readLength(null).let {
+                chunk = it.first
+                partial = it.second
+            }
+        }
+    }
+
+    /**
+     * Return a stream over the body of a packet, which transparently follows partial body length
+     * chunks. The stream must be consumed before reading the next packet header.
+     *
+     * @param header packet header
+     * @return body stream
+     */
+    fun bodyStream(header: PacketHeader): InputStream =
+        object : InputStream() {
+            private var remaining = header.length
+            private var partial = header.partial
+
+            override fun read(): Int {
+                val b = ByteArray(1)
+                return if (read(b, 0, 1) < 0) -1 else b[0].toInt() and 0xFF
+            }
+
+            override fun read(b: ByteArray, off: Int, len: Int): Int {
+                if (header.length < 0) {
+                    return input.read(b, off, len)
+                }
+                while (remaining == 0L) {
+                    if (!partial) {
+                        return -1
+                    }
+                    readLength(null).let {
+                        remaining = it.first
+                        partial = it.second
+                    }
+                }
+                val r = input.read(b, off, minOf(len.toLong(), remaining).toInt())
+                if (r < 0) {
+                    throw SOPGPException.BadData("Truncated OpenPGP packet.", EOFException())
+                }
+                remaining -= r
+                return r
+            }
+        }
+
+    /** Read a new format body length, returning the length and whether it is a partial length. */
+    private fun readLength(encoded: ByteArrayOutputStream?): Pair<Long, Boolean> {
+        val first = readOctet(encoded)
+        return when {
+            first < 192 -> Pair(first.toLong(), false)
+            first < 224 -> Pair((((first - 192) shl 8) + readOctet(encoded) + 192).toLong(), false)
+            first == 255 -> Pair(readUInt32(encoded), false)
+            else -> Pair(1L shl (first and 0x1F), true)
+        }
+    }
+
+    private fun drain(): Long {
+        var total = 0L
+        val buf = ByteArray(8192)
+        var r: Int
+        while (input.read(buf).also { r = it } >= 0) {
+            total += r
+        }
+        return total
+    }
+
+    private fun skipFully(n: Long) {
+        var remaining = n
+        while (remaining > 0) {
+            val skipped = input.skip(remaining)
+            if (skipped <= 0) {
+                if (input.read() < 0) {
+                    throw SOPGPException.BadData("Truncated OpenPGP packet.", EOFException())
+                }
+                remaining--
+            } else {
+                remaining -= skipped
+            }
+        }
+    }
+
+    private fun readOctet(encoded: ByteArrayOutputStream?): Int {
+        val octet = input.read()
+        if (octet < 0) {
+            throw SOPGPException.BadData("Truncated OpenPGP packet header.", EOFException())
+        }
+        encoded?.write(octet)
+        return octet
+    }
+
+    private fun readUInt32(encoded: ByteArrayOutputStream?): Long {
+        var value = 0L
+        repeat(4) { value = (value shl 8) or readOctet(encoded).toLong() }
+        return value
+    }
+
+    companion object {
+        /** Default upper bound for bodies read via [readBody]. */
+        const val DEFAULT_MAX_BODY_LENGTH = 1024 * 1024
+    }
+}
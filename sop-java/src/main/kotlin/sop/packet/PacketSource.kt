@@ -0,0 +1,40 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.packet
+
+import java.io.BufferedInputStream
+import java.io.InputStream
+
+/**
+ * OpenPGP data, which was either passed in binary or in ASCII armored form.
+ *
+ * @param armorType armor type if the input was armored, `null` otherwise
+ * @param reader packet reader over the binary data
+ */
+internal class PacketSource private constructor(val armorType: String?, val reader: PacketReader) {
+
+    /** Whether the input was ASCII armored. */
+    val isArmored: Boolean
+        get() = armorType != null
+
+    companion object {
+
+        /**
+         * Open the given input, dearmoring it if necessary.
+         *
+         * @param input binary or armored OpenPGP data
+         * @return packet source
+         */
+        @JvmStatic
+        fun open(input: InputStream): PacketSource {
+            val buffered = BufferedInputStream(input)
+            if (ArmorDecoder.isArmored(buffered)) {
+                val decoder = ArmorDecoder(buffered)
+                return PacketSource(decoder.type, PacketReader(decoder))
+            }
+            return PacketSource(null, PacketReader(buffered))
+        }
+    }
+}
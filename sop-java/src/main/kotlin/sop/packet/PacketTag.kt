@@ -0,0 +1,54 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.packet
+
+/** OpenPGP packet type IDs, see RFC 9580 section 5. */
+internal object PacketTag {
+    const val PKESK = 1
+    const val SIGNATURE = 2
+    const val SKESK = 3
+    const val ONE_PASS_SIGNATURE = 4
+    const val SECRET_KEY = 5
+    const val PUBLIC_KEY = 6
+    const val SECRET_SUBKEY = 7
+    const val COMPRESSED_DATA = 8
+    const val SYMMETRICALLY_ENCRYPTED_DATA = 9
+    const val MARKER = 10
+    const val LITERAL_DATA = 11
+    const val TRUST = 12
+    const val USER_ID = 13
+    const val PUBLIC_SUBKEY = 14
+    const val USER_ATTRIBUTE = 17
+    const val SEIPD = 18
+    const val PADDING = 21
+
+    /**
+     * Return a human-readable name of the packet type with the given ID.
+     *
+     * @param tag packet type ID
+     * @return name
+     */
+    fun name(tag: Int): String =
+        when (tag) {
+            PKESK -> "PKESK"
+            SIGNATURE -> "SIG"
+            SKESK -> "SKESK"
+            ONE_PASS_SIGNATURE -> "OPS"
+            SECRET_KEY -> "SECKEY"
+            PUBLIC_KEY -> "PUBKEY"
+            SECRET_SUBKEY -> "SECSUBKEY"
+            COMPRESSED_DATA -> "COMP"
+            SYMMETRICALLY_ENCRYPTED_DATA -> "SED"
+            MARKER -> "MARKER"
+            LITERAL_DATA -> "LIT"
+            TRUST -> "TRUST"
+            USER_ID -> "UID"
+            PUBLIC_SUBKEY -> "PUBSUBKEY"
+            USER_ATTRIBUTE -> "UATTR"
+            SEIPD -> "SEIPD"
+            PADDING -> "PADDING"
+            else -> "UNKNOWN($tag)"
+        }
+}
@@ -0,0 +1,40 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.packet
+
+import java.io.ByteArrayOutputStream
+import java.io.FilterInputStream
+import java.io.InputStream
+import java.io.SequenceInputStream
+
+/**
+ * [InputStream] which records all bytes read from the underlying stream, so that they can be
+ * replayed after the leading packets of a message were inspected.
+ *
+ * @param inputStream underlying stream
+ */
+internal class RecordingInputStream(inputStream: InputStream) : FilterInputStream(inputStream) {
+
+    private val recorded = ByteArrayOutputStream()
+
+    override fun read(): Int = super.read().also { if (it >= 0) recorded.write(it) }
+
+    override fun read(b: ByteArray, off: Int, len: Int): Int =
+        super.read(b, off, len).also { if (it > 0) recorded.write(b, off, it) }
+
+    override fun skip(n: Long): Long {
+        val buf = ByteArray(minOf(n, 8192L).toInt())
+        val r = read(buf, 0, buf.size)
+        return if (r < 0) 0 else r.toLong()
+    }
+
+    override fun markSupported(): Boolean = false
+
+    /**
+     * Return a stream which yields all recorded bytes followed by the remaining bytes of the
+     * underlying stream. This stream must not be read from afterwards.
+     */
+    fun replay(): InputStream = SequenceInputStream(recorded.toByteArray().inputStream(), `in`)
+}
@@ -0,0 +1,116 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.packet
+
+import java.io.BufferedInputStream
+import java.io.IOException
+import java.io.InputStream
+import java.util.zip.Inflater
+import java.util.zip.InflaterInputStream
+import sop.InspectionResult.Issuer
+import sop.exception.SOPGPException
+
+/** Extraction of the issuers of detached signatures and inline-signed messages. */
+internal object SignatureIssuers {
+
+    private const val COMPRESSION_UNCOMPRESSED = 0
+    private const val COMPRESSION_ZIP = 1
+    private const val COMPRESSION_ZLIB = 2
+
+    /**
+     * Determine the issuers of detached signatures.
+     *
+     * @param signatures binary or armored signatures
+     * @return issuers, or `null` if at least one signature does not name its issuer
+     * @throws SOPGPException.BadData if the input is not a sequence of signature packets
+     */
+    fun ofSignatures(signatures: InputStream): List<Issuer>? {
+        val reader = PacketSource.open(signatures).reader
+        val issuers = mutableListOf<Issuer>()
+        while (true) {
+            val header = reader.nextHeader() ?: break
+            when (header.tag) {
+                PacketTag.SIGNATURE ->
+                    issuers.addAll(
+                        PacketParser.parseSignatureIssuers(reader.readBody(header)).ifEmpty {
+                            return null
+                        })
+                PacketTag.MARKER,
+                PacketTag.PADDING -> reader.skipBody(header)
+                else ->
+                    throw SOPGPException.BadData(
+                        "Unexpected ${PacketTag.name(header.tag)} packet in signatures.")
+            }
+        }
+        return issuers.distinct()
+    }
+
+    /**
+     * Determine the issuers of an inline-signed message by looking at its leading one-pass-
+     * signature or signature packets. Compressed messages are decompressed just far enough to find
+     * these packets. Only as much of the input is consumed as is needed.
+     *
+     * @param message binary or armored inline-signed message
+     * @return issuers, or `null` if they cannot be determined without reading the whole message,
+     *   e.g. for cleartext signed messages
+     */
+    fun ofInlineSigned(message: InputStream): List<Issuer>? {
+        val buffered = BufferedInputStream(message)
+        if (ArmorDecoder.peekType(buffered) == ArmorDecoder.CLEARTEXT_SIGNED_MESSAGE) {
+            return null
+        }
+        return try {
+            ofInlineSigned(PacketSource.open(buffered).reader, true)
+        } catch (e: SOPGPException.BadData) {
+            null
+        } catch (e: IOException) {
+            null
+        }
+    }
+
+    private fun ofInlineSigned(reader: PacketReader, descend: Boolean): List<Issuer>? {
+        val issuers = mutableListOf<Issuer>()
+        while (true) {
+            val header = reader.nextHeader() ?: break
+            when (header.tag) {
+                PacketTag.ONE_PASS_SIGNATURE ->
+                    issuers.add(
+                        PacketParser.parseOnePassSignatureIssuer(reader.readBody(header))
+                            ?: return null)
+                PacketTag.SIGNATURE ->
+                    issuers.addAll(
+                        PacketParser.parseSignatureIssuers(reader.readBody(header)).ifEmpty {
+                            return null
+                        })
+                PacketTag.MARKER,
+                PacketTag.PADDING -> reader.skipBody(header)
+                PacketTag.COMPRESSED_DATA -> {
+                    if (issuers.isNotEmpty() || !descend) {
+                        break
+                    }
+                    return ofCompressed(reader.bodyStream(header))
+                }
+                else -> break
+            }
+        }
+        return issuers.distinct().ifEmpty { null }
+    }
+
+    private fun ofCompressed(body: InputStream): List<Issuer>? {
+        val inflater =
+            when (body.read()) {
+                COMPRESSION_UNCOMPRESSED -> null
+                COMPRESSION_ZIP -> Inflater(true)
+                COMPRESSION_ZLIB -> Inflater()
+                else -> return null
+            }
+        try {
+            val decompressed = inflater?.let { InflaterInputStream(body, it) } ?: body
+            return ofInlineSigned(PacketReader(decompressed), false)
+        } finally {
+            inflater?.end()
+        }
+    }
+}
@@ -0,0 +1,209 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.packet
+
+import java.io.ByteArrayOutputStream
+import java.io.InputStream
+import java.security.MessageDigest
+import sop.exception.SOPGPException
+import sop.util.HexUtil
+
+/**
+ * A single OpenPGP key or certificate (RFC 9580 section 10.1 and 10.2), split off from a keyring.
+ *
+ * @param encoded binary encoding of all packets of the key or certificate
+ * @param components fingerprints, key IDs and algorithms of the primary key and all subkeys
+ */
+internal class TransferableKey(val encoded: ByteArray, val components: List<Component>) {
+
+    /** Fingerprint of the primary key, or `null` if it could not be computed. */
+    val fingerprint: String?
+        get() = components.firstOrNull()?.fingerprint
+
+    /**
+     * Whether the primary key or a subkey has the given key ID.
+     *
+     * @param keyId key ID in uppercase hex
+     */
+    fun hasKeyId(keyId: String): Boolean = components.any { it.keyId == keyId }
+
+    /**
+     * Whether the primary key or a subkey has the given fingerprint.
+     *
+     * @param fingerprint fingerprint in uppercase hex
+     */
+    fun hasFingerprint(fingerprint: String): Boolean =
+        components.any { it.fingerprint == fingerprint }
+
+    /**
+     * Primary key or subkey.
+     *
+     * @param version key version
+     * @param algorithm public key algorithm ID
+     * @param fingerprint fingerprint in uppercase hex, `null` for unsupported key versions or
+     *   algorithms
+     * @param keyId key ID in uppercase hex, `null` if the fingerprint is unknown
+     */
+    class Component(
+        val version: Int,
+        val algorithm: Int,
+        val fingerprint: String?,
+        val keyId: String?
+    )
+
+    companion object {
+
+        private const val MAX_PACKET_LENGTH = 16 * 1024 * 1024
+
+        /**
+         * Split a keyring into its individual keys or certificates.
+         *
+         * @param input binary or armored keyring
+         * @return keys or certificates in input order
+         * @throws SOPGPException.BadData if the input is malformed or does not start with a primary
+         *   key packet
+         */
+        @JvmStatic
+        fun split(input: InputStream): List<TransferableKey> {
+            val reader = PacketSource.open(input).reader
+            val keys = mutableListOf<TransferableKey>()
+            var encoded: ByteArrayOutputStream? = null
+            var components = mutableListOf<Component>()
+            while (true) {
+                val header = reader.nextHeader() ?: break
+                val body = reader.readBody(header, MAX_PACKET_LENGTH)
+                when (header.tag) {
+                    PacketTag.PUBLIC_KEY,
+                    PacketTag.SECRET_KEY -> {
+                        encoded?.let { keys.add(TransferableKey(it.toByteArray(), components)) }
+                        encoded = ByteArrayOutputStream()
+                        components = mutableListOf()
+                        components.add(component(body, header.tag == PacketTag.SECRET_KEY))
+                    }
+                    PacketTag.PUBLIC_SUBKEY,
+                    PacketTag.SECRET_SUBKEY ->
+                        components.add(component(body, header.tag == PacketTag.SECRET_SUBKEY))
+                }
+                val current =
+                    encoded
+                        ?: throw SOPGPException.BadData(
+                            "Keyring does not start with a primary key packet.")
+                current.write(header.encoded)
+                current.write(body)
+            }
+            encoded?.let { keys.add(TransferableKey(it.toByteArray(), components)) }
+            return keys
+        }
+
+        private fun component(body: ByteArray, secret: Boolean): Component {
+            val version = body.firstOrNull()?.toInt() ?: 0
+            val algorithm = if (body.size > 5) body[5].toInt() and 0xFF else 0
+            val publicLength = if (secret) publicKeyLength(body) else body.size
+            if (publicLength == null || publicLength > body.size) {
+                return Component(version, algorithm, null, null)
+            }
+            val fingerprint = fingerprint(version, body, publicLength)
+            return Component(
+                version,
+                algorithm,
+                fingerprint?.let { HexUtil.bytesToHex(it) },
+                fingerprint?.let { PacketParser.keyId(version, it) })
+        }
+
+        /**
+         * Compute the fingerprint of a key packet (RFC 9580 section 5.5.4).
+         *
+         * @param version key version
+         * @param body key packet body
+         * @param length length of the public key part of the body
+         */
+        private fun fingerprint(version: Int, body: ByteArray, length: Int): ByteArray? {
+            val (algorithm, prefix) =
+                when (version) {
+                    4 ->
+                        "SHA-1" to
+                            byteArrayOf(0x99.toByte(), (length shr 8).toByte(), length.toByte())
+                    5,
+                    6 ->
+                        "SHA-256" to
+                            byteArrayOf(
+                                (if (version == 6) 0x9B else 0x9A).toByte(),
+                                (length shr 24).toByte(),
+                                (length shr 16).toByte(),
+                                (length shr 8).toByte(),
+                                length.toByte())
+                    else -> return null
+                }
+            return MessageDigest.getInstance(algorithm).run {
+                update(prefix)
+                update(body, 0, length)
+                digest()
+            }
+        }
+
+        /**
+         * Determine the length of the public key part of a secret key packet body, or `null` if it
+         * cannot be determined.
+         */
+        private fun publicKeyLength(body: ByteArray): Int? {
+            val reader = PacketParser.BodyReader(body, "secret key packet")
+            return try {
+                when (reader.octet()) {
+                    4 -> {
+                        reader.octets(4)
+                        val algorithm = reader.octet()
+                        if (!skipV4PublicKeyMaterial(reader, algorithm)) {
+                            return null
+                        }
+                        reader.position
+                    }
+                    5,
+                    6 -> {
+                        reader.octets(5)
+                        reader.octets(reader.uint32())
+                        reader.position
+                    }
+                    else -> null
+                }
+            } catch (e: SOPGPException.BadData) {
+                null
+            }
+        }
+
+        private fun skipV4PublicKeyMaterial(
+            reader: PacketParser.BodyReader,
+            algorithm: Int
+        ): Boolean {
+            when (algorithm) {
+                1,
+                2,
+                3 -> repeat(2) { skipMpi(reader) }
+                16,
+                20 -> repeat(3) { skipMpi(reader) }
+                17 -> repeat(4) { skipMpi(reader) }
+                18 -> {
+                    reader.octets(reader.octet()) // curve OID
+                    skipMpi(reader)
+                    reader.octets(reader.octet()) // KDF parameters
+                }
+                19,
+                22 -> {
+                    reader.octets(reader.octet())
+                    skipMpi(reader)
+                }
+                25 -> reader.octets(32)
+                26 -> reader.octets(56)
+                27 -> reader.octets(32)
+                28 -> reader.octets(57)
+                else -> return false
+            }
+            return true
+        }
+
+        private fun skipMpi(reader: PacketParser.BodyReader) {
+            reader.octets((reader.uint16() + 7) / 8)
+        }
+    }
+}
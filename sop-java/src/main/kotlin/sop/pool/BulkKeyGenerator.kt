@@ -0,0 +1,174 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.pool
+
+import java.io.IOException
+import java.io.OutputStream
+import java.io.PipedInputStream
+import java.io.PipedOutputStream
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import sop.Ready
+import sop.SOP
+
+/**
+ * Generates many keys from the same [KeyTemplate] concurrently. Since every key is generated by an
+ * independent [sop.operation.GenerateKey] operation, throughput scales with the number of cores, as
+ * long as the backend is thread-safe.
+ *
+ * @param sop SOP implementation
+ * @param parallelism number of keys generated concurrently
+ */
+class BulkKeyGenerator
+@JvmOverloads
+constructor(
+    private val sop: SOP,
+    val parallelism: Int = Runtime.getRuntime().availableProcessors()
+) {
+
+    init {
+        require(parallelism > 0) { "parallelism MUST be positive." }
+    }
+
+    /** Receives generated keys. */
+    fun interface KeyConsumer {
+
+        /**
+         * Called for every generated key, in the order of completion. All invocations happen on the
+         * thread that called [generate].
+         *
+         * @param index index of the key, starting at 0
+         * @param key generated key
+         * @throws IOException in case of an IO error
+         */
+        @Throws(IOException::class) fun accept(index: Int, key: ByteArray)
+    }
+
+    /**
+     * Generate [count] keys from the given [template] and pass each key to the [consumer] as soon
+     * as it is ready. If generation of a key fails, no further keys are generated and the exception
+     * is rethrown.
+     *
+     * @param template key template
+     * @param count number of keys
+     * @param password password to protect each key with, or null
+     * @param armor whether to ASCII armor each key
+     * @param consumer consumer of the generated keys
+     * @throws IOException in case of an IO error
+     */
+    @Throws(IOException::class)
+    fun generate(
+        template: KeyTemplate,
+        count: Int,
+        password: String?,
+        armor: Boolean,
+        consumer: KeyConsumer
+    ) {
+        require(count >= 0) { "count MUST NOT be negative." }
+        val threads = AtomicInteger()
+        val executor =
+            Executors.newFixedThreadPool(minOf(parallelism, maxOf(1, count))) { runnable ->
+                Thread(runnable, "sop-bulk-keygen-${threads.incrementAndGet()}").apply {
+                    isDaemon = true
+                }
+            }
+        try {
+            val completion = ExecutorCompletionService<Pair<Int, ByteArray>>(executor)
+            var submitted = 0
+            // Keep a bounded number of keys in flight, so that memory use does not grow with count
+            while (submitted < minOf(count, 2 * parallelism)) {
+                submit(completion, submitted++, template, password, armor)
+            }
+            repeat(count) {
+                val (index, key) = unwrap { completion.take().get() }
+                if (submitted < count) {
+                    submit(completion, submitted++, template, password, armor)
+                }
+                consumer.accept(index, key)
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    /**
+     * Generate [count] keys from the given [template] and return them as a single keyring. The
+     * keyring is streamed while keys are generated. Armored keyrings are produced by armoring the
+     * concatenation of binary keys using [SOP.armor].
+     *
+     * @param template key template
+     * @param count number of keys
+     * @param password password to protect each key with, or null
+     * @param armor whether to ASCII armor the keyring
+     * @return ready to write the keyring
+     */
+    fun keyring(template: KeyTemplate, count: Int, password: String?, armor: Boolean): Ready =
+        object : Ready() {
+            override fun writeTo(outputStream: OutputStream) {
+                if (!armor) {
+                    generate(template, count, password, false) { _, key -> outputStream.write(key) }
+                    return
+                }
+
+                val pipeIn = PipedInputStream(PIPE_SIZE)
+                val pipeOut = PipedOutputStream(pipeIn)
+                var failure: Throwable? = null
+                val producer = Thread {
+                    try {
+                        pipeOut.use { out ->
+                            generate(template, count, password, false) { _, key -> out.write(key) }
+                        }
+                    } catch (e: Throwable) {
+                        failure = e
+                    }
+                }
+                producer.isDaemon = true
+                producer.start()
+                try {
+                    sop.armor().data(pipeIn).writeTo(outputStream)
+                } finally {
+                    pipeIn.close()
+                    producer.join()
+                }
+                failure?.let { throw it }
+            }
+        }
+
+    private fun submit(
+        completion: ExecutorCompletionService<Pair<Int, ByteArray>>,
+        index: Int,
+        template: KeyTemplate,
+        password: String?,
+        armor: Boolean
+    ) {
+        completion.submit {
+            val key =
+                sop.generateKey()
+                    .apply {
+                        if (!armor) noArmor()
+                        template.profile?.let { profile(it) }
+                        if (template.signingOnly) signingOnly()
+                        template.userIds.forEach { userId(it) }
+                        password?.let { withKeyPassword(it) }
+                    }
+                    .generate()
+                    .bytes
+            index to key
+        }
+    }
+
+    private inline fun <T> unwrap(block: () -> T): T =
+        try {
+            block()
+        } catch (e: ExecutionException) {
+            throw e.cause ?: e
+        }
+
+    private companion object {
+        const val PIPE_SIZE = 64 * 1024
+    }
+}
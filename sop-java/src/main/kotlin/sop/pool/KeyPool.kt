@@ -0,0 +1,200 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.pool
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.atomic.AtomicInteger
+import sop.SOP
+import sop.operation.GenerateKey
+
+/**
+ * Keeps a number of pre-generated keys per [KeyTemplate], so that key generation on latency
+ * sensitive paths (e.g. user signup) does not need to wait for the backend. Keys are generated on
+ * background threads without password protection and in binary form. When a key is handed out via
+ * [generateKey], it is protected with the requested password, armored if requested, and removed
+ * from the pool, which triggers generation of a replacement.
+ *
+ * Requests for templates that were not [registered][register], or for which the pool ran empty, are
+ * served by generating a key synchronously.
+ *
+ * Note, that pooled keys are kept unprotected in memory until they are handed out.
+ *
+ * @param sop SOP implementation used to generate and protect keys
+ * @param targetSize number of keys kept ready per template
+ * @param executor executor running the background key generation
+ */
+class KeyPool(private val sop: SOP, val targetSize: Int, private val executor: ExecutorService) :
+    AutoCloseable {
+
+    init {
+        require(targetSize > 0) { "targetSize MUST be positive." }
+    }
+
+    /**
+     * Create a [KeyPool] which generates keys using a dedicated pool of daemon threads. The threads
+     * are shut down when the pool is [closed][close].
+     *
+     * @param sop SOP implementation used to generate and protect keys
+     * @param targetSize number of keys kept ready per template
+     * @param threads number of background threads
+     */
+    @JvmOverloads
+    constructor(
+        sop: SOP,
+        targetSize: Int = 4,
+        threads: Int = maxOf(1, Runtime.getRuntime().availableProcessors() / 2)
+    ) : this(sop, targetSize, newDaemonExecutor(threads)) {
+        ownsExecutor = true
+    }
+
+    private var ownsExecutor = false
+    private val slots = ConcurrentHashMap<KeyTemplate, Slot>()
+    @Volatile private var closed = false
+
+    /**
+     * Start keeping pre-generated keys for the given template.
+     *
+     * @param template key template
+     * @return this
+     */
+    fun register(template: KeyTemplate): KeyPool = apply {
+        slots.computeIfAbsent(template) { Slot() }
+        refill(template)
+    }
+
+    /**
+     * Return the number of keys that are ready to be handed out for the given template.
+     *
+     * @param template key template
+     * @return number of pooled keys
+     */
+    fun available(template: KeyTemplate): Int = slots[template]?.keys?.size ?: 0
+
+    /**
+     * Return the last exception that occurred while generating keys for the given template in the
+     * background, if any.
+     *
+     * @param template key template
+     * @return exception or null
+     */
+    fun lastFailure(template: KeyTemplate): Throwable? = slots[template]?.lastFailure
+
+    /**
+     * Return a [GenerateKey] operation, which hands out pooled keys if available.
+     *
+     * @return generate-key operation
+     */
+    fun generateKey(): GenerateKey = PooledGenerateKey(sop, this)
+
+    /**
+     * Remove a pre-generated key for the given template from the pool and trigger a refill.
+     *
+     * @param template key template
+     * @return unprotected binary key, or null if no key is available
+     */
+    internal fun take(template: KeyTemplate): ByteArray? {
+        val slot = slots[template] ?: return null
+        val key = slot.keys.poll()
+        refill(template)
+        return key
+    }
+
+    private fun refill(template: KeyTemplate) {
+        val slot = slots[template] ?: return
+        while (!closed) {
+            // Reserve a slot before scheduling, so that concurrent refills do not overshoot
+            val pending = slot.pending.get()
+            if (slot.keys.size + pending >= targetSize) {
+                return
+            }
+            if (!slot.pending.compareAndSet(pending, pending + 1)) {
+                continue
+            }
+            try {
+                executor.execute { generateInto(template, slot) }
+            } catch (e: RejectedExecutionException) {
+                slot.pending.decrementAndGet()
+                return
+            }
+        }
+    }
+
+    private fun generateInto(template: KeyTemplate, slot: Slot) {
+        try {
+            if (closed) {
+                return
+            }
+            val key = generate(template)
+            slot.lastFailure = null
+            if (closed) {
+                key.fill(0)
+                return
+            }
+            slot.keys.add(key)
+            // close() may have drained the slot between the check and adding the key
+            if (closed) {
+                discardKeys(slot)
+                return
+            }
+        } catch (e: Exception) {
+            // Do not retry immediately, the next hand-out will trigger another attempt
+            slot.lastFailure = e
+            return
+        } finally {
+            slot.pending.decrementAndGet()
+        }
+        // A hand-out between adding the key and releasing the reservation counted the key twice
+        refill(template)
+    }
+
+    private fun generate(template: KeyTemplate): ByteArray =
+        sop.generateKey()
+            .noArmor()
+            .apply {
+                template.profile?.let { profile(it) }
+                if (template.signingOnly) signingOnly()
+                template.userIds.forEach { userId(it) }
+            }
+            .generate()
+            .bytes
+
+    /**
+     * Stop generating keys and discard all pooled keys. If the pool created its own threads, they
+     * are shut down.
+     */
+    override fun close() {
+        closed = true
+        if (ownsExecutor) {
+            executor.shutdownNow()
+        }
+        slots.values.forEach { discardKeys(it) }
+    }
+
+    private fun discardKeys(slot: Slot) {
+        generateSequence { slot.keys.poll() }.forEach { it.fill(0) }
+    }
+
+    private class Slot {
+        val keys = ConcurrentLinkedQueue<ByteArray>()
+        val pending = AtomicInteger()
+        @Volatile var lastFailure: Throwable? = null
+    }
+
+    private companion object {
+        fun newDaemonExecutor(threads: Int): ExecutorService {
+            val counter = AtomicInteger()
+            return Executors.newFixedThreadPool(threads) { runnable ->
+                Thread(runnable, "sop-key-pool-${counter.incrementAndGet()}").apply {
+                    isDaemon = true
+                    priority = Thread.MIN_PRIORITY
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.pool
+
+/**
+ * Parameters of keys that are pre-generated by a [KeyPool]. SOP cannot add user IDs to an existing
+ * key, so user IDs are part of the template and need to be known in advance.
+ *
+ * @param profile name of the key generation profile, or `null` for the backend's default profile
+ * @param signingOnly whether keys are generated without encryption capability
+ * @param userIds user IDs bound to the keys
+ */
+data class KeyTemplate
+@JvmOverloads
+constructor(
+    val profile: String? = null,
+    val signingOnly: Boolean = false,
+    val userIds: List<String> = listOf()
+)
@@ -0,0 +1,74 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.pool
+
+import java.io.OutputStream
+import sop.Ready
+import sop.SOP
+import sop.operation.GenerateKey
+
+/**
+ * [GenerateKey] implementation which hands out keys from a [KeyPool]. If the pool has no key for
+ * the requested template, the key is generated synchronously by the backend.
+ *
+ * @param sop SOP implementation
+ * @param pool key pool
+ */
+class PooledGenerateKey(private val sop: SOP, private val pool: KeyPool) : GenerateKey {
+
+    private var armor = true
+    private var password: String? = null
+    private var profile: String? = null
+    private var signingOnly = false
+    private val userIds = mutableListOf<String>()
+
+    override fun noArmor(): GenerateKey = apply { armor = false }
+
+    override fun userId(userId: String): GenerateKey = apply { userIds.add(userId) }
+
+    override fun withKeyPassword(password: String): GenerateKey = apply { this.password = password }
+
+    override fun profile(profile: String): GenerateKey = apply { this.profile = profile }
+
+    override fun signingOnly(): GenerateKey = apply { signingOnly = true }
+
+    override fun generate(): Ready {
+        val key =
+            pool.take(KeyTemplate(profile, signingOnly, userIds.toList()))
+                ?: return generateDirectly()
+        try {
+            val sealed: Ready? =
+                when {
+                    password != null ->
+                        sop.changeKeyPassword()
+                            .apply { if (!armor) noArmor() }
+                            .newKeyPassphrase(password!!)
+                            .keys(key)
+                    armor -> sop.armor().data(key)
+                    else -> null
+                }
+            // Buffer the result, so that the unprotected key can be wiped right away
+            val bytes = sealed?.bytes ?: key.copyOf()
+            return object : Ready() {
+                override fun writeTo(outputStream: OutputStream) {
+                    outputStream.write(bytes)
+                }
+            }
+        } finally {
+            key.fill(0)
+        }
+    }
+
+    private fun generateDirectly(): Ready =
+        sop.generateKey()
+            .apply {
+                if (!armor) noArmor()
+                profile?.let { profile(it) }
+                if (signingOnly) signingOnly()
+                userIds.forEach { userId(it) }
+                password?.let { withKeyPassword(it) }
+            }
+            .generate()
+}
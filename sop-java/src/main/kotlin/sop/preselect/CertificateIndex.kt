@@ -0,0 +1,113 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.preselect
+
+import java.io.IOException
+import java.io.InputStream
+import sop.InspectionResult.Issuer
+import sop.exception.SOPGPException
+import sop.packet.TransferableKey
+
+/**
+ * Thread-safe in-memory index of OpenPGP certificates by the key IDs and fingerprints of their
+ * primary keys and subkeys. An index can be built once from a large trust store and then be shared
+ * by many verification operations, see [PreselectingSOPV].
+ *
+ * Adding a certificate whose primary key fingerprint is already indexed replaces the previous
+ * version of the certificate.
+ */
+class CertificateIndex {
+
+    private val byFingerprint = LinkedHashMap<String, TransferableKey>()
+    private val byKeyId = HashMap<String, MutableList<TransferableKey>>()
+    private val unindexed = mutableListOf<TransferableKey>()
+
+    /** Number of indexed certificates. */
+    val size: Int
+        get() = synchronized(this) { byFingerprint.size + unindexed.size }
+
+    /**
+     * Add certificates to the index.
+     *
+     * @param certs binary or armored certificate(s)
+     * @return this index
+     * @throws SOPGPException.BadData if the input is not a sequence of OpenPGP certificates
+     * @throws IOException in case of an IO error
+     */
+    @Throws(SOPGPException.BadData::class, IOException::class)
+    fun add(certs: InputStream): CertificateIndex = apply {
+        TransferableKey.split(certs).forEach { put(it) }
+    }
+
+    /**
+     * Add certificates to the index.
+     *
+     * @param certs binary or armored certificate(s)
+     * @return this index
+     * @throws SOPGPException.BadData if the input is not a sequence of OpenPGP certificates
+     */
+    @Throws(SOPGPException.BadData::class)
+    fun add(certs: ByteArray): CertificateIndex = add(certs.inputStream())
+
+    /**
+     * Remove the certificate with the given primary key fingerprint.
+     *
+     * @param fingerprint fingerprint in hex
+     * @return true if a certificate was removed
+     */
+    fun remove(fingerprint: String): Boolean =
+        synchronized(this) {
+            byFingerprint.remove(fingerprint.uppercase())?.also { unlink(it) } != null
+        }
+
+    /**
+     * Return the certificates which may have issued signatures by one of the given issuers.
+     * Certificates whose fingerprints could not be computed are always returned.
+     */
+    internal fun candidates(issuers: Collection<Issuer>): List<TransferableKey> =
+        synchronized(this) {
+            val result = LinkedHashSet<TransferableKey>()
+            for (issuer in issuers) {
+                val keyId = issuer.keyId ?: continue
+                byKeyId[keyId]
+                    ?.filter { cert -> issuer.fingerprint?.let { cert.hasFingerprint(it) } ?: true }
+                    ?.let { result.addAll(it) }
+            }
+            result.addAll(unindexed)
+            result.toList()
+        }
+
+    /** Return all certificates. */
+    internal fun certificates(): List<TransferableKey> =
+        synchronized(this) { byFingerprint.values.toList() + unindexed }
+
+    internal fun put(cert: TransferableKey) =
+        synchronized(this) {
+            val fingerprint = cert.fingerprint
+            if (fingerprint == null) {
+                unindexed.add(cert)
+                return
+            }
+            byFingerprint.put(fingerprint, cert)?.let { unlink(it) }
+            cert.components
+                .mapNotNull { it.keyId }
+                .distinct()
+                .forEach { byKeyId.getOrPut(it) { mutableListOf() }.add(cert) }
+        }
+
+    private fun unlink(cert: TransferableKey) {
+        cert.components
+            .mapNotNull { it.keyId }
+            .distinct()
+            .forEach { keyId ->
+                byKeyId[keyId]?.let {
+                    it.remove(cert)
+                    if (it.isEmpty()) {
+                        byKeyId.remove(keyId)
+                    }
+                }
+            }
+    }
+}
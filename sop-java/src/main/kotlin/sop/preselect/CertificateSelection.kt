@@ -0,0 +1,65 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.preselect
+
+import sop.InspectionResult.Issuer
+import sop.exception.SOPGPException
+import sop.packet.TransferableKey
+
+/**
+ * Certificates supplied to a single verification operation, plus an optional shared trust store.
+ * Certificates that cannot be parsed are handed to the backend right away.
+ */
+internal class CertificateSelection(
+    private val trustStore: CertificateIndex?,
+    private val forward: (ByteArray) -> Unit
+) {
+
+    private val certs = CertificateIndex()
+    // The index keeps only the last copy of a certificate, the backend gets to see all of them
+    private val supplied = mutableListOf<TransferableKey>()
+    private var forwardedUnparsed = false
+
+    fun add(cert: ByteArray) {
+        val parsed =
+            try {
+                TransferableKey.split(cert.inputStream())
+            } catch (e: SOPGPException.BadData) {
+                forward(cert)
+                forwardedUnparsed = true
+                return
+            }
+        parsed.forEach { certs.put(it) }
+        supplied.addAll(parsed)
+    }
+
+    /**
+     * Forward the certificates that may have issued signatures by the given issuers. If the issuers
+     * are unknown, all certificates are forwarded. Every supplied copy of a selected certificate is
+     * forwarded, so that the backend can merge them.
+     *
+     * @param issuers issuers or `null` if unknown
+     * @throws SOPGPException.NoSignature if no certificate can have issued any of the signatures
+     */
+    fun forwardCandidates(issuers: List<Issuer>?) {
+        if (trustStore == null && certs.size == 0) {
+            // Let the backend complain about missing certificates
+            return
+        }
+        val selected =
+            if (issuers == null) {
+                supplied + (trustStore?.certificates() ?: listOf())
+            } else {
+                val candidates = certs.candidates(issuers).toSet()
+                val fingerprints = candidates.mapNotNull { it.fingerprint }.toSet()
+                supplied.filter { it in candidates || it.fingerprint in fingerprints } +
+                    (trustStore?.candidates(issuers) ?: listOf())
+            }
+        if (selected.isEmpty() && !forwardedUnparsed) {
+            throw SOPGPException.NoSignature()
+        }
+        selected.forEach { forward(it.encoded) }
+    }
+}
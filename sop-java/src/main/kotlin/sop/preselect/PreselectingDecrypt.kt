@@ -0,0 +1,153 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.preselect
+
+import java.io.InputStream
+import java.util.*
+import sop.DecryptionResult
+import sop.InspectionResult.Recipient
+import sop.ReadyWithResult
+import sop.SessionKey
+import sop.exception.SOPGPException
+import sop.operation.Decrypt
+import sop.packet.EncryptedMessageHeader
+import sop.packet.PacketParser
+import sop.packet.PacketSource
+import sop.packet.PacketTag
+import sop.packet.RecordingInputStream
+import sop.packet.TransferableKey
+
+/**
+ * [Decrypt] implementation which only hands those keys to the [delegate] that the message is
+ * actually encrypted for. Keyrings passed to [withKey] are split into individual keys, and once the
+ * ciphertext is known, the key IDs and fingerprints named by its PKESK packets are matched against
+ * the primary keys and subkeys. This way, the cost of the delegate no longer grows with the size of
+ * the keyring.
+ *
+ * Hidden recipients (wildcard key ID or anonymous v6 PKESK) cannot be matched directly. For those,
+ * all remaining keys that have a (sub-)key of the public key algorithm of the PKESK are passed on
+ * after the directly matching keys, in the order in which they were supplied. Keys that cannot be
+ * parsed are always passed on.
+ *
+ * @param delegate actual decryption operation
+ */
+class PreselectingDecrypt(private val delegate: Decrypt) : Decrypt {
+
+    private val keys = mutableListOf<TransferableKey>()
+    private var hasOtherCredentials = false
+
+    override fun verifyNotBefore(timestamp: Date): Decrypt = apply {
+        delegate.verifyNotBefore(timestamp)
+    }
+
+    override fun verifyNotAfter(timestamp: Date): Decrypt = apply {
+        delegate.verifyNotAfter(timestamp)
+    }
+
+    override fun verifyWithCert(cert: InputStream): Decrypt = apply {
+        delegate.verifyWithCert(cert)
+    }
+
+    override fun withSessionKey(sessionKey: SessionKey): Decrypt = apply {
+        delegate.withSessionKey(sessionKey)
+        hasOtherCredentials = true
+    }
+
+    override fun withPassword(password: String): Decrypt = apply {
+        delegate.withPassword(password)
+        hasOtherCredentials = true
+    }
+
+    override fun withKey(key: InputStream): Decrypt = withKey(key.readBytes())
+
+    override fun withKey(key: ByteArray): Decrypt = apply {
+        val split =
+            try {
+                TransferableKey.split(key.inputStream())
+            } catch (e: SOPGPException.BadData) {
+                null
+            }
+        if (split == null) {
+            // Let the delegate deal with it
+            delegate.withKey(key)
+            hasOtherCredentials = true
+        } else {
+            keys.addAll(split)
+        }
+    }
+
+    override fun withKeyPassword(password: ByteArray): Decrypt = apply {
+        delegate.withKeyPassword(password)
+    }
+
+    override fun ciphertext(ciphertext: InputStream): ReadyWithResult<DecryptionResult> {
+        val recording = RecordingInputStream(ciphertext)
+        val recipients =
+            try {
+                EncryptedMessageHeader.read(PacketSource.open(recording).reader)
+                    .packets
+                    .filter { it.tag == PacketTag.PKESK }
+                    .map { PacketParser.parsePkesk(it.body) }
+            } catch (e: SOPGPException.BadData) {
+                // Let the delegate report the error
+                null
+            }
+        val message = recording.replay()
+
+        val selected = if (recipients.isNullOrEmpty()) keys else select(keys, recipients)
+        if (selected.isEmpty() && keys.isNotEmpty() && !hasOtherCredentials) {
+            throw SOPGPException.CannotDecrypt(
+                "None of the ${keys.size} supplied keys is a recipient of the message.")
+        }
+        selected.forEach { delegate.withKey(it.encoded) }
+        return delegate.ciphertext(message)
+    }
+
+    companion object {
+
+        /**
+         * Select the keys that can decrypt one of the given PKESK packets, in trial order.
+         *
+         * @param keys available keys
+         * @param recipients recipients named by the PKESK packets of the message
+         * @return directly addressed keys, followed by candidates for hidden recipients
+         */
+        internal fun select(
+            keys: List<TransferableKey>,
+            recipients: List<Recipient>
+        ): List<TransferableKey> {
+            val (hidden, named) = recipients.partition { it.isWildcard }
+            val direct =
+                keys.filter { key ->
+                    key.components.any { it.fingerprint == null } ||
+                        named.any { recipient -> isRecipient(key, recipient) }
+                }
+            if (hidden.isEmpty()) {
+                return direct
+            }
+            val families = hidden.map { family(it.algorithm) }.toSet()
+            val candidates =
+                keys.filter { key ->
+                    key !in direct && key.components.any { family(it.algorithm) in families }
+                }
+            return direct + candidates
+        }
+
+        private fun isRecipient(key: TransferableKey, recipient: Recipient): Boolean =
+            recipient.fingerprint?.let { key.hasFingerprint(it) }
+                ?: recipient.keyId?.let { key.hasKeyId(it) } ?: false
+
+        /** Map public key algorithm IDs that share key material to a common ID. */
+        private fun family(algorithm: Int): Int =
+            when (algorithm) {
+                1,
+                2,
+                3 -> 1
+                16,
+                20 -> 16
+                else -> algorithm
+            }
+    }
+}
@@ -0,0 +1,65 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.preselect
+
+import java.io.InputStream
+import java.util.*
+import sop.InspectionResult.Issuer
+import sop.Verification
+import sop.exception.SOPGPException
+import sop.operation.DetachedVerify
+import sop.operation.VerifySignatures
+import sop.packet.SignatureIssuers
+
+/**
+ * [DetachedVerify] implementation which only hands those certificates to the [delegate] that may
+ * have issued one of the signatures. The issuer fingerprint and issuer key ID subpackets of the
+ * signatures are looked up in an index of the certificates passed to [cert] and, if given, in the
+ * shared [trustStore]. If a signature does not name its issuer, all certificates are passed on.
+ *
+ * @param delegate actual verification operation
+ * @param trustStore optional index of additional certificates
+ */
+class PreselectingDetachedVerify
+@JvmOverloads
+constructor(private val delegate: DetachedVerify, trustStore: CertificateIndex? = null) :
+    DetachedVerify {
+
+    private val certs = CertificateSelection(trustStore) { delegate.cert(it) }
+    private var issuers: List<Issuer>? = null
+
+    override fun notBefore(timestamp: Date): DetachedVerify = apply {
+        delegate.notBefore(timestamp)
+    }
+
+    override fun notAfter(timestamp: Date): DetachedVerify = apply { delegate.notAfter(timestamp) }
+
+    override fun cert(cert: InputStream): DetachedVerify = cert(cert.readBytes())
+
+    override fun cert(cert: ByteArray): DetachedVerify = apply { certs.add(cert) }
+
+    override fun signatures(signatures: InputStream): VerifySignatures =
+        signatures(signatures.readBytes())
+
+    override fun signatures(signatures: ByteArray): VerifySignatures = apply {
+        delegate.signatures(signatures)
+        issuers =
+            try {
+                SignatureIssuers.ofSignatures(signatures.inputStream())
+            } catch (e: SOPGPException.BadData) {
+                null
+            }
+    }
+
+    override fun data(data: InputStream): List<Verification> {
+        certs.forwardCandidates(issuers)
+        return delegate.data(data)
+    }
+
+    override fun data(data: ByteArray): List<Verification> {
+        certs.forwardCandidates(issuers)
+        return delegate.data(data)
+    }
+}
@@ -0,0 +1,47 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.preselect
+
+import java.io.InputStream
+import java.util.*
+import sop.ReadyWithResult
+import sop.Verification
+import sop.operation.InlineVerify
+import sop.packet.RecordingInputStream
+import sop.packet.SignatureIssuers
+
+/**
+ * [InlineVerify] implementation which only hands those certificates to the [delegate] that may have
+ * issued one of the signatures of the message. The issuers are taken from the leading
+ * one-pass-signature (or signature) packets of the message, decompressing it just far enough if
+ * needed, and are looked up in an index of the certificates passed to [cert] and, if given, in the
+ * shared [trustStore]. For cleartext signed messages and messages whose issuers cannot be
+ * determined, all certificates are passed on.
+ *
+ * @param delegate actual verification operation
+ * @param trustStore optional index of additional certificates
+ */
+class PreselectingInlineVerify
+@JvmOverloads
+constructor(private val delegate: InlineVerify, trustStore: CertificateIndex? = null) :
+    InlineVerify {
+
+    private val certs = CertificateSelection(trustStore) { delegate.cert(it) }
+
+    override fun notBefore(timestamp: Date): InlineVerify = apply { delegate.notBefore(timestamp) }
+
+    override fun notAfter(timestamp: Date): InlineVerify = apply { delegate.notAfter(timestamp) }
+
+    override fun cert(cert: InputStream): InlineVerify = cert(cert.readBytes())
+
+    override fun cert(cert: ByteArray): InlineVerify = apply { certs.add(cert) }
+
+    override fun data(data: InputStream): ReadyWithResult<List<Verification>> {
+        val recording = RecordingInputStream(data)
+        val issuers = SignatureIssuers.ofInlineSigned(recording)
+        certs.forwardCandidates(issuers)
+        return delegate.data(recording.replay())
+    }
+}
@@ -0,0 +1,37 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.preselect
+
+import sop.SOP
+import sop.operation.Decrypt
+import sop.operation.DetachedVerify
+import sop.operation.InlineVerify
+
+/**
+ * [SOP] implementation which narrows down the key material passed to the [delegate] to what is
+ * relevant for the message at hand. This is useful if callers routinely pass in large keyrings or
+ * trust stores, especially with backends whose cost grows with the amount of key material, such as
+ * `external-sop`. All other operations are passed through unchanged.
+ *
+ * @param delegate actual SOP implementation
+ * @param trustStore optional index of certificates that are considered by every verification
+ * @see PreselectingDecrypt
+ * @see PreselectingDetachedVerify
+ * @see PreselectingInlineVerify
+ */
+class PreselectingSOP
+@JvmOverloads
+constructor(private val delegate: SOP, val trustStore: CertificateIndex? = null) : SOP by delegate {
+
+    override fun decrypt(): Decrypt = PreselectingDecrypt(delegate.decrypt())
+
+    override fun verify(): DetachedVerify = detachedVerify()
+
+    override fun detachedVerify(): DetachedVerify =
+        PreselectingDetachedVerify(delegate.detachedVerify(), trustStore)
+
+    override fun inlineVerify(): InlineVerify =
+        PreselectingInlineVerify(delegate.inlineVerify(), trustStore)
+}
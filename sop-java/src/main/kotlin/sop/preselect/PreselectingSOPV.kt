@@ -0,0 +1,34 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.preselect
+
+import sop.SOPV
+import sop.operation.DetachedVerify
+import sop.operation.InlineVerify
+
+/**
+ * [SOPV] implementation which only passes those certificates on to the [delegate] that may have
+ * issued the signatures at hand. Certificates can either be passed to each operation as usual, or
+ * be indexed once in a shared [trustStore], in which case the cost of a verification no longer
+ * depends on the size of the trust store. All other operations are passed through unchanged.
+ *
+ * @param delegate actual SOPV implementation
+ * @param trustStore optional index of certificates that are considered by every verification
+ * @see PreselectingDetachedVerify
+ * @see PreselectingInlineVerify
+ */
+class PreselectingSOPV
+@JvmOverloads
+constructor(private val delegate: SOPV, val trustStore: CertificateIndex? = null) :
+    SOPV by delegate {
+
+    override fun verify(): DetachedVerify = detachedVerify()
+
+    override fun detachedVerify(): DetachedVerify =
+        PreselectingDetachedVerify(delegate.detachedVerify(), trustStore)
+
+    override fun inlineVerify(): InlineVerify =
+        PreselectingInlineVerify(delegate.inlineVerify(), trustStore)
+}
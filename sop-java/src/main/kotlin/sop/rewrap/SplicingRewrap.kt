@@ -0,0 +1,145 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.rewrap
+
+import java.io.InputStream
+import java.io.OutputStream
+import sop.Ready
+import sop.SessionKey
+import sop.exception.SOPGPException
+import sop.operation.Rewrap
+import sop.packet.ArmorEncoder
+import sop.packet.EncryptedMessageHeader
+import sop.packet.PacketSource
+import sop.packet.PacketTag
+
+/**
+ * Base class for [Rewrap] implementations. This class takes care of parsing the session key packets
+ * of the message and of splicing the new session key packets in front of the untouched encrypted
+ * data packet, so that the message payload is streamed through without being buffered.
+ * Implementations only need to recover the session key from the old session key packets and encrypt
+ * it to the new recipients.
+ */
+abstract class SplicingRewrap : Rewrap {
+
+    private var armor = true
+    private val _keys = mutableListOf<ByteArray>()
+    private val _keyPasswords = mutableListOf<ByteArray>()
+    private val _messagePasswords = mutableListOf<String>()
+    private val _sessionKeys = mutableListOf<SessionKey>()
+    private val _certs = mutableListOf<ByteArray>()
+    private val _passwords = mutableListOf<String>()
+
+    /** Secret keys to recover the session key with. */
+    protected val keys: List<ByteArray>
+        get() = _keys
+
+    /** Passwords to unlock the [keys]. */
+    protected val keyPasswords: List<ByteArray>
+        get() = _keyPasswords
+
+    /** Passwords to recover the session key from SKESK packets with. */
+    protected val messagePasswords: List<String>
+        get() = _messagePasswords
+
+    /** Certificates of the new recipients. */
+    protected val certs: List<ByteArray>
+        get() = _certs
+
+    /** Passwords of the new recipients. */
+    protected val passwords: List<String>
+        get() = _passwords
+
+    override fun noArmor(): Rewrap = apply { armor = false }
+
+    override fun withKey(key: InputStream): Rewrap = apply { _keys.add(key.readBytes()) }
+
+    override fun withKeyPassword(password: ByteArray): Rewrap = apply {
+        _keyPasswords.add(password)
+    }
+
+    override fun withMessagePassword(password: String): Rewrap = apply {
+        _messagePasswords.add(password)
+    }
+
+    override fun withSessionKey(sessionKey: SessionKey): Rewrap = apply {
+        _sessionKeys.add(sessionKey)
+    }
+
+    override fun withCert(cert: InputStream): Rewrap = apply { _certs.add(cert.readBytes()) }
+
+    override fun withPassword(password: String): Rewrap = apply { _passwords.add(password) }
+
+    override fun message(message: InputStream): Ready {
+        if (_certs.isEmpty() && _passwords.isEmpty()) {
+            throw SOPGPException.MissingArg("Missing new recipient certificates or passwords.")
+        }
+        val source = PacketSource.open(message)
+        val header = EncryptedMessageHeader.read(source.reader)
+        if (!header.isEncrypted) {
+            throw SOPGPException.BadData("Message does not contain any session key packets.")
+        }
+        val data =
+            header.next?.takeIf {
+                it.tag == PacketTag.SEIPD || it.tag == PacketTag.SYMMETRICALLY_ENCRYPTED_DATA
+            }
+                ?: throw SOPGPException.BadData("Message lacks an encrypted data packet.")
+        val payload = source.reader.remaining
+        val version =
+            if (data.tag == PacketTag.SEIPD) {
+                payload.read().also {
+                    if (it < 0) throw SOPGPException.BadData("Truncated SEIPD packet.")
+                }
+            } else {
+                0
+            }
+
+        val sessionKey =
+            _sessionKeys.firstOrNull()
+                ?: recoverSessionKey(header.packets.map { it.header.encoded + it.body }, version)
+        val sessionKeyPackets = createSessionKeyPackets(sessionKey, version)
+
+        return object : Ready() {
+            override fun writeTo(outputStream: OutputStream) {
+                val encoder = if (armor) ArmorEncoder(outputStream, "MESSAGE") else null
+                val out = encoder ?: outputStream
+                out.write(sessionKeyPackets)
+                out.write(data.encoded)
+                if (version != 0) {
+                    out.write(version)
+                }
+                payload.copyTo(out)
+                encoder?.finish()
+            }
+        }
+    }
+
+    /**
+     * Recover the session key of the message using [keys], [keyPasswords] and [messagePasswords].
+     * This method is not called if the session key was passed in via [withSessionKey].
+     *
+     * @param sessionKeyPackets encodings of the PKESK and SKESK packets of the message
+     * @param encryptedDataVersion version of the SEIPD packet, or `0` for a legacy SED packet
+     * @return session key
+     * @throws SOPGPException.CannotDecrypt if the session key cannot be recovered
+     */
+    protected abstract fun recoverSessionKey(
+        sessionKeyPackets: List<ByteArray>,
+        encryptedDataVersion: Int
+    ): SessionKey
+
+    /**
+     * Encrypt the session key to the new recipients given by [certs] and [passwords].
+     *
+     * @param sessionKey session key of the message
+     * @param encryptedDataVersion version of the SEIPD packet, or `0` for a legacy SED packet. The
+     *   version of the created session key packets must match.
+     * @return encoded PKESK and SKESK packets
+     */
+    protected abstract fun createSessionKeyPackets(
+        sessionKey: SessionKey,
+        encryptedDataVersion: Int
+    ): ByteArray
+}
@@ -0,0 +1,185 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.scheduling
+
+import java.util.*
+import java.util.concurrent.locks.Condition
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * Admission control for SOP operations with [Priority] classes. At most [maxConcurrency] operations
+ * are admitted at the same time. When a slot becomes available, waiting operations are admitted in
+ * weighted fair queuing order: each class receives a share of slots proportional to its weight, as
+ * long as it has operations waiting. Additionally, each class can be capped to a maximum number of
+ * concurrent operations.
+ *
+ * By default, [Priority.BATCH] and [Priority.BACKGROUND] operations can never occupy all slots if
+ * there are at least two, so that interactive operations are admitted without waiting for a bulk
+ * operation to finish. With a single slot, all classes share it and are only ordered by weight.
+ *
+ * @param maxConcurrency maximum number of concurrently admitted operations
+ * @param weights weight per priority class
+ * @param caps maximum number of concurrently admitted operations per priority class
+ */
+class OperationScheduler
+@JvmOverloads
+constructor(
+    val maxConcurrency: Int = Runtime.getRuntime().availableProcessors(),
+    weights: Map<Priority, Int> = DEFAULT_WEIGHTS,
+    caps: Map<Priority, Int> = defaultCaps(maxConcurrency)
+) {
+
+    init {
+        require(maxConcurrency > 0) { "maxConcurrency MUST be positive." }
+    }
+
+    private val lock = ReentrantLock()
+    private val classes =
+        EnumMap<Priority, PriorityClass>(Priority::class.java).apply {
+            Priority.values().forEach {
+                put(it, PriorityClass(weights[it] ?: 1, caps[it] ?: maxConcurrency))
+            }
+        }
+    private var running = 0
+    // Virtual start time of the most recently admitted operation
+    private var virtualTime = 0.0
+
+    /**
+     * Wait until an operation of the given [priority] may run.
+     *
+     * @param priority priority class of the operation
+     * @return permit, which MUST be closed once the operation is done
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    @Throws(InterruptedException::class)
+    fun acquire(priority: Priority): Permit {
+        lock.withLock {
+            val pc = classes.getValue(priority)
+            if (pc.waiting.isEmpty() && running < maxConcurrency && pc.running < pc.cap) {
+                admit(pc)
+                return Permit(priority)
+            }
+
+            val waiter = Waiter(lock.newCondition())
+            pc.waiting.addLast(waiter)
+            try {
+                while (!waiter.admitted) {
+                    waiter.condition.await()
+                }
+            } catch (e: InterruptedException) {
+                if (waiter.admitted) {
+                    release(pc)
+                } else {
+                    pc.waiting.remove(waiter)
+                }
+                throw e
+            }
+            return Permit(priority)
+        }
+    }
+
+    /**
+     * Return the number of currently admitted operations of the given [priority].
+     *
+     * @param priority priority class
+     * @return number of running operations
+     */
+    fun running(priority: Priority): Int = lock.withLock { classes.getValue(priority).running }
+
+    /**
+     * Return the number of operations of the given [priority] waiting for admission.
+     *
+     * @param priority priority class
+     * @return number of waiting operations
+     */
+    fun waiting(priority: Priority): Int = lock.withLock { classes.getValue(priority).waiting.size }
+
+    private fun admit(pc: PriorityClass) {
+        val start = maxOf(virtualTime, pc.finishTag)
+        pc.finishTag = start + 1.0 / pc.weight
+        virtualTime = start
+        pc.running += 1
+        running += 1
+    }
+
+    private fun release(pc: PriorityClass) {
+        pc.running -= 1
+        running -= 1
+        dispatch()
+    }
+
+    private fun dispatch() {
+        while (running < maxConcurrency) {
+            val next =
+                classes.values
+                    .filter { it.waiting.isNotEmpty() && it.running < it.cap }
+                    .minByOrNull { maxOf(virtualTime, it.finishTag) + 1.0 / it.weight }
+                    ?: return
+            val waiter = next.waiting.removeFirst()
+            admit(next)
+            waiter.admitted = true
+            waiter.condition.signal()
+        }
+    }
+
+    /**
+     * Admission of an operation. Closing the permit frees the slot for the next operation.
+     *
+     * @param priority priority class of the operation
+     */
+    inner class Permit internal constructor(val priority: Priority) : AutoCloseable {
+
+        private var closed = false
+
+        override fun close() {
+            lock.withLock {
+                if (!closed) {
+                    closed = true
+                    release(classes.getValue(priority))
+                }
+            }
+        }
+    }
+
+    private class PriorityClass(val weight: Int, val cap: Int) {
+        init {
+            require(weight > 0) { "Weights MUST be positive." }
+            require(cap > 0) { "Caps MUST be positive." }
+        }
+
+        val waiting = ArrayDeque<Waiter>()
+        var running = 0
+        // Virtual finish time of the most recently admitted operation of this class
+        var finishTag = 0.0
+    }
+
+    private class Waiter(val condition: Condition) {
+        var admitted = false
+    }
+
+    companion object {
+
+        /** Default weights: interactive 16, batch 4, background 1. */
+        @JvmField
+        val DEFAULT_WEIGHTS: Map<Priority, Int> =
+            mapOf(Priority.INTERACTIVE to 16, Priority.BATCH to 4, Priority.BACKGROUND to 1)
+
+        /**
+         * Default caps: interactive operations may use all slots, batch operations all but one and
+         * background operations half of the slots. Every class may use at least one slot, so if
+         * [maxConcurrency] is 1, batch and background operations are not capped below it.
+         *
+         * @param maxConcurrency maximum number of concurrently admitted operations
+         * @return caps per priority class
+         */
+        @JvmStatic
+        fun defaultCaps(maxConcurrency: Int): Map<Priority, Int> =
+            mapOf(
+                Priority.INTERACTIVE to maxConcurrency,
+                Priority.BATCH to maxOf(1, maxConcurrency - 1),
+                Priority.BACKGROUND to maxOf(1, maxConcurrency / 2))
+    }
+}
@@ -0,0 +1,15 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.scheduling
+
+/** Priority classes used by the [OperationScheduler]. */
+enum class Priority {
+    /** Latency-sensitive operations, a user is waiting for the result. */
+    INTERACTIVE,
+    /** Bulk jobs, such as re-encrypting a mailbox. */
+    BATCH,
+    /** Maintenance work that may be delayed arbitrarily, such as refreshing certificates. */
+    BACKGROUND
+}
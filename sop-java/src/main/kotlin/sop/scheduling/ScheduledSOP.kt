@@ -0,0 +1,80 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.scheduling
+
+import sop.SOP
+import sop.exception.SOPGPException
+import sop.instrumentation.InstrumentedSOP
+import sop.instrumentation.OperationContext
+import sop.instrumentation.OperationListener
+
+/**
+ * Decorator for a [SOP] implementation, which admits operations through an [OperationScheduler]. An
+ * operation occupies a slot whenever the calling thread hands control to the wrapped
+ * implementation: once while its terminal method runs (e.g. [sop.operation.Decrypt.ciphertext]) and
+ * once while the resulting [sop.Ready] is written out. In between, no slot is held, so results that
+ * are written later or never do not keep other operations from being admitted.
+ *
+ * Operations are tagged with the [priority] of the instance they were created from. Use
+ * [withPriority] to obtain views with a different priority, which share the same scheduler:
+ * ```
+ * ScheduledSOP sop = new ScheduledSOP(backend, scheduler);
+ * sop.withPriority(Priority.BATCH).encrypt().withCert(cert).plaintext(data);
+ * ```
+ *
+ * The priority is chosen on the view rather than through a setter on the individual operation
+ * builders. The builders ([sop.operation.Encrypt], [sop.operation.Decrypt], ...) are the interfaces
+ * of the SOP specification, which every backend and the command line interface implement, so a
+ * priority setter would have to be added to each of them and be implemented or ignored by every
+ * backend. With a view, the priority is still picked per operation at the call site, while the
+ * operation interfaces stay unchanged. Views are cheap and can be created per call.
+ *
+ * @param delegate wrapped SOP implementation
+ * @param scheduler scheduler
+ * @param priority priority of operations created by this instance
+ */
+class ScheduledSOP
+@JvmOverloads
+constructor(
+    private val delegate: SOP,
+    val scheduler: OperationScheduler,
+    val priority: Priority = Priority.INTERACTIVE
+) : SOP by InstrumentedSOP(delegate, SchedulingOperationListener(scheduler, priority)) {
+
+    /**
+     * Return a view of this [SOP] whose operations are scheduled with the given [priority].
+     *
+     * @param priority priority class
+     * @return scheduled SOP
+     */
+    fun withPriority(priority: Priority): ScheduledSOP =
+        if (priority == this.priority) this else ScheduledSOP(delegate, scheduler, priority)
+
+    private class SchedulingOperationListener(
+        private val scheduler: OperationScheduler,
+        private val priority: Priority
+    ) : OperationListener {
+
+        override fun onEnter(context: OperationContext) {
+            val permit =
+                try {
+                    scheduler.acquire(priority)
+                } catch (e: InterruptedException) {
+                    Thread.currentThread().interrupt()
+                    throw SOPGPException.UnspecificFailure(
+                        "Interrupted while waiting for admission of '${context.subcommand}'.", e)
+                }
+            context.setAttribute(PERMIT_KEY, permit)
+        }
+
+        override fun onLeave(context: OperationContext) {
+            (context.removeAttribute(PERMIT_KEY) as OperationScheduler.Permit?)?.close()
+        }
+    }
+
+    private companion object {
+        val PERMIT_KEY = Any()
+    }
+}
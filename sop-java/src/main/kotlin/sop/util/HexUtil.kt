@@ -4,35 +4,149 @@
 
 package sop.util
 
+import java.nio.ByteBuffer
+
 class HexUtil {
 
     companion object {
+
+        private val DIGITS = "0123456789ABCDEF".toCharArray()
+
+        // Value of each ASCII hex digit, -1 for other characters
+        private val VALUES =
+            IntArray(128) { -1 }
+                .also {
+                    for (i in 0 until 16) {
+                        it[DIGITS[i].code] = i
+                        it[DIGITS[i].lowercaseChar().code] = i
+                    }
+                }
+
         /**
          * Encode a byte array to a hex string.
          *
          * @param bytes bytes
          * @return hex encoding
-         * @see
-         *   [Convert Byte Arrays to Hex Strings in Kotlin](https://www.baeldung.com/kotlin/byte-arrays-to-hex-strings)
          */
-        @JvmStatic fun bytesToHex(bytes: ByteArray): String = bytes.toHex()
+        @JvmStatic fun bytesToHex(bytes: ByteArray): String = bytesToHex(bytes, 0, bytes.size)
+
+        /**
+         * Encode a range of a byte array to a hex string.
+         *
+         * @param bytes bytes
+         * @param offset offset of the first byte
+         * @param length number of bytes
+         * @return uppercase hex encoding
+         */
+        @JvmStatic
+        fun bytesToHex(bytes: ByteArray, offset: Int, length: Int): String =
+            String(CharArray(length * 2).also { encode(bytes, offset, length, it, 0) })
+
+        /**
+         * Encode the remaining bytes of a buffer to a hex string. The position of the buffer is not
+         * modified.
+         *
+         * @param buffer bytes
+         * @return uppercase hex encoding
+         */
+        @JvmStatic
+        fun bytesToHex(buffer: ByteBuffer): String {
+            val chars = CharArray(buffer.remaining() * 2)
+            for (i in 0 until buffer.remaining()) {
+                encode(buffer.get(buffer.position() + i).toInt(), chars, 2 * i)
+            }
+            return String(chars)
+        }
+
+        /**
+         * Encode a range of a byte array as uppercase hex into a preallocated character array.
+         *
+         * @param bytes bytes
+         * @param offset offset of the first byte
+         * @param length number of bytes
+         * @param out destination, must have room for `2 * length` characters
+         * @param outOffset offset of the first character written to [out]
+         */
+        @JvmStatic
+        fun encode(bytes: ByteArray, offset: Int, length: Int, out: CharArray, outOffset: Int) {
+            for (i in 0 until length) {
+                encode(bytes[offset + i].toInt(), out, outOffset + 2 * i)
+            }
+        }
+
+        private fun encode(b: Int, out: CharArray, offset: Int) {
+            out[offset] = DIGITS[(b shr 4) and 0x0F]
+            out[offset + 1] = DIGITS[b and 0x0F]
+        }
 
         /**
          * Decode a hex string into a byte array.
          *
          * @param s hex string
          * @return decoded byte array
-         * @see
-         *   [Kotlin convert hex string to ByteArray](https://stackoverflow.com/a/66614516/11150851)
+         * @throws IllegalStateException if the number of digits is odd
+         * @throws NumberFormatException if the string contains non-hex characters
          */
-        @JvmStatic fun hexToBytes(s: String): ByteArray = s.decodeHex()
-    }
-}
+        @JvmStatic
+        fun hexToBytes(s: String): ByteArray {
+            check(s.length % 2 == 0) { "Hex encoding must have even number of digits." }
+            return ByteArray(s.length / 2).also { decode(s, 0, s.length, it, 0) }
+        }
 
-fun String.decodeHex(): ByteArray {
-    check(length % 2 == 0) { "Hex encoding must have even number of digits." }
+        /**
+         * Decode hex digits into a preallocated byte array.
+         *
+         * @param s characters
+         * @param start index of the first hex digit
+         * @param end index after the last hex digit, `end - start` must be even
+         * @param out destination, must have room for `(end - start) / 2` bytes
+         * @param outOffset offset of the first byte written to [out]
+         * @throws NumberFormatException if the range contains non-hex characters
+         */
+        @JvmStatic
+        fun decode(s: CharSequence, start: Int, end: Int, out: ByteArray, outOffset: Int) {
+            require((end - start) % 2 == 0) { "Hex encoding must have even number of digits." }
+            var o = outOffset
+            for (i in start until end step 2) {
+                out[o++] = byte(s, i)
+            }
+        }
 
-    return chunked(2).map { it.toInt(16).toByte() }.toByteArray()
+        /**
+         * Decode hex digits into a buffer, starting at its current position. The position is
+         * advanced by the number of bytes written.
+         *
+         * @param s characters
+         * @param out destination, must have room for `s.length / 2` bytes
+         * @throws NumberFormatException if the string contains non-hex characters
+         */
+        @JvmStatic
+        fun decode(s: CharSequence, out: ByteBuffer) {
+            require(s.length % 2 == 0) { "Hex encoding must have even number of digits." }
+            for (i in 0 until s.length step 2) {
+                out.put(byte(s, i))
+            }
+        }
+
+        /**
+         * Return the value of a hex digit.
+         *
+         * @param c character
+         * @return value between 0 and 15, or -1 if [c] is not a hex digit
+         */
+        @JvmStatic fun digit(c: Char): Int = if (c.code < 128) VALUES[c.code] else -1
+
+        private fun byte(s: CharSequence, i: Int): Byte {
+            val high = digit(s[i])
+            val low = digit(s[i + 1])
+            if (high < 0 || low < 0) {
+                throw NumberFormatException("Invalid hex digits '${s[i]}${s[i + 1]}' at index $i.")
+            }
+            return ((high shl 4) or low).toByte()
+        }
+    }
 }
 
-fun ByteArray.toHex(): String = joinToString(separator = "") { eachByte -> "%02X".format(eachByte) }
+fun String.decodeHex(): ByteArray = HexUtil.hexToBytes(this)
+
+fun ByteArray.toHex(): String = HexUtil.bytesToHex(this)
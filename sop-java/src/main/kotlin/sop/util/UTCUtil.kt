@@ -8,22 +8,51 @@ import java.text.ParseException
 import java.text.SimpleDateFormat
 import java.util.*
 
+/**
+ * Parsing and formatting of ISO-8601 UTC timestamps as used by the SOP specification.
+ *
+ * Parsing and formatting are thread-safe. Timestamps are parsed in a single pass without trying
+ * multiple layouts in turn, recently formatted timestamps are served from a small cache.
+ */
 class UTCUtil {
 
     companion object {
 
-        @JvmField val UTC_FORMATTER = SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'")
+        @Deprecated(
+            "SimpleDateFormat is not thread-safe. Use formatUTCDate() instead.",
+            ReplaceWith("UTCUtil.formatUTCDate(date)"))
+        @JvmField
+        val UTC_FORMATTER = SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'")
+
+        @Deprecated(
+            "SimpleDateFormat is not thread-safe. Use parseUTCDate() instead.",
+            ReplaceWith("UTCUtil.parseUTCDate(dateString)"))
         @JvmField
         val UTC_PARSERS =
             arrayOf(
-                    UTC_FORMATTER,
+                    // Same instance as before, which also sets the time zone of UTC_FORMATTER
+                    @Suppress("DEPRECATION") UTC_FORMATTER,
                     SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssX"),
                     SimpleDateFormat("yyyyMMdd'T'HHmmss'Z'"),
                     SimpleDateFormat("yyyy-MM-dd'T'HH:mm'Z'"))
                 .onEach { fmt -> fmt.timeZone = TimeZone.getTimeZone("UTC") }
 
+        internal const val INVALID = Long.MIN_VALUE
+        private const val SECONDS_PER_DAY = 86400L
+        private const val CACHE_SIZE = 256
+        private const val MAX_YEAR_DIGITS = 9
+        private const val MIN_SECONDS = Long.MIN_VALUE / 1000
+        private const val MAX_SECONDS = Long.MAX_VALUE / 1000
+
+        // Entries are immutable, so racy reads and writes are harmless
+        private val cache = arrayOfNulls<Formatted>(CACHE_SIZE)
+
         /**
-         * Parse an ISO-8601 UTC timestamp from a string.
+         * Parse an ISO-8601 UTC timestamp from a string. The following layouts are accepted:
+         * - `2019-10-29T12:11:04Z`
+         * - `2019-10-29T12:11:04+01:00` (also `+01`, `+0100` and `Z` as zone offset)
+         * - `20191029T121104Z`
+         * - `2019-10-29T12:11Z`
          *
          * @param dateString string
          * @return date
@@ -32,20 +61,11 @@ class UTCUtil {
         @JvmStatic
         @Throws(ParseException::class)
         fun parseUTCDate(dateString: String): Date {
-            var exception: ParseException? = null
-            for (parser in UTC_PARSERS) {
-                try {
-                    return parser.parse(dateString)
-                } catch (e: ParseException) {
-                    // Store first exception (that of UTC_FORMATTER) to throw if we fail to parse
-                    // the date
-                    if (exception == null) {
-                        exception = e
-                    }
-                    // Try next parser
-                }
+            val seconds = parseEpochSeconds(dateString)
+            if (seconds == INVALID) {
+                throw ParseException("Unparseable date: \"$dateString\"", 0)
             }
-            throw exception!!
+            return Date(seconds * 1000)
         }
 
         /**
@@ -56,7 +76,183 @@ class UTCUtil {
          */
         @JvmStatic
         fun formatUTCDate(date: Date): String {
-            return UTC_FORMATTER.format(date)
+            val seconds = Math.floorDiv(date.time, 1000L)
+            val slot = Math.floorMod(seconds, CACHE_SIZE.toLong()).toInt()
+            cache[slot]
+                ?.takeIf { it.seconds == seconds }
+                ?.let {
+                    return it.string
+                }
+            return format(seconds).also { cache[slot] = Formatted(seconds, it) }
+        }
+
+        /**
+         * Parse a timestamp in any of the accepted layouts from the characters of [s] between
+         * [start] (inclusive) and [end] (exclusive), or return [INVALID].
+         */
+        internal fun parseEpochSeconds(s: CharSequence, start: Int = 0, end: Int = s.length): Long {
+            val length = end - start
+            var yearDigits = 0
+            while (yearDigits < length && s[start + yearDigits] in '0'..'9') {
+                yearDigits++
+            }
+            if (yearDigits == 8 && length == 16 && s[start + 8] == 'T' && s[start + 15] == 'Z') {
+                // 20191029T121104Z
+                return epochSeconds(
+                    number(s, start, 4),
+                    number(s, start + 4, 2),
+                    number(s, start + 6, 2),
+                    number(s, start + 9, 2),
+                    number(s, start + 11, 2),
+                    number(s, start + 13, 2),
+                    0)
+            }
+            if (yearDigits !in 4..MAX_YEAR_DIGITS) {
+                return INVALID
+            }
+            // 2019-10-29T12:11 followed by Z, or :04 and a zone offset
+            val p = start + yearDigits
+            if (end < p + 13 ||
+                s[p] != '-' ||
+                s[p + 3] != '-' ||
+                s[p + 6] != 'T' ||
+                s[p + 9] != ':') {
+                return INVALID
+            }
+            val year = number(s, start, yearDigits)
+            val month = number(s, p + 1, 2)
+            val day = number(s, p + 4, 2)
+            val hour = number(s, p + 7, 2)
+            val minute = number(s, p + 10, 2)
+            if (end == p + 13 && s[p + 12] == 'Z') {
+                return epochSeconds(year, month, day, hour, minute, 0, 0)
+            }
+            if (end < p + 16 || s[p + 12] != ':') {
+                return INVALID
+            }
+            val second = number(s, p + 13, 2)
+            val offset = offsetSeconds(s, p + 15, end)
+            if (offset == INVALID) {
+                return INVALID
+            }
+            return epochSeconds(year, month, day, hour, minute, second, offset)
         }
+
+        /** Parse a zone offset (`Z`, `+hh`, `+hhmm` or `+hh:mm`) which must span up to [end]. */
+        private fun offsetSeconds(s: CharSequence, start: Int, end: Int): Long {
+            val sign =
+                when (s[start]) {
+                    'Z' -> return if (end == start + 1) 0 else INVALID
+                    '+' -> 1
+                    '-' -> -1
+                    else -> return INVALID
+                }
+            val hours = if (end >= start + 3) number(s, start + 1, 2) else -1
+            val minutes =
+                when (end - start) {
+                    3 -> 0L
+                    5 -> number(s, start + 3, 2)
+                    6 -> if (s[start + 3] == ':') number(s, start + 4, 2) else -1
+                    else -> -1
+                }
+            if (hours !in 0..23 || minutes !in 0..59) {
+                return INVALID
+            }
+            return sign * (hours * 3600 + minutes * 60)
+        }
+
+        /** Parse [length] decimal digits starting at [start], or return -1. */
+        private fun number(s: CharSequence, start: Int, length: Int): Long {
+            var value = 0L
+            for (i in start until start + length) {
+                val c = s[i]
+                if (c !in '0'..'9') {
+                    return -1
+                }
+                value = value * 10 + (c - '0')
+            }
+            return value
+        }
+
+        private fun epochSeconds(
+            year: Long,
+            month: Long,
+            day: Long,
+            hour: Long,
+            minute: Long,
+            second: Long,
+            offset: Long
+        ): Long {
+            if (year < 0 ||
+                month !in 1..12 ||
+                day < 1 ||
+                day > daysInMonth(year, month.toInt()) ||
+                hour !in 0..23 ||
+                minute !in 0..59 ||
+                second !in 0..60) {
+                return INVALID
+            }
+            val seconds =
+                epochDay(year, month.toInt(), day.toInt()) * SECONDS_PER_DAY +
+                    hour * 3600 +
+                    minute * 60 +
+                    second - offset
+            // Years with up to MAX_YEAR_DIGITS digits exceed the millisecond range of Date
+            return if (seconds in MIN_SECONDS..MAX_SECONDS) seconds else INVALID
+        }
+
+        private fun daysInMonth(year: Long, month: Int): Int =
+            when (month) {
+                2 -> if (year % 4 == 0L && (year % 100 != 0L || year % 400 == 0L)) 29 else 28
+                4,
+                6,
+                9,
+                11 -> 30
+                else -> 31
+            }
+
+        /** Days since 1970-01-01 in the proleptic Gregorian calendar. */
+        private fun epochDay(year: Long, month: Int, day: Int): Long {
+            val y = if (month <= 2) year - 1 else year
+            val era = Math.floorDiv(y, 400L)
+            val yearOfEra = y - era * 400
+            val dayOfYear = (153 * ((month + 9) % 12) + 2) / 5 + day - 1
+            val dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear
+            return era * 146097 + dayOfEra - 719468
+        }
+
+        private fun format(epochSeconds: Long): String {
+            val days = Math.floorDiv(epochSeconds, SECONDS_PER_DAY)
+            val secondOfDay = Math.floorMod(epochSeconds, SECONDS_PER_DAY).toInt()
+            // Inverse of epochDay()
+            val z = days + 719468
+            val era = Math.floorDiv(z, 146097L)
+            val dayOfEra = z - era * 146097
+            val yearOfEra =
+                (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365
+            val dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100)
+            val mp = (5 * dayOfYear + 2) / 153
+            val day = (dayOfYear - (153 * mp + 2) / 5 + 1).toInt()
+            val month = (if (mp < 10) mp + 3 else mp - 9).toInt()
+            val year = yearOfEra + era * 400 + if (month <= 2) 1 else 0
+
+            val sb = StringBuilder(20)
+            val yearString = year.toString()
+            if (year >= 0) {
+                repeat(4 - yearString.length) { sb.append('0') }
+            }
+            sb.append(yearString).append('-')
+            twoDigits(sb, month).append('-')
+            twoDigits(sb, day).append('T')
+            twoDigits(sb, secondOfDay / 3600).append(':')
+            twoDigits(sb, secondOfDay / 60 % 60).append(':')
+            twoDigits(sb, secondOfDay % 60).append('Z')
+            return sb.toString()
+        }
+
+        private fun twoDigits(sb: StringBuilder, value: Int): StringBuilder =
+            sb.append('0' + value / 10).append('0' + value % 10)
+
+        private class Formatted(val seconds: Long, val string: String)
     }
 }
@@ -4,20 +4,19 @@
 
 package sop.util
 
+import java.io.ByteArrayOutputStream
+import java.io.IOException
+import java.io.InputStream
 import java.nio.ByteBuffer
 import java.nio.charset.Charset
 import java.nio.charset.CodingErrorAction
+import java.nio.charset.MalformedInputException
+import sop.exception.SOPGPException
 
 class UTF8Util {
     companion object {
         @JvmField val UTF8: Charset = Charset.forName("UTF8")
 
-        @JvmStatic
-        private val UTF8Decoder =
-            UTF8.newDecoder()
-                .onUnmappableCharacter(CodingErrorAction.REPORT)
-                .onMalformedInput(CodingErrorAction.REPORT)
-
         /**
          * Detect non-valid UTF8 data.
          *
@@ -29,9 +28,114 @@ class UTF8Util {
         @JvmStatic
         @Throws(CharacterCodingException::class)
         fun decodeUTF8(data: ByteArray): String {
-            val byteBuffer = ByteBuffer.wrap(data)
-            val charBuffer = UTF8Decoder.decode(byteBuffer)
-            return charBuffer.toString()
+            val buffer = ByteBuffer.wrap(data)
+            if (UTF8Validator.skipAscii(buffer, 0, data.size) == data.size) {
+                return String(data, UTF8)
+            }
+            return decode(buffer)
+        }
+
+        /**
+         * Decode the remaining bytes of a buffer, rejecting non-valid UTF8 data. The position of
+         * the buffer is not modified.
+         *
+         * @param data utf-8 encoded bytes
+         * @return decoded string
+         * @throws CharacterCodingException if the input data does not resemble UTF8
+         */
+        @JvmStatic
+        @Throws(CharacterCodingException::class)
+        fun decodeUTF8(data: ByteBuffer): String = decode(data.duplicate())
+
+        /**
+         * Read and decode UTF8 data from a stream. Reading stops at the first non-valid byte.
+         *
+         * @param data input stream
+         * @return decoded string
+         * @throws CharacterCodingException if the input data does not resemble UTF8
+         * @throws IOException in case of an IO error
+         */
+        @JvmStatic
+        @Throws(IOException::class)
+        fun decodeUTF8(data: InputStream): String {
+            val validator = UTF8Validator()
+            val out = ByteArrayOutputStream()
+            val buf = ByteArray(4096)
+            while (true) {
+                val read = data.read(buf)
+                if (read == -1) {
+                    break
+                }
+                validate(validator, ByteBuffer.wrap(buf, 0, read), false)
+                out.write(buf, 0, read)
+            }
+            validate(validator, ByteBuffer.wrap(buf, 0, 0), true)
+            return String(out.toByteArray(), UTF8)
+        }
+
+        /**
+         * Check whether the given data is valid UTF8.
+         *
+         * @param data bytes
+         * @return true if the data is valid UTF8
+         */
+        @JvmStatic
+        fun isValidUTF8(data: ByteArray): Boolean =
+            UTF8Validator().run { update(data) && isComplete }
+
+        /**
+         * Check whether the remaining bytes of the buffer are valid UTF8. The position of the
+         * buffer is not modified.
+         *
+         * @param data bytes
+         * @return true if the data is valid UTF8
+         */
+        @JvmStatic
+        fun isValidUTF8(data: ByteBuffer): Boolean =
+            UTF8Validator().run { update(data) && isComplete }
+
+        /**
+         * Wrap an [InputStream], such that reading fails with a [CharacterCodingException] as soon
+         * as the stream is found not to contain valid UTF8 data.
+         *
+         * @param data input stream
+         * @return validating input stream
+         */
+        @JvmStatic fun validating(data: InputStream): InputStream = UTF8ValidatingInputStream(data)
+
+        /**
+         * Wrap an [InputStream] containing data that is to be processed as text, such that reading
+         * fails with [SOPGPException.ExpectedText] as soon as the stream is found not to contain
+         * valid UTF8 data. This can be used to check the input of [sop.enums.EncryptAs.text],
+         * [sop.enums.SignAs.text] and [sop.enums.InlineSignAs.text] operations while it is being
+         * processed.
+         *
+         * @param data input stream
+         * @return validating input stream
+         */
+        @JvmStatic
+        fun requireText(data: InputStream): InputStream =
+            UTF8ValidatingInputStream(data) {
+                SOPGPException.ExpectedText("Input is not valid UTF-8 (at byte offset $it).")
+            }
+
+        /**
+         * Decode and validate non-ASCII data in a single pass. The decoder is owned by the call,
+         * since [java.nio.charset.CharsetDecoder] instances are not thread-safe.
+         */
+        @Throws(CharacterCodingException::class)
+        private fun decode(data: ByteBuffer): String =
+            UTF8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)
+                .decode(data)
+                .toString()
+
+        @Throws(MalformedInputException::class)
+        private fun validate(validator: UTF8Validator, data: ByteBuffer, complete: Boolean) {
+            if (!validator.update(data) || complete && !validator.isComplete) {
+                throw MalformedInputException(1)
+            }
         }
     }
 }
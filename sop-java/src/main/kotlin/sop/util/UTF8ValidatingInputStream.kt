@@ -0,0 +1,56 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.util
+
+import java.io.FilterInputStream
+import java.io.InputStream
+import java.nio.charset.MalformedInputException
+
+/**
+ * [InputStream] which validates that the data read from the underlying stream is UTF-8 encoded.
+ * Reading fails with the exception created by [error] as soon as a non-valid byte is read, or when
+ * the stream ends in the middle of a character.
+ *
+ * @param input underlying input stream
+ * @param error creates the exception to throw, given the offset of the first non-valid byte
+ */
+internal class UTF8ValidatingInputStream(
+    input: InputStream,
+    private val error: (Long) -> Exception = { MalformedInputException(1) }
+) : FilterInputStream(input) {
+
+    private val validator = UTF8Validator()
+    private val single = ByteArray(1)
+
+    override fun read(): Int = if (read(single, 0, 1) == -1) -1 else single[0].toInt() and 0xFF
+
+    override fun read(b: ByteArray, off: Int, len: Int): Int {
+        val read = super.read(b, off, len)
+        if (read == -1) {
+            if (!validator.isComplete) {
+                throw error(validator.position)
+            }
+        } else if (!validator.update(b, off, read)) {
+            throw error(validator.position)
+        }
+        return read
+    }
+
+    override fun skip(n: Long): Long {
+        // Skipped bytes must be validated as well
+        val buf = ByteArray(minOf(n, 8192L).toInt().coerceAtLeast(1))
+        var skipped = 0L
+        while (skipped < n) {
+            val read = read(buf, 0, minOf(buf.size.toLong(), n - skipped).toInt())
+            if (read == -1) {
+                break
+            }
+            skipped += read
+        }
+        return skipped
+    }
+
+    override fun markSupported(): Boolean = false
+}
@@ -0,0 +1,132 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.util
+
+import java.nio.ByteBuffer
+
+/**
+ * Incremental validator for UTF-8 encoded data (RFC 3629). Data can be fed in arbitrarily sized
+ * chunks, multibyte sequences may span chunk boundaries. Overlong encodings, surrogates and code
+ * points above U+10FFFF are rejected, just like [java.nio.charset.CharsetDecoder] does.
+ *
+ * Runs of ASCII are checked eight bytes at a time. Instances are cheap, but not thread-safe; use
+ * one instance per stream.
+ */
+class UTF8Validator {
+
+    // Number of continuation bytes still expected and the valid range for the next one
+    private var pending = 0
+    private var lower = 0x80
+    private var upper = 0xBF
+
+    /** Number of bytes that were successfully validated. */
+    var position: Long = 0
+        private set
+
+    /** Whether all data passed to [update] so far was valid. */
+    var isValid: Boolean = true
+        private set
+
+    /** Whether the data passed so far is valid and does not end in the middle of a character. */
+    val isComplete: Boolean
+        get() = isValid && pending == 0
+
+    /**
+     * Validate the remaining bytes of the buffer. The position of the buffer is not modified.
+     *
+     * @param buffer data
+     * @return false if the data seen so far is not valid UTF-8
+     */
+    fun update(buffer: ByteBuffer): Boolean {
+        if (!isValid) {
+            return false
+        }
+        // Work on locals, the JIT keeps them in registers
+        var pending = pending
+        var lower = lower
+        var upper = upper
+        val start = buffer.position()
+        val limit = buffer.limit()
+        var i = start
+        while (i < limit) {
+            if (pending == 0) {
+                i = skipAscii(buffer, i, limit)
+                if (i == limit) {
+                    break
+                }
+                val b = buffer.get(i).toInt() and 0xFF
+                if (b >= 0x80) {
+                    when {
+                        b < 0xC2 -> return fail(i - start)
+                        b < 0xE0 -> pending = 1
+                        b < 0xF0 -> {
+                            pending = 2
+                            if (b == 0xE0) lower = 0xA0 // no overlong encodings
+                            if (b == 0xED) upper = 0x9F // no surrogates
+                        }
+                        b < 0xF5 -> {
+                            pending = 3
+                            if (b == 0xF0) lower = 0x90 // no overlong encodings
+                            if (b == 0xF4) upper = 0x8F // nothing above U+10FFFF
+                        }
+                        else -> return fail(i - start)
+                    }
+                }
+            } else {
+                val b = buffer.get(i).toInt() and 0xFF
+                if (b < lower || b > upper) {
+                    return fail(i - start)
+                }
+                pending--
+                lower = 0x80
+                upper = 0xBF
+            }
+            i++
+        }
+        this.pending = pending
+        this.lower = lower
+        this.upper = upper
+        position += limit - start
+        return true
+    }
+
+    /**
+     * Validate a range of bytes.
+     *
+     * @param bytes data
+     * @param offset offset of the first byte
+     * @param length number of bytes
+     * @return false if the data seen so far is not valid UTF-8
+     */
+    @JvmOverloads
+    fun update(bytes: ByteArray, offset: Int = 0, length: Int = bytes.size): Boolean =
+        update(ByteBuffer.wrap(bytes, offset, length))
+
+    private fun fail(validated: Int): Boolean {
+        position += validated
+        isValid = false
+        return false
+    }
+
+    companion object {
+
+        /**
+         * Return the index of the first non-ASCII byte of [buffer] between [from] and [limit], or
+         * [limit] if there is none. Bytes are checked eight at a time.
+         */
+        internal fun skipAscii(buffer: ByteBuffer, from: Int, limit: Int): Int {
+            var i = from
+            while (i + 8 <= limit && buffer.getLong(i) and HIGH_BITS == 0L) {
+                i += 8
+            }
+            while (i < limit && buffer.get(i) >= 0) {
+                i++
+            }
+            return i
+        }
+
+        private const val HIGH_BITS = -0x7F7F7F7F7F7F7F80L // 0x8080808080808080
+    }
+}
@@ -0,0 +1,114 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop;
+
+import org.junit.jupiter.api.Test;
+import sop.util.HexUtil;
+import sop.util.UTCUtil;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FingerprintTest {
+
+    private static final String V4 = "EB85BB5FA33A75E15E944E63F231550C4F47E38E";
+    private static final String V6 = "CB186C4F0609A697E4D52DFA6C722B0C1F1E27C18A56708F6525EC27BAD9ACC9";
+
+    @Test
+    public void parseAndRender() {
+        Fingerprint v4 = Fingerprint.parse(V4.toLowerCase());
+        assertEquals(20, v4.getLength());
+        assertEquals(V4, v4.toHex());
+        assertEquals(V4, v4.toString());
+        assertArrayEquals(HexUtil.hexToBytes(V4), v4.toByteArray());
+
+        Fingerprint v6 = Fingerprint.parse(V6);
+        assertEquals(32, v6.getLength());
+        assertEquals(V6, v6.toHex());
+    }
+
+    @Test
+    public void fingerprintsAreInterned() {
+        Fingerprint a = Fingerprint.parse(V4);
+        Fingerprint b = Fingerprint.parse(V4.toLowerCase());
+        Fingerprint c = Fingerprint.of(HexUtil.hexToBytes(V4));
+        assertSame(a, b);
+        assertSame(a, c);
+        assertNotEquals(a, Fingerprint.parse(V6));
+    }
+
+    @Test
+    public void bytesAreCopied() {
+        byte[] bytes = HexUtil.hexToBytes(V6);
+        Fingerprint fingerprint = Fingerprint.of(bytes);
+        bytes[0] = 0;
+        assertEquals(V6, fingerprint.toHex());
+        fingerprint.toByteArray()[0] = 0;
+        assertEquals(V6, fingerprint.toHex());
+    }
+
+    @Test
+    public void malformedFingerprintsAreRejected() {
+        for (String malformed : new String[] {"", "A", "EB85BB5FA33A75E15E944E63F231550C4F47E38", "XY", "EB 85"}) {
+            assertThrows(IllegalArgumentException.class, () -> Fingerprint.parse(malformed), malformed);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Fingerprint.of(new byte[0]));
+    }
+
+    @Test
+    public void verificationsShareFingerprints() throws ParseException {
+        Verification first = Verification.fromString("2019-10-29T18:36:45Z " + V4 + " " + V4);
+        Verification second = new Verification(UTCUtil.parseUTCDate("2019-10-29T18:36:45Z"),
+                V4.toLowerCase(), V4);
+
+        assertSame(first.getSigningKey(), first.getSigningCert());
+        assertSame(first.getSigningKeyFingerprint(), first.getSigningCertFingerprint());
+        assertSame(first.getSigningKey(), second.getSigningKey());
+        assertEquals(V4.toLowerCase(), second.getSigningKeyFingerprint());
+    }
+
+    @Test
+    public void verificationKeepsHexStringProperties() throws ParseException {
+        Verification verification = new Verification(UTCUtil.parseUTCDate("2019-10-29T18:36:45Z"),
+                Fingerprint.parse(V6), Fingerprint.parse(V4));
+        assertEquals(V6, verification.component2());
+        assertEquals(V4, verification.component3());
+
+        Verification copy = verification.copy(verification.getCreationTime(), V4, V4,
+                verification.getSignatureMode(), verification.getJsonOrDescription());
+        assertSame(Fingerprint.parse(V4), copy.getSigningKey());
+        assertNotEquals(verification, copy);
+
+        Verification malformed = new Verification(verification.getCreationTime(), "XY", V4);
+        assertThrows(IllegalArgumentException.class, malformed::getSigningKey);
+    }
+
+    @Test
+    public void concurrentInterningYieldsOneInstance() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Fingerprint>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(() -> Fingerprint.parse(V6)));
+            }
+            Fingerprint first = results.get(0).get();
+            for (Future<Fingerprint> result : results) {
+                assertSame(first, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -66,4 +66,22 @@ public class SessionKeyTest {
         String semicolonDivider = "9;FCA4BEAF687F48059CACC14FB019125CD57392BAB7037C707835925CBF9F7BCD";
         assertThrows(IllegalArgumentException.class, () -> SessionKey.fromString(semicolonDivider));
     }
+
+    @Test
+    public void fromString_lineBreaksAreIgnored() {
+        SessionKey sessionKey = SessionKey.fromString("  9:FCA4BEAF687F4805\n9CACC14FB019125C\n");
+        assertEquals("9:FCA4BEAF687F48059CACC14FB019125C", sessionKey.toString());
+    }
+
+    @Test
+    public void fromString_malformedThrows() {
+        for (String malformed : new String[] {"", "9", "9:", "10:AB", "9:ABXY", "9:AB CD", ":AB", "x:AB"}) {
+            assertThrows(IllegalArgumentException.class, () -> SessionKey.fromString(malformed), malformed);
+        }
+    }
+
+    @Test
+    public void fromString_oddNumberOfDigitsThrows() {
+        assertThrows(IllegalStateException.class, () -> SessionKey.fromString("9:ABC"));
+    }
 }
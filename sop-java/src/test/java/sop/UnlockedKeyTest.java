@@ -0,0 +1,207 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop;
+
+import org.junit.jupiter.api.Test;
+import sop.enums.SignAs;
+import sop.exception.SOPGPException;
+import sop.instrumentation.InstrumentedSOP;
+import sop.instrumentation.OperationListener;
+import sop.operation.ChangeKeyPassword;
+import sop.operation.DetachedSign;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UnlockedKeyTest {
+
+    private static final byte[] PROTECTED_KEY = "protected".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] UNPROTECTED_KEY = "unprotected".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void defaultUnlockRemovesProtectionViaChangeKeyPassword() throws IOException {
+        List<String> calls = new ArrayList<>();
+        ChangeKeyPassword changeKeyPassword = new ChangeKeyPassword() {
+            @Override
+            public ChangeKeyPassword noArmor() {
+                calls.add("noArmor");
+                return this;
+            }
+
+            @Override
+            public ChangeKeyPassword oldKeyPassphrase(String oldPassphrase) {
+                calls.add("old=" + oldPassphrase);
+                return this;
+            }
+
+            @Override
+            public ChangeKeyPassword newKeyPassphrase(String newPassphrase) {
+                calls.add("new=" + newPassphrase);
+                return this;
+            }
+
+            @Override
+            public Ready keys(InputStream keys) {
+                try {
+                    assertArrayEquals(PROTECTED_KEY, keys.readAllBytes());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return new Ready() {
+                    @Override
+                    public void writeTo(OutputStream outputStream) throws IOException {
+                        outputStream.write(UNPROTECTED_KEY);
+                    }
+                };
+            }
+        };
+        SOP backend = (SOP) Proxy.newProxyInstance(SOP.class.getClassLoader(), new Class[] {SOP.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("changeKeyPassword")) {
+                        return changeKeyPassword;
+                    }
+                    throw new SOPGPException.UnsupportedSubcommand(method.getName());
+                });
+        // InstrumentedSOP does not override unlock(), so the default implementation is used
+        SOP sop = new InstrumentedSOP(backend, new OperationListener() {
+        });
+
+        try (UnlockedKey key = sop.unlock(PROTECTED_KEY, "sw0rdf1sh")) {
+            assertEquals(List.of("noArmor", "old=sw0rdf1sh"), calls);
+            assertArrayEquals(UNPROTECTED_KEY, key.getInputStream().readAllBytes());
+        }
+    }
+
+    @Test
+    public void unlockedKeyCanBeUsedForSigning() throws IOException {
+        List<String> keys = new ArrayList<>();
+        DetachedSign sign = new DetachedSign() {
+            @Override
+            public DetachedSign mode(SignAs mode) {
+                return this;
+            }
+
+            @Override
+            public ReadyWithResult<SigningResult> data(InputStream data) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public DetachedSign noArmor() {
+                return this;
+            }
+
+            @Override
+            public DetachedSign key(InputStream key) throws IOException {
+                keys.add(new String(key.readAllBytes(), StandardCharsets.UTF_8));
+                return this;
+            }
+
+            @Override
+            public DetachedSign withKeyPassword(byte[] password) {
+                throw new AssertionError("No password required.");
+            }
+        };
+
+        try (UnlockedKey key = new UnlockedKey(UNPROTECTED_KEY.clone(), UnlockedKey.DEFAULT_LIFETIME_MILLIS)) {
+            sign.key(key);
+            sign.key(key);
+        }
+        assertEquals(List.of("unprotected", "unprotected"), keys);
+    }
+
+    @Test
+    public void keyStreamIsWipedAfterUse() throws IOException {
+        List<InputStream> streams = new ArrayList<>();
+        DetachedSign sign = new DetachedSign() {
+            @Override
+            public DetachedSign mode(SignAs mode) {
+                return this;
+            }
+
+            @Override
+            public ReadyWithResult<SigningResult> data(InputStream data) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public DetachedSign noArmor() {
+                return this;
+            }
+
+            @Override
+            public DetachedSign key(InputStream key) {
+                // Do not read the key, so that the copy would otherwise remain in the stream
+                streams.add(key);
+                return this;
+            }
+
+            @Override
+            public DetachedSign withKeyPassword(byte[] password) {
+                throw new AssertionError("No password required.");
+            }
+        };
+
+        try (UnlockedKey key = new UnlockedKey(UNPROTECTED_KEY.clone(), UnlockedKey.DEFAULT_LIFETIME_MILLIS)) {
+            sign.key(key);
+        }
+        assertEquals(1, streams.size());
+        assertEquals(-1, streams.get(0).read());
+    }
+
+    @Test
+    public void closeZeroizesKeyMaterial() {
+        byte[] material = UNPROTECTED_KEY.clone();
+        UnlockedKey key = new UnlockedKey(material, UnlockedKey.DEFAULT_LIFETIME_MILLIS);
+        assertTrue(key.isUsable());
+
+        key.close();
+        assertFalse(key.isUsable());
+        assertArrayEquals(new byte[material.length], material);
+        assertThrows(IllegalStateException.class, key::getInputStream);
+    }
+
+    @Test
+    public void expiredKeyIsZeroized() throws InterruptedException {
+        byte[] material = UNPROTECTED_KEY.clone();
+        UnlockedKey key = new UnlockedKey(material, 1);
+        Thread.sleep(5);
+        assertFalse(key.isUsable());
+        assertArrayEquals(new byte[material.length], material);
+    }
+
+    @Test
+    public void expiredKeyIsZeroizedWithoutAccess() throws InterruptedException {
+        byte[] material = UNPROTECTED_KEY.clone();
+        new UnlockedKey(material, 1);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (material[0] != 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for wipe");
+            Thread.sleep(1);
+        }
+        assertArrayEquals(new byte[material.length], material);
+    }
+
+    @Test
+    public void streamIsNotAffectedByClose() throws IOException {
+        UnlockedKey key = new UnlockedKey(UNPROTECTED_KEY.clone(), UnlockedKey.DEFAULT_LIFETIME_MILLIS);
+        try (InputStream in = key.getInputStream()) {
+            key.close();
+            assertArrayEquals(UNPROTECTED_KEY, in.readAllBytes());
+        }
+    }
+}
@@ -8,19 +8,24 @@ import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
 import sop.enums.SignatureMode;
 import sop.testsuite.assertions.VerificationAssert;
+import sop.util.Optional;
 
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class VerificationJSONTest {
@@ -163,4 +168,46 @@ public class VerificationJSONTest {
                         .hasJSON(dummyParser, j -> j.getSigners().contains("alice.pgp"));
         assertEquals(string, verification.toString());
     }
+
+    @Test
+    public void parsedJsonIsCachedPerParser() {
+        String string = "2019-10-29T18:36:45Z EB85BB5FA33A75E15E944E63F231550C4F47E38E EB85BB5FA33A75E15E944E63F231550C4F47E38E {\"signers\": [\"alice.pgp\"]}";
+        Verification verification = Verification.fromString(string);
+
+        int[] calls = new int[1];
+        Verification.JSONParser countingParser = json -> {
+            calls[0]++;
+            return dummyParser.parse(json);
+        };
+        Verification.JSON first = verification.getJson(countingParser);
+        assertSame(first, verification.getJson(countingParser));
+        assertEquals(1, calls[0]);
+
+        // A different parser does not see the cached result
+        assertNotSame(first, verification.getJson(dummyParser));
+        assertEquals(first, verification.getJson(dummyParser));
+    }
+
+    @Test
+    public void jsonConstructorKeepsPojo() {
+        Verification.JSON json = new Verification.JSON("alice.pgp");
+        Verification verification = new Verification(new Date(), "EB85BB5FA33A75E15E944E63F231550C4F47E38E",
+                "EB85BB5FA33A75E15E944E63F231550C4F47E38E", null, json, dummySerializer);
+
+        Verification.JSONParser failingParser = string -> {
+            throw new AssertionError("The original JSON object must be returned");
+        };
+        assertSame(json, verification.getJson(failingParser));
+        assertTrue(verification.getContainsJson());
+    }
+
+    @Test
+    public void containsJsonIgnoresSurroundingWhitespace() {
+        Date date = new Date();
+        String fpr = "EB85BB5FA33A75E15E944E63F231550C4F47E38E";
+        assertTrue(new Verification(date, fpr, fpr, Optional.ofEmpty(), Optional.of(" {} ")).getContainsJson());
+        assertFalse(new Verification(date, fpr, fpr, Optional.ofEmpty(), Optional.of("{")).getContainsJson());
+        assertFalse(new Verification(date, fpr, fpr, Optional.ofEmpty(), Optional.of("Hello")).getContainsJson());
+        assertFalse(new Verification(date, fpr, fpr).getContainsJson());
+    }
 }
@@ -0,0 +1,156 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop;
+
+import org.junit.jupiter.api.Test;
+import sop.enums.SignatureMode;
+import sop.util.UTCUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VerificationParserTest {
+
+    private static final String KEY = "F9E6F53F7201C60A87064EAB0B27F2B0760A1209";
+    private static final String CERT = "4E2C78519512C2AE9A8BFE7EB3298EB2FBE5F51B";
+
+    private static final String LINES =
+            "2022-11-07T15:01:24Z " + KEY + " " + CERT + "\n" +
+            "2022-11-07T15:01:25Z " + KEY + " " + CERT + " mode:binary\r\n" +
+            "\n" +
+            "2022-11-07T15:01:26Z " + KEY + " " + CERT + " mode:text Gr\u00FC\u00DFe  aus {\"signers\": []}\n" +
+            "  2022-11-07T15:01:27Z " + KEY.toLowerCase() + " " + CERT + "   signed by Alice  ";
+
+    @Test
+    public void parseLines() throws ParseException {
+        List<Verification> verifications = new ArrayList<>();
+        new VerificationParser().parse(LINES, line -> verifications.add(line.toVerification()));
+        assertLines(verifications);
+    }
+
+    @Test
+    public void parseByteBuffer() throws ParseException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(LINES.length() * 2);
+        buffer.put(LINES.getBytes(StandardCharsets.UTF_8)).flip();
+
+        List<Verification> verifications = new ArrayList<>();
+        new VerificationParser().parse(buffer, line -> verifications.add(line.toVerification()));
+        assertLines(verifications);
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void parseInputStream() throws IOException, ParseException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            sb.append(LINES).append('\n');
+        }
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        // Deliver the input in small chunks, so that lines span multiple reads
+        InputStream input = new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 37));
+            }
+        };
+
+        List<Verification> verifications = new VerificationParser().parseAll(input);
+        assertEquals(2000, verifications.size());
+        assertLines(verifications.subList(1996, 2000));
+    }
+
+    @Test
+    public void parseLongLine() throws IOException {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            description.append('x');
+        }
+        String line = "2022-11-07T15:01:24Z " + KEY + " " + CERT + " " + description;
+        List<Verification> verifications = new VerificationParser()
+                .parseAll(new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1, verifications.size());
+        assertEquals(description.toString(), verifications.get(0).getJsonOrDescription().get());
+    }
+
+    @Test
+    public void visitorSharesFingerprints() {
+        List<Fingerprint> keys = new ArrayList<>();
+        new VerificationParser().parse(LINES, line -> {
+            keys.add(line.getSigningKey());
+            assertFalse(line.getSigningKey().equals(line.getSigningCert()));
+        });
+        assertEquals(4, keys.size());
+        for (Fingerprint key : keys) {
+            assertSame(keys.get(0), key);
+        }
+    }
+
+    @Test
+    public void descriptionIsMaterializedOnDemand() {
+        List<Boolean> hasDescription = new ArrayList<>();
+        new VerificationParser().parse(LINES, line -> hasDescription.add(line.getHasJsonOrDescription()));
+        assertEquals(List.of(false, false, true, true), hasDescription);
+    }
+
+    @Test
+    public void rejectMalformedLines() {
+        VerificationParser parser = new VerificationParser();
+        assertThrows(IllegalArgumentException.class, () -> parser.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("2022-11-07T15:01:24Z " + KEY));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("yesterday " + KEY + " " + CERT));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("2022-11-07T15:01:24Z " + KEY + "0 " + CERT));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("2022-11-07T15:01:24Z " + KEY + " XX" + CERT));
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.parse("2022-11-07T15:01:24Z " + KEY + " " + CERT + " mode:foo"));
+    }
+
+    @Test
+    public void malformedTimestampKeepsCause() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Verification.fromString("2022-13-07T15:01:24Z " + KEY + " " + CERT));
+        assertTrue(e.getCause() instanceof ParseException);
+    }
+
+    private static void assertLines(List<Verification> verifications) throws ParseException {
+        assertEquals(4, verifications.size());
+
+        Verification first = verifications.get(0);
+        assertEquals(UTCUtil.parseUTCDate("2022-11-07T15:01:24Z"), first.getCreationTime());
+        assertEquals(KEY, first.getSigningKeyFingerprint());
+        assertEquals(CERT, first.getSigningCertFingerprint());
+        assertFalse(first.getSignatureMode().isPresent());
+        assertNull(first.getJsonOrDescription().get());
+
+        Verification second = verifications.get(1);
+        assertEquals(SignatureMode.binary, second.getSignatureMode().get());
+        assertNull(second.getJsonOrDescription().get());
+
+        Verification third = verifications.get(2);
+        assertEquals(SignatureMode.text, third.getSignatureMode().get());
+        assertEquals("Gr\u00FC\u00DFe  aus {\"signers\": []}", third.getJsonOrDescription().get());
+
+        Verification fourth = verifications.get(3);
+        assertEquals(KEY, fourth.getSigningKeyFingerprint());
+        assertFalse(fourth.getSignatureMode().isPresent());
+        assertEquals("signed by Alice", fourth.getJsonOrDescription().get());
+
+        for (Verification verification : verifications) {
+            assertEquals(verification, Verification.fromString(verification.toString()));
+        }
+    }
+}
@@ -0,0 +1,249 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.cache;
+
+import org.junit.jupiter.api.Test;
+import sop.DecryptionResult;
+import sop.ReadyWithResult;
+import sop.SessionKey;
+import sop.exception.SOPGPException;
+import sop.operation.Decrypt;
+import sop.packet.EncryptedMessageHeader;
+import sop.packet.PacketReader;
+import sop.packet.PacketTag;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CachingDecryptTest {
+
+    private static final byte[] KEY = "KEY".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OTHER_KEY = "OTHER".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PLAINTEXT = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+    private static final SessionKey SESSION_KEY = new SessionKey((byte) 9, new byte[] {1, 2, 3, 4});
+
+    /**
+     * Binary message consisting of a v3 PKESK for the given key ID followed by a tiny SEIPD packet.
+     */
+    private static byte[] message(byte keyId) {
+        return new byte[] {
+                (byte) 0xC1, 13, 3, keyId, keyId, keyId, keyId, keyId, keyId, keyId, keyId, 1, 0, 8, (byte) 0xFF,
+                (byte) 0xD2, 3, 1, 2, 3
+        };
+    }
+
+    private static byte[] armor(byte[] binary) {
+        String armored = "-----BEGIN PGP MESSAGE-----\n" +
+                "Comment: test\n" +
+                "\n" +
+                Base64.getMimeEncoder(8, new byte[] {'\n'}).encodeToString(binary) + "\n" +
+                "=AAAA\n" +
+                "-----END PGP MESSAGE-----\n";
+        return armored.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void messageFixtureIsWellFormed() {
+        EncryptedMessageHeader header = EncryptedMessageHeader.read(
+                new PacketReader(new ByteArrayInputStream(message((byte) 1))));
+        assertEquals(1, header.getPackets().size());
+        assertEquals(PacketTag.PKESK, header.getPackets().get(0).getTag());
+        assertEquals(13, header.getPackets().get(0).getBody().length);
+        assertEquals(PacketTag.SEIPD, header.getNext().getTag());
+        assertEquals(3, header.getNext().getLength());
+    }
+
+    @Test
+    public void repeatedDecryptionUsesCachedSessionKey() throws IOException {
+        SessionKeyCache cache = new SessionKeyCache();
+        List<String> calls = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            byte[] plaintext = new CachingDecrypt(new FakeDecrypt(message((byte) 1), calls), cache)
+                    .withKey(KEY)
+                    .ciphertext(message((byte) 1))
+                    .toByteArrayAndResult().getBytes();
+            assertArrayEquals(PLAINTEXT, plaintext);
+        }
+
+        assertEquals(Arrays.asList("key", "session-key", "session-key"), calls);
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    public void armoredMessageIsReplayedUnchanged() throws IOException {
+        SessionKeyCache cache = new SessionKeyCache();
+        List<String> calls = new ArrayList<>();
+        byte[] armored = armor(message((byte) 1));
+
+        new CachingDecrypt(new FakeDecrypt(armored, calls), cache).withKey(KEY).ciphertext(armored)
+                .toByteArrayAndResult();
+        // The binary form of the same message shares the cache entry
+        new CachingDecrypt(new FakeDecrypt(message((byte) 1), calls), cache).withKey(KEY)
+                .ciphertext(message((byte) 1)).toByteArrayAndResult();
+
+        assertEquals(Arrays.asList("key", "session-key"), calls);
+    }
+
+    @Test
+    public void differentCredentialsOrMessageMiss() throws IOException {
+        SessionKeyCache cache = new SessionKeyCache();
+        List<String> calls = new ArrayList<>();
+
+        new CachingDecrypt(new FakeDecrypt(message((byte) 1), calls), cache).withKey(KEY)
+                .ciphertext(message((byte) 1)).toByteArrayAndResult();
+
+        // Someone who does not hold the key cannot profit from the cached session key
+        assertThrows(SOPGPException.CannotDecrypt.class, () ->
+                new CachingDecrypt(new FakeDecrypt(message((byte) 1), calls), cache).withKey(OTHER_KEY)
+                        .ciphertext(message((byte) 1)).toByteArrayAndResult());
+
+        new CachingDecrypt(new FakeDecrypt(message((byte) 2), calls), cache).withKey(KEY)
+                .ciphertext(message((byte) 2)).toByteArrayAndResult();
+
+        assertEquals(Arrays.asList("key", "fail", "key"), calls);
+        assertEquals(2, cache.getSize());
+    }
+
+    @Test
+    public void entriesExpireAndAreEvicted() {
+        SessionKeyCache cache = new SessionKeyCache(2, 1000);
+        SessionKeyCache.Key a = key("a");
+        SessionKeyCache.Key b = key("b");
+        SessionKeyCache.Key c = key("c");
+
+        cache.put(a, SESSION_KEY, 0);
+        assertEquals(SESSION_KEY, cache.get(a, 1000));
+        assertNull(cache.get(a, 1001));
+
+        cache.put(a, SESSION_KEY, 0);
+        cache.put(b, SESSION_KEY, 0);
+        cache.put(c, SESSION_KEY, 0);
+        assertEquals(2, cache.getSize());
+        assertNull(cache.get(a, 0));
+
+        cache.invalidateAll();
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void returnedSessionKeysAreCopies() {
+        SessionKeyCache cache = new SessionKeyCache();
+        SessionKeyCache.Key a = key("a");
+        SessionKey sessionKey = new SessionKey((byte) 9, new byte[] {1, 2, 3, 4});
+
+        cache.put(a, sessionKey);
+        Arrays.fill(sessionKey.getKey(), (byte) 0);
+        SessionKey cached = cache.get(a);
+        assertEquals(SESSION_KEY, cached);
+
+        Arrays.fill(cached.getKey(), (byte) 0);
+        assertEquals(SESSION_KEY, cache.get(a));
+    }
+
+    @Test
+    public void credentialDigestsAreKeyedPerCache() {
+        SessionKeyCache cache = new SessionKeyCache();
+        assertEquals(cache.credentialDigest((byte) 1, KEY), cache.credentialDigest((byte) 1, KEY));
+        assertNotEquals(cache.credentialDigest((byte) 1, KEY), cache.credentialDigest((byte) 2, KEY));
+        assertNotEquals(VerificationCache.Digest.of(KEY), cache.credentialDigest((byte) 1, KEY));
+        assertNotEquals(new SessionKeyCache().credentialDigest((byte) 1, KEY), cache.credentialDigest((byte) 1, KEY));
+    }
+
+    private static SessionKeyCache.Key key(String name) {
+        VerificationCache.Digest digest = VerificationCache.Digest.of(name.getBytes(StandardCharsets.UTF_8));
+        return new SessionKeyCache.Key(digest, digest);
+    }
+
+    /**
+     * Decrypt operation that accepts either {@link #KEY} or {@link #SESSION_KEY} and records which
+     * of the two was used.
+     */
+    private static class FakeDecrypt implements Decrypt {
+
+        private final byte[] expectedCiphertext;
+        private final List<String> calls;
+        private final List<byte[]> keys = new ArrayList<>();
+        private SessionKey sessionKey;
+
+        FakeDecrypt(byte[] expectedCiphertext, List<String> calls) {
+            this.expectedCiphertext = expectedCiphertext;
+            this.calls = calls;
+        }
+
+        @Override
+        public Decrypt verifyNotBefore(Date timestamp) {
+            return this;
+        }
+
+        @Override
+        public Decrypt verifyNotAfter(Date timestamp) {
+            return this;
+        }
+
+        @Override
+        public Decrypt verifyWithCert(InputStream cert) {
+            return this;
+        }
+
+        @Override
+        public Decrypt withSessionKey(SessionKey sessionKey) {
+            this.sessionKey = sessionKey;
+            return this;
+        }
+
+        @Override
+        public Decrypt withPassword(String password) {
+            return this;
+        }
+
+        @Override
+        public Decrypt withKey(InputStream key) throws IOException {
+            keys.add(key.readAllBytes());
+            return this;
+        }
+
+        @Override
+        public Decrypt withKeyPassword(byte[] password) {
+            return this;
+        }
+
+        @Override
+        public ReadyWithResult<DecryptionResult> ciphertext(InputStream ciphertext) throws IOException {
+            assertArrayEquals(expectedCiphertext, ciphertext.readAllBytes());
+            if (SESSION_KEY.equals(sessionKey)) {
+                calls.add("session-key");
+            } else if (keys.stream().anyMatch(k -> Arrays.equals(KEY, k))) {
+                calls.add("key");
+            } else {
+                calls.add("fail");
+                throw new SOPGPException.CannotDecrypt();
+            }
+            return new ReadyWithResult<DecryptionResult>() {
+                @Override
+                public DecryptionResult writeTo(OutputStream outputStream) throws IOException {
+                    outputStream.write(PLAINTEXT);
+                    return new DecryptionResult(SESSION_KEY, Collections.emptyList());
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,309 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.cache;
+
+import org.junit.jupiter.api.Test;
+import sop.ByteArrayAndResult;
+import sop.ReadyWithResult;
+import sop.Verification;
+import sop.exception.SOPGPException;
+import sop.operation.DetachedVerify;
+import sop.operation.InlineVerify;
+import sop.operation.VerifySignatures;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class VerificationCacheTest {
+
+    private static final byte[] CERT = "CERT".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OTHER_CERT = "OTHER".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SIG = "SIG".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DATA = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+
+    private static final Date SIG_CREATION = new Date(1_000_000_000_000L);
+    private static final Verification VERIFICATION = new Verification(SIG_CREATION,
+            "F9E6F53F7201C60A87064EAB0B27F2B0760A1209",
+            "4E2C78519512C2AE9A8BFE7EB3298EB2FBE5F51B");
+
+    @Test
+    public void repeatedVerificationHitsCache() throws IOException {
+        VerificationCache cache = new VerificationCache();
+        CountingVerify backend = new CountingVerify();
+
+        for (int i = 0; i < 3; i++) {
+            List<Verification> result = new CachingDetachedVerify(backend, cache)
+                    .cert(CERT)
+                    .signatures(SIG)
+                    .data(DATA);
+            assertEquals(Collections.singletonList(VERIFICATION), result);
+        }
+
+        assertEquals(1, backend.invocations);
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    public void largeStreamIsReplayedOnMissAndSkippedOnHit() throws IOException {
+        VerificationCache cache = new VerificationCache();
+        CountingVerify backend = new CountingVerify();
+        byte[] data = new byte[CachingDetachedVerify.MEMORY_THRESHOLD * 3 + 17];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        for (int i = 0; i < 3; i++) {
+            List<Verification> result = new CachingDetachedVerify(backend, cache)
+                    .cert(CERT)
+                    .signatures(SIG)
+                    .data(new ByteArrayInputStream(data));
+            assertEquals(Collections.singletonList(VERIFICATION), result);
+        }
+
+        assertEquals(1, backend.invocations);
+        assertArrayEquals(data, backend.lastData);
+        // Streamed and in-memory data share cache entries
+        new CachingDetachedVerify(backend, cache).cert(CERT).signatures(SIG).data(data);
+        assertEquals(1, backend.invocations);
+    }
+
+    @Test
+    public void differentCertSetMisses() throws IOException {
+        VerificationCache cache = new VerificationCache();
+        CountingVerify backend = new CountingVerify();
+
+        new CachingDetachedVerify(backend, cache).cert(CERT).signatures(SIG).data(DATA);
+        new CachingDetachedVerify(backend, cache).cert(CERT).cert(OTHER_CERT).signatures(SIG).data(DATA);
+        // order of certs does not matter
+        new CachingDetachedVerify(backend, cache).cert(OTHER_CERT).cert(CERT).signatures(SIG).data(DATA);
+
+        assertEquals(2, backend.invocations);
+    }
+
+    @Test
+    public void narrowerWindowIsServedFromCache() throws IOException {
+        VerificationCache cache = new VerificationCache();
+        CountingVerify backend = new CountingVerify();
+
+        new CachingDetachedVerify(backend, cache)
+                .notBefore(new Date(0))
+                .notAfter(new Date(2_000_000_000_000L))
+                .cert(CERT).signatures(SIG).data(DATA);
+
+        List<Verification> result = new CachingDetachedVerify(backend, cache)
+                .notBefore(new Date(500_000_000_000L))
+                .notAfter(new Date(1_500_000_000_000L))
+                .cert(CERT).signatures(SIG).data(DATA);
+        assertEquals(Collections.singletonList(VERIFICATION), result);
+        assertEquals(1, backend.invocations);
+
+        // Window excludes the signature
+        assertThrows(SOPGPException.NoSignature.class, () -> new CachingDetachedVerify(backend, cache)
+                .notBefore(new Date(1_200_000_000_000L))
+                .notAfter(new Date(1_500_000_000_000L))
+                .cert(CERT).signatures(SIG).data(DATA));
+        assertEquals(1, backend.invocations);
+    }
+
+    @Test
+    public void widerWindowMisses() throws IOException {
+        VerificationCache cache = new VerificationCache();
+        CountingVerify backend = new CountingVerify();
+
+        new CachingDetachedVerify(backend, cache)
+                .notBefore(new Date(500_000_000_000L))
+                .cert(CERT).signatures(SIG).data(DATA);
+        new CachingDetachedVerify(backend, cache)
+                .cert(CERT).signatures(SIG).data(DATA);
+
+        assertEquals(2, backend.invocations);
+    }
+
+    @Test
+    public void invalidateCertDropsEntries() throws IOException {
+        VerificationCache cache = new VerificationCache();
+        CountingVerify backend = new CountingVerify();
+
+        new CachingDetachedVerify(backend, cache).cert(CERT).signatures(SIG).data(DATA);
+        new CachingDetachedVerify(backend, cache).cert(OTHER_CERT).signatures(SIG).data(DATA);
+        assertEquals(2, cache.getSize());
+
+        cache.invalidateCert(CERT);
+        assertEquals(1, cache.getSize());
+
+        new CachingDetachedVerify(backend, cache).cert(CERT).signatures(SIG).data(DATA);
+        assertEquals(3, backend.invocations);
+    }
+
+    @Test
+    public void cacheIsBounded() throws IOException {
+        VerificationCache cache = new VerificationCache(2);
+        CountingVerify backend = new CountingVerify();
+
+        for (int i = 0; i < 5; i++) {
+            new CachingDetachedVerify(backend, cache).cert(CERT).signatures(SIG).data(new byte[] {(byte) i});
+        }
+        assertEquals(2, cache.getSize());
+    }
+
+    @Test
+    public void expiredEntryIsDropped() {
+        VerificationCache cache = new VerificationCache(10, 1000);
+        VerificationCache.Key key = new VerificationCache.Key(
+                VerificationCache.Digest.of(SIG),
+                VerificationCache.Digest.of(DATA),
+                Collections.singleton(VerificationCache.Digest.of(CERT)));
+        cache.put(key, null, null, Collections.singletonList(VERIFICATION), new Date(2_000_000_000_000L));
+
+        assertEquals(Collections.singletonList(VERIFICATION), cache.get(key, null, null, new Date(2_000_000_000_500L)));
+        assertNull(cache.get(key, null, null, new Date(2_000_000_002_000L)));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void repeatedInlineVerificationHitsCache() throws IOException {
+        VerificationCache cache = new VerificationCache();
+        CountingInlineVerify backend = new CountingInlineVerify();
+
+        for (int i = 0; i < 3; i++) {
+            ByteArrayAndResult<List<Verification>> result = new CachingInlineVerify(backend, cache)
+                    .cert(CERT)
+                    .data(new ByteArrayInputStream(SIG))
+                    .toByteArrayAndResult();
+            assertArrayEquals(DATA, result.getBytes());
+            assertEquals(Collections.singletonList(VERIFICATION), result.getResult());
+        }
+
+        assertEquals(1, backend.invocations);
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    public void inlineAndDetachedResultsAreSeparate() throws IOException {
+        VerificationCache cache = new VerificationCache();
+        CountingVerify detached = new CountingVerify();
+        CountingInlineVerify inline = new CountingInlineVerify();
+
+        new CachingInlineVerify(inline, cache).cert(CERT).data(SIG).toByteArrayAndResult();
+        // Same bytes passed as signatures and data of a detached verification
+        new CachingDetachedVerify(detached, cache).cert(CERT).signatures(SIG).data(SIG);
+
+        assertEquals(1, detached.invocations);
+        assertEquals(2, cache.getSize());
+    }
+
+    @Test
+    public void inlineWindowExcludingSignatureThrowsOnHit() throws IOException {
+        VerificationCache cache = new VerificationCache();
+        CountingInlineVerify backend = new CountingInlineVerify();
+
+        new CachingInlineVerify(backend, cache)
+                .notBefore(new Date(0))
+                .notAfter(new Date(2_000_000_000_000L))
+                .cert(CERT).data(SIG).toByteArrayAndResult();
+
+        ReadyWithResult<List<Verification>> ready = new CachingInlineVerify(backend, cache)
+                .notBefore(new Date(1_200_000_000_000L))
+                .notAfter(new Date(1_500_000_000_000L))
+                .cert(CERT).data(SIG);
+        assertThrows(SOPGPException.NoSignature.class, ready::toByteArrayAndResult);
+        assertEquals(1, backend.invocations);
+    }
+
+    @Test
+    public void largeInlineMessageIsNotCached() throws IOException {
+        VerificationCache cache = new VerificationCache();
+        CountingInlineVerify backend = new CountingInlineVerify();
+        byte[] message = new byte[CachingInlineVerify.MEMORY_THRESHOLD + 1];
+
+        for (int i = 0; i < 2; i++) {
+            new CachingInlineVerify(backend, cache).cert(CERT)
+                    .data(new ByteArrayInputStream(message))
+                    .toByteArrayAndResult();
+        }
+
+        assertEquals(2, backend.invocations);
+        assertArrayEquals(message, backend.lastMessage);
+        assertEquals(0, cache.getSize());
+    }
+
+    private static class CountingInlineVerify implements InlineVerify {
+
+        int invocations = 0;
+        byte[] lastMessage;
+
+        @Override
+        public InlineVerify notBefore(Date timestamp) {
+            return this;
+        }
+
+        @Override
+        public InlineVerify notAfter(Date timestamp) {
+            return this;
+        }
+
+        @Override
+        public InlineVerify cert(InputStream cert) {
+            return this;
+        }
+
+        @Override
+        public ReadyWithResult<List<Verification>> data(InputStream data) throws IOException {
+            invocations++;
+            lastMessage = data.readAllBytes();
+            return new ReadyWithResult<List<Verification>>() {
+                @Override
+                public List<Verification> writeTo(OutputStream outputStream) throws IOException {
+                    outputStream.write(DATA);
+                    return Collections.singletonList(VERIFICATION);
+                }
+            };
+        }
+    }
+
+    private static class CountingVerify implements DetachedVerify {
+
+        int invocations = 0;
+        byte[] lastData;
+
+        @Override
+        public DetachedVerify notBefore(Date timestamp) {
+            return this;
+        }
+
+        @Override
+        public DetachedVerify notAfter(Date timestamp) {
+            return this;
+        }
+
+        @Override
+        public DetachedVerify cert(InputStream cert) {
+            return this;
+        }
+
+        @Override
+        public VerifySignatures signatures(InputStream signatures) {
+            return this;
+        }
+
+        @Override
+        public List<Verification> data(InputStream data) throws IOException {
+            invocations++;
+            lastData = data.readAllBytes();
+            return Collections.singletonList(VERIFICATION);
+        }
+    }
+}
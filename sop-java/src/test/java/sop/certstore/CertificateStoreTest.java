@@ -0,0 +1,263 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.certstore;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import sop.Ready;
+import sop.SOP;
+import sop.exception.SOPGPException;
+import sop.operation.MergeCerts;
+import sop.packet.TransferableKey;
+import sop.testsuite.TestData;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CertificateStoreTest {
+
+    // Padding packet, used to create a modified copy of a certificate
+    private static final byte[] PADDING = new byte[] {(byte) 0xD5, 1, 0};
+
+    private Path directory;
+
+    @BeforeEach
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("sop-cert-store");
+    }
+
+    @AfterEach
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static TransferableKey cert(String armored) {
+        return TransferableKey.split(new ByteArrayInputStream(armored.getBytes(StandardCharsets.UTF_8))).get(0);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(first);
+        out.writeBytes(second);
+        return out.toByteArray();
+    }
+
+    private static byte[] keyring(String... armored) {
+        return String.join("", armored).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void lookupByPrimaryKeyAndSubkeyFingerprint() throws IOException {
+        TransferableKey alice = cert(TestData.ALICE_CERT);
+        String subkey = alice.getComponents().get(1).getFingerprint();
+
+        try (CertificateStore store = CertificateStore.open(directory)) {
+            List<String> added = store.add(keyring(TestData.ALICE_CERT, TestData.BOB_CERT, TestData.CAROL_CERT));
+
+            assertEquals(Arrays.asList(TestData.ALICE_PRIMARY_FINGERPRINT, TestData.BOB_PRIMARY_FINGERPRINT,
+                    TestData.CAROL_PRIMARY_FINGERPRINT), added);
+            assertEquals(3, store.getSize());
+            assertArrayEquals(alice.getEncoded(), bytes(store.get(TestData.ALICE_PRIMARY_FINGERPRINT)));
+            assertArrayEquals(alice.getEncoded(), bytes(store.get(subkey.toLowerCase())));
+            assertArrayEquals(alice.getEncoded(), store.open(subkey).readAllBytes());
+            assertTrue(store.contains(TestData.CAROL_PRIMARY_FINGERPRINT));
+            assertTrue(store.get(TestData.BOB_PRIMARY_FINGERPRINT).isReadOnly());
+        }
+    }
+
+    @Test
+    public void unknownFingerprint() throws IOException {
+        try (CertificateStore store = CertificateStore.open(directory)) {
+            store.add(keyring(TestData.ALICE_CERT));
+
+            assertNull(store.get(TestData.BOB_PRIMARY_FINGERPRINT));
+            assertNull(store.get("not a fingerprint"));
+            assertFalse(store.contains(TestData.BOB_PRIMARY_FINGERPRINT));
+            assertThrows(SOPGPException.MissingInput.class, () -> store.open(TestData.BOB_PRIMARY_FINGERPRINT));
+        }
+    }
+
+    @Test
+    public void secretKeysAreRejected() throws IOException {
+        try (CertificateStore store = CertificateStore.open(directory)) {
+            assertThrows(SOPGPException.BadData.class, () -> store.add(keyring(TestData.ALICE_KEY)));
+            assertEquals(0, store.getSize());
+        }
+    }
+
+    @Test
+    public void storeIsPersistent() throws IOException {
+        try (CertificateStore store = CertificateStore.open(directory)) {
+            store.add(keyring(TestData.ALICE_CERT, TestData.BOB_CERT));
+        }
+        try (CertificateStore store = CertificateStore.open(directory)) {
+            assertEquals(2, store.getSize());
+            assertArrayEquals(cert(TestData.BOB_CERT).getEncoded(), bytes(store.get(TestData.BOB_PRIMARY_FINGERPRINT)));
+        }
+    }
+
+    @Test
+    public void missingIndexIsRebuilt() throws IOException {
+        try (CertificateStore store = CertificateStore.open(directory)) {
+            store.add(keyring(TestData.ALICE_CERT, TestData.BOB_CERT));
+        }
+        Files.delete(directory.resolve(CertificateStore.INDEX_FILE));
+
+        try (CertificateStore store = CertificateStore.open(directory)) {
+            assertEquals(new HashSet<>(Arrays.asList(TestData.ALICE_PRIMARY_FINGERPRINT, TestData.BOB_PRIMARY_FINGERPRINT)),
+                    new HashSet<>(store.fingerprints()));
+            assertArrayEquals(cert(TestData.ALICE_CERT).getEncoded(),
+                    bytes(store.get(TestData.ALICE_PRIMARY_FINGERPRINT)));
+        }
+    }
+
+    @Test
+    public void interruptedAddIsDiscarded() throws IOException {
+        try (CertificateStore store = CertificateStore.open(directory)) {
+            store.add(keyring(TestData.ALICE_CERT));
+        }
+        Path pack = directory.resolve(CertificateStore.PACK_FILE);
+        long length = Files.size(pack);
+        Files.write(pack, new byte[] {(byte) 0xC6, 0x7F, 4}, StandardOpenOption.APPEND);
+
+        try (CertificateStore store = CertificateStore.open(directory)) {
+            assertEquals(length, Files.size(pack));
+            assertEquals(1, store.getSize());
+            store.add(keyring(TestData.BOB_CERT));
+            assertEquals(2, store.getSize());
+        }
+    }
+
+    @Test
+    public void identicalCopyIsNotStoredAgain() throws IOException {
+        try (CertificateStore store = CertificateStore.open(directory)) {
+            store.add(keyring(TestData.ALICE_CERT));
+            long length = Files.size(directory.resolve(CertificateStore.PACK_FILE));
+
+            assertEquals(Collections.emptyList(), store.add(keyring(TestData.ALICE_CERT)));
+            assertEquals(length, Files.size(directory.resolve(CertificateStore.PACK_FILE)));
+        }
+    }
+
+    @Test
+    public void updatesAreMergedAndCompacted() throws IOException {
+        RecordingMergeCerts merge = new RecordingMergeCerts();
+        byte[] alice = cert(TestData.ALICE_CERT).getEncoded();
+        byte[] update = concat(alice, PADDING);
+
+        try (CertificateStore store = CertificateStore.open(directory, fakeSop(merge))) {
+            store.add(keyring(TestData.ALICE_CERT, TestData.BOB_CERT));
+            assertEquals(Collections.singletonList(TestData.ALICE_PRIMARY_FINGERPRINT), store.add(update));
+
+            assertArrayEquals(alice, merge.base);
+            assertArrayEquals(update, merge.updates);
+            assertArrayEquals(update, bytes(store.get(TestData.ALICE_PRIMARY_FINGERPRINT)));
+            assertEquals(2, store.getSize());
+
+            Path pack = directory.resolve(CertificateStore.PACK_FILE);
+            long before = Files.size(pack);
+            store.compact();
+            assertEquals(before - alice.length, Files.size(pack));
+            assertArrayEquals(update, bytes(store.get(TestData.ALICE_PRIMARY_FINGERPRINT)));
+            assertArrayEquals(cert(TestData.BOB_CERT).getEncoded(), bytes(store.get(TestData.BOB_PRIMARY_FINGERPRINT)));
+        }
+        try (CertificateStore store = CertificateStore.open(directory)) {
+            assertArrayEquals(update, bytes(store.get(TestData.ALICE_PRIMARY_FINGERPRINT)));
+        }
+    }
+
+    @Test
+    @DisabledOnOs(value = OS.WINDOWS, disabledReason = "Mapped files cannot be replaced")
+    public void viewsStayValidAfterCompaction() throws IOException {
+        byte[] alice = cert(TestData.ALICE_CERT).getEncoded();
+        byte[] bob = cert(TestData.BOB_CERT).getEncoded();
+
+        try (CertificateStore store = CertificateStore.open(directory)) {
+            store.add(keyring(TestData.ALICE_CERT, TestData.BOB_CERT));
+            ByteBuffer aliceView = store.get(TestData.ALICE_PRIMARY_FINGERPRINT);
+            ByteBuffer bobView = store.get(TestData.BOB_PRIMARY_FINGERPRINT);
+
+            store.add(concat(alice, PADDING));
+            store.compact();
+
+            assertArrayEquals(alice, bytes(aliceView));
+            assertArrayEquals(bob, bytes(bobView));
+        }
+    }
+
+    private static SOP fakeSop(MergeCerts mergeCerts) {
+        return (SOP) Proxy.newProxyInstance(SOP.class.getClassLoader(), new Class[] {SOP.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("mergeCerts")) {
+                        return mergeCerts;
+                    }
+                    throw new SOPGPException.UnsupportedSubcommand(method.getName());
+                });
+    }
+
+    /**
+     * MergeCerts operation which records its input and returns the update.
+     */
+    private static class RecordingMergeCerts implements MergeCerts {
+
+        private byte[] updates;
+        private byte[] base;
+
+        @Override
+        public MergeCerts noArmor() {
+            return this;
+        }
+
+        @Override
+        public MergeCerts updates(InputStream updateCerts) throws IOException {
+            updates = updateCerts.readAllBytes();
+            return this;
+        }
+
+        @Override
+        public Ready baseCertificates(InputStream certs) throws IOException {
+            base = certs.readAllBytes();
+            return new Ready() {
+                @Override
+                public void writeTo(OutputStream outputStream) throws IOException {
+                    outputStream.write(updates);
+                }
+            };
+        }
+    }
+}
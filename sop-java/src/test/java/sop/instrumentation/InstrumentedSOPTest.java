@@ -0,0 +1,180 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation;
+
+import org.junit.jupiter.api.Test;
+import sop.Ready;
+import sop.SOP;
+import sop.exception.SOPGPException;
+import sop.instrumentation.metrics.JmxMetricsRegistry;
+import sop.instrumentation.metrics.MetricsOperationListener;
+import sop.instrumentation.metrics.SimpleMetricsRegistry;
+import sop.operation.Armor;
+import sop.operation.Dearmor;
+
+import javax.management.MBeanServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InstrumentedSOPTest {
+
+    private static final byte[] DATA = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Armor just copies the input, dearmor always fails with BadData.
+     */
+    private static SOP fakeSop() {
+        Armor armor = data -> new Ready() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                byte[] bytes = data.readAllBytes();
+                outputStream.write(bytes);
+            }
+        };
+        Dearmor dearmor = data -> {
+            throw new SOPGPException.BadData("Not armored.");
+        };
+        return (SOP) Proxy.newProxyInstance(SOP.class.getClassLoader(), new Class[] {SOP.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "armor":
+                            return armor;
+                        case "dearmor":
+                            return dearmor;
+                        default:
+                            throw new SOPGPException.UnsupportedSubcommand(method.getName());
+                    }
+                });
+    }
+
+    @Test
+    public void listenerObservesLifecycle() throws IOException {
+        List<String> events = new ArrayList<>();
+        OperationListener listener = new OperationListener() {
+            @Override
+            public void onStart(OperationContext context) {
+                events.add("start " + context.getSubcommand());
+            }
+
+            @Override
+            public void onFirstByte(OperationContext context) {
+                events.add("first byte");
+            }
+
+            @Override
+            public void onFinish(OperationContext context, Throwable error) {
+                events.add("finish in=" + context.getBytesIn() + " out=" + context.getBytesOut() + " error=" + error);
+            }
+        };
+
+        SOP sop = new InstrumentedSOP(fakeSop(), listener);
+        Ready ready = sop.armor().data(DATA);
+        assertEquals(Collections.singletonList("start armor"), events);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ready.writeTo(out);
+        assertArrayEquals(DATA, out.toByteArray());
+        assertEquals(3, events.size());
+        assertEquals("first byte", events.get(1));
+        assertEquals("finish in=14 out=14 error=null", events.get(2));
+    }
+
+    @Test
+    public void metricsAreRecorded() throws IOException {
+        SimpleMetricsRegistry registry = new SimpleMetricsRegistry();
+        SOP sop = new InstrumentedSOP(fakeSop(), registry);
+
+        sop.armor().data(DATA).getBytes();
+        sop.armor().data(DATA).getBytes();
+        assertThrows(SOPGPException.BadData.class, () -> sop.dearmor().data(DATA));
+
+        Map<String, String> armor = Collections.singletonMap(MetricsOperationListener.TAG_SUBCOMMAND, "armor");
+        assertEquals(2, registry.histogram(MetricsOperationListener.DURATION, armor).getCount());
+        assertEquals(2, registry.histogram(MetricsOperationListener.TIME_TO_FIRST_BYTE, armor).getCount());
+        assertEquals(28, registry.counter(MetricsOperationListener.BYTES_IN, armor).getValue());
+        assertEquals(28, registry.counter(MetricsOperationListener.BYTES_OUT, armor).getValue());
+        assertEquals(0, registry.gauge(MetricsOperationListener.IN_FLIGHT, armor).getValue());
+
+        Map<String, String> dearmorBadData = Map.of(
+                MetricsOperationListener.TAG_SUBCOMMAND, "dearmor",
+                MetricsOperationListener.TAG_EXIT_CODE, Integer.toString(SOPGPException.BadData.EXIT_CODE));
+        assertEquals(1, registry.counter(MetricsOperationListener.ERRORS, dearmorBadData).getValue());
+    }
+
+    @Test
+    public void inFlightGaugeTracksUnfinishedOperations() throws IOException {
+        SimpleMetricsRegistry registry = new SimpleMetricsRegistry();
+        SOP sop = new InstrumentedSOP(fakeSop(), registry);
+
+        Ready first = sop.armor().data(DATA);
+        Ready second = sop.armor().data(DATA);
+        Map<String, String> armor = Collections.singletonMap(MetricsOperationListener.TAG_SUBCOMMAND, "armor");
+        assertEquals(2, registry.gauge(MetricsOperationListener.IN_FLIGHT, armor).getValue());
+
+        first.getBytes();
+        second.getBytes();
+        assertEquals(0, registry.gauge(MetricsOperationListener.IN_FLIGHT, armor).getValue());
+    }
+
+    @Test
+    public void abandonedOperationIsFinishedWhenCollected() throws IOException, InterruptedException {
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        SOP sop = new InstrumentedSOP(fakeSop(), new OperationListener() {
+            @Override
+            public void onFinish(OperationContext context, Throwable error) {
+                errors.add(error);
+            }
+        });
+
+        sop.armor().data(DATA);
+        for (int i = 0; i < 100 && errors.isEmpty(); i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof OperationAbandonedException);
+    }
+
+    @Test
+    public void histogramPercentiles() {
+        SimpleMetricsRegistry.SimpleHistogram histogram = new SimpleMetricsRegistry.SimpleHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean(), 0.0001);
+        long p50 = histogram.percentile(0.5);
+        assertTrue(p50 >= 50 && p50 < 100, "p50 was " + p50);
+        assertEquals(100, histogram.percentile(1.0));
+    }
+
+    @Test
+    public void metricsAreExposedViaJmx() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try (JmxMetricsRegistry registry = new JmxMetricsRegistry(server, "sop.test")) {
+            SOP sop = new InstrumentedSOP(fakeSop(), registry);
+            sop.armor().data(DATA).getBytes();
+
+            assertEquals(1L, server.getAttribute(registry.objectName("armor"), "Invocations"));
+            assertEquals(14L, server.getAttribute(registry.objectName("armor"), "BytesOut"));
+        }
+        assertTrue(server.queryNames(new javax.management.ObjectName("sop.test:*"), null).isEmpty());
+    }
+}
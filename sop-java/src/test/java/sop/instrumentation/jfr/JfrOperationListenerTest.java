@@ -0,0 +1,95 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import sop.Ready;
+import sop.SOP;
+import sop.exception.SOPGPException;
+import sop.instrumentation.InstrumentedSOP;
+import sop.instrumentation.OperationListener;
+import sop.operation.Armor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class JfrOperationListenerTest {
+
+    private static final byte[] DATA = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+
+    private static SOP armorOnlySop() {
+        Armor armor = data -> new Ready() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                outputStream.write(data.readAllBytes());
+            }
+        };
+        return (SOP) Proxy.newProxyInstance(SOP.class.getClassLoader(), new Class[] {SOP.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("armor")) {
+                        return armor;
+                    }
+                    throw new SOPGPException.UnsupportedSubcommand(method.getName());
+                });
+    }
+
+    @Test
+    public void operationAndKeyMaterialEventsAreRecorded() throws IOException {
+        JfrOperationListener listener = new JfrOperationListener();
+        SOP sop = new InstrumentedSOP(armorOnlySop(), listener);
+
+        Path file = Files.createTempFile("sop-jfr", ".jfr");
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(OperationEvent.class);
+            recording.enable(KeyMaterialEvent.class);
+            recording.start();
+
+            sop.armor().data(DATA).getBytes();
+            listener.onIngest("sign", OperationListener.KIND_KEY, 42);
+
+            recording.stop();
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        List<RecordedEvent> operations = new ArrayList<>();
+        List<RecordedEvent> keyMaterial = new ArrayList<>();
+        for (RecordedEvent event : events) {
+            String name = event.getEventType().getName();
+            if (name.equals("sop.Operation")) {
+                operations.add(event);
+            } else if (name.equals("sop.KeyMaterial")) {
+                keyMaterial.add(event);
+            }
+        }
+
+        assertEquals(1, operations.size());
+        RecordedEvent operation = operations.get(0);
+        assertEquals("armor", operation.getString("subcommand"));
+        assertEquals(14L, operation.getLong("bytesIn"));
+        assertEquals(14L, operation.getLong("bytesOut"));
+        assertEquals(JfrOperationListener.OUTCOME_SUCCESS, operation.getString("outcome"));
+        assertEquals(0, operation.getInt("exitCode"));
+
+        assertEquals(1, keyMaterial.size());
+        assertEquals("sign", keyMaterial.get(0).getString("subcommand"));
+        assertEquals("key", keyMaterial.get(0).getString("kind"));
+        assertEquals(42L, keyMaterial.get(0).getLong("size"));
+    }
+}
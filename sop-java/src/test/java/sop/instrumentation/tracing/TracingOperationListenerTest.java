@@ -0,0 +1,132 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.instrumentation.tracing;
+
+import org.junit.jupiter.api.Test;
+import sop.Ready;
+import sop.SOP;
+import sop.exception.SOPGPException;
+import sop.instrumentation.InstrumentedSOP;
+import sop.operation.Armor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TracingOperationListenerTest {
+
+    private static final byte[] DATA = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Armor copies the input and records the current trace context both when the operation is
+     * created and when the result is written.
+     */
+    private static SOP armorOnlySop(List<TraceContext> observed) {
+        Armor armor = data -> {
+            observed.add(TraceContext.current());
+            return new Ready() {
+                @Override
+                public void writeTo(OutputStream outputStream) throws IOException {
+                    observed.add(TraceContext.current());
+                    outputStream.write(data.readAllBytes());
+                }
+            };
+        };
+        return (SOP) Proxy.newProxyInstance(SOP.class.getClassLoader(), new Class[] {SOP.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("armor")) {
+                        return armor;
+                    }
+                    throw new SOPGPException.UnsupportedSubcommand(method.getName());
+                });
+    }
+
+    @Test
+    public void parseAndFormatTraceparent() {
+        String traceparent = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+        TraceContext context = TraceContext.parse(traceparent);
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", context.getTraceId());
+        assertEquals("00f067aa0ba902b7", context.getSpanId());
+        assertEquals(traceparent, context.toTraceparent());
+
+        assertFalse(TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00").getSampled());
+        // future versions may append fields
+        assertEquals(context, TraceContext.parse(traceparent.replaceFirst("00", "01") + "-what-the-future-holds"));
+    }
+
+    @Test
+    public void rejectMalformedTraceparent() {
+        assertNull(TraceContext.parse(null));
+        assertNull(TraceContext.parse(""));
+        assertNull(TraceContext.parse("00-00000000000000000000000000000000-00f067aa0ba902b7-01"));
+        assertNull(TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-0000000000000000-01"));
+        assertNull(TraceContext.parse("00-4BF92F3577B34DA6A3CE929D0E0E4736-00f067aa0ba902b7-01"));
+        assertNull(TraceContext.parse("ff-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"));
+        assertNull(TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01-extra"));
+    }
+
+    @Test
+    public void newContextsAreValid() {
+        TraceContext root = TraceContext.newRoot();
+        TraceContext child = root.newChild();
+        assertEquals(root.getTraceId(), child.getTraceId());
+        assertNotEquals(root.getSpanId(), child.getSpanId());
+        assertEquals(root, TraceContext.parse(root.toTraceparent()));
+    }
+
+    @Test
+    public void spanIsChildOfCurrentContextAndCurrentDuringExecution() throws IOException {
+        InMemoryTracer tracer = new InMemoryTracer();
+        List<TraceContext> observed = new ArrayList<>();
+        SOP sop = new InstrumentedSOP(armorOnlySop(observed), new TracingOperationListener(tracer));
+
+        TraceContext parent = TraceContext.newRoot();
+        try (TraceContext.Scope ignored = TraceContext.makeCurrent(parent)) {
+            sop.armor().data(DATA).getBytes();
+            assertSame(parent, TraceContext.current());
+        }
+        assertNull(TraceContext.current());
+
+        assertEquals(1, tracer.getFinishedSpans().size());
+        InMemoryTracer.RecordedSpan span = tracer.getFinishedSpans().get(0);
+        assertEquals("sop armor", span.getName());
+        assertEquals(parent.getTraceId(), span.getContext().getTraceId());
+        assertEquals(parent.getSpanId(), span.getParentSpanId());
+        assertEquals("armor", span.getAttributes().get(TracingOperationListener.ATTR_SUBCOMMAND));
+        assertEquals("14", span.getAttributes().get(TracingOperationListener.ATTR_BYTES_OUT));
+        assertNull(span.getError());
+
+        assertEquals(2, observed.size());
+        assertEquals(span.getContext(), observed.get(0));
+        assertEquals(span.getContext(), observed.get(1));
+    }
+
+    @Test
+    public void failedOperationRecordsError() {
+        Armor failingArmor = data -> {
+            throw new SOPGPException.BadData("Bad.");
+        };
+        SOP failingSop = (SOP) Proxy.newProxyInstance(SOP.class.getClassLoader(), new Class[] {SOP.class},
+                (proxy, method, args) -> failingArmor);
+        InMemoryTracer tracer = new InMemoryTracer();
+        SOP sop = new InstrumentedSOP(failingSop, new TracingOperationListener(tracer));
+
+        assertThrows(SOPGPException.BadData.class, () -> sop.armor().data(DATA));
+        assertNull(TraceContext.current());
+        assertEquals(1, tracer.getFinishedSpans().size());
+        assertTrue(tracer.getFinishedSpans().get(0).getError() instanceof SOPGPException.BadData);
+    }
+}
@@ -0,0 +1,128 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.json;
+
+import org.junit.jupiter.api.Test;
+import sop.Verification;
+
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JSONCodecTest {
+
+    @Test
+    public void serializeSigners() {
+        assertEquals("{\"signers\":[\"/tmp/alice.pgp\",\"/tmp/bob.asc\"]}",
+                JSONCodec.INSTANCE.serialize(new Verification.JSON(Arrays.asList("/tmp/alice.pgp", "/tmp/bob.asc"))));
+        assertEquals("{\"signers\":[]}",
+                JSONCodec.INSTANCE.serialize(new Verification.JSON(Collections.emptyList())));
+    }
+
+    @Test
+    public void serializeCommentAndExt() {
+        Map<String, Object> ext = new LinkedHashMap<>();
+        ext.put("list", Arrays.asList(1, 2.5, true, null));
+        ext.put("nested", Collections.singletonMap("key", "value"));
+        Verification.JSON json = new Verification.JSON(
+                Collections.singletonList("alice.pgp"), "Quote \" backslash \\ newline \n tab \t bell \u0007", ext);
+
+        String string = JSONCodec.INSTANCE.serialize(json);
+        assertEquals("{\"signers\":[\"alice.pgp\"]," +
+                "\"comment\":\"Quote \\\" backslash \\\\ newline \\n tab \\t bell \\u0007\"," +
+                "\"ext\":{\"list\":[1,2.5,true,null],\"nested\":{\"key\":\"value\"}}}", string);
+    }
+
+    @Test
+    public void roundTrip() throws ParseException {
+        Map<String, Object> ext = new LinkedHashMap<>();
+        ext.put("int", 42L);
+        ext.put("negative", -7L);
+        ext.put("double", 1.0);
+        ext.put("exp", 1.5e300);
+        ext.put("big", 12345678901234567890.0);
+        ext.put("list", Arrays.asList("a", false, null));
+        ext.put("unicode", "Gr\u00FC\u00DFe \uD83D\uDD11");
+        Verification.JSON before = new Verification.JSON(
+                Arrays.asList("alice.pgp", "bob.pgp"), "comment", ext);
+
+        Verification.JSON after = JSONCodec.INSTANCE.parse(JSONCodec.INSTANCE.serialize(before));
+        assertEquals(before, after);
+    }
+
+    @Test
+    public void parseWhitespaceEscapesAndUnknownFields() throws ParseException {
+        String string = " {\n \"version\" : [ 1, {\"a\": {}} ] , \"signers\" : [ \"al\\u0069ce\\/x\" , null ] ," +
+                " \"comment\" : null , \"ext\" : [ ] } ";
+        Verification.JSON json = JSONCodec.INSTANCE.parse(string);
+        assertEquals(Collections.singletonList("alice/x"), json.getSigners());
+        assertNull(json.getComment());
+        assertEquals(Collections.emptyList(), json.getExt());
+    }
+
+    @Test
+    public void parseNumbers() throws ParseException {
+        List<?> ext = (List<?>) JSONCodec.INSTANCE.parse(
+                "{\"ext\":[0,-0,123,-123,1.5,1e3,-2E-2,9223372036854775807999]}").getExt();
+        assertEquals(Arrays.asList(0L, 0L, 123L, -123L, 1.5, 1000.0, -0.02, 9.223372036854776E21), ext);
+    }
+
+    @Test
+    public void parseMissingSigners() throws ParseException {
+        assertEquals(new Verification.JSON(Collections.emptyList(), "c", null),
+                JSONCodec.INSTANCE.parse("{\"comment\":\"c\"}"));
+    }
+
+    @Test
+    public void rejectMalformedJson() {
+        for (String string : Arrays.asList(
+                "", "Invalid", "null", "[]", "{", "{\"signers\":[\"Alice\"]",
+                "{\"signers\":[\"Alice\"]} trailing", "{\"signers\":[1]}", "{\"signers\":\"Alice\"}",
+                "{\"comment\":\"unterminated}", "{\"comment\":\"bad \\x escape\"}", "{\"comment\":\"raw \n newline\"}",
+                "{\"ext\":01}", "{\"ext\":1.}", "{\"ext\":-}", "{\"ext\":tru}", "{\"ext\":[1,]}", "{\"ext\":{\"a\"}}",
+                "{\"signers\":[],}", "{signers:[]}")) {
+            assertThrows(ParseException.class, () -> JSONCodec.INSTANCE.parse(string), string);
+        }
+    }
+
+    @Test
+    public void rejectDeepNesting() {
+        StringBuilder sb = new StringBuilder("{\"ext\":");
+        for (int i = 0; i < 10000; i++) {
+            sb.append('[');
+        }
+        assertThrows(ParseException.class, () -> JSONCodec.INSTANCE.parse(sb.toString()));
+    }
+
+    @Test
+    public void rejectUnsupportedExt() {
+        assertThrows(IllegalArgumentException.class, () -> JSONCodec.INSTANCE.serialize(
+                new Verification.JSON(Collections.emptyList(), null, new Object())));
+        assertThrows(IllegalArgumentException.class, () -> JSONCodec.INSTANCE.serialize(
+                new Verification.JSON(Collections.emptyList(), null, Double.NaN)));
+    }
+
+    @Test
+    public void verificationUsesCodecByDefault() {
+        String fingerprint = "EB85BB5FA33A75E15E944E63F231550C4F47E38E";
+        Verification verification = Verification.fromString("2019-10-29T18:36:45Z " + fingerprint + " " +
+                fingerprint + " mode:text {\"signers\":[\"alice.pgp\"],\"comment\":\"Hi\"}");
+        assertEquals(new Verification.JSON(Collections.singletonList("alice.pgp"), "Hi", null),
+                verification.getJson());
+
+        Verification.JSON json = new Verification.JSON("bob.pgp");
+        Verification withJson = new Verification(new Date(0), fingerprint, fingerprint, null, json);
+        assertEquals("{\"signers\":[\"bob.pgp\"]}", withJson.getJsonOrDescription().get());
+        assertEquals(json, withJson.getJson());
+    }
+}
@@ -0,0 +1,156 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.packet;
+
+import org.junit.jupiter.api.Test;
+import sop.InspectionResult;
+import sop.exception.SOPGPException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PacketInspectorTest {
+
+    private static final String KEY_ID = "0123456789ABCDEF";
+    private static final String V4_FINGERPRINT = "F9E6F53F7201C60A87064EAB" + KEY_ID;
+
+    private static byte[] hex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    /** Encode a packet using the current packet format with a one-octet length. */
+    private static byte[] packet(int tag, byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0xC0 | tag);
+        out.write(body.length);
+        out.writeBytes(body);
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] v3Pkesk(String keyId) {
+        return packet(1, concat(new byte[] {3}, hex(keyId), new byte[] {1, 0, 8, (byte) 0xFF}));
+    }
+
+    private static byte[] v4Signature() {
+        byte[] hashed = concat(new byte[] {22, 33, 4}, hex(V4_FINGERPRINT));
+        byte[] unhashed = concat(new byte[] {9, 16}, hex(KEY_ID));
+        return packet(2, concat(
+                new byte[] {4, 0, 22, 8, 0, (byte) hashed.length}, hashed,
+                new byte[] {0, (byte) unhashed.length}, unhashed,
+                new byte[] {0x12, 0x34, 0, 8, 1}));
+    }
+
+    private static byte[] armor(String type, byte[] binary) {
+        return ("-----BEGIN PGP " + type + "-----\n\n" +
+                Base64.getMimeEncoder(64, new byte[] {'\n'}).encodeToString(binary) + "\n" +
+                "-----END PGP " + type + "-----\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void encryptedMessage() throws IOException {
+        byte[] skesk = packet(3, new byte[] {4, 9, 0, 2});
+        // SEIPD with a partial body length of 512 bytes, the remainder is never read
+        byte[] seipd = new byte[] {(byte) 0xD2, (byte) 0xE9, 1};
+        byte[] message = concat(v3Pkesk(KEY_ID), v3Pkesk("0000000000000000"), skesk, seipd);
+
+        InspectionResult result = new PacketInspector().data(message);
+
+        assertFalse(result.isArmored());
+        assertEquals(Arrays.asList(
+                new InspectionResult.Packet(1, "PKESK", 13, false),
+                new InspectionResult.Packet(1, "PKESK", 13, false),
+                new InspectionResult.Packet(3, "SKESK", 4, false),
+                new InspectionResult.Packet(18, "SEIPD", 512, true)), result.getPackets());
+        assertEquals(KEY_ID, result.getRecipients().get(0).getKeyId());
+        assertFalse(result.getRecipients().get(0).isWildcard());
+        assertTrue(result.getRecipients().get(1).isWildcard());
+        assertTrue(result.getHasSkesk());
+        assertEquals("SEIPD partial", result.getPackets().get(3).toString());
+    }
+
+    @Test
+    public void v6RecipientFingerprint() throws IOException {
+        String fingerprint = "CB186C4F0609A697E4D52DFA6C722B0C1F1E27C18A56708F6525EC27BAD9ACC9";
+        byte[] pkesk = packet(1, concat(new byte[] {6, 33, 6}, hex(fingerprint), new byte[] {25, 1, 2}));
+        byte[] anonymous = packet(1, new byte[] {6, 0, 25, 1, 2});
+
+        InspectionResult result = new PacketInspector().data(armor("MESSAGE", concat(pkesk, anonymous)));
+
+        assertEquals("MESSAGE", result.getArmorType());
+        assertEquals(new InspectionResult.Recipient(6, 25, "CB186C4F0609A697", fingerprint),
+                result.getRecipients().get(0));
+        assertEquals(new InspectionResult.Recipient(6, 25, null, null), result.getRecipients().get(1));
+        assertTrue(result.getRecipients().get(1).isWildcard());
+        assertFalse(result.getHasSkesk());
+    }
+
+    @Test
+    public void detachedSignatureIssuer() throws IOException {
+        InspectionResult result = new PacketInspector().data(armor("SIGNATURE", v4Signature()));
+
+        assertEquals("SIGNATURE", result.getArmorType());
+        // The issuer key ID subpacket is implied by the issuer fingerprint
+        assertEquals(Collections.singletonList(new InspectionResult.Issuer(KEY_ID, V4_FINGERPRINT)),
+                result.getIssuers());
+    }
+
+    @Test
+    public void cleartextSignedMessage() throws IOException {
+        String signature = new String(armor("SIGNATURE", v4Signature()), StandardCharsets.UTF_8);
+        String message = "-----BEGIN PGP SIGNED MESSAGE-----\n" +
+                "Hash: SHA256\n" +
+                "\n" +
+                "Hello, World!\n" +
+                signature;
+
+        InspectionResult result = new PacketInspector().data(message.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("SIGNED MESSAGE", result.getArmorType());
+        assertEquals(V4_FINGERPRINT, result.getIssuers().get(0).getFingerprint());
+    }
+
+    @Test
+    public void inlineSignedMessageStopsAtLiteralData() throws IOException {
+        byte[] ops = packet(4, concat(new byte[] {3, 0, 8, 22}, hex(KEY_ID), new byte[] {1}));
+        // Old format literal data packet with indeterminate length
+        byte[] literal = new byte[] {(byte) 0xAF, 'b', 0, 0, 0, 0, 0, 'H', 'i'};
+
+        InspectionResult result = new PacketInspector().data(concat(ops, literal));
+
+        assertEquals(Collections.singletonList(new InspectionResult.Issuer(KEY_ID, null)), result.getIssuers());
+        assertEquals("LIT indeterminate", result.getPackets().get(1).toString());
+        assertNull(result.getArmorType());
+    }
+
+    @Test
+    public void garbageIsBadData() {
+        assertThrows(SOPGPException.BadData.class, () ->
+                new PacketInspector().data("Hello, World!".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(SOPGPException.BadData.class, () ->
+                new PacketInspector().data(new byte[] {(byte) 0xC2, 10, 4, 0}));
+    }
+}
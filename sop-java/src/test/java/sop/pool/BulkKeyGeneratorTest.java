@@ -0,0 +1,89 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.pool;
+
+import org.junit.jupiter.api.Test;
+import sop.Ready;
+import sop.SOP;
+import sop.exception.SOPGPException;
+import sop.operation.Armor;
+import sop.operation.GenerateKey;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkKeyGeneratorTest {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private static Ready ready(byte[] bytes) {
+        return new Ready() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                outputStream.write(bytes);
+            }
+        };
+    }
+
+    /**
+     * Every generated "key" is a single byte 'k', generation fails once the counter exceeds failAfter.
+     */
+    private SOP fakeSop(int failAfter) {
+        return (SOP) Proxy.newProxyInstance(SOP.class.getClassLoader(), new Class[] {SOP.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "generateKey":
+                            return Proxy.newProxyInstance(GenerateKey.class.getClassLoader(),
+                                    new Class[] {GenerateKey.class}, (p, m, a) -> {
+                                        if (m.getName().equals("generate")) {
+                                            if (counter.incrementAndGet() > failAfter) {
+                                                throw new SOPGPException.UnsupportedAsymmetricAlgo("Nope.", new Exception());
+                                            }
+                                            return ready(new byte[] {'k'});
+                                        }
+                                        return p;
+                                    });
+                        case "armor":
+                            return (Armor) data -> ready(("[" + new String(data.readAllBytes(),
+                                    StandardCharsets.UTF_8) + "]").getBytes(StandardCharsets.UTF_8));
+                        default:
+                            throw new SOPGPException.UnsupportedSubcommand(method.getName());
+                    }
+                });
+    }
+
+    @Test
+    public void armoredKeyringContainsAllKeys() throws IOException {
+        BulkKeyGenerator generator = new BulkKeyGenerator(fakeSop(Integer.MAX_VALUE), 4);
+        String keyring = new String(generator.keyring(new KeyTemplate(), 100, null, true).getBytes(),
+                StandardCharsets.UTF_8);
+        assertEquals("[" + "k".repeat(100) + "]", keyring);
+    }
+
+    @Test
+    public void everyIndexIsPassedToConsumer() throws IOException {
+        BulkKeyGenerator generator = new BulkKeyGenerator(fakeSop(Integer.MAX_VALUE), 3);
+        Set<Integer> indices = ConcurrentHashMap.newKeySet();
+        generator.generate(new KeyTemplate(), 50, null, false, (index, key) -> indices.add(index));
+        assertEquals(50, indices.size());
+        assertTrue(indices.contains(0) && indices.contains(49));
+    }
+
+    @Test
+    public void failureIsPropagated() {
+        BulkKeyGenerator generator = new BulkKeyGenerator(fakeSop(10), 2);
+        assertThrows(SOPGPException.UnsupportedAsymmetricAlgo.class, () ->
+                generator.generate(new KeyTemplate(), 50, null, false, (index, key) -> {}));
+    }
+}
@@ -0,0 +1,220 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.pool;
+
+import org.junit.jupiter.api.Test;
+import sop.Ready;
+import sop.SOP;
+import sop.exception.SOPGPException;
+import sop.operation.Armor;
+import sop.operation.ChangeKeyPassword;
+import sop.operation.GenerateKey;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KeyPoolTest {
+
+    private final AtomicInteger generated = new AtomicInteger();
+    private Runnable onGenerate = () -> {};
+
+    private static Ready ready(String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        return new Ready() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                outputStream.write(bytes);
+            }
+        };
+    }
+
+    private static String read(InputStream in) throws IOException {
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Fake backend which describes the generated key, so tests can check which options were applied.
+     */
+    private SOP fakeSop() {
+        return (SOP) Proxy.newProxyInstance(SOP.class.getClassLoader(), new Class[] {SOP.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "generateKey":
+                            return new FakeGenerateKey();
+                        case "changeKeyPassword":
+                            return new FakeChangeKeyPassword();
+                        case "armor":
+                            return (Armor) data -> ready("armored(" + read(data) + ")");
+                        default:
+                            throw new SOPGPException.UnsupportedSubcommand(method.getName());
+                    }
+                });
+    }
+
+    private class FakeGenerateKey implements GenerateKey {
+        private final List<String> options = new ArrayList<>();
+
+        @Override
+        public GenerateKey noArmor() {
+            options.add("noArmor");
+            return this;
+        }
+
+        @Override
+        public GenerateKey userId(String userId) {
+            options.add(userId);
+            return this;
+        }
+
+        @Override
+        public GenerateKey withKeyPassword(String password) {
+            options.add("password=" + password);
+            return this;
+        }
+
+        @Override
+        public GenerateKey profile(String profile) {
+            options.add("profile=" + profile);
+            return this;
+        }
+
+        @Override
+        public GenerateKey signingOnly() {
+            options.add("signingOnly");
+            return this;
+        }
+
+        @Override
+        public Ready generate() {
+            generated.incrementAndGet();
+            onGenerate.run();
+            return ready("key" + options);
+        }
+    }
+
+    private static class FakeChangeKeyPassword implements ChangeKeyPassword {
+        private String password;
+
+        @Override
+        public ChangeKeyPassword noArmor() {
+            return this;
+        }
+
+        @Override
+        public ChangeKeyPassword oldKeyPassphrase(String oldPassphrase) {
+            return this;
+        }
+
+        @Override
+        public ChangeKeyPassword newKeyPassphrase(String newPassphrase) {
+            password = newPassphrase;
+            return this;
+        }
+
+        @Override
+        public Ready keys(InputStream keys) {
+            try {
+                return ready("protected(" + read(keys) + ", " + password + ")");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static void awaitAvailable(KeyPool pool, KeyTemplate template, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.available(template) != count) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for pool refill");
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void pooledKeyIsProtectedOnHandOut() throws IOException, InterruptedException {
+        KeyTemplate template = new KeyTemplate("rfc4880", false, Collections.singletonList("Alice <alice@pgpainless.org>"));
+        try (KeyPool pool = new KeyPool(fakeSop(), 2, 1).register(template)) {
+            awaitAvailable(pool, template, 2);
+            assertEquals(2, generated.get());
+
+            String key = read(pool.generateKey()
+                    .profile("rfc4880")
+                    .userId("Alice <alice@pgpainless.org>")
+                    .withKeyPassword("sw0rdf1sh")
+                    .generate().getInputStream());
+            assertEquals("protected(key[noArmor, profile=rfc4880, Alice <alice@pgpainless.org>], sw0rdf1sh)", key);
+
+            // pool is refilled in the background
+            awaitAvailable(pool, template, 2);
+            assertEquals(3, generated.get());
+        }
+    }
+
+    @Test
+    public void pooledKeyWithoutPasswordIsArmored() throws IOException, InterruptedException {
+        KeyTemplate template = new KeyTemplate(null, true);
+        try (KeyPool pool = new KeyPool(fakeSop(), 1, 1).register(template)) {
+            awaitAvailable(pool, template, 1);
+            String key = read(pool.generateKey().signingOnly().generate().getInputStream());
+            assertEquals("armored(key[noArmor, signingOnly])", key);
+        }
+    }
+
+    @Test
+    public void unregisteredTemplateIsGeneratedDirectly() throws IOException {
+        try (KeyPool pool = new KeyPool(fakeSop(), 1, 1)) {
+            String key = read(pool.generateKey()
+                    .userId("Bob <bob@pgpainless.org>")
+                    .withKeyPassword("hunter2")
+                    .generate().getInputStream());
+            assertEquals("key[Bob <bob@pgpainless.org>, password=hunter2]", key);
+        }
+    }
+
+    @Test
+    public void keyGeneratedWhileClosingIsDiscarded() throws InterruptedException {
+        KeyTemplate template = new KeyTemplate(null, false);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        KeyPool pool = new KeyPool(fakeSop(), 1, executor);
+        onGenerate = pool::close;
+
+        pool.register(template);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(1, generated.get());
+        assertEquals(0, pool.available(template));
+    }
+
+    @Test
+    public void concurrentRefillsDoNotOvershoot() throws InterruptedException {
+        KeyTemplate template = new KeyTemplate(null, false);
+        try (KeyPool pool = new KeyPool(fakeSop(), 4, 4)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                threads.add(new Thread(() -> pool.register(template)));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            awaitAvailable(pool, template, 4);
+            assertEquals(4, generated.get());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.preselect;
+
+import org.junit.jupiter.api.Test;
+import sop.DecryptionResult;
+import sop.ReadyWithResult;
+import sop.SessionKey;
+import sop.exception.SOPGPException;
+import sop.operation.Decrypt;
+import sop.packet.TransferableKey;
+import sop.testsuite.TestData;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PreselectingDecryptTest {
+
+    private static final byte[] KEYRING = (TestData.ALICE_KEY + TestData.BOB_KEY + TestData.CAROL_KEY +
+            TestData.PASSWORD_PROTECTED_KEY).getBytes(StandardCharsets.UTF_8);
+
+    // Key ID of Bob's RSA encryption subkey
+    private static final String BOB_SUBKEY_ID = "7C2FAA4DF93C37B2";
+
+    private static byte[] hex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    /** Message with a single v3 PKESK for the given key ID and algorithm. */
+    private static byte[] message(String keyId, int algorithm) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[] {(byte) 0xC1, 13, 3});
+        out.writeBytes(hex(keyId));
+        out.writeBytes(new byte[] {(byte) algorithm, 0, 8, (byte) 0xFF});
+        out.writeBytes(new byte[] {(byte) 0xD2, 3, 1, 2, 3});
+        return out.toByteArray();
+    }
+
+    @Test
+    public void onlyRecipientKeyIsForwarded() throws IOException {
+        byte[] message = message(BOB_SUBKEY_ID, 1);
+        RecordingDecrypt backend = new RecordingDecrypt(message);
+
+        new PreselectingDecrypt(backend).withKey(KEYRING).ciphertext(message).toByteArrayAndResult();
+
+        assertEquals(Collections.singletonList(TestData.BOB_PRIMARY_FINGERPRINT), backend.fingerprints());
+    }
+
+    @Test
+    public void hiddenRecipientTriesKeysOfMatchingAlgorithm() throws IOException {
+        // Wildcard ECDH recipient: Alice and the password protected key have ECDH subkeys
+        byte[] message = message("0000000000000000", 18);
+        RecordingDecrypt backend = new RecordingDecrypt(message);
+
+        new PreselectingDecrypt(backend).withKey(KEYRING).ciphertext(message).toByteArrayAndResult();
+
+        assertEquals(Arrays.asList(TestData.ALICE_PRIMARY_FINGERPRINT, TestData.PASSWORD_PROTECTED_PRIMARY_FINGERPRINT),
+                backend.fingerprints());
+    }
+
+    @Test
+    public void directRecipientIsTriedBeforeHiddenRecipients() throws IOException {
+        byte[] message = concat(message("0000000000000000", 18), message(BOB_SUBKEY_ID, 1));
+        RecordingDecrypt backend = new RecordingDecrypt(message);
+
+        new PreselectingDecrypt(backend).withKey(KEYRING).ciphertext(message).toByteArrayAndResult();
+
+        assertEquals(Arrays.asList(TestData.BOB_PRIMARY_FINGERPRINT, TestData.ALICE_PRIMARY_FINGERPRINT,
+                TestData.PASSWORD_PROTECTED_PRIMARY_FINGERPRINT), backend.fingerprints());
+    }
+
+    @Test
+    public void noMatchingKeyFailsWithoutCallingBackend() {
+        byte[] message = message("0123456789ABCDEF", 1);
+        RecordingDecrypt backend = new RecordingDecrypt(message);
+
+        assertThrows(SOPGPException.CannotDecrypt.class, () ->
+                new PreselectingDecrypt(backend).withKey(KEYRING).ciphertext(message));
+        assertEquals(0, backend.calls);
+    }
+
+    @Test
+    public void noMatchingKeyButPassword() throws IOException {
+        byte[] message = message("0123456789ABCDEF", 1);
+        RecordingDecrypt backend = new RecordingDecrypt(message);
+
+        new PreselectingDecrypt(backend).withKey(KEYRING).withPassword("sw0rdf1sh")
+                .ciphertext(message).toByteArrayAndResult();
+
+        assertEquals(Collections.emptyList(), backend.fingerprints());
+        assertEquals(1, backend.calls);
+    }
+
+    @Test
+    public void unparseableMessagePassesAllKeys() throws IOException {
+        byte[] message = "Hello, World!".getBytes(StandardCharsets.UTF_8);
+        RecordingDecrypt backend = new RecordingDecrypt(message);
+
+        new PreselectingDecrypt(backend).withKey(KEYRING).ciphertext(message).toByteArrayAndResult();
+
+        assertEquals(4, backend.fingerprints().size());
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        // Drop the SEIPD packet of the first message
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(first, 0, 15);
+        out.writeBytes(second);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decrypt operation that records the keys it receives and checks that it sees the unmodified
+     * message.
+     */
+    private static class RecordingDecrypt implements Decrypt {
+
+        private final byte[] expectedCiphertext;
+        private final List<byte[]> keys = new ArrayList<>();
+        private int calls = 0;
+
+        RecordingDecrypt(byte[] expectedCiphertext) {
+            this.expectedCiphertext = expectedCiphertext;
+        }
+
+        List<String> fingerprints() {
+            List<String> fingerprints = new ArrayList<>();
+            for (byte[] key : keys) {
+                for (TransferableKey k : TransferableKey.split(new ByteArrayInputStream(key))) {
+                    fingerprints.add(k.getFingerprint());
+                }
+            }
+            return fingerprints;
+        }
+
+        @Override
+        public Decrypt verifyNotBefore(Date timestamp) {
+            return this;
+        }
+
+        @Override
+        public Decrypt verifyNotAfter(Date timestamp) {
+            return this;
+        }
+
+        @Override
+        public Decrypt verifyWithCert(InputStream cert) {
+            return this;
+        }
+
+        @Override
+        public Decrypt withSessionKey(SessionKey sessionKey) {
+            return this;
+        }
+
+        @Override
+        public Decrypt withPassword(String password) {
+            return this;
+        }
+
+        @Override
+        public Decrypt withKey(InputStream key) throws IOException {
+            keys.add(key.readAllBytes());
+            return this;
+        }
+
+        @Override
+        public Decrypt withKeyPassword(byte[] password) {
+            return this;
+        }
+
+        @Override
+        public ReadyWithResult<DecryptionResult> ciphertext(InputStream ciphertext) throws IOException {
+            calls++;
+            assertArrayEquals(expectedCiphertext, ciphertext.readAllBytes());
+            return new ReadyWithResult<DecryptionResult>() {
+                @Override
+                public DecryptionResult writeTo(OutputStream outputStream) {
+                    return new DecryptionResult(null, Collections.emptyList());
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,254 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.preselect;
+
+import org.junit.jupiter.api.Test;
+import sop.ReadyWithResult;
+import sop.Verification;
+import sop.exception.SOPGPException;
+import sop.operation.DetachedVerify;
+import sop.operation.InlineVerify;
+import sop.operation.VerifySignatures;
+import sop.packet.TransferableKey;
+import sop.testsuite.TestData;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PreselectingVerifyTest {
+
+    private static final byte[] DATA = TestData.PLAINTEXT.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SIGNATURE = TestData.ALICE_DETACHED_SIGNED_MESSAGE.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] INLINE_SIGNED = TestData.ALICE_INLINE_SIGNED_MESSAGE.getBytes(StandardCharsets.UTF_8);
+
+    private static byte[] bytes(String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void detachedVerifyOnlyForwardsIssuerCert() throws IOException {
+        RecordingVerify backend = new RecordingVerify();
+
+        new PreselectingDetachedVerify(backend)
+                .cert(bytes(TestData.BOB_CERT))
+                .cert(bytes(TestData.ALICE_CERT))
+                .cert(bytes(TestData.CAROL_CERT))
+                .signatures(SIGNATURE)
+                .data(DATA);
+
+        assertEquals(Collections.singletonList(TestData.ALICE_PRIMARY_FINGERPRINT), backend.fingerprints());
+        assertArrayEquals(SIGNATURE, backend.signatures);
+        assertArrayEquals(DATA, backend.data);
+    }
+
+    @Test
+    public void detachedVerifyWithUnknownIssuerFailsWithoutCallingBackend() {
+        RecordingVerify backend = new RecordingVerify();
+
+        assertThrows(SOPGPException.NoSignature.class, () -> new PreselectingDetachedVerify(backend)
+                .cert(bytes(TestData.BOB_CERT))
+                .cert(bytes(TestData.CAROL_CERT))
+                .signatures(SIGNATURE)
+                .data(DATA));
+        assertEquals(Collections.emptyList(), backend.fingerprints());
+        assertEquals(0, backend.calls);
+    }
+
+    @Test
+    public void detachedVerifyUsesTrustStore() throws IOException {
+        CertificateIndex trustStore = new CertificateIndex()
+                .add(bytes(TestData.BOB_CERT + TestData.ALICE_CERT + TestData.CAROL_CERT))
+                .add(bytes(TestData.PASSWORD_PROTECTED_CERT));
+        assertEquals(4, trustStore.getSize());
+        RecordingVerify backend = new RecordingVerify();
+
+        new PreselectingDetachedVerify(backend, trustStore)
+                .signatures(SIGNATURE)
+                .data(DATA);
+
+        assertEquals(Collections.singletonList(TestData.ALICE_PRIMARY_FINGERPRINT), backend.fingerprints());
+    }
+
+    @Test
+    public void removedCertIsNoLongerCandidate() {
+        CertificateIndex trustStore = new CertificateIndex()
+                .add(bytes(TestData.BOB_CERT + TestData.ALICE_CERT));
+        trustStore.remove(TestData.ALICE_PRIMARY_FINGERPRINT.toLowerCase());
+        assertEquals(1, trustStore.getSize());
+        RecordingVerify backend = new RecordingVerify();
+
+        assertThrows(SOPGPException.NoSignature.class, () -> new PreselectingDetachedVerify(backend, trustStore)
+                .signatures(SIGNATURE)
+                .data(DATA));
+    }
+
+    @Test
+    public void withoutCertsBackendReportsMissingArg() throws IOException {
+        RecordingVerify backend = new RecordingVerify();
+
+        new PreselectingDetachedVerify(backend).signatures(SIGNATURE).data(DATA);
+
+        assertEquals(1, backend.calls);
+        assertEquals(Collections.emptyList(), backend.fingerprints());
+    }
+
+    @Test
+    public void inlineVerifyOnlyForwardsIssuerCert() throws IOException {
+        RecordingInlineVerify backend = new RecordingInlineVerify();
+
+        new PreselectingInlineVerify(backend)
+                .cert(bytes(TestData.BOB_CERT + TestData.CAROL_CERT + TestData.ALICE_CERT))
+                .data(INLINE_SIGNED)
+                .toByteArrayAndResult();
+
+        assertEquals(Collections.singletonList(TestData.ALICE_PRIMARY_FINGERPRINT), backend.fingerprints());
+        assertArrayEquals(INLINE_SIGNED, backend.data);
+    }
+
+    @Test
+    public void cleartextSignedMessageForwardsAllCerts() throws IOException {
+        byte[] message = bytes("-----BEGIN PGP SIGNED MESSAGE-----\nHash: SHA512\n\n" +
+                TestData.PLAINTEXT + TestData.ALICE_DETACHED_SIGNED_MESSAGE);
+        RecordingInlineVerify backend = new RecordingInlineVerify();
+
+        new PreselectingInlineVerify(backend)
+                .cert(bytes(TestData.BOB_CERT))
+                .cert(bytes(TestData.ALICE_CERT))
+                .data(message)
+                .toByteArrayAndResult();
+
+        assertEquals(Arrays.asList(TestData.BOB_PRIMARY_FINGERPRINT, TestData.ALICE_PRIMARY_FINGERPRINT),
+                backend.fingerprints());
+        assertArrayEquals(message, backend.data);
+    }
+
+    @Test
+    public void everyCopyOfIssuerCertIsForwarded() throws IOException {
+        CertificateIndex trustStore = new CertificateIndex().add(bytes(TestData.ALICE_CERT));
+        RecordingVerify backend = new RecordingVerify();
+
+        new PreselectingDetachedVerify(backend, trustStore)
+                .cert(bytes(TestData.ALICE_CERT))
+                .cert(bytes(TestData.BOB_CERT))
+                .cert(bytes(TestData.ALICE_CERT))
+                .signatures(SIGNATURE)
+                .data(DATA);
+
+        assertEquals(Arrays.asList(TestData.ALICE_PRIMARY_FINGERPRINT, TestData.ALICE_PRIMARY_FINGERPRINT,
+                TestData.ALICE_PRIMARY_FINGERPRINT), backend.fingerprints());
+    }
+
+    @Test
+    public void unparseableCertIsForwarded() throws IOException {
+        RecordingVerify backend = new RecordingVerify();
+        byte[] garbage = bytes("Not a certificate");
+
+        new PreselectingDetachedVerify(backend)
+                .cert(garbage)
+                .cert(bytes(TestData.BOB_CERT))
+                .signatures(SIGNATURE)
+                .data(DATA);
+
+        assertEquals(1, backend.certs.size());
+        assertArrayEquals(garbage, backend.certs.get(0));
+    }
+
+    /**
+     * Records the certificates a verify operation receives and the data it gets to see.
+     */
+    private abstract static class Recorder {
+
+        final List<byte[]> certs = new ArrayList<>();
+        byte[] data;
+        int calls = 0;
+
+        List<String> fingerprints() {
+            List<String> fingerprints = new ArrayList<>();
+            for (byte[] cert : certs) {
+                for (TransferableKey k : TransferableKey.split(new ByteArrayInputStream(cert))) {
+                    fingerprints.add(k.getFingerprint());
+                }
+            }
+            return fingerprints;
+        }
+    }
+
+    private static class RecordingVerify extends Recorder implements DetachedVerify, VerifySignatures {
+
+        private byte[] signatures;
+
+        @Override
+        public DetachedVerify notBefore(Date timestamp) {
+            return this;
+        }
+
+        @Override
+        public DetachedVerify notAfter(Date timestamp) {
+            return this;
+        }
+
+        @Override
+        public DetachedVerify cert(InputStream cert) throws IOException {
+            certs.add(cert.readAllBytes());
+            return this;
+        }
+
+        @Override
+        public VerifySignatures signatures(InputStream signatures) throws IOException {
+            this.signatures = signatures.readAllBytes();
+            return this;
+        }
+
+        @Override
+        public List<Verification> data(InputStream data) throws IOException {
+            calls++;
+            this.data = data.readAllBytes();
+            return Collections.emptyList();
+        }
+    }
+
+    private static class RecordingInlineVerify extends Recorder implements InlineVerify {
+
+        @Override
+        public InlineVerify notBefore(Date timestamp) {
+            return this;
+        }
+
+        @Override
+        public InlineVerify notAfter(Date timestamp) {
+            return this;
+        }
+
+        @Override
+        public InlineVerify cert(InputStream cert) throws IOException {
+            certs.add(cert.readAllBytes());
+            return this;
+        }
+
+        @Override
+        public ReadyWithResult<List<Verification>> data(InputStream data) throws IOException {
+            calls++;
+            this.data = data.readAllBytes();
+            return new ReadyWithResult<List<Verification>>() {
+                @Override
+                public List<Verification> writeTo(OutputStream outputStream) {
+                    return Collections.emptyList();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,138 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.rewrap;
+
+import org.junit.jupiter.api.Test;
+import sop.SessionKey;
+import sop.exception.SOPGPException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SplicingRewrapTest {
+
+    private static final SessionKey SESSION_KEY = new SessionKey((byte) 9, new byte[] {1, 2, 3, 4});
+    private static final byte[] OLD_PKESK = new byte[] {
+            (byte) 0xC1, 13, 3, 1, 1, 1, 1, 1, 1, 1, 1, 1, 0, 8, (byte) 0xFF};
+    private static final byte[] SKESK = new byte[] {(byte) 0xC3, 4, 4, 9, 0, 2};
+    private static final byte[] NEW_PKESK = new byte[] {
+            (byte) 0xC1, 13, 3, 2, 2, 2, 2, 2, 2, 2, 2, 1, 0, 8, (byte) 0xEE};
+
+    /** SEIPD v1 packet with a large body. */
+    private static byte[] seipd() {
+        byte[] body = new byte[100_000];
+        Arrays.fill(body, (byte) 0x42);
+        body[0] = 1;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0xD2);
+        out.write(255);
+        out.write(0);
+        out.write(1);
+        out.write(0x86);
+        out.write(0xA0);
+        out.writeBytes(body);
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void sessionKeyPacketsAreReplacedAndPayloadIsCopied() throws IOException {
+        FakeRewrap rewrap = new FakeRewrap();
+        byte[] seipd = seipd();
+
+        byte[] result = rewrap.withKey(new byte[] {1})
+                .withCert(new byte[] {2})
+                .noArmor()
+                .message(concat(OLD_PKESK, SKESK, seipd))
+                .getBytes();
+
+        assertArrayEquals(concat(NEW_PKESK, seipd), result);
+        assertEquals(2, rewrap.oldPackets.size());
+        assertArrayEquals(OLD_PKESK, rewrap.oldPackets.get(0));
+        assertArrayEquals(SKESK, rewrap.oldPackets.get(1));
+        assertEquals(Arrays.asList(1, 1), rewrap.versions);
+    }
+
+    @Test
+    public void armoredOutput() throws IOException {
+        byte[] seipd = seipd();
+        String armored = new String(new FakeRewrap()
+                .withSessionKey(SESSION_KEY)
+                .withPassword("sw0rdf1sh")
+                .message(concat(OLD_PKESK, seipd))
+                .getBytes(), StandardCharsets.US_ASCII);
+
+        List<String> lines = Arrays.asList(armored.split("\n"));
+        assertEquals("-----BEGIN PGP MESSAGE-----", lines.get(0));
+        assertEquals("", lines.get(1));
+        assertEquals("-----END PGP MESSAGE-----", lines.get(lines.size() - 1));
+        assertTrue(lines.get(lines.size() - 2).startsWith("="));
+        String base64 = lines.subList(2, lines.size() - 2).stream().collect(Collectors.joining());
+        assertArrayEquals(concat(NEW_PKESK, seipd), Base64.getDecoder().decode(base64));
+    }
+
+    @Test
+    public void sessionKeyIsUsedWithoutRecovery() throws IOException {
+        FakeRewrap rewrap = new FakeRewrap();
+        rewrap.withSessionKey(SESSION_KEY).withPassword("sw0rdf1sh").noArmor()
+                .message(concat(OLD_PKESK, seipd())).getBytes();
+        assertTrue(rewrap.oldPackets.isEmpty());
+        assertEquals(Arrays.asList(1), rewrap.versions);
+    }
+
+    @Test
+    public void missingRecipients() {
+        assertThrows(SOPGPException.MissingArg.class, () ->
+                new FakeRewrap().withSessionKey(SESSION_KEY).message(concat(OLD_PKESK, seipd())));
+    }
+
+    @Test
+    public void unencryptedMessage() {
+        byte[] literal = new byte[] {(byte) 0xCB, 6, 'b', 0, 0, 0, 0, 0};
+        assertThrows(SOPGPException.BadData.class, () ->
+                new FakeRewrap().withSessionKey(SESSION_KEY).withPassword("sw0rdf1sh").message(literal));
+    }
+
+    /**
+     * Rewrap which pretends to recover {@link #SESSION_KEY} and wraps it into {@link #NEW_PKESK}.
+     */
+    private static class FakeRewrap extends SplicingRewrap {
+
+        private final List<byte[]> oldPackets = new ArrayList<>();
+        private final List<Integer> versions = new ArrayList<>();
+
+        @Override
+        protected SessionKey recoverSessionKey(List<byte[]> sessionKeyPackets, int encryptedDataVersion) {
+            oldPackets.addAll(sessionKeyPackets);
+            versions.add(encryptedDataVersion);
+            return SESSION_KEY;
+        }
+
+        @Override
+        protected byte[] createSessionKeyPackets(SessionKey sessionKey, int encryptedDataVersion) {
+            assertEquals(SESSION_KEY, sessionKey);
+            versions.add(encryptedDataVersion);
+            return NEW_PKESK;
+        }
+    }
+}
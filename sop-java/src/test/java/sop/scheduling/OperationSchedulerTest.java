@@ -0,0 +1,149 @@
+// SPDX-FileCopyrightText: 2026 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package sop.scheduling;
+
+import org.junit.jupiter.api.Test;
+import sop.Ready;
+import sop.SOP;
+import sop.exception.SOPGPException;
+import sop.operation.Armor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OperationSchedulerTest {
+
+    private static void awaitWaiting(OperationScheduler scheduler, Priority priority, int count)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (scheduler.waiting(priority) != count) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for queued operations");
+            Thread.sleep(1);
+        }
+    }
+
+    private static Thread acquireAndRelease(OperationScheduler scheduler, Priority priority, List<String> order,
+                                            String label) {
+        Thread thread = new Thread(() -> {
+            try (OperationScheduler.Permit ignored = scheduler.acquire(priority)) {
+                order.add(label);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    public void perClassCapLeavesRoomForInteractive() throws InterruptedException {
+        OperationScheduler scheduler = new OperationScheduler(3);
+        OperationScheduler.Permit b1 = scheduler.acquire(Priority.BATCH);
+        OperationScheduler.Permit b2 = scheduler.acquire(Priority.BATCH);
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        Thread b3 = acquireAndRelease(scheduler, Priority.BATCH, order, "b3");
+        awaitWaiting(scheduler, Priority.BATCH, 1);
+
+        // batch is capped at maxConcurrency - 1, interactive still gets a slot
+        try (OperationScheduler.Permit ignored = scheduler.acquire(Priority.INTERACTIVE)) {
+            assertEquals(1, scheduler.running(Priority.INTERACTIVE));
+            assertEquals(2, scheduler.running(Priority.BATCH));
+        }
+
+        b1.close();
+        b3.join();
+        b2.close();
+        assertEquals(Collections.singletonList("b3"), order);
+        assertEquals(0, scheduler.running(Priority.BATCH));
+    }
+
+    @Test
+    public void waitingOperationsAreAdmittedByWeight() throws InterruptedException {
+        Map<Priority, Integer> caps = Map.of(Priority.INTERACTIVE, 1, Priority.BATCH, 1, Priority.BACKGROUND, 1);
+        OperationScheduler scheduler = new OperationScheduler(1, OperationScheduler.DEFAULT_WEIGHTS, caps);
+        OperationScheduler.Permit holder = scheduler.acquire(Priority.BATCH);
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            threads.add(acquireAndRelease(scheduler, Priority.BACKGROUND, order, "background"));
+            awaitWaiting(scheduler, Priority.BACKGROUND, i + 1);
+        }
+        for (int i = 0; i < 3; i++) {
+            threads.add(acquireAndRelease(scheduler, Priority.INTERACTIVE, order, "interactive"));
+            awaitWaiting(scheduler, Priority.INTERACTIVE, i + 1);
+        }
+
+        holder.close();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(Arrays.asList("interactive", "interactive", "interactive",
+                "background", "background", "background"), order);
+    }
+
+    private static SOP armorBackend(List<Integer> runningWhileWriting, OperationScheduler scheduler) {
+        Armor armor = data -> new Ready() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                runningWhileWriting.add(scheduler.running(Priority.BACKGROUND));
+                outputStream.write(data.readAllBytes());
+            }
+        };
+        return (SOP) Proxy.newProxyInstance(SOP.class.getClassLoader(), new Class[] {SOP.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("armor")) {
+                        return armor;
+                    }
+                    throw new SOPGPException.UnsupportedSubcommand(method.getName());
+                });
+    }
+
+    @Test
+    public void scheduledSopHoldsSlotWhileResultIsWritten() throws IOException {
+        OperationScheduler scheduler = new OperationScheduler(2);
+        List<Integer> runningWhileWriting = new ArrayList<>();
+        ScheduledSOP sop = new ScheduledSOP(armorBackend(runningWhileWriting, scheduler), scheduler);
+        Ready ready = sop.withPriority(Priority.BACKGROUND).armor()
+                .data("Hello".getBytes(StandardCharsets.UTF_8));
+        assertEquals(0, scheduler.running(Priority.BACKGROUND));
+
+        ready.getBytes();
+        assertEquals(Collections.singletonList(1), runningWhileWriting);
+        assertEquals(0, scheduler.running(Priority.BACKGROUND));
+        assertEquals(Priority.INTERACTIVE, sop.getPriority());
+    }
+
+    @Test
+    public void unwrittenResultsDoNotHoldSlots() throws IOException {
+        OperationScheduler scheduler = new OperationScheduler(1);
+        List<Integer> runningWhileWriting = new ArrayList<>();
+        SOP sop = new ScheduledSOP(armorBackend(runningWhileWriting, scheduler), scheduler, Priority.BACKGROUND);
+
+        // More pending results than slots must not block the creating thread
+        List<Ready> readies = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            readies.add(sop.armor().data("Hello".getBytes(StandardCharsets.UTF_8)));
+        }
+        assertEquals(0, scheduler.running(Priority.BACKGROUND));
+
+        for (Ready ready : readies) {
+            ready.getBytes();
+        }
+        assertEquals(Arrays.asList(1, 1, 1), runningWhileWriting);
+        assertEquals(0, scheduler.running(Priority.BACKGROUND));
+    }
+}
@@ -6,8 +6,11 @@ package sop.util;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 
 import org.junit.jupiter.api.Test;
 
@@ -56,6 +59,51 @@ public class HexUtilTest {
         assertHexEquals("666F6F626172", "foobar");
     }
 
+    @Test
+    public void decodeLowercase() {
+        assertArrayEquals("foobar".getBytes(ASCII), HexUtil.hexToBytes("666f6f626172"));
+    }
+
+    @Test
+    public void invalidHexThrows() {
+        assertThrows(NumberFormatException.class, () -> HexUtil.hexToBytes("66XY"));
+        assertThrows(IllegalStateException.class, () -> HexUtil.hexToBytes("666"));
+    }
+
+    @Test
+    public void allByteValuesRoundTrip() {
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        String hex = HexUtil.bytesToHex(bytes);
+        assertEquals("000102", hex.substring(0, 6));
+        assertEquals("7F80", hex.substring(254, 258));
+        assertEquals("FEFF", hex.substring(508));
+        assertArrayEquals(bytes, HexUtil.hexToBytes(hex));
+    }
+
+    @Test
+    public void encodeAndDecodeIntoPreallocatedBuffers() {
+        byte[] bytes = "xfoobarx".getBytes(ASCII);
+        char[] chars = new char[14];
+        Arrays.fill(chars, '-');
+        HexUtil.encode(bytes, 1, 6, chars, 1);
+        assertEquals("-666F6F626172-", new String(chars));
+        assertEquals("666F6F626172", HexUtil.bytesToHex(bytes, 1, 6));
+        assertEquals("666F6F626172", HexUtil.bytesToHex(ByteBuffer.wrap(bytes, 1, 6)));
+
+        byte[] out = new byte[8];
+        HexUtil.decode(new String(chars), 1, 13, out, 1);
+        assertArrayEquals(new byte[] {0, 'f', 'o', 'o', 'b', 'a', 'r', 0}, out);
+
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.put((byte) 1);
+        HexUtil.decode("666F6F", buffer);
+        assertEquals(4, buffer.position());
+        assertArrayEquals(new byte[] {1, 'f', 'o', 'o', 0, 0, 0, 0}, buffer.array());
+    }
+
     private void assertHexEquals(String hex, String ascii) {
         assertEquals(hex, HexUtil.bytesToHex(ascii.getBytes(ASCII)));
         assertArrayEquals(ascii.getBytes(ASCII), HexUtil.hexToBytes(hex));
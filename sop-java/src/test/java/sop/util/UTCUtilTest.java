@@ -7,7 +7,15 @@ package sop.util;
 import org.junit.jupiter.api.Test;
 
 import java.text.ParseException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -40,9 +48,98 @@ public class UTCUtilTest {
         assertEquals("2019-10-29T12:11:04Z", UTCUtil.formatUTCDate(date));
     }
 
+    @Test
+    public void parseWithoutSeconds() throws ParseException {
+        String timestamp = "2019-10-29T12:11Z";
+        Date date = UTCUtil.parseUTCDate(timestamp);
+        assertEquals("2019-10-29T12:11:00Z", UTCUtil.formatUTCDate(date));
+    }
+
+    @Test
+    public void parseZoneOffsets() throws ParseException {
+        assertEquals("2019-10-29T10:11:04Z", UTCUtil.formatUTCDate(UTCUtil.parseUTCDate("2019-10-29T12:11:04+02:00")));
+        assertEquals("2019-10-29T13:41:04Z", UTCUtil.formatUTCDate(UTCUtil.parseUTCDate("2019-10-29T12:11:04-0130")));
+        assertEquals("2019-10-29T07:11:04Z", UTCUtil.formatUTCDate(UTCUtil.parseUTCDate("2019-10-29T12:11:04+05")));
+        assertEquals("2019-10-30T00:11:04Z", UTCUtil.formatUTCDate(UTCUtil.parseUTCDate("2019-10-29T23:11:04-01:00")));
+    }
+
     @Test
     public void invalidDateThrows() {
         String invalidTimestamp = "foobar";
         assertThrows(ParseException.class, () -> UTCUtil.parseUTCDate(invalidTimestamp));
     }
+
+    @Test
+    public void malformedDatesThrow() {
+        for (String timestamp : new String[] {
+                "", "2019-10-29", "2019-10-29T12:11:04", "2019-13-29T12:11:04Z", "2019-02-29T12:11:04Z",
+                "2019-10-29T24:11:04Z", "2019-10-29T12:11:04Zfoo", "2019-10-29T12:11:04+2:00",
+                "2019-1-29T12:11:04Z", "20191029T121104", "20191029T1211Z", "2019-10-29T12:11+01:00"}) {
+            assertThrows(ParseException.class, () -> UTCUtil.parseUTCDate(timestamp), timestamp);
+        }
+    }
+
+    @Test
+    public void leapDay() throws ParseException {
+        String timestamp = "2024-02-29T00:00:00Z";
+        assertEquals(timestamp, UTCUtil.formatUTCDate(UTCUtil.parseUTCDate(timestamp)));
+    }
+
+    @Test
+    public void formatTruncatesMilliseconds() {
+        assertEquals("1970-01-01T00:00:00Z", UTCUtil.formatUTCDate(new Date(999)));
+        assertEquals("1969-12-31T23:59:59Z", UTCUtil.formatUTCDate(new Date(-1)));
+    }
+
+    @Test
+    public void roundTripMatchesJavaTime() throws ParseException {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            long seconds = random.nextLong() % 253402300800L; // years 0001 to 9999
+            Instant instant = Instant.ofEpochSecond(Math.abs(seconds) - 62135596800L);
+            String expected = DateTimeFormatter.ISO_INSTANT.format(instant);
+            assertEquals(expected, UTCUtil.formatUTCDate(Date.from(instant)));
+            assertEquals(instant.toEpochMilli(), UTCUtil.parseUTCDate(expected).getTime());
+        }
+    }
+
+    @Test
+    public void largeYears() throws ParseException {
+        Date endOfTime = new Date(8640000000000000L);
+        String timestamp = UTCUtil.formatUTCDate(endOfTime);
+        assertEquals("275760-09-13T00:00:00Z", timestamp);
+        assertEquals(endOfTime, UTCUtil.parseUTCDate(timestamp));
+    }
+
+    @Test
+    public void yearsBeyondDateRangeThrow() throws ParseException {
+        String last = "292278993-12-31T23:59:59Z";
+        assertEquals(Instant.parse("+" + last).toEpochMilli(), UTCUtil.parseUTCDate(last).getTime());
+        for (String timestamp : new String[] {"292278995-01-01T00:00:00Z", "999999999-12-31T23:59:59Z"}) {
+            assertThrows(ParseException.class, () -> UTCUtil.parseUTCDate(timestamp), timestamp);
+        }
+    }
+
+    @Test
+    public void concurrentUse() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                long offset = t * 1000L;
+                futures.add(executor.submit(() -> {
+                    for (long s = offset; s < offset + 5000; s++) {
+                        Date date = new Date(1_600_000_000_000L + s * 1000);
+                        assertEquals(date, UTCUtil.parseUTCDate(UTCUtil.formatUTCDate(date)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -6,11 +6,23 @@ package sop.util;
 
 import org.junit.jupiter.api.Test;
 
+import sop.exception.SOPGPException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class UTF8UtilTest {
 
@@ -36,4 +48,86 @@ public class UTF8UtilTest {
         assertThrows(CharacterCodingException.class,
                 () -> UTF8Util.decodeUTF8(new byte[] {(byte) 0x80, (byte) 0xbf}));
     }
+
+    @Test
+    public void truncatedSequenceThrows() {
+        byte[] euro = "\u20ac".getBytes(StandardCharsets.UTF_8);
+        assertThrows(CharacterCodingException.class,
+                () -> UTF8Util.decodeUTF8(Arrays.copyOf(euro, 2)));
+        assertThrows(CharacterCodingException.class,
+                () -> UTF8Util.decodeUTF8(new ByteArrayInputStream(Arrays.copyOf(euro, 2))));
+    }
+
+    @Test
+    public void validatorAgreesWithCharsetDecoder() {
+        Random random = new Random(1);
+        byte[] alphabet = new byte[] {'a', 0x7f, (byte) 0x80, (byte) 0xbf, (byte) 0xc0, (byte) 0xc2, (byte) 0xdf,
+                (byte) 0xe0, (byte) 0xa0, (byte) 0xed, (byte) 0x9f, (byte) 0xee, (byte) 0xf0, (byte) 0x90,
+                (byte) 0xf4, (byte) 0x8f, (byte) 0xf5, (byte) 0xff};
+        for (int i = 0; i < 100000; i++) {
+            byte[] data = new byte[random.nextInt(12)];
+            for (int j = 0; j < data.length; j++) {
+                data[j] = alphabet[random.nextInt(alphabet.length)];
+            }
+            assertEquals(isValidAccordingToJdk(data), UTF8Util.isValidUTF8(data), Arrays.toString(data));
+        }
+    }
+
+    @Test
+    public void sequencesMaySpanChunks() {
+        byte[] data = "Gr\u00FC\u00DFe, \uD83D\uDE00 and some ASCII text to exercise the fast path".getBytes(StandardCharsets.UTF_8);
+        for (int split = 0; split <= data.length; split++) {
+            UTF8Validator validator = new UTF8Validator();
+            assertTrue(validator.update(data, 0, split));
+            assertTrue(validator.update(data, split, data.length - split));
+            assertTrue(validator.isComplete());
+            assertEquals(data.length, validator.getPosition());
+        }
+    }
+
+    @Test
+    public void validatorReportsPosition() {
+        byte[] data = "0123456789abcdef_0123456789".getBytes(StandardCharsets.UTF_8);
+        data[17] = (byte) 0xff;
+        UTF8Validator validator = new UTF8Validator();
+        assertFalse(validator.update(data));
+        assertFalse(validator.isValid());
+        assertEquals(17, validator.getPosition());
+    }
+
+    @Test
+    public void decodeDirectByteBuffer() throws CharacterCodingException {
+        byte[] data = "Gr\u00FC\u00DFe".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length).put(data).flip();
+        assertEquals("Gr\u00FC\u00DFe", UTF8Util.decodeUTF8(buffer));
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void requireTextFailsWithExpectedText() {
+        byte[] data = new byte[10000];
+        Arrays.fill(data, (byte) 'a');
+        data[9000] = (byte) 0xc0;
+        InputStream input = UTF8Util.requireText(new ByteArrayInputStream(data));
+        SOPGPException.ExpectedText e = assertThrows(SOPGPException.ExpectedText.class, input::readAllBytes);
+        assertTrue(e.getMessage().contains("9000"), e.getMessage());
+    }
+
+    @Test
+    public void requireTextPassesValidText() throws IOException {
+        byte[] data = "Hello, W\u00F6rld!\n".getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(data, UTF8Util.requireText(new ByteArrayInputStream(data)).readAllBytes());
+    }
+
+    private static boolean isValidAccordingToJdk(byte[] data) {
+        try {
+            StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(data));
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
 }